@@ -0,0 +1,311 @@
+/*
+ *  ActionQueue.java
+ *  Copyright (c) 2017 Simon Hern
+ *  Contact: dishmoth@yahoo.co.uk, dishmoth.com, github.com/dishmoth
+ */
+
+package com.dishmoth.miniquests;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+import java.nio.Buffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+// a queue of actions (key bits, see KeyMonitorBits) in a memory-mapped file,
+// so that a process on the same machine can control a game tick by tick
+// (one writer, the controlling process, and one reader, the game; neither
+// side locks; layout, all little-endian:
+//   header:  magic, version, capacity (ints)
+//            number of actions written (long, at HEADER_WRITTEN)
+//            number of actions read (long, at HEADER_READ)
+//            tick on which the game last wanted an action (long)
+//   actions: capacity x key bits (ints), action n kept at n % capacity
+// the writer stores an action before increasing the number written, and
+// mustn't get more than capacity actions ahead of the number read; the
+// counts are on cache lines of their own so the two sides don't collide)
+// (each side stores its count with release semantics and loads the other
+// side's count with acquire semantics, so an action is in place before the
+// reader sees it counted, and has been read before the writer can reuse its
+// slot; this uses sun.misc.Unsafe, so it needs a desktop JVM that has it,
+// OpenJDK or Oracle Java 7 onwards, on any processor; elsewhere the 
+// constructors throw UnsupportedOperationException)
+public class ActionQueue {
+
+  // identifies a queue file
+  public static final int MAGIC   = 0x4D514151, // "MQAQ"
+                          VERSION = 1;
+
+  // byte offsets of the header fields
+  public static final int HEADER_MAGIC     = 0,
+                          HEADER_VERSION   = 4,
+                          HEADER_CAPACITY  = 8,
+                          HEADER_WRITTEN   = 64,
+                          HEADER_READ      = 128,
+                          HEADER_READ_TICK = 136,
+                          HEADER_SIZE      = 192;
+
+  // capacity if not specified
+  public static final int DEFAULT_CAPACITY = 64;
+
+  // returned by poll() when no action is ready
+  public static final int EMPTY = -1;
+
+  // the mapped file
+  private RandomAccessFile mFile;
+  private MappedByteBuffer mBuffer;
+
+  // number of actions the queue can hold
+  private final int mCapacity;
+
+  // address of the mapped file
+  private final long mAddress;
+
+  // number of actions read so far
+  private long mNumRead;
+
+  // ordered stores and loads on native memory (or null if not available)
+  private static final MethodHandle kPutOrderedLong,
+                                    kGetLongVolatile;
+
+  // offset of the memory address in a direct buffer object
+  private static final long kAddressOffset;
+
+  // where the handles come from (or null if not available)
+  private static final Object kUnsafe;
+
+  // look up the ordered stores and loads
+  static {
+
+    Object unsafe = null;
+    MethodHandle putOrdered = null,
+                 getVolatile = null;
+    long addressOffset = -1;
+    try {
+      Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+      Field field = unsafeClass.getDeclaredField("theUnsafe");
+      field.setAccessible(true);
+      unsafe = field.get(null);
+      addressOffset = (Long)unsafeClass.getMethod("objectFieldOffset", 
+                                                  Field.class)
+                      .invoke(unsafe, Buffer.class.getDeclaredField("address"));
+      MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+      putOrdered = lookup.unreflect(unsafeClass.getMethod("putOrderedLong",
+                                                           Object.class, 
+                                                           long.class, 
+                                                           long.class))
+                         .bindTo(unsafe);
+      getVolatile = lookup.unreflect(unsafeClass.getMethod("getLongVolatile",
+                                                            Object.class, 
+                                                            long.class))
+                          .bindTo(unsafe);
+    } catch ( Exception ex ) {
+      unsafe = null;
+      putOrdered = getVolatile = null;
+    }
+    kUnsafe = unsafe;
+    kPutOrderedLong = putOrdered;
+    kGetLongVolatile = getVolatile;
+    kAddressOffset = addressOffset;
+
+  } // static
+
+  // memory address of a mapped buffer
+  private static long address(MappedByteBuffer buffer) {
+
+    if ( kUnsafe == null ) {
+      throw new UnsupportedOperationException(
+                         "Action queues need sun.misc.Unsafe on this JVM");
+    }
+    try {
+      return (Long)kUnsafe.getClass()
+                          .getMethod("getLong", Object.class, long.class)
+                          .invoke(kUnsafe, buffer, kAddressOffset);
+    } catch ( Exception ex ) {
+      throw new UnsupportedOperationException(
+                          "Action queues need sun.misc.Unsafe on this JVM", ex);
+    }
+
+  } // address()
+
+  // store a count, with earlier loads and stores kept before it
+  private static void putRelease(long address, long value) {
+
+    if ( ByteOrder.nativeOrder() != ByteOrder.LITTLE_ENDIAN ) {
+      value = Long.reverseBytes(value);
+    }
+    try {
+      kPutOrderedLong.invokeExact((Object)null, address, value);
+    } catch ( Throwable ex ) {
+      throw new IllegalStateException(ex);
+    }
+
+  } // putRelease()
+
+  // load a count, with later loads and stores kept after it
+  private static long getAcquire(long address) {
+
+    long value;
+    try {
+      value = (long)kGetLongVolatile.invokeExact((Object)null, address);
+    } catch ( Throwable ex ) {
+      throw new IllegalStateException(ex);
+    }
+    if ( ByteOrder.nativeOrder() != ByteOrder.LITTLE_ENDIAN ) {
+      value = Long.reverseBytes(value);
+    }
+    return value;
+
+  } // getAcquire()
+
+  // constructor (default capacity)
+  public ActionQueue(File file) throws IOException {
+
+    this(file, DEFAULT_CAPACITY);
+
+  } // constructor
+
+  // constructor (creates or replaces the queue file)
+  public ActionQueue(File file, int capacity) throws IOException {
+
+    assert( capacity > 0 );
+
+    mCapacity = capacity;
+
+    final long size = HEADER_SIZE + 4L*mCapacity;
+    mFile = new RandomAccessFile(file, "rw");
+    mFile.setLength(0);
+    mFile.setLength(size);
+    mBuffer = mFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+    mBuffer.order(ByteOrder.LITTLE_ENDIAN);
+    mAddress = address(mBuffer);
+
+    mBuffer.putInt(HEADER_VERSION, VERSION);
+    mBuffer.putInt(HEADER_CAPACITY, mCapacity);
+    mBuffer.putLong(HEADER_WRITTEN, 0);
+    mBuffer.putLong(HEADER_READ, 0);
+    mBuffer.putLong(HEADER_READ_TICK, -1);
+    mBuffer.putInt(HEADER_MAGIC, MAGIC);
+
+    mNumRead = 0;
+
+  } // constructor
+
+  // number of actions the queue can hold
+  public int capacity() { return mCapacity; }
+
+  // number of actions read so far
+  public long numRead() { return mNumRead; }
+
+  // whether an action is waiting to be read
+  public boolean ready() {
+
+    return ( getAcquire(mAddress + HEADER_WRITTEN) > mNumRead );
+
+  } // ready()
+
+  // take the next action, noting the tick it is wanted for
+  // (returns EMPTY if the writer hasn't supplied one yet)
+  public int poll(long tick) {
+
+    mBuffer.putLong(HEADER_READ_TICK, tick);
+
+    final long action = mNumRead;
+    if ( getAcquire(mAddress + HEADER_WRITTEN) <= action ) return EMPTY;
+
+    final int bits = mBuffer.getInt(HEADER_SIZE
+                                    + 4*(int)(action % mCapacity));
+
+    mNumRead = action + 1;
+    putRelease(mAddress + HEADER_READ, mNumRead);
+    return ( bits & KeyMonitorBits.ALL );
+
+  } // poll()
+
+  // stop reading (the file stays behind)
+  public void close() throws IOException {
+
+    mFile.close();
+
+  } // close()
+
+  // supplies actions to a queue file made by another thread or process
+  // (programs in other languages should follow the layout above)
+  public static class Writer {
+
+    // the mapped file
+    private RandomAccessFile mFile;
+    private MappedByteBuffer mBuffer;
+
+    // address of the mapped file
+    private final long mAddress;
+
+    // number of actions the queue can hold
+    private final int mCapacity;
+
+    // number of actions written so far
+    private long mNumWritten;
+
+    // constructor
+    public Writer(File file) throws IOException {
+
+      mFile = new RandomAccessFile(file, "rw");
+      mBuffer = mFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0,
+                                        mFile.length());
+      mBuffer.order(ByteOrder.LITTLE_ENDIAN);
+      mAddress = address(mBuffer);
+
+      if ( mBuffer.getInt(HEADER_MAGIC) != MAGIC ||
+           mBuffer.getInt(HEADER_VERSION) != VERSION ) {
+        mFile.close();
+        throw new IOException("not an action queue: " + file);
+      }
+      mCapacity = mBuffer.getInt(HEADER_CAPACITY);
+      mNumWritten = getAcquire(mAddress + HEADER_WRITTEN);
+
+    } // constructor
+
+    // number of actions the queue can hold
+    public int capacity() { return mCapacity; }
+
+    // number of actions written so far
+    public long numWritten() { return mNumWritten; }
+
+    // number of actions the game has read so far
+    public long numRead() { return getAcquire(mAddress + HEADER_READ); }
+
+    // the tick on which the game last wanted an action (or -1)
+    public long readTick() { return mBuffer.getLong(HEADER_READ_TICK); }
+
+    // add an action to the queue (returns false if the queue is full)
+    public boolean offer(int bits) {
+
+      assert( (bits & ~KeyMonitorBits.ALL) == 0 );
+
+      final long action = mNumWritten;
+      if ( action - getAcquire(mAddress + HEADER_READ) >= mCapacity ) {
+        return false;
+      }
+
+      mBuffer.putInt(HEADER_SIZE + 4*(int)(action % mCapacity), bits);
+      mNumWritten = action + 1;
+      putRelease(mAddress + HEADER_WRITTEN, mNumWritten);
+      return true;
+
+    } // offer()
+
+    // stop writing
+    public void close() throws IOException {
+
+      mFile.close();
+
+    } // close()
+
+  } // class ActionQueue.Writer
+
+} // class ActionQueue
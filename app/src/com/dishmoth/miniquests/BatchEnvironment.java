@@ -0,0 +1,362 @@
+/*
+ *  BatchEnvironment.java
+ *  Copyright (c) 2017 Simon Hern
+ *  Contact: dishmoth@yahoo.co.uk, dishmoth.com, github.com/dishmoth
+ */
+
+package com.dishmoth.miniquests;
+
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+
+import com.dishmoth.miniquests.game.EgaCanvas;
+import com.dishmoth.miniquests.game.Env;
+import com.dishmoth.miniquests.game.GameContext;
+import com.dishmoth.miniquests.game.GameManager;
+import com.dishmoth.miniquests.game.QuestStats;
+import com.dishmoth.miniquests.game.QuestStory;
+import com.dishmoth.miniquests.game.RandomStream;
+import com.dishmoth.miniquests.game.SaveState;
+
+// a batch of independent games that are stepped together (for training
+// agents); each step takes one set of key bits per game (see KeyMonitorBits)
+// and advances every game by one tick, spread across a fixed set of threads
+// (the results are written into arrays that are reused from step to step)
+public class BatchEnvironment {
+
+  // main method (steps a batch of games with random actions, as a benchmark)
+  // arguments: [number of games] [number of steps] [number of threads]
+  public static void main(String args[]) throws InterruptedException {
+
+    final int numGames   = ( args.length > 0 ) ? Integer.parseInt(args[0])
+                                               : 64;
+    final int numSteps   = ( args.length > 1 ) ? Integer.parseInt(args[1])
+                                               : 30*60;
+    final int numThreads = ( args.length > 2 ) ? Integer.parseInt(args[2])
+                                               : defaultNumThreads();
+
+    BatchEnvironment env = new BatchEnvironment(numGames, 0, numThreads);
+    long seeds[] = new long[numGames];
+    for ( int k = 0 ; k < numGames ; k++ ) seeds[k] = k;
+    env.reset(seeds);
+
+    int actions[] = new int[numGames];
+    RandomStream random = new RandomStream(0);
+    float totalReward = 0.0f;
+    int numDone = 0;
+
+    final long startNanos = System.nanoTime();
+    for ( int step = 0 ; step < numSteps ; step++ ) {
+      for ( int k = 0 ; k < numGames ; k++ ) {
+        if ( (step % 8) == 0 ) {
+          actions[k] = random.nextInt(2*KeyMonitorBits.FIRE);
+        }
+      }
+      env.step(actions);
+      for ( int k = 0 ; k < numGames ; k++ ) {
+        totalReward += env.rewards()[k];
+        if ( env.dones()[k] ) numDone++;
+      }
+    }
+    final double secs = (System.nanoTime() - startNanos)*1.0e-9;
+    env.close();
+
+    System.out.println(numSteps + " steps of " + numGames + " games in "
+                       + String.format("%.2f", secs) + " sec ("
+                       + String.format("%.0f", numSteps*numGames/secs)
+                       + " game ticks per sec), total reward "
+                       + totalReward + ", " + numDone + " done");
+
+  } // main()
+
+  // rewards for progress through a quest
+  public static final float REWARD_NEW_ROOM = 1.0f,
+                            REWARD_DEATH    = -1.0f,
+                            REWARD_COMPLETE = 10.0f;
+
+  // size of the frame for one game (palette indices, row by row)
+  public static final int FRAME_SIZE = Env.screenWidth()*Env.screenHeight();
+
+  // which quest every game plays
+  private final int mQuestNum;
+
+  // the games
+  private final int mNumGames;
+  private GameManager    mGames[];
+  private KeyMonitorBits mKeys[];
+  private EgaCanvas      mScreens[];
+
+  // progress of each game, as last seen (for working out the rewards)
+  private QuestStats mStats[];
+  private int        mDeaths[],
+                     mRooms[];
+
+  // results of the latest step (reused each time)
+  private float   mRewards[];
+  private boolean mDones[];
+  private byte    mFrames[];
+
+  // actions for the current step
+  private int mActions[];
+
+  // worker threads, which each step a fixed range of the games
+  // (the calling thread steps the first range itself)
+  private final int     mNumThreads;
+  private Thread        mThreads[];
+  private CyclicBarrier mStartBarrier,
+                        mEndBarrier;
+  private volatile boolean mClosing;
+
+  // the first game to fail during the current step, and how (or null)
+  private int       mFailedGame;
+  private Throwable mFailure;
+
+  // number of threads to use if not specified (one per core)
+  public static int defaultNumThreads() {
+
+    return Runtime.getRuntime().availableProcessors();
+
+  } // defaultNumThreads()
+
+  // constructor (the games are not ready until reset() has been called)
+  public BatchEnvironment(int numGames, int questNum, int numThreads) {
+
+    assert( numGames > 0 );
+    assert( questNum >= 0 && questNum < QuestStory.NUM_QUESTS );
+    assert( numThreads > 0 );
+
+    HeadlessRunner.initializeEnv(false);
+
+    mQuestNum = questNum;
+    mNumGames = numGames;
+
+    mGames   = new GameManager[numGames];
+    mKeys    = new KeyMonitorBits[numGames];
+    mScreens = new EgaCanvas[numGames];
+    mStats   = new QuestStats[numGames];
+    mDeaths  = new int[numGames];
+    mRooms   = new int[numGames];
+    for ( int k = 0 ; k < numGames ; k++ ) {
+      mKeys[k] = new KeyMonitorBits();
+      mScreens[k] = new EgaCanvas(Env.screenWidth(), Env.screenHeight());
+    }
+
+    mRewards = new float[numGames];
+    mDones   = new boolean[numGames];
+    mFrames  = new byte[numGames*FRAME_SIZE];
+    mActions = new int[numGames];
+
+    mNumThreads = Math.min(numThreads, numGames);
+    mClosing = false;
+    mFailedGame = -1;
+    mFailure = null;
+    mStartBarrier = new CyclicBarrier(mNumThreads);
+    mEndBarrier = new CyclicBarrier(mNumThreads);
+    mThreads = new Thread[mNumThreads];
+    for ( int t = 1 ; t < mNumThreads ; t++ ) {
+      final int index = t;
+      mThreads[t] = new Thread(new Runnable() {
+        public void run() { workerLoop(index); }
+      }, "BatchEnvironment-" + t);
+      mThreads[t].setDaemon(true);
+      mThreads[t].start();
+    }
+
+  } // constructor
+
+  // number of games in the batch
+  public int numGames() { return mNumGames; }
+
+  // rewards from the latest step (one per game)
+  public float[] rewards() { return mRewards; }
+
+  // which games have finished their quest (they stay finished until reset)
+  public boolean[] dones() { return mDones; }
+
+  // frames from the latest step, one after the other
+  // (each is FRAME_SIZE palette indices, see EgaTools.EGA_PALETTE)
+  public byte[] frames() { return mFrames; }
+
+  // access to one of the games
+  public GameManager game(int index) { return mGames[index]; }
+
+  // start every game again from the given seeds
+  public void reset(long seeds[]) {
+
+    assert( seeds != null && seeds.length == mNumGames );
+    for ( int k = 0 ; k < mNumGames ; k++ ) reset(k, seeds[k]);
+
+  } // reset()
+
+  // start one game again from a seed
+  public void reset(int index, long seed) {
+
+    GameContext context = new GameContext(new EnvBitsHeadless(false),
+                                          new SoundsNull(),
+                                          mKeys[index], seed);
+    mKeys[index].reset();
+
+    GameContext oldContext = Env.bindContext(context);
+    mGames[index] = new GameManager(new QuestStory(mQuestNum), context);
+    mGames[index].advance();
+    Env.bindContext(oldContext);
+
+    mStats[index] = context.saveState().questStats();
+    mDeaths[index] = 0;
+    mRooms[index] = 0;
+    mRewards[index] = 0.0f;
+    mDones[index] = false;
+    drawFrame(index);
+
+  } // reset()
+
+  // apply one set of key bits to each game, then advance them all one tick
+  // (games that are done are left as they are; if a game throws, the other
+  // games still take their step, then an IllegalStateException reports the
+  // failure; the failed game counts as done until it is reset)
+  public void step(int actions[]) {
+
+    assert( actions != null && actions.length == mNumGames );
+    assert( !mClosing );
+
+    System.arraycopy(actions, 0, mActions, 0, mNumGames);
+    if ( mNumThreads > 1 ) {
+      await(mStartBarrier);
+      stepRange(0);
+      await(mEndBarrier);
+    } else {
+      stepRange(0);
+    }
+
+    final int failedGame;
+    final Throwable failure;
+    synchronized ( this ) {
+      failedGame = mFailedGame;
+      failure = mFailure;
+      mFailedGame = -1;
+      mFailure = null;
+    }
+    if ( failure != null ) {
+      throw new IllegalStateException("Game " + failedGame + " failed", 
+                                      failure);
+    }
+
+  } // step()
+
+  // stop the worker threads
+  public void close() throws InterruptedException {
+
+    mClosing = true;
+    if ( mNumThreads > 1 ) {
+      await(mStartBarrier);
+      for ( int t = 1 ; t < mNumThreads ; t++ ) mThreads[t].join();
+    }
+
+  } // close()
+
+  // what each worker thread does (step its games, then wait for more)
+  private void workerLoop(int threadIndex) {
+
+    while ( true ) {
+      await(mStartBarrier);
+      if ( mClosing ) return;
+      stepRange(threadIndex);
+      await(mEndBarrier);
+    }
+
+  } // workerLoop()
+
+  // step the games that belong to one thread
+  // (a game that fails is noted, so that every thread reaches the barrier)
+  private void stepRange(int threadIndex) {
+
+    final int start = (threadIndex*mNumGames)/mNumThreads,
+              end   = ((threadIndex+1)*mNumGames)/mNumThreads;
+    for ( int k = start ; k < end ; k++ ) {
+      try {
+        stepGame(k);
+      } catch ( RuntimeException ex ) {
+        noteFailure(k, ex);
+      } catch ( Error ex ) {
+        noteFailure(k, ex);
+      }
+    }
+
+  } // stepRange()
+
+  // record a game's failure (only the first in each step is reported)
+  private synchronized void noteFailure(int index, Throwable failure) {
+
+    mDones[index] = true;
+    mRewards[index] = 0.0f;
+    if ( mFailure != null ) return;
+    mFailedGame = index;
+    mFailure = failure;
+
+  } // noteFailure()
+
+  // step one game and record the results
+  private void stepGame(int index) {
+
+    assert( mGames[index] != null );
+
+    if ( mDones[index] ) {
+      mRewards[index] = 0.0f;
+      return;
+    }
+
+    mKeys[index].set(mActions[index]);
+    mGames[index].advance();
+
+    SaveState saveState = mGames[index].context().saveState();
+    QuestStats stats = mStats[index];
+    float reward = 0.0f;
+    final int deaths = stats.numDeaths(),
+              rooms  = stats.numRoomsVisited();
+    if ( deaths > mDeaths[index] ) {
+      reward += (deaths - mDeaths[index])*REWARD_DEATH;
+      mDeaths[index] = deaths;
+    }
+    if ( rooms > mRooms[index] ) {
+      if ( mRooms[index] > 0 ) {
+        reward += (rooms - mRooms[index])*REWARD_NEW_ROOM;
+      }
+      mRooms[index] = rooms;
+    }
+    if ( saveState.questScore(mQuestNum) > 0 ) {
+      reward += REWARD_COMPLETE;
+      mDones[index] = true;
+    } else if ( saveState.questStats() != stats ) {
+      mDones[index] = true;
+    }
+    mRewards[index] = reward;
+
+    drawFrame(index);
+
+  } // stepGame()
+
+  // draw a game and copy its screen into the frame buffer
+  private void drawFrame(int index) {
+
+    EgaCanvas screen = mScreens[index];
+    screen.clear();
+    mGames[index].draw(screen);
+    System.arraycopy(screen.pixels(), 0, mFrames, index*FRAME_SIZE,
+                     FRAME_SIZE);
+
+  } // drawFrame()
+
+  // wait at a barrier (the threads don't expect to be interrupted)
+  private static void await(CyclicBarrier barrier) {
+
+    try {
+      barrier.await();
+    } catch ( InterruptedException ex ) {
+      throw new IllegalStateException(ex);
+    } catch ( BrokenBarrierException ex ) {
+      throw new IllegalStateException(ex);
+    }
+
+  } // await()
+
+} // class BatchEnvironment
@@ -0,0 +1,221 @@
+/*
+ *  ControllerModule.java
+ *  Copyright (c) 2017 Simon Hern
+ *  Contact: dishmoth@yahoo.co.uk, dishmoth.com, github.com/dishmoth
+ */
+
+package com.dishmoth.miniquests;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.locks.LockSupport;
+
+import com.dishmoth.miniquests.game.Brain;
+import com.dishmoth.miniquests.game.Env;
+
+// brain for the player that takes its actions from an ActionQueue, so that
+// another process (a bot, in any language) can play the game tick by tick
+// without sockets or screen scraping
+// (install it with GameContext.setController(); when no action is ready the
+// game can wait for one, or carry on with the previous keys or with none)
+public class ControllerModule extends Brain.Module {
+
+  // main method (plays a game controlled through a queue file; without a
+  // file, a thread of this process writes random actions to a temporary one)
+  // arguments: [number of ticks] [policy] [quest number] [queue file]
+  public static void main(String args[]) throws IOException {
+
+    final int  numTicks = ( args.length > 0 ) ? Integer.parseInt(args[0])
+                                              : 30*60*10;
+    final int  policy   = ( args.length > 1 ) ? policyFromName(args[1])
+                                              : WAIT;
+    final int  questNum = ( args.length > 2 ) ? Integer.parseInt(args[2])
+                                              : 0;
+    final File file     = ( args.length > 3 ) ? new File(args[3]) : null;
+
+    final File queueFile = ( file != null ) ? file
+                           : File.createTempFile("actions", ".mqa");
+    if ( file == null ) queueFile.deleteOnExit();
+    ActionQueue queue = new ActionQueue(queueFile);
+
+    if ( file == null ) {
+      Thread writer = new Thread(new RandomWriter(queueFile, numTicks));
+      writer.setDaemon(true);
+      writer.start();
+    } else {
+      System.out.println("Waiting for actions in " + queueFile);
+    }
+
+    HeadlessRunner.initializeEnv(false);
+    HeadlessRunner runner = new HeadlessRunner(questNum, 0,
+                                               new KeyMonitorNull());
+    ControllerModule controller = new ControllerModule(queue, policy,
+                                                       kDefaultTimeoutNanos);
+    runner.context().setController(controller);
+    runner.run(numTicks);
+
+    queue.close();
+
+    System.out.println(runner.report());
+    System.out.println(controller.report());
+
+  } // main()
+
+  // writes random actions to a queue, as fast as the game takes them
+  private static class RandomWriter implements Runnable {
+
+    private final File mFile;
+    private final int  mNumActions;
+
+    RandomWriter(File file, int numActions) {
+      mFile = file;
+      mNumActions = numActions;
+    }
+
+    @Override
+    public void run() {
+      try {
+        ActionQueue.Writer writer = new ActionQueue.Writer(mFile);
+        Random random = new Random(0);
+        int bits = 0;
+        for ( int k = 0 ; k < mNumActions ; k++ ) {
+          if ( random.nextInt(8) == 0 ) {
+            bits = random.nextInt(KeyMonitorBits.ALL)
+                   & ~KeyMonitorBits.ESCAPE;
+          }
+          while ( !writer.offer(bits) ) Thread.yield();
+        }
+        writer.close();
+      } catch ( IOException ex ) {
+        System.out.println("Cannot write actions: " + ex);
+      }
+    }
+
+  } // class ControllerModule.RandomWriter
+
+  // what to do when no action is ready
+  public static final int WAIT    = 0, // wait for one (up to a time limit)
+                          REPEAT  = 1, // keep the previous keys
+                          RELEASE = 2; // release all the keys
+  private static final String kPolicyNames[] = { "wait", "repeat",
+                                                 "release" };
+
+  // how long to wait for an action if not specified
+  private static final long kDefaultTimeoutNanos = 5000000000L;
+
+  // how a wait for an action goes: spinning at first, then yielding the
+  // thread, then sleeping in short bursts
+  private static final int  kSpinChecks  = 200,
+                            kYieldChecks = 2000;
+  private static final long kParkNanos   = 50000;
+
+  // where the actions come from
+  private final ActionQueue mQueue;
+
+  // what to do when no action is ready
+  private final int mPolicy;
+
+  // how long to wait for an action (for the WAIT policy)
+  private final long mTimeoutNanos;
+
+  // keys currently pressed (as KeyMonitorBits)
+  private int mBits;
+
+  // statistics: actions taken, ticks with no action ready, ticks on which
+  // the game gave up waiting, and time spent waiting
+  private long mNumActions,
+               mNumWaits,
+               mNumMissed,
+               mWaitNanos;
+
+  // constructor (the timeout only matters for the WAIT policy)
+  public ControllerModule(ActionQueue queue, int policy, long timeoutNanos) {
+
+    assert( queue != null );
+    assert( policy >= 0 && policy < kPolicyNames.length );
+    assert( timeoutNanos >= 0 );
+
+    mQueue = queue;
+    mPolicy = policy;
+    mTimeoutNanos = timeoutNanos;
+
+    mBits = 0;
+    mNumActions = mNumWaits = mNumMissed = mWaitNanos = 0;
+
+  } // constructor
+
+  // policy number from its name (as given on the command line)
+  public static int policyFromName(String name) {
+
+    for ( int k = 0 ; k < kPolicyNames.length ; k++ ) {
+      if ( kPolicyNames[k].equalsIgnoreCase(name) ) return k;
+    }
+    throw new IllegalArgumentException("Unknown policy: " + name);
+
+  } // policyFromName()
+
+  // the keys currently pressed (as KeyMonitorBits)
+  public int bits() { return mBits; }
+
+  // take the next action from the queue (the escape key is ignored, since
+  // the player has no use for it)
+  @Override
+  public void advance() {
+
+    int bits = mQueue.poll(Env.ticks());
+    if ( bits == ActionQueue.EMPTY ) {
+      mNumWaits++;
+      if ( mPolicy == WAIT ) bits = waitForAction();
+      if ( bits == ActionQueue.EMPTY ) {
+        if ( mPolicy == WAIT ) mNumMissed++;
+        bits = ( mPolicy == RELEASE ) ? 0 : mBits;
+      } else {
+        mNumActions++;
+      }
+    } else {
+      mNumActions++;
+    }
+
+    mBits  = bits;
+    mRight = ( (bits & KeyMonitorBits.RIGHT) != 0 );
+    mUp    = ( (bits & KeyMonitorBits.UP)    != 0 );
+    mLeft  = ( (bits & KeyMonitorBits.LEFT)  != 0 );
+    mDown  = ( (bits & KeyMonitorBits.DOWN)  != 0 );
+    mFire  = ( (bits & KeyMonitorBits.FIRE)  != 0 );
+
+  } // Brain.Module.advance()
+
+  // wait until the queue has an action (or the time limit passes)
+  private int waitForAction() {
+
+    final long startNanos = System.nanoTime();
+    int bits = ActionQueue.EMPTY;
+    for ( int check = 0 ; bits == ActionQueue.EMPTY ; check++ ) {
+      if ( check >= kSpinChecks ) {
+        if ( System.nanoTime() - startNanos >= mTimeoutNanos ) break;
+        if ( check < kSpinChecks + kYieldChecks ) {
+          Thread.yield();
+        } else {
+          LockSupport.parkNanos(kParkNanos);
+        }
+      }
+      bits = mQueue.poll(Env.ticks());
+    }
+    mWaitNanos += System.nanoTime() - startNanos;
+    return bits;
+
+  } // waitForAction()
+
+  // text output (statistics)
+  public String report() {
+
+    final long numWaits = Math.max(1, mNumWaits);
+    return ( mNumActions + " actions (" + kPolicyNames[mPolicy] + "), "
+             + mNumWaits + " not ready, " + mNumMissed + " timed out, "
+             + String.format("%.1f", mWaitNanos*1.0e-3/numWaits)
+             + " microsec average wait" );
+
+  } // report()
+
+} // class ControllerModule
@@ -0,0 +1,307 @@
+/*
+ *  DepthCheck.java
+ *  Copyright (c) 2017 Simon Hern
+ *  Contact: dishmoth@yahoo.co.uk, dishmoth.com, github.com/dishmoth
+ */
+
+package com.dishmoth.miniquests;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import com.dishmoth.miniquests.game.EgaCanvas;
+import com.dishmoth.miniquests.game.EgaImage;
+import com.dishmoth.miniquests.game.Env;
+import com.dishmoth.miniquests.game.GameContext;
+import com.dishmoth.miniquests.game.QuestStory;
+
+// checks EgaImage's depth handling, failing (with a non-zero exit code) if
+// any of these go wrong:
+//  - random plots, fills and draws (with constant depths, per-pixel depths,
+//    no depths, and depths closer together than any fixed point scale)
+//    must give exactly the same pixels and depths as a plain float depth
+//    buffer drawn the same way;
+//  - a depth out of range must trip an assertion rather than be clamped;
+//  - every quest must play and draw without a depth out of range
+public class DepthCheck {
+
+  // depth of pixels never drawn at any depth (as in the float version)
+  private static final float kFarDepth = 1.0e6f;
+
+  // size of the canvas used for the random drawing
+  private static final int kWidth  = 40,
+                           kHeight = 30;
+
+  // a reference image: plain pixel and depth arrays
+  private static class Reference {
+    final int   mRefXPos, mRefYPos, mWidth, mHeight;
+    final byte  mPixels[];
+    final float mDepths[];
+    Reference(int refXPos, int refYPos, int width, int height,
+              byte pixels[], float depths[]) {
+      mRefXPos = refXPos;
+      mRefYPos = refYPos;
+      mWidth   = width;
+      mHeight  = height;
+      mPixels  = pixels;
+      mDepths  = depths;
+    }
+  } // class Reference
+
+  // main method (run with assertions enabled, -ea)
+  // arguments: [number of operations per run=2000] [runs=50] [seed]
+  public static void main(String args[]) {
+
+    final int  numOps  = ( args.length > 0 ) ? Integer.parseInt(args[0])
+                                             : 2000;
+    final int  numRuns = ( args.length > 1 ) ? Integer.parseInt(args[1]) : 50;
+    final long seed    = ( args.length > 2 ) ? Long.parseLong(args[2]) : 0;
+
+    boolean assertsOn = false;
+    assert( assertsOn = true );
+    if ( !assertsOn ) {
+      System.out.println("Depth check needs assertions enabled (-ea)");
+      System.exit(1);
+    }
+
+    HeadlessRunner.initializeEnv(false);
+
+    String problem = null;
+    Random random = new Random(seed);
+    for ( int run = 0 ; run < numRuns && problem == null ; run++ ) {
+      problem = checkDrawing(random, numOps);
+      if ( problem != null ) problem = "run " + run + ": " + problem;
+    }
+    if ( problem == null ) problem = checkRange();
+    if ( problem == null ) problem = checkQuests(seed);
+
+    if ( problem != null ) {
+      System.out.println("Depth check failed: " + problem);
+      System.exit(1);
+    }
+    System.out.println("Depths okay (" + numRuns + " runs of " + numOps
+                       + " operations)");
+
+  } // main()
+
+  // draw at random on a canvas and on a reference in the same way,
+  // returning a description of the first difference (or null)
+  private static String checkDrawing(Random random, int numOps) {
+
+    EgaCanvas canvas = new EgaCanvas(kWidth, kHeight);
+    canvas.clear();
+    byte refPixels[] = new byte[kWidth*kHeight];
+    float refDepths[] = new float[kWidth*kHeight];
+    Arrays.fill(refPixels, (byte)63);
+    Arrays.fill(refDepths, kFarDepth);
+    Reference ref = new Reference(0, 0, kWidth, kHeight,
+                                  refPixels, refDepths);
+
+    float lastDepth = 0.0f;
+    for ( int op = 0 ; op < numOps ; op++ ) {
+      final float depth = randomDepth(random, lastDepth);
+      lastDepth = depth;
+      final byte colour = (byte)random.nextInt(64);
+      final int x = random.nextInt(kWidth+10) - 5,
+                y = random.nextInt(kHeight+10) - 5;
+      final String name;
+      switch ( random.nextInt(5) ) {
+        case 0: {
+          name = "plot";
+          canvas.plot(x, y, depth, colour);
+          if ( x >= 0 && x < kWidth && y >= 0 && y < kHeight ) {
+            final int index = x + y*kWidth;
+            if ( depth <= refDepths[index] ) {
+              refPixels[index] = colour;
+              refDepths[index] = depth;
+            }
+          }
+        } break;
+        case 1: {
+          name = "fill";
+          final int x1 = Math.min(x + random.nextInt(8), kWidth-1),
+                    y1 = Math.min(y + random.nextInt(8), kHeight-1),
+                    x0 = Math.max(x, 0),
+                    y0 = Math.max(y, 0);
+          canvas.fill(x0, x1, y0, y1, depth, colour);
+          for ( int iy = y0 ; iy <= y1 ; iy++ ) {
+            for ( int ix = x0 ; ix <= x1 ; ix++ ) {
+              final int index = ix + iy*kWidth;
+              if ( depth <= refDepths[index] ) {
+                refPixels[index] = colour;
+                refDepths[index] = depth;
+              }
+            }
+          }
+        } break;
+        default: {
+          // (sometimes the image has another image drawn onto it first)
+          Reference src = randomReference(random, lastDepth);
+          EgaImage image = makeImage(src);
+          if ( random.nextInt(4) == 0 ) {
+            Reference over = randomReference(random, lastDepth);
+            final int ox = random.nextInt(5) - 2,
+                      oy = random.nextInt(5) - 2;
+            final float od = randomDepth(random, lastDepth);
+            makeImage(over).draw(image, ox, oy, od);
+            draw(over, src, ox, oy, true, od);
+          }
+          final boolean useDepth = ( random.nextInt(6) != 0 );
+          name = "draw" + (useDepth ? "" : " (no depth)");
+          if ( useDepth ) image.draw(canvas, x, y, depth);
+          else            image.draw(canvas, x, y);
+          draw(src, ref, x, y, useDepth, depth);
+        } break;
+      }
+
+      for ( int k = 0 ; k < refPixels.length ; k++ ) {
+        if ( canvas.pixels()[k] != refPixels[k]
+             || canvas.depth(k) != refDepths[k] ) {
+          return ("operation " + op + " (" + name + ") pixel " + k
+                  + " is " + canvas.pixels()[k] + " at " + canvas.depth(k)
+                  + ", should be " + refPixels[k] + " at " + refDepths[k]);
+        }
+      }
+    }
+    return null;
+
+  } // checkDrawing()
+
+  // a random depth, often very close to the last one (as for particles)
+  private static float randomDepth(Random random, float lastDepth) {
+
+    switch ( random.nextInt(4) ) {
+      case 0:  return lastDepth + (random.nextFloat() - 0.5f)*1.0e-4f;
+      case 1:  return random.nextInt(61) - 20;
+      case 2:  return random.nextInt(200) - 100 + 0.05f*random.nextInt(20);
+      default: return (random.nextFloat() - 0.3f)*60.0f;
+    }
+
+  } // randomDepth()
+
+  // a random image (with no depths, one depth, or a depth for each pixel)
+  private static Reference randomReference(Random random, float lastDepth) {
+
+    final int width  = 1 + random.nextInt(8),
+              height = 1 + random.nextInt(8);
+    byte pixels[] = new byte[width*height];
+    for ( int k = 0 ; k < pixels.length ; k++ ) {
+      pixels[k] = (byte)( random.nextInt(3) == 0 ? -1 : random.nextInt(64) );
+    }
+    float depths[] = new float[width*height];
+    final int type = random.nextInt(4);
+    if ( type == 0 ) {
+      Arrays.fill(depths, kFarDepth);
+    } else if ( type == 1 ) {
+      Arrays.fill(depths, randomDepth(random, lastDepth));
+    } else {
+      for ( int k = 0 ; k < depths.length ; k++ ) {
+        depths[k] = randomDepth(random, lastDepth);
+      }
+    }
+    return new Reference(random.nextInt(5) - 2, random.nextInt(5) - 2,
+                         width, height, pixels, depths);
+
+  } // randomReference()
+
+  // make an EgaImage to match a reference image
+  private static EgaImage makeImage(Reference ref) {
+
+    final byte pixels[] = Arrays.copyOf(ref.mPixels, ref.mPixels.length);
+    if ( ref.mDepths[0] == kFarDepth ) {
+      return new EgaImage(ref.mRefXPos, ref.mRefYPos, ref.mWidth,
+                          ref.mHeight, pixels);
+    }
+    boolean constant = true;
+    for ( float d : ref.mDepths ) if ( d != ref.mDepths[0] ) constant = false;
+    if ( constant ) {
+      return new EgaImage(ref.mRefXPos, ref.mRefYPos, ref.mWidth,
+                          ref.mHeight, pixels, ref.mDepths[0]);
+    }
+    return new EgaImage(ref.mRefXPos, ref.mRefYPos, ref.mWidth, ref.mHeight,
+                        pixels, Arrays.copyOf(ref.mDepths,
+                                              ref.mDepths.length));
+
+  } // makeImage()
+
+  // draw one reference image onto another (as the float version did)
+  private static void draw(Reference src, Reference dest, int xPos, int yPos,
+                           boolean useDepth, float depth) {
+
+    for ( int sy = 0 ; sy < src.mHeight ; sy++ ) {
+      for ( int sx = 0 ; sx < src.mWidth ; sx++ ) {
+        final int dx = xPos - src.mRefXPos + dest.mRefXPos + sx,
+                  dy = yPos - src.mRefYPos + dest.mRefYPos + sy;
+        if ( dx < 0 || dx >= dest.mWidth ||
+             dy < 0 || dy >= dest.mHeight ) continue;
+        final int sInd = sx + sy*src.mWidth,
+                  dInd = dx + dy*dest.mWidth;
+        final byte pixel = src.mPixels[sInd];
+        if ( pixel < 0 ) continue;
+        if ( useDepth ) {
+          final float pixDepth = src.mDepths[sInd] + depth;
+          if ( pixDepth > dest.mDepths[dInd] ) continue;
+          dest.mDepths[dInd] = pixDepth;
+        }
+        dest.mPixels[dInd] = pixel;
+      }
+    }
+
+  } // draw()
+
+  // check that depths out of range trip assertions (returns a problem or
+  // null)
+  private static String checkRange() {
+
+    final float badDepths[] = { 2.0e5f, -2.0e5f, Float.NaN };
+    for ( float bad : badDepths ) {
+      byte pixel[] = { 1 };
+      try {
+        new EgaImage(0, 0, 1, 1, pixel, bad);
+        return "image made with depth " + bad;
+      } catch ( AssertionError e ) {}
+      EgaCanvas canvas = new EgaCanvas(4, 4);
+      canvas.clear();
+      try {
+        canvas.plot(1, 1, bad, (byte)1);
+        return "pixel plotted at depth " + bad;
+      } catch ( AssertionError e ) {}
+      try {
+        new EgaImage(0, 0, 1, 1, pixel, 0.0f).draw(canvas, 1, 1, bad);
+        return "image drawn at depth " + bad;
+      } catch ( AssertionError e ) {}
+    }
+    return null;
+
+  } // checkRange()
+
+  // play and draw each quest with random keys (returns a problem or null)
+  private static String checkQuests(long seed) {
+
+    for ( int questNum = 0 ; questNum < QuestStory.NUM_QUESTS ; questNum++ ) {
+      KeyMonitorBits keys = new KeyMonitorBits();
+      HeadlessRunner runner = new HeadlessRunner(questNum, seed, keys);
+      EgaCanvas canvas = new EgaCanvas(Env.screenWidth(),
+                                       Env.screenHeight());
+      Random random = new Random(seed + questNum);
+      int bits = 0;
+      for ( int tick = 0 ; tick < 3000 ; tick++ ) {
+        if ( random.nextInt(8) == 0 ) bits = random.nextInt(KeyMonitorBits.ALL);
+        keys.set(bits & ~KeyMonitorBits.ESCAPE);
+        runner.run(1);
+        GameContext old = Env.bindContext(runner.context());
+        try {
+          canvas.clear();
+          runner.gameManager().draw(canvas);
+        } catch ( AssertionError e ) {
+          return "quest " + questNum + " tick " + tick + ": " + e;
+        } finally {
+          Env.bindContext(old);
+        }
+      }
+    }
+    return null;
+
+  } // checkQuests()
+
+} // class DepthCheck
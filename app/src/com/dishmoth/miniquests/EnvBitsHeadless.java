@@ -0,0 +1,75 @@
+/*
+ *  EnvBitsHeadless.java
+ *  Copyright (c) 2017 Simon Hern
+ *  Contact: dishmoth@yahoo.co.uk, dishmoth.com, github.com/dishmoth
+ */
+
+package com.dishmoth.miniquests;
+
+import com.dishmoth.miniquests.game.Env;
+import com.dishmoth.miniquests.game.EnvBits;
+
+// platform-dependent code for Env (headless version, no window or files)
+public class EnvBitsHeadless implements EnvBits {
+
+  // whether to display debug text
+  private boolean mVerbose;
+  
+  // the most recently saved data (kept in memory)
+  private byte mSaveData[];
+  
+  // set if the game has asked to terminate
+  private boolean mExitRequested;
+  
+  // constructor
+  public EnvBitsHeadless(boolean verbose) {
+    
+    mVerbose = verbose;
+    mSaveData = null;
+    mExitRequested = false;
+    
+  } // constructor()
+  
+  // prepare before use
+  public void initialize() {
+  } // EnvBits.initialize()
+  
+  // display debug text (if verbose)
+  public void debug(String message) {
+
+    if ( mVerbose ) System.out.println(message);
+    
+  } // EnvBits.debug()
+
+  // which platform we're running on
+  public Env.Platform platform() { return Env.Platform.APP; }
+
+  // terminate the program (just note the request)
+  public void exit() {
+
+    mExitRequested = true;
+    
+  } // EnvBits.exit()
+
+  // whether the game has asked to terminate
+  public boolean exitRequested() { return mExitRequested; }
+  
+  // save some game data
+  public void save(byte data[]) {
+    
+    mSaveData = Env.copyOf(data);
+    
+  } // EnvBits.save()
+  
+  // load the game data
+  public byte[] load() {
+    
+    return Env.copyOf(mSaveData);
+    
+  } // EnvBits.load()
+
+  // send a log message back to HQ (not when headless)
+  public void report(String address, String message) {
+  } // EnvBits.report()
+  
+} // class EnvBitsHeadless
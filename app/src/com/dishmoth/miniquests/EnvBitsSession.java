@@ -0,0 +1,96 @@
+/*
+ *  EnvBitsSession.java
+ *  Copyright (c) 2017 Simon Hern
+ *  Contact: dishmoth@yahoo.co.uk, dishmoth.com, github.com/dishmoth
+ */
+
+package com.dishmoth.miniquests;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import com.dishmoth.miniquests.game.Env;
+import com.dishmoth.miniquests.game.EnvBits;
+
+// platform-dependent code for Env (one hosted session, saving to its own file)
+// (no locks are held during file access, so this is safe on virtual threads)
+public class EnvBitsSession implements EnvBits {
+
+  // where the session's data is saved
+  private File mSaveFile;
+
+  // prefix for debug messages (or null for no messages)
+  private String mDebugPrefix;
+
+  // set if the game has asked to terminate
+  private volatile boolean mExitRequested;
+
+  // constructor
+  public EnvBitsSession(File saveFile, String debugPrefix) {
+
+    assert( saveFile != null );
+
+    mSaveFile = saveFile;
+    mDebugPrefix = debugPrefix;
+    mExitRequested = false;
+
+  } // constructor()
+
+  // prepare before use
+  public void initialize() {
+  } // EnvBits.initialize()
+
+  // display debug text
+  public void debug(String message) {
+
+    if ( mDebugPrefix != null ) System.out.println(mDebugPrefix + message);
+
+  } // EnvBits.debug()
+
+  // which platform we're running on
+  public Env.Platform platform() { return Env.Platform.APP; }
+
+  // terminate the session (just note the request)
+  public void exit() {
+
+    mExitRequested = true;
+
+  } // EnvBits.exit()
+
+  // whether the game has asked to terminate
+  public boolean exitRequested() { return mExitRequested; }
+
+  // save some game data (written to a temporary file, then moved into place)
+  public void save(byte data[]) {
+
+    File tempFile = new File(mSaveFile.getPath() + ".tmp");
+    try {
+      Files.write(tempFile.toPath(), data);
+      Files.move(tempFile.toPath(), mSaveFile.toPath(),
+                 StandardCopyOption.REPLACE_EXISTING);
+    } catch ( IOException ex ) {
+      debug("Failed to save " + mSaveFile + ": " + ex.getMessage());
+    }
+
+  } // EnvBits.save()
+
+  // load the game data (null if there isn't any)
+  public byte[] load() {
+
+    if ( !mSaveFile.exists() ) return null;
+    try {
+      return Files.readAllBytes(mSaveFile.toPath());
+    } catch ( IOException ex ) {
+      debug("Failed to load " + mSaveFile + ": " + ex.getMessage());
+      return null;
+    }
+
+  } // EnvBits.load()
+
+  // send a log message back to HQ (not for hosted sessions)
+  public void report(String address, String message) {
+  } // EnvBits.report()
+
+} // class EnvBitsSession
@@ -0,0 +1,300 @@
+/*
+ *  FrameRing.java
+ *  Copyright (c) 2017 Simon Hern
+ *  Contact: dishmoth@yahoo.co.uk, dishmoth.com, github.com/dishmoth
+ */
+
+package com.dishmoth.miniquests;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import com.dishmoth.miniquests.game.EgaCanvas;
+import com.dishmoth.miniquests.game.Env;
+import com.dishmoth.miniquests.game.GameContext;
+
+// publishes a game's frames into a ring of slots in a memory-mapped file, so
+// that other processes on the same machine can follow the game
+// (one writer, any number of readers; layout, all little-endian:
+//   header: magic, version, number of slots, slot size, width, height (ints),
+//           number of frames written (long, at HEADER_FRAME_COUNT)
+//   slot:   sequence (long), tick (long), key bits (int), padding (int),
+//           checksum (long),
+//           pixels (width x height palette indices, padded to 8 bytes)
+// a slot's sequence is odd while it is being written, and 2(n+1) once it
+// holds frame n; the checksum is 64-bit FNV-1a over the sequence 2(n+1), 
+// the tick and the key bits (as little-endian bytes) followed by the pixels)
+// (nothing orders the writer's stores as another process sees them, so a 
+// reader only trusts a slot if its contents agree with its checksum; this
+// works the same on any platform, and a torn slot has a 1 in 2^64 chance of
+// getting through)
+public class FrameRing implements TickScheduler.FrameListener {
+
+  // main method (follows a ring file and reports on what arrives)
+  // arguments: [ring file] [number of seconds]
+  public static void main(String args[]) throws IOException,
+                                                InterruptedException {
+
+    if ( args.length < 1 ) {
+      System.out.println("Arguments: [ring file] [number of seconds]");
+      return;
+    }
+    final File file = new File(args[0]);
+    final int numSeconds = ( args.length > 1 ) ? Integer.parseInt(args[1])
+                                               : 10;
+
+    Reader reader = new Reader(file);
+    byte pixels[] = new byte[reader.frameSize()];
+    long next = reader.numFrames(),
+         numRead = 0,
+         numMissed = 0,
+         lastTick = -1;
+    final long endNanos = System.nanoTime() + numSeconds*1000000000L;
+    while ( System.nanoTime() - endNanos < 0 ) {
+      final long latest = reader.numFrames();
+      if ( latest <= next ) {
+        Thread.sleep(1);
+        continue;
+      }
+      if ( latest - next > reader.numSlots() ) {
+        numMissed += latest - reader.numSlots() - next;
+        next = latest - reader.numSlots();
+      }
+      for ( ; next < latest ; next++ ) {
+        final long tick = reader.read(next, pixels);
+        if ( tick < 0 ) {
+          numMissed++;
+        } else {
+          numRead++;
+          lastTick = tick;
+        }
+      }
+    }
+    reader.close();
+
+    System.out.println(numRead + " frames read, " + numMissed + " missed, "
+                       + "last tick " + lastTick);
+
+  } // main()
+
+  // identifies a ring file
+  public static final int MAGIC   = 0x4D514652, // "MQFR"
+                          VERSION = 2;
+
+  // byte offsets of the header fields
+  public static final int HEADER_MAGIC       = 0,
+                          HEADER_VERSION     = 4,
+                          HEADER_NUM_SLOTS   = 8,
+                          HEADER_SLOT_SIZE   = 12,
+                          HEADER_WIDTH       = 16,
+                          HEADER_HEIGHT      = 20,
+                          HEADER_FRAME_COUNT = 24,
+                          HEADER_SIZE        = 64;
+
+  // byte offsets of the fields in each slot
+  public static final int SLOT_SEQUENCE = 0,
+                          SLOT_TICK     = 8,
+                          SLOT_KEYS     = 16,
+                          SLOT_CHECKSUM = 24,
+                          SLOT_PIXELS   = 32;
+
+  // number of slots if not specified
+  public static final int DEFAULT_NUM_SLOTS = 64;
+
+  // the mapped file
+  private RandomAccessFile mFile;
+  private MappedByteBuffer mBuffer;
+
+  // layout of the ring
+  private final int mNumSlots,
+                    mSlotSize,
+                    mFrameSize;
+
+  // number of frames written so far
+  private long mNumFrames;
+
+  // constructor (default number of slots)
+  public FrameRing(File file) throws IOException {
+
+    this(file, DEFAULT_NUM_SLOTS);
+
+  } // constructor
+
+  // constructor (creates or replaces the ring file)
+  public FrameRing(File file, int numSlots) throws IOException {
+
+    assert( numSlots > 0 );
+
+    mNumSlots = numSlots;
+    mFrameSize = Env.screenWidth()*Env.screenHeight();
+    mSlotSize = SLOT_PIXELS + ((mFrameSize + 7) & ~7);
+
+    final long size = HEADER_SIZE + (long)mNumSlots*mSlotSize;
+    mFile = new RandomAccessFile(file, "rw");
+    mFile.setLength(0);
+    mFile.setLength(size);
+    mBuffer = mFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+    mBuffer.order(ByteOrder.LITTLE_ENDIAN);
+
+    mBuffer.putInt(HEADER_VERSION, VERSION);
+    mBuffer.putInt(HEADER_NUM_SLOTS, mNumSlots);
+    mBuffer.putInt(HEADER_SLOT_SIZE, mSlotSize);
+    mBuffer.putInt(HEADER_WIDTH, Env.screenWidth());
+    mBuffer.putInt(HEADER_HEIGHT, Env.screenHeight());
+    mBuffer.putLong(HEADER_FRAME_COUNT, 0);
+    mBuffer.putInt(HEADER_MAGIC, MAGIC);
+
+    mNumFrames = 0;
+
+  } // constructor
+
+  // number of slots in the ring
+  public int numSlots() { return mNumSlots; }
+
+  // number of frames written so far
+  public long numFrames() { return mNumFrames; }
+
+  // checksum of a slot's contents (64-bit FNV-1a)
+  static long checksum(long sequence, long tick, int keyBits, 
+                       byte pixels[], int numPixels) {
+    
+    long hash = 0xcbf29ce484222325L;
+    for ( int k = 0 ; k < 8 ; k++ ) {
+      hash = (hash ^ ((sequence >>> 8*k) & 0xFF)) * 0x100000001b3L;
+    }
+    for ( int k = 0 ; k < 8 ; k++ ) {
+      hash = (hash ^ ((tick >>> 8*k) & 0xFF)) * 0x100000001b3L;
+    }
+    for ( int k = 0 ; k < 4 ; k++ ) {
+      hash = (hash ^ ((keyBits >>> 8*k) & 0xFF)) * 0x100000001b3L;
+    }
+    for ( int k = 0 ; k < numPixels ; k++ ) {
+      hash = (hash ^ (pixels[k] & 0xFF)) * 0x100000001b3L;
+    }
+    return hash;
+    
+  } // checksum()
+  
+  // write a frame into the next slot
+  public void publish(EgaCanvas screen, long tick, int keyBits) {
+
+    assert( screen.pixels().length == mFrameSize );
+
+    final long frame = mNumFrames;
+    final int offset = HEADER_SIZE + (int)(frame % mNumSlots)*mSlotSize;
+
+    mBuffer.putLong(offset + SLOT_SEQUENCE, 2*frame + 1);
+    mBuffer.putLong(offset + SLOT_TICK, tick);
+    mBuffer.putInt(offset + SLOT_KEYS, keyBits);
+    mBuffer.position(offset + SLOT_PIXELS);
+    mBuffer.put(screen.pixels());
+    mBuffer.position(0);
+    mBuffer.putLong(offset + SLOT_CHECKSUM, 
+                    checksum(2*frame + 2, tick, keyBits, 
+                             screen.pixels(), mFrameSize));
+    mBuffer.putLong(offset + SLOT_SEQUENCE, 2*frame + 2);
+
+    mNumFrames = frame + 1;
+    mBuffer.putLong(HEADER_FRAME_COUNT, mNumFrames);
+
+  } // publish()
+
+  // publish a frame from a scheduled game
+  public void frameReady(TickScheduler.Session session, EgaCanvas screen) {
+
+    GameContext context = session.gameManager().context();
+    publish(screen, context.ticks(), KeyMonitorBits.bitsOf(context.keys()));
+
+  } // TickScheduler.FrameListener.frameReady()
+
+  // stop writing (the file stays behind for readers)
+  public void close() throws IOException {
+
+    mBuffer.force();
+    mFile.close();
+
+  } // close()
+
+  // follows a ring file written by another thread or process
+  public static class Reader {
+
+    // the mapped file
+    private RandomAccessFile mFile;
+    private MappedByteBuffer mBuffer;
+
+    // layout of the ring
+    private final int mNumSlots,
+                      mSlotSize,
+                      mFrameSize;
+
+    // key bits of the frame last read
+    private int mKeyBits;
+
+    // constructor
+    public Reader(File file) throws IOException {
+
+      mFile = new RandomAccessFile(file, "r");
+      mBuffer = mFile.getChannel().map(FileChannel.MapMode.READ_ONLY, 0,
+                                        mFile.length());
+      mBuffer.order(ByteOrder.LITTLE_ENDIAN);
+
+      if ( mBuffer.getInt(HEADER_MAGIC) != MAGIC ||
+           mBuffer.getInt(HEADER_VERSION) != VERSION ) {
+        mFile.close();
+        throw new IOException("not a frame ring: " + file);
+      }
+      mNumSlots = mBuffer.getInt(HEADER_NUM_SLOTS);
+      mSlotSize = mBuffer.getInt(HEADER_SLOT_SIZE);
+      mFrameSize = mBuffer.getInt(HEADER_WIDTH)*mBuffer.getInt(HEADER_HEIGHT);
+      mKeyBits = 0;
+
+    } // constructor
+
+    // layout of the ring
+    public int numSlots() { return mNumSlots; }
+    public int frameSize() { return mFrameSize; }
+
+    // number of frames written so far
+    public long numFrames() { return mBuffer.getLong(HEADER_FRAME_COUNT); }
+
+    // copy out a frame's pixels, returning its tick number
+    // (returns -1 if the frame has been overwritten, isn't written yet, or
+    // was torn by the writer part way through)
+    public long read(long frame, byte pixels[]) {
+
+      assert( frame >= 0 && pixels.length >= mFrameSize );
+
+      final int offset = HEADER_SIZE + (int)(frame % mNumSlots)*mSlotSize;
+      if ( mBuffer.getLong(offset + SLOT_SEQUENCE) != 2*frame + 2 ) return -1;
+
+      final long tick = mBuffer.getLong(offset + SLOT_TICK);
+      final int keyBits = mBuffer.getInt(offset + SLOT_KEYS);
+      final long checksum = mBuffer.getLong(offset + SLOT_CHECKSUM);
+      mBuffer.position(offset + SLOT_PIXELS);
+      mBuffer.get(pixels, 0, mFrameSize);
+      mBuffer.position(0);
+
+      if ( checksum(2*frame + 2, tick, keyBits, pixels, mFrameSize) 
+           != checksum ) return -1;
+      mKeyBits = keyBits;
+      return tick;
+
+    } // read()
+
+    // the key bits recorded with the frame last read successfully
+    public int keyBits() { return mKeyBits; }
+
+    // stop reading
+    public void close() throws IOException {
+
+      mFile.close();
+
+    } // close()
+
+  } // class FrameRing.Reader
+
+} // class FrameRing
@@ -0,0 +1,48 @@
+/*
+ *  GameContextThreads.java
+ *  Copyright (c) 2017 Simon Hern
+ *  Contact: dishmoth@yahoo.co.uk, dishmoth.com, github.com/dishmoth
+ */
+
+package com.dishmoth.miniquests;
+
+import com.dishmoth.miniquests.game.Env;
+import com.dishmoth.miniquests.game.GameContext;
+
+// keeps a separate current game context for each thread
+// (so that independent games can be advanced concurrently)
+public class GameContextThreads implements GameContext.Binding {
+
+  // the context bound to each thread (null falls back on Env's default)
+  private final ThreadLocal<GameContext> mContexts
+                                            = new ThreadLocal<GameContext>();
+
+  // install a per-thread binding into Env (only needs doing once)
+  public static synchronized void install() {
+
+    if ( !kInstalled ) {
+      Env.setContextBinding(new GameContextThreads());
+      kInstalled = true;
+    }
+
+  } // install()
+
+  // whether install() has been called
+  private static boolean kInstalled = false;
+
+  // constructor
+  private GameContextThreads() {
+  } // constructor
+
+  // the context in use by the current thread
+  public GameContext current() { return mContexts.get(); }
+
+  // change the context in use by the current thread
+  public void set(GameContext context) {
+
+    if ( context == null ) mContexts.remove();
+    else                   mContexts.set(context);
+
+  } // GameContext.Binding.set()
+
+} // class GameContextThreads
@@ -0,0 +1,95 @@
+/*
+ *  GameIsolationCheck.java
+ *  Copyright (c) 2017 Simon Hern
+ *  Contact: dishmoth@yahoo.co.uk, dishmoth.com, github.com/dishmoth
+ */
+
+package com.dishmoth.miniquests;
+
+import com.dishmoth.miniquests.game.Door;
+import com.dishmoth.miniquests.game.Env;
+import com.dishmoth.miniquests.game.GameContext;
+import com.dishmoth.miniquests.game.QuestStory;
+import com.dishmoth.miniquests.game.Room;
+import com.dishmoth.miniquests.rooms.RoomA02;
+
+// checks that two games in the same room don't share any of its state,
+// failing (with a non-zero exit code) if opening a door in one game opens
+// it in the other as well (the room's doors used to be kept on its static
+// table of exits, so every game saw the same ones)
+public class GameIsolationCheck {
+
+  // the room and the door used for the check (the door is closed until the
+  // room's switch is pressed)
+  private static final String kRoomName  = RoomA02.NAME;
+  private static final int    kDoorIndex = 1;
+
+  // how long the games run for after the door is opened
+  private static final int kNumTicks = 30*5;
+
+  // main method
+  public static void main(String args[]) {
+
+    HeadlessRunner first  = startGame(),
+                   second = startGame();
+
+    String problem = null;
+    Door firstDoor  = door(first),
+         secondDoor = door(second);
+    if ( firstDoor == null || secondDoor == null ) {
+      problem = "room " + kRoomName + " has no door " + kDoorIndex;
+    } else if ( firstDoor == secondDoor ) {
+      problem = "both games have the same door";
+    } else if ( !firstDoor.closed() || !secondDoor.closed() ) {
+      problem = "door doesn't start closed";
+    }
+
+    if ( problem == null ) {
+      GameContext old = Env.bindContext(first.context());
+      try {
+        firstDoor.setClosed(false);
+      } finally {
+        Env.bindContext(old);
+      }
+      first.run(kNumTicks);
+      second.run(kNumTicks);
+      if ( door(first) != firstDoor || door(second) != secondDoor ) {
+        problem = "doors replaced while the games ran";
+      } else if ( firstDoor.closed() ) {
+        problem = "door didn't stay open in the first game";
+      } else if ( !secondDoor.closed() ) {
+        problem = "door opened in the second game too";
+      }
+    }
+
+    if ( problem != null ) {
+      System.out.println("Game isolation check failed: " + problem);
+      System.exit(1);
+    }
+    System.out.println("Games okay (door " + kDoorIndex + " of room "
+                       + kRoomName + " kept separate)");
+
+  } // main()
+
+  // start a game (with no keys pressed) in the check's room
+  private static HeadlessRunner startGame() {
+
+    Replay replay = new Replay(0, 0);
+    replay.setStartPoint(kRoomName, 0);
+    HeadlessRunner runner = new HeadlessRunner(replay);
+    runner.run(1);
+    return runner;
+
+  } // startGame()
+
+  // the check's door in a game's current room (or null)
+  private static Door door(HeadlessRunner runner) {
+
+    QuestStory quest = (QuestStory)runner.gameManager().story();
+    Room room = quest.currentRoom();
+    if ( room == null || !room.name().equals(kRoomName) ) return null;
+    return room.door(kDoorIndex);
+
+  } // door()
+
+} // class GameIsolationCheck
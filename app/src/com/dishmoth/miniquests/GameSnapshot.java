@@ -0,0 +1,270 @@
+/*
+ *  GameSnapshot.java
+ *  Copyright (c) 2017 Simon Hern
+ *  Contact: dishmoth@yahoo.co.uk, dishmoth.com, github.com/dishmoth
+ */
+
+package com.dishmoth.miniquests;
+
+import java.io.IOException;
+import java.util.Random;
+
+import com.dishmoth.miniquests.game.Door;
+import com.dishmoth.miniquests.game.Env;
+import com.dishmoth.miniquests.game.GameContext;
+import com.dishmoth.miniquests.game.GameManager;
+import com.dishmoth.miniquests.game.KeyMonitor;
+import com.dishmoth.miniquests.game.QuestStory;
+import com.dishmoth.miniquests.game.Room;
+import com.dishmoth.miniquests.rooms.RoomA02;
+
+// the complete state of a game at one moment (stories, sprites, rooms, brain,
+// random numbers, tick count, save state), kept in memory
+// (restoring a snapshot makes the game carry on exactly as it did before;
+// a snapshot can be restored any number of times, into any game)
+public class GameSnapshot {
+
+  // main method (checks that restored games play out identically, in the
+  // original game, in another one, and from the snapshot's bytes, while a
+  // game that isn't restored goes differently, and that restoring undoes a
+  // door opened after the snapshot; exits with an error code if not)
+  // arguments: [quest number] [number of ticks] [seed]
+  public static void main(String args[]) throws IOException {
+
+    final int  questNum = ( args.length > 0 ) ? Integer.parseInt(args[0]) : 0;
+    final int  numTicks = ( args.length > 1 ) ? Integer.parseInt(args[1])
+                                              : 30*60;
+    final long seed     = ( args.length > 2 ) ? Long.parseLong(args[2]) : 0;
+
+    KeyMonitorBits keys = new KeyMonitorBits();
+    HeadlessRunner runner = new HeadlessRunner(questNum, seed, keys);
+    runner.setDrawInterval(1);
+    Random random = new Random(seed);
+    int keyBits[] = new int[numTicks];
+    int bits = 0;
+    for ( int k = 0 ; k < numTicks ; k++ ) {
+      if ( random.nextInt(8) == 0 ) bits = random.nextInt(KeyMonitorBits.ALL);
+      keys.set(bits & ~KeyMonitorBits.ESCAPE);
+      keyBits[k] = keys.bits();
+      runner.run(1);
+    }
+
+    final int numRepeats = 1000;
+    long startNanos = System.nanoTime();
+    GameSnapshot snapshot = null;
+    for ( int k = 0 ; k < numRepeats ; k++ ) {
+      snapshot = new GameSnapshot(runner.gameManager());
+    }
+    final double takeMicros = (System.nanoTime() - startNanos)
+                              *1.0e-3/numRepeats;
+
+    long screenHashes[] = new long[numTicks],
+         stateHashes[]  = new long[numTicks];
+    for ( int k = 0 ; k < numTicks ; k++ ) {
+      keys.set(keyBits[k]);
+      runner.run(1);
+      screenHashes[k] = screenHash(runner);
+      stateHashes[k] = runner.gameManager().stateHash();
+    }
+
+    startNanos = System.nanoTime();
+    for ( int k = 0 ; k < numRepeats ; k++ ) {
+      snapshot.restore(runner.gameManager());
+    }
+    final double restoreMicros = (System.nanoTime() - startNanos)
+                                 *1.0e-3/numRepeats;
+
+    KeyMonitorBits otherKeys = new KeyMonitorBits();
+    HeadlessRunner other = new HeadlessRunner(questNum, seed+1, otherKeys);
+    other.setDrawInterval(1);
+    KeyMonitorBits controlKeys = new KeyMonitorBits();
+    HeadlessRunner control = new HeadlessRunner(questNum, seed+1,
+                                                controlKeys);
+    control.setDrawInterval(1);
+    KeyMonitorBits bytesKeys = new KeyMonitorBits();
+    HeadlessRunner fromBytes = new HeadlessRunner(questNum, seed+1,
+                                                  bytesKeys);
+    fromBytes.setDrawInterval(1);
+    snapshot.restore(other.gameManager());
+    GameSnapshot.fromBytes(snapshot.toBytes())
+                .restore(fromBytes.gameManager());
+
+    int numDiffs = 0,
+        numOtherDiffs = 0,
+        numBytesDiffs = 0,
+        numControlDiffs = 0;
+    for ( int k = 0 ; k < numTicks ; k++ ) {
+      keys.set(keyBits[k]);
+      otherKeys.set(keyBits[k]);
+      controlKeys.set(keyBits[k]);
+      bytesKeys.set(keyBits[k]);
+      runner.run(1);
+      other.run(1);
+      fromBytes.run(1);
+      control.run(1);
+      if ( screenHash(runner) != screenHashes[k] ||
+           runner.gameManager().stateHash() != stateHashes[k] ) numDiffs++;
+      if ( screenHash(other) != screenHashes[k] ||
+           other.gameManager().stateHash() != stateHashes[k] ) {
+        numOtherDiffs++;
+      }
+      if ( screenHash(fromBytes) != screenHashes[k] ||
+           fromBytes.gameManager().stateHash() != stateHashes[k] ) {
+        numBytesDiffs++;
+      }
+      if ( screenHash(control) != screenHashes[k] ||
+           control.gameManager().stateHash() != stateHashes[k] ) {
+        numControlDiffs++;
+      }
+    }
+
+    System.out.println("Snapshot: " + snapshot.numObjects() + " objects, "
+                       + snapshot.numBytes() + " bytes, take "
+                       + String.format("%.1f", takeMicros) + " us, restore "
+                       + String.format("%.1f", restoreMicros) + " us");
+    System.out.println("Ticks differing after restore: " + numDiffs
+                       + " (same game), " + numOtherDiffs + " (other game), "
+                       + numBytesDiffs + " (from bytes), " + numControlDiffs
+                       + " (other game, not restored)");
+
+    final String doorProblem = checkDoor();
+    System.out.println("Door toggled after snapshot: "
+                       + ( (doorProblem == null) ? "restored"
+                                                 : doorProblem ));
+
+    if ( numDiffs > 0 || numOtherDiffs > 0 || numBytesDiffs > 0 ||
+         numControlDiffs == 0 || doorProblem != null ) {
+      System.out.println("Snapshot test failed");
+      System.exit(1);
+    }
+
+  } // main()
+
+  // take a snapshot in a room with a closed door, open the door and play a
+  // tick, and check that restoring the snapshot closes it again (in the same game, and from
+  // the snapshot's bytes) and puts back the same state hash
+  // (returns a problem, or null)
+  private static String checkDoor() throws IOException {
+
+    final String roomName  = RoomA02.NAME;
+    final int    doorIndex = 1;
+
+    Replay replay = new Replay(0, 0);
+    replay.setStartPoint(roomName, 0);
+    HeadlessRunner runner = new HeadlessRunner(replay);
+    runner.run(1);
+    Door door = door(runner, roomName, doorIndex);
+    if ( door == null || !door.closed() ) {
+      return "no closed door in room " + roomName;
+    }
+
+    final long hash = runner.gameManager().stateHash();
+    GameSnapshot snapshot = new GameSnapshot(runner.gameManager());
+    final byte bytes[] = snapshot.toBytes();
+    for ( int pass = 0 ; pass < 2 ; pass++ ) {
+      GameContext old = Env.bindContext(runner.context());
+      try {
+        door.setClosed(false);
+      } finally {
+        Env.bindContext(old);
+      }
+      runner.run(1);
+      if ( door(runner, roomName, doorIndex) != door || door.closed() ) {
+        return "door didn't stay open";
+      }
+      if ( pass == 0 ) snapshot.restore(runner.gameManager());
+      else             fromBytes(bytes).restore(runner.gameManager());
+      final String how = ( (pass == 0) ? "" : " (from bytes)" );
+      door = door(runner, roomName, doorIndex);
+      if ( door == null || !door.closed() ) {
+        return "door still open after restore" + how;
+      }
+      if ( runner.gameManager().stateHash() != hash ) {
+        return "state hash differs after restore" + how;
+      }
+    }
+    return null;
+
+  } // checkDoor()
+
+  // a door in a game's current room (or null)
+  private static Door door(HeadlessRunner runner, String roomName,
+                           int doorIndex) {
+
+    Room room = ((QuestStory)runner.gameManager().story()).currentRoom();
+    if ( room == null || !room.name().equals(roomName) ) return null;
+    return room.door(doorIndex);
+
+  } // door()
+
+  // simple checksum of the screen (for testing)
+  private static long screenHash(HeadlessRunner runner) {
+
+    long hash = 0;
+    for ( byte pixel : runner.screen().pixels() ) hash = 31*hash + pixel;
+    return hash;
+
+  } // screenHash()
+
+  // a private copy of the game
+  private GameManager mGame;
+
+  // size of the copy
+  private int  mNumObjects;
+  private long mNumBytes;
+
+  // constructor (copies the state of the game)
+  // (the game should be between ticks, not part way through an advance)
+  public GameSnapshot(GameManager game) {
+
+    assert( game != null );
+
+    StateCopier.refreshShared();
+    StateCopier copier = new StateCopier();
+    mGame = (GameManager)copier.copy(game);
+    if ( copier.sharedChanged() ) {
+      copier = new StateCopier();
+      mGame = (GameManager)copier.copy(game);
+    }
+    mNumObjects = copier.numObjects();
+    mNumBytes = copier.numBytes();
+
+  } // constructor
+
+  // return a game to the state in the snapshot
+  // (the game keeps its own key monitor, sounds, etc.)
+  public void restore(GameManager game) {
+
+    assert( game != null );
+
+    StateCopier copier = new StateCopier();
+    copier.addTarget(mGame.context(), game.context());
+    copier.copyInto(mGame, game);
+
+  } // restore()
+
+  // the snapshot as bytes (see StateSerializer; the images and other data
+  // shared between games are not included)
+  public byte[] toBytes() { return StateSerializer.write(mGame); }
+
+  // a snapshot from bytes made by toBytes()
+  public static GameSnapshot fromBytes(byte bytes[]) throws IOException {
+
+    Object game = StateSerializer.read(bytes);
+    if ( !(game instanceof GameManager) ) {
+      throw new IOException("not a game snapshot");
+    }
+    return new GameSnapshot((GameManager)game);
+
+  } // fromBytes()
+
+  // tick count of the game when the snapshot was taken
+  public long ticks() { return mGame.context().ticks(); }
+
+  // number of objects copied
+  public int numObjects() { return mNumObjects; }
+
+  // approximate memory used by the snapshot
+  public long numBytes() { return mNumBytes; }
+
+} // class GameSnapshot
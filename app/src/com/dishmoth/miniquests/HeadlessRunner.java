@@ -0,0 +1,198 @@
+/*
+ *  HeadlessRunner.java
+ *  Copyright (c) 2017 Simon Hern
+ *  Contact: dishmoth@yahoo.co.uk, dishmoth.com, github.com/dishmoth
+ */
+
+package com.dishmoth.miniquests;
+
+import com.dishmoth.miniquests.game.EgaCanvas;
+import com.dishmoth.miniquests.game.Env;
+import com.dishmoth.miniquests.game.EnvBits;
+import com.dishmoth.miniquests.game.GameContext;
+import com.dishmoth.miniquests.game.GameManager;
+import com.dishmoth.miniquests.game.KeyMonitor;
+import com.dishmoth.miniquests.game.QuestStory;
+
+// runs a game without a window, as fast as the CPU allows
+// (no sound, no key presses unless a key monitor is supplied, no AWT)
+public class HeadlessRunner {
+
+  // main method
+  // arguments: [quest number] [number of ticks] [draw interval] [seed]
+  public static void main(String args[]) {
+
+    final int  questNum     = ( args.length > 0 ) ? Integer.parseInt(args[0])
+                                                  : 0;
+    final int  numTicks     = ( args.length > 1 ) ? Integer.parseInt(args[1])
+                                                  : 30*60*10;
+    final int  drawInterval = ( args.length > 2 ) ? Integer.parseInt(args[2])
+                                                  : 0;
+    final long seed         = ( args.length > 3 ) ? Long.parseLong(args[3])
+                                                  : 0;
+
+    initializeEnv(false);
+
+    HeadlessRunner runner = new HeadlessRunner(questNum, seed,
+                                               new KeyMonitorNull());
+    runner.setDrawInterval(drawInterval);
+    runner.run(numTicks);
+
+    System.out.println(runner.report());
+
+  } // main()
+
+  // whether the shared Env has been set up
+  private static boolean kEnvInitialized = false;
+
+  // prepare the shared Env for headless games (only needs doing once)
+  // (games then run in their own contexts, one per thread)
+  public static synchronized void initializeEnv(boolean verbose) {
+
+    if ( kEnvInitialized ) return;
+
+    GameContextThreads.install();
+    Env.initialize( new EnvBitsHeadless(verbose),
+                    new ResourcesHeadless(),
+                    new SoundsNull() );
+    Env.addKeyMonitor( new KeyMonitorNull() );
+    kEnvInitialized = true;
+
+  } // initializeEnv()
+
+  // the game being run
+  private GameContext mContext;
+  private GameManager mGameManager;
+
+  // the game screen (drawn to occasionally, if at all; made when needed)
+  private EgaCanvas mGameScreen;
+
+  // draw the screen every N ticks (or never if zero)
+  private int mDrawInterval;
+
+  // statistics from the runs so far
+  private long mNumTicks,
+               mNumDraws,
+               mNumNanos;
+
+  // constructor (the game starts on the specified quest)
+  public HeadlessRunner(int questNum, long seed, KeyMonitor keys) {
+
+    this(questNum, seed, keys, new EnvBitsHeadless(false));
+
+  } // constructor
+
+  // constructor (the game plays back a replay, from its start point)
+  public HeadlessRunner(Replay replay) {
+
+    this(replay, new EnvBitsHeadless(false));
+
+  } // constructor
+
+  // constructor (the game plays back a replay, with replacement platform
+  // code, see below)
+  public HeadlessRunner(Replay replay, EnvBits envBits) {
+
+    this(replay.questNum(), replay.seed(), new KeyMonitorReplay(replay),
+         envBits);
+
+    final String startRoom = replay.startRoom();
+    if ( startRoom != null ) {
+      ((QuestStory)mGameManager.story()).setStartPoint(
+                                         startRoom, replay.startEntryPoint());
+    }
+
+  } // constructor
+
+  // constructor (the game starts on the specified quest, and its platform
+  // code can be replaced, for instance to watch debug messages)
+  public HeadlessRunner(int questNum, long seed, KeyMonitor keys,
+                        EnvBits envBits) {
+
+    assert( questNum >= 0 && questNum < QuestStory.NUM_QUESTS );
+    assert( keys != null && envBits != null );
+
+    initializeEnv(false);
+
+    mContext = new GameContext(envBits, new SoundsNull(), keys, seed);
+
+    GameContext oldContext = Env.bindContext(mContext);
+    mGameManager = new GameManager(new QuestStory(questNum), mContext);
+    Env.bindContext(oldContext);
+
+    mGameScreen = null;
+    mDrawInterval = 0;
+
+    mNumTicks = mNumDraws = mNumNanos = 0;
+
+  } // constructor
+
+  // draw the screen every N ticks (zero for never)
+  public void setDrawInterval(int interval) {
+
+    assert( interval >= 0 );
+    mDrawInterval = interval;
+
+  } // setDrawInterval()
+
+  // access to the game
+  public GameContext context() { return mContext; }
+  public GameManager gameManager() { return mGameManager; }
+
+  // the most recently drawn screen
+  public EgaCanvas screen() {
+
+    if ( mGameScreen == null ) {
+      mGameScreen = new EgaCanvas(Env.screenWidth(), Env.screenHeight());
+    }
+    return mGameScreen;
+
+  } // screen()
+
+  // advance the game by a number of ticks, as quickly as possible
+  public void run(int numTicks) {
+
+    final long startNanos = System.nanoTime();
+
+    for ( int k = 0 ; k < numTicks ; k++ ) {
+      mGameManager.advance();
+      mNumTicks++;
+
+      if ( mDrawInterval > 0 && (mNumTicks % mDrawInterval) == 0 ) {
+        EgaCanvas screen = screen();
+        screen.clear();
+        mGameManager.draw(screen);
+        screen.publish();
+        mNumDraws++;
+      }
+    }
+
+    mNumNanos += System.nanoTime() - startNanos;
+
+  } // run()
+
+  // ticks per second achieved so far
+  public double ticksPerSecond() {
+
+    return ( mNumTicks / Math.max(1.0e-9, mNumNanos*1.0e-9) );
+
+  } // ticksPerSecond()
+
+  // text output
+  public String report() {
+
+    return new String(mNumTicks
+                      + " ticks, "
+                      + mNumDraws
+                      + " draws in "
+                      + String.format("%.2f", mNumNanos*1.0e-9)
+                      + " sec, "
+                      + String.format("%.0f", ticksPerSecond())
+                      + " ticks per sec ("
+                      + String.format("%.0f",
+                                      ticksPerSecond()/Env.ticksPerSecond())
+                      + "x real time)");
+
+  } // report()
+
+} // class HeadlessRunner
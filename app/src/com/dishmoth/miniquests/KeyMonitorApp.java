@@ -6,6 +6,7 @@
 
 package com.dishmoth.miniquests;
 
+import com.dishmoth.miniquests.game.Env;
 import com.dishmoth.miniquests.game.KeyMonitor;
 
 import java.awt.*;
@@ -82,9 +83,15 @@ public class KeyMonitorApp implements KeyListener, KeyMonitor {
   public boolean escape() { return ( pressed(KeyEvent.VK_ESCAPE) ); }
 
   // check whether any of our main keys is currently pressed
+  // (in debug mode the fast-forward and rewind keys don't count, see
+  // MainWindow, otherwise they would skip the title and story screens)
   public boolean any() {
 
+    final boolean debug = Env.debugMode();
     for ( int i = 0 ; i < kNumKeyCodes ; i++ ) {
+      if ( debug && (i == KeyEvent.VK_F || i == KeyEvent.VK_BACK_SPACE) ) {
+        continue;
+      }
       if ( mKeyStates[i] ) return true;
     }
     return false; 
@@ -0,0 +1,80 @@
+/*
+ *  KeyMonitorBits.java
+ *  Copyright (c) 2017 Simon Hern
+ *  Contact: dishmoth@yahoo.co.uk, dishmoth.com, github.com/dishmoth
+ */
+
+package com.dishmoth.miniquests;
+
+import com.dishmoth.miniquests.game.Env;
+import com.dishmoth.miniquests.game.KeyMonitor;
+
+// key monitor whose keys are set by a program as a bit mask
+// (for games controlled by agents, replays, or other processes)
+public class KeyMonitorBits implements KeyMonitor {
+
+  // bits for each key (the directions match Env.RIGHT, Env.UP, etc.)
+  public static final int RIGHT  = (1 << Env.RIGHT),
+                          UP     = (1 << Env.UP),
+                          LEFT   = (1 << Env.LEFT),
+                          DOWN   = (1 << Env.DOWN),
+                          FIRE   = (1 << 4),
+                          ESCAPE = (1 << 5);
+
+  // all of the bits that mean something
+  public static final int ALL = RIGHT | UP | LEFT | DOWN | FIRE | ESCAPE;
+
+  // the keys currently pressed
+  private volatile int mBits;
+
+  // constructor
+  public KeyMonitorBits() {
+
+    mBits = 0;
+
+  } // constructor
+
+  // the keys pressed on any key monitor, as bits
+  public static int bitsOf(KeyMonitor keys) {
+
+    return ( (keys.right()  ? RIGHT  : 0)
+           | (keys.up()     ? UP     : 0)
+           | (keys.left()   ? LEFT   : 0)
+           | (keys.down()   ? DOWN   : 0)
+           | (keys.fire()   ? FIRE   : 0)
+           | (keys.escape() ? ESCAPE : 0) );
+
+  } // bitsOf()
+
+  // change which keys are pressed
+  public void set(int bits) {
+
+    assert( (bits & ~ALL) == 0 );
+    mBits = bits;
+
+  } // set()
+
+  // which keys are pressed
+  public int bits() { return mBits; }
+
+  // assert that all keys are currently not pressed
+  public void reset() { mBits = 0; }
+
+  // check whether any of a group of keys is currently pressed
+  public boolean up()     { return ( (mBits & UP)     != 0 ); }
+  public boolean down()   { return ( (mBits & DOWN)   != 0 ); }
+  public boolean left()   { return ( (mBits & LEFT)   != 0 ); }
+  public boolean right()  { return ( (mBits & RIGHT)  != 0 ); }
+  public boolean fire()   { return ( (mBits & FIRE)   != 0 ); }
+  public boolean escape() { return ( (mBits & ESCAPE) != 0 ); }
+
+  // check whether any key is currently pressed
+  public boolean any() { return ( mBits != 0 ); }
+
+  // how the touch screen maps to controls (not relevant here)
+  public void setMode(int mode) {}
+
+  // set details of the on-screen buttons (not relevant here)
+  public void setButtonDetails(int arrowStyle, int fireStyle) {}
+
+} // class KeyMonitorBits
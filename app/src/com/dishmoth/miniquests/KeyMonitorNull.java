@@ -0,0 +1,38 @@
+/*
+ *  KeyMonitorNull.java
+ *  Copyright (c) 2017 Simon Hern
+ *  Contact: dishmoth@yahoo.co.uk, dishmoth.com, github.com/dishmoth
+ */
+
+package com.dishmoth.miniquests;
+
+import com.dishmoth.miniquests.game.KeyMonitor;
+
+// key monitor for which no keys are ever pressed (for games running headless)
+public class KeyMonitorNull implements KeyMonitor {
+
+  // constructor
+  public KeyMonitorNull() {
+  } // constructor
+  
+  // assert that all keys are currently not pressed
+  public void reset() {}
+  
+  // check whether any of a group of keys is currently pressed
+  public boolean up()     { return false; }
+  public boolean down()   { return false; }
+  public boolean left()   { return false; }
+  public boolean right()  { return false; }
+  public boolean fire()   { return false; }
+  public boolean escape() { return false; }
+
+  // check whether any key is currently pressed
+  public boolean any() { return false; }
+  
+  // how the touch screen maps to controls (not relevant here)
+  public void setMode(int mode) {}
+  
+  // set details of the on-screen buttons (not relevant here)
+  public void setButtonDetails(int arrowStyle, int fireStyle) {}
+  
+} // class KeyMonitorNull
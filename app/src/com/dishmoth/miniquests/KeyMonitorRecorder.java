@@ -0,0 +1,83 @@
+/*
+ *  KeyMonitorRecorder.java
+ *  Copyright (c) 2017 Simon Hern
+ *  Contact: dishmoth@yahoo.co.uk, dishmoth.com, github.com/dishmoth
+ */
+
+package com.dishmoth.miniquests;
+
+import com.dishmoth.miniquests.game.Env;
+import com.dishmoth.miniquests.game.KeyMonitor;
+
+// key monitor that passes on the keys from another, recording them in a
+// replay as it goes
+// (the keys are looked at once per tick, see Env.ticks(), so the game sees
+// exactly what is recorded even if keys change part way through a tick)
+public class KeyMonitorRecorder implements KeyMonitor {
+
+  // where the keys really come from
+  private final KeyMonitor mKeys;
+
+  // the recording
+  private final Replay mReplay;
+
+  // the keys for the latest tick recorded
+  private int mBits;
+
+  // constructor (the replay should start at the game's first tick)
+  public KeyMonitorRecorder(KeyMonitor keys, Replay replay) {
+
+    assert( keys != null && replay != null );
+    mKeys = keys;
+    mReplay = replay;
+    mBits = 0;
+
+  } // constructor
+
+  // the recording being made
+  public Replay replay() { return mReplay; }
+
+  // record up to the end of the game (ticks when the keys weren't looked at
+  // are filled in, so that the replay has the same length as the game)
+  public void finish(long numTicks) {
+
+    while ( mReplay.numTicks() < numTicks ) mReplay.record(mBits);
+
+  } // finish()
+
+  // the keys for the current tick (recorded the first time they're needed)
+  private int bits() {
+
+    final long tick = Env.ticks();
+    if ( tick >= mReplay.numTicks() ) {
+      finish(tick);
+      mBits = KeyMonitorBits.bitsOf(mKeys);
+      mReplay.record(mBits);
+    }
+    return mBits;
+
+  } // bits()
+
+  // assert that all keys are currently not pressed
+  public void reset() { mKeys.reset(); }
+
+  // check whether any of a group of keys is currently pressed
+  public boolean up()     { return ( (bits() & KeyMonitorBits.UP)     != 0 ); }
+  public boolean down()   { return ( (bits() & KeyMonitorBits.DOWN)   != 0 ); }
+  public boolean left()   { return ( (bits() & KeyMonitorBits.LEFT)   != 0 ); }
+  public boolean right()  { return ( (bits() & KeyMonitorBits.RIGHT)  != 0 ); }
+  public boolean fire()   { return ( (bits() & KeyMonitorBits.FIRE)   != 0 ); }
+  public boolean escape() { return ( (bits() & KeyMonitorBits.ESCAPE) != 0 ); }
+
+  // check whether any key is currently pressed
+  public boolean any() { return ( bits() != 0 ); }
+
+  // how the touch screen maps to controls
+  public void setMode(int mode) { mKeys.setMode(mode); }
+
+  // set details of the on-screen buttons
+  public void setButtonDetails(int arrowStyle, int fireStyle) {
+    mKeys.setButtonDetails(arrowStyle, fireStyle);
+  }
+
+} // class KeyMonitorRecorder
@@ -0,0 +1,54 @@
+/*
+ *  KeyMonitorReplay.java
+ *  Copyright (c) 2017 Simon Hern
+ *  Contact: dishmoth@yahoo.co.uk, dishmoth.com, github.com/dishmoth
+ */
+
+package com.dishmoth.miniquests;
+
+import com.dishmoth.miniquests.game.Env;
+import com.dishmoth.miniquests.game.KeyMonitor;
+
+// key monitor that plays back the keys recorded in a replay
+// (the keys are those recorded for the game's current tick, see Env.ticks(),
+// so the game can be run at any speed, or jump about)
+public class KeyMonitorReplay implements KeyMonitor {
+
+  // the recording
+  private final Replay mReplay;
+
+  // constructor
+  public KeyMonitorReplay(Replay replay) {
+
+    assert( replay != null );
+    mReplay = replay;
+
+  } // constructor
+
+  // the recording being played
+  public Replay replay() { return mReplay; }
+
+  // the keys recorded for the current tick
+  private int bits() { return mReplay.keyBits(Env.ticks()); }
+
+  // nothing to do (the replay decides which keys are pressed)
+  public void reset() {}
+
+  // check whether any of a group of keys is currently pressed
+  public boolean up()     { return ( (bits() & KeyMonitorBits.UP)     != 0 ); }
+  public boolean down()   { return ( (bits() & KeyMonitorBits.DOWN)   != 0 ); }
+  public boolean left()   { return ( (bits() & KeyMonitorBits.LEFT)   != 0 ); }
+  public boolean right()  { return ( (bits() & KeyMonitorBits.RIGHT)  != 0 ); }
+  public boolean fire()   { return ( (bits() & KeyMonitorBits.FIRE)   != 0 ); }
+  public boolean escape() { return ( (bits() & KeyMonitorBits.ESCAPE) != 0 ); }
+
+  // check whether any key is currently pressed
+  public boolean any() { return ( bits() != 0 ); }
+
+  // how the touch screen maps to controls (not relevant here)
+  public void setMode(int mode) {}
+
+  // set details of the on-screen buttons (not relevant here)
+  public void setButtonDetails(int arrowStyle, int fireStyle) {}
+
+} // class KeyMonitorReplay
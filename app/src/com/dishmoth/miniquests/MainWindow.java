@@ -11,24 +11,35 @@ import java.awt.event.*;
 import java.awt.image.BufferedImage;
 import java.awt.image.DataBufferInt;
 import java.awt.image.BufferStrategy;
+import java.io.File;
+import java.io.IOException;
 
 import com.dishmoth.miniquests.game.EgaCanvas;
 import com.dishmoth.miniquests.game.EgaTools;
 import com.dishmoth.miniquests.game.Env;
+import com.dishmoth.miniquests.game.FastForward;
+import com.dishmoth.miniquests.game.GameContext;
 import com.dishmoth.miniquests.game.GameManager;
 import com.dishmoth.miniquests.game.MapStory;
 import com.dishmoth.miniquests.game.MenuStory;
 import com.dishmoth.miniquests.game.QuestStats;
 import com.dishmoth.miniquests.game.QuestStory;
+import com.dishmoth.miniquests.game.RandomStream;
 import com.dishmoth.miniquests.game.TitleStory;
 
 // the main game window (pure Java, non-libGDX version)
 public class MainWindow extends Frame implements Runnable {
 
   // main method
+  // arguments: [quest number] [replay file] (to play a quest and record it,
+  // see Replay; otherwise the game starts at the title screen as usual)
   public static void main(String args[]) {
 
-    new MainWindow();
+    if ( args.length >= 2 ) {
+      new MainWindow(Integer.parseInt(args[0]), new File(args[1]));
+    } else {
+      new MainWindow();
+    }
 
   } // main()
 
@@ -42,13 +53,37 @@ public class MainWindow extends Frame implements Runnable {
   private TimingControl  mTimingControl  = null;
   private EgaCanvas      mGameScreen     = null;
   private RecolourTool   mRecolourTool   = null;
+  private FastForward    mFastForward    = null;
+  private RewindBuffer   mRewindBuffer   = null;
+
+  // recording of the game's keys (or null), and where it is saved
+  private KeyMonitorRecorder mRecorder   = null;
+  private File               mReplayFile = null;
+  private EnvBitsHeadless    mReplayEnv  = null;
+  private ReplayOutcome      mOutcome    = null;
+  private ReplayChecksums    mChecksums  = null;
+
+  // set by the key listener, acted on by the game loop
+  private volatile boolean mFastForwardRequested = false,
+                           mRewindHeld           = false;
 
   // EGA data converted to pixels
   private BufferedImage mImage;
   
+  // size of the window when the screen was last shown (or zero)
+  private int mShownWidth  = 0,
+              mShownHeight = 0;
+  
   // constructor
   public MainWindow() {
 
+    this(-1, null);
+
+  } // constructor
+
+  // constructor (plays and records a quest if a replay file is given)
+  public MainWindow(int questNum, File replayFile) {
+
     mGameCanvas = new Canvas();
     Dimension canvasDim = new Dimension(10*Env.screenWidth(), 
                                         10*Env.screenHeight());
@@ -112,7 +147,12 @@ public class MainWindow extends Frame implements Runnable {
 
     mGameScreen = new EgaCanvas(Env.screenWidth(), Env.screenHeight());
     
-    mGameManager = new GameManager(new TitleStory());
+    if ( replayFile != null ) {
+      mReplayFile = replayFile;
+      mGameManager = recordQuest(questNum);
+    } else {
+      mGameManager = new GameManager(new TitleStory());
+    }
     //mGameManager = new GameManager(new MenuStory());
     //mGameManager = new GameManager(new TrainingStory());
     //mGameManager = new GameManager(new MapStory(-1));
@@ -123,6 +163,23 @@ public class MainWindow extends Frame implements Runnable {
     
     if ( Env.debugMode() ) mRecolourTool = new RecolourTool(mGameCanvas);
     
+    // (a recorded game can be fast-forwarded, but not rewound)
+    mFastForward = new FastForward();
+    if ( Env.debugMode() ) {
+      if ( mRecorder == null ) mRewindBuffer = new RewindBuffer(mGameManager);
+      addKeyListener(
+        new KeyAdapter() {
+          public void keyPressed(KeyEvent e) {
+            if ( e.getKeyCode() == KeyEvent.VK_F ) mFastForwardRequested = true;
+            if ( e.getKeyCode() == KeyEvent.VK_BACK_SPACE ) mRewindHeld = true;
+          }
+          public void keyReleased(KeyEvent e) {
+            if ( e.getKeyCode() == KeyEvent.VK_BACK_SPACE ) mRewindHeld = false;
+          }
+        }
+      );
+    }
+    
     Env.debug("Window size: " + getWidth() + " x " + getHeight());
     Env.debug("Screen size: " + mGameCanvas.getWidth() + " x " 
                               + mGameCanvas.getHeight());
@@ -162,6 +219,8 @@ public class MainWindow extends Frame implements Runnable {
     Env.saveState().save();
     Env.sounds().stopAll();
     
+    if ( mRecorder != null ) saveReplay();
+    
     mTimingControl.report();
     
   } // stop()
@@ -186,26 +245,90 @@ public class MainWindow extends Frame implements Runnable {
 
     while ( mMainLoop == Thread.currentThread() ) {
       
-      // advance
-      mGameManager.advance();
+      // switch fast-forward speed (debug mode only, 'F' key)
+      if ( mFastForwardRequested ) {
+        mFastForwardRequested = false;
+        mFastForward.cycle();
+      }
+      
+      // advance (several ticks per frame when fast-forwarding)
+      // (or step backwards while rewinding, debug mode only, 'Backspace' key)
+      final int numAdvances = mFastForward.ticksPerFrame();
+      for ( int k = 0 ; k < numAdvances ; k++ ) {
+        if ( mRewindHeld && mRewindBuffer != null ) {
+          mRewindBuffer.stepBack();
+        } else {
+          mGameManager.advance();
+          if ( mRewindBuffer != null ) mRewindBuffer.record();
+          if ( mOutcome != null ) mOutcome.update(mGameManager);
+          if ( mChecksums != null ) mChecksums.record(mGameManager);
+        }
+      }
       long nanosAfterAdvance = System.nanoTime();
 
-      // draw
+      // the recorded game can't close the window itself
+      if ( mReplayEnv != null && mReplayEnv.exitRequested() ) {
+        EventQueue.invokeLater(new Runnable() { 
+          public void run() { exit(); } 
+        });
+        break;
+      }
+
+      // draw (only the last of the ticks)
       boolean skipDraw = mTimingControl.gameRunningSlow();
       if ( !skipDraw ) drawGameScreen();
       long nanosAfterDraw = System.nanoTime();
       
       // wait
-      mTimingControl.tick(nanosAfterAdvance, nanosAfterDraw, skipDraw);
+      mTimingControl.tick(nanosAfterAdvance, nanosAfterDraw, skipDraw, 
+                          numAdvances);
       
     }
     
     mTimingControl.report();
+    if ( mRewindBuffer != null ) Env.debug("Rewind: " + mRewindBuffer.report());
     
     mMainLoop = null;
     
   } // Runnable.run()
 
+  // start a quest in a fresh context of its own, recording the keys
+  // (the quest's saves are kept in memory, not mixed in with the player's)
+  private GameManager recordQuest(int questNum) {
+
+    final long seed = RandomStream.freshSeed();
+    mRecorder = new KeyMonitorRecorder(Env.keys(), new Replay(questNum, seed));
+    mReplayEnv = new EnvBitsHeadless(Env.debugMode());
+    mOutcome = new ReplayOutcome();
+    mChecksums = new ReplayChecksums(ReplayChecksums.DEFAULT_INTERVAL);
+    GameContext context = new GameContext(mReplayEnv, Env.sounds(), 
+                                          mRecorder, seed);
+
+    GameContext oldContext = Env.bindContext(context);
+    GameManager game = new GameManager(new QuestStory(questNum), context);
+    Env.bindContext(oldContext);
+
+    Env.debug("Recording quest " + questNum + " to " + mReplayFile);
+    return game;
+
+  } // recordQuest()
+
+  // write out the recording so far
+  private void saveReplay() {
+
+    mRecorder.finish(mGameManager.context().ticks());
+    mOutcome.addTo(mRecorder.replay());
+    mChecksums.addTo(mRecorder.replay());
+    try {
+      mRecorder.replay().save(mReplayFile);
+      Env.debug("Replay saved: " + mRecorder.replay().numTicks() + " ticks, "
+                + mReplayFile.length() + " bytes (" + mOutcome + ")");
+    } catch ( IOException ex ) {
+      Env.debug("Replay not saved: " + ex);
+    }
+
+  } // saveReplay()
+
   // black magic to try and get buffer strategy working
   private void prepareBufferStrategy() {
   
@@ -231,13 +354,20 @@ public class MainWindow extends Frame implements Runnable {
     mGameScreen.clear();
     mGameManager.draw(mGameScreen);
     
-    if ( mRecolourTool != null ) mRecolourTool.recolour(mGameScreen);
+    if ( mRecolourTool != null ) {
+      mRecolourTool.recolour(mGameScreen);
+      mGameScreen.drawnOnAll();
+    }
+    
+    final int width   = mGameCanvas.getWidth(),
+              height  = mGameCanvas.getHeight();
+    final boolean changed = mGameScreen.findChanges();
+    if ( !changed && width == mShownWidth && height == mShownHeight &&
+         !mBufferStrategy.contentsLost() ) return;
     
     Graphics g = mBufferStrategy.getDrawGraphics();
     assert( g instanceof Graphics2D );
 
-    final int width   = mGameCanvas.getWidth(),
-              height  = mGameCanvas.getHeight();
     final int scale   = Env.screenScale().scale(width+1, height+1);
     final int xOffset = (width - scale*Env.screenWidth())/2,
               yOffset = (height - scale*Env.screenHeight())/2;
@@ -245,13 +375,21 @@ public class MainWindow extends Frame implements Runnable {
     drawEgaCanvas((Graphics2D)g, scale, xOffset, yOffset);
     
     g.dispose();
-    if ( !mBufferStrategy.contentsLost() ) mBufferStrategy.show();
+    if ( !mBufferStrategy.contentsLost() ) {
+      mBufferStrategy.show();
+      mShownWidth = width;
+      mShownHeight = height;
+    } else {
+      mShownWidth = mShownHeight = 0;
+    }
     
     if ( Env.debugMode() ) mGameScreen.checkColourCount();
 
   } // drawGameScreen()
 
   // display the EGA pixels
+  // (only the pixels changed since the last frame are converted, see 
+  // EgaCanvas.findChanges(), but the image is drawn in full)
   private void drawEgaCanvas(Graphics2D g2, int scale, int xOffset, int yOffset) {
     
     if ( mImage == null ) {
@@ -265,8 +403,14 @@ public class MainWindow extends Frame implements Runnable {
     byte pixels[] = mGameScreen.pixels();
     assert( rgbPixels.length == pixels.length );
     
-    for ( int k = 0 ; k < pixels.length ; k++ ) {
-      rgbPixels[k] = EgaTools.EGA_PALETTE[ pixels[k] ];
+    final int width = mGameScreen.width();
+    for ( int iy = mGameScreen.changedY0() ; 
+          iy <= mGameScreen.changedY1() ; iy++ ) {
+      final int row = iy*width;
+      for ( int ix = mGameScreen.changedX0() ; 
+            ix <= mGameScreen.changedX1() ; ix++ ) {
+        rgbPixels[row+ix] = EgaTools.EGA_PALETTE[ pixels[row+ix] ];
+      }
     }
     
     g2.drawImage(mImage,
@@ -0,0 +1,256 @@
+/*
+ *  PngDecoder.java
+ *  Copyright (c) 2017 Simon Hern
+ *  Contact: dishmoth@yahoo.co.uk, dishmoth.com, github.com/dishmoth
+ */
+
+package com.dishmoth.miniquests;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+// minimal PNG reader that doesn't need AWT or ImageIO (for headless use)
+// (supports non-interlaced images with 8-bit channels, or palettes)
+public class PngDecoder {
+
+  // PNG colour types
+  private static final int kGrey      = 0,
+                           kRGB       = 2,
+                           kPalette   = 3,
+                           kGreyAlpha = 4,
+                           kRGBA      = 6;
+
+  // the first bytes of every PNG file
+  private static final byte kSignature[] = { (byte)137, 80, 78, 71,
+                                             13, 10, 26, 10 };
+
+  // image details
+  private int mWidth, mHeight;
+
+  // pixel colours (ARGB, row by row)
+  private int mPixels[];
+
+  // constructor (reads the whole stream)
+  public PngDecoder(InputStream stream) throws IOException {
+
+    decode(new DataInputStream(stream));
+
+  } // constructor
+
+  // image size
+  public int width() { return mWidth; }
+  public int height() { return mHeight; }
+
+  // image data (ARGB values, row by row)
+  public int[] pixels() { return mPixels; }
+
+  // read chunks from the stream and decode the image
+  private void decode(DataInputStream in) throws IOException {
+
+    byte signature[] = new byte[kSignature.length];
+    in.readFully(signature);
+    for ( int k = 0 ; k < kSignature.length ; k++ ) {
+      if ( signature[k] != kSignature[k] ) throw new IOException("not a PNG");
+    }
+
+    int bitDepth = 0,
+        colourType = 0;
+    int palette[] = null;
+    int transparentGrey = -1,
+        transparentRGB  = -1;
+    ByteArrayOutputStream imageData = new ByteArrayOutputStream();
+
+    while ( true ) {
+      final int length = in.readInt();
+      byte typeBytes[] = new byte[4];
+      in.readFully(typeBytes);
+      final String type = new String(typeBytes, "US-ASCII");
+      byte data[] = new byte[length];
+      in.readFully(data);
+      in.readInt(); // CRC (not checked)
+
+      if ( type.equals("IHDR") ) {
+        mWidth = readInt(data, 0);
+        mHeight = readInt(data, 4);
+        bitDepth = data[8] & 0xFF;
+        colourType = data[9] & 0xFF;
+        if ( data[12] != 0 ) throw new IOException("interlacing not supported");
+        if ( colourType == kPalette ) {
+          if ( bitDepth != 1 && bitDepth != 2 &&
+               bitDepth != 4 && bitDepth != 8 ) {
+            throw new IOException("bad palette bit depth " + bitDepth);
+          }
+        } else if ( bitDepth != 8 ) {
+          throw new IOException("bit depth not supported: " + bitDepth);
+        }
+      } else if ( type.equals("PLTE") ) {
+        palette = new int[length/3];
+        for ( int k = 0 ; k < palette.length ; k++ ) {
+          palette[k] = 0xFF000000 | ((data[3*k] & 0xFF) << 16)
+                                  | ((data[3*k+1] & 0xFF) << 8)
+                                  | (data[3*k+2] & 0xFF);
+        }
+      } else if ( type.equals("tRNS") ) {
+        if ( colourType == kPalette && palette != null ) {
+          for ( int k = 0 ; k < length && k < palette.length ; k++ ) {
+            palette[k] = (palette[k] & 0x00FFFFFF) | ((data[k] & 0xFF) << 24);
+          }
+        } else if ( colourType == kGrey ) {
+          transparentGrey = ((data[0] & 0xFF) << 8) | (data[1] & 0xFF);
+        } else if ( colourType == kRGB ) {
+          transparentRGB = ((data[1] & 0xFF) << 16) | ((data[3] & 0xFF) << 8)
+                         | (data[5] & 0xFF);
+        }
+      } else if ( type.equals("IDAT") ) {
+        imageData.write(data);
+      } else if ( type.equals("IEND") ) {
+        break;
+      }
+    }
+
+    if ( mWidth <= 0 || mHeight <= 0 ) throw new IOException("no IHDR chunk");
+    if ( colourType == kPalette && palette == null ) {
+      throw new IOException("no PLTE chunk");
+    }
+
+    final int channels = ( colourType == kGrey      ? 1
+                         : colourType == kRGB       ? 3
+                         : colourType == kPalette   ? 1
+                         : colourType == kGreyAlpha ? 2
+                                                    : 4 );
+    final int bitsPerPixel = channels*bitDepth,
+              bytesPerPixel = Math.max(1, bitsPerPixel/8),
+              rowBytes = (mWidth*bitsPerPixel + 7)/8;
+
+    byte raw[] = inflate(imageData.toByteArray(), mHeight*(rowBytes+1));
+
+    mPixels = new int[mWidth*mHeight];
+    byte row[] = new byte[rowBytes],
+         prev[] = new byte[rowBytes];
+    int index = 0;
+    for ( int y = 0 ; y < mHeight ; y++ ) {
+      final int filter = raw[y*(rowBytes+1)] & 0xFF;
+      System.arraycopy(raw, y*(rowBytes+1)+1, row, 0, rowBytes);
+      unfilter(filter, row, prev, bytesPerPixel);
+
+      for ( int x = 0 ; x < mWidth ; x++ ) {
+        int argb;
+        switch ( colourType ) {
+          case kGrey: {
+            int g = row[x] & 0xFF;
+            argb = 0xFF000000 | (g << 16) | (g << 8) | g;
+            if ( g == transparentGrey ) argb &= 0x00FFFFFF;
+          } break;
+          case kRGB: {
+            int rgb = ((row[3*x] & 0xFF) << 16) | ((row[3*x+1] & 0xFF) << 8)
+                    | (row[3*x+2] & 0xFF);
+            argb = ( rgb == transparentRGB ) ? rgb : (0xFF000000 | rgb);
+          } break;
+          case kPalette: {
+            final int bitIndex = x*bitDepth;
+            final int val = ( (row[bitIndex >> 3] & 0xFF)
+                              >> (8 - bitDepth - (bitIndex & 7)) )
+                          & ((1 << bitDepth) - 1);
+            if ( val >= palette.length ) throw new IOException("bad index");
+            argb = palette[val];
+          } break;
+          case kGreyAlpha: {
+            int g = row[2*x] & 0xFF;
+            argb = ((row[2*x+1] & 0xFF) << 24) | (g << 16) | (g << 8) | g;
+          } break;
+          case kRGBA: {
+            argb = ((row[4*x+3] & 0xFF) << 24) | ((row[4*x] & 0xFF) << 16)
+                 | ((row[4*x+1] & 0xFF) << 8) | (row[4*x+2] & 0xFF);
+          } break;
+          default: {
+            throw new IOException("colour type not supported: " + colourType);
+          }
+        }
+        mPixels[index++] = argb;
+      }
+
+      byte temp[] = prev;
+      prev = row;
+      row = temp;
+    }
+
+  } // decode()
+
+  // decompress the image data
+  private static byte[] inflate(byte data[], int size) throws IOException {
+
+    Inflater inflater = new Inflater();
+    inflater.setInput(data);
+    byte raw[] = new byte[size];
+    try {
+      int num = 0;
+      while ( num < size && !inflater.finished() ) {
+        int n = inflater.inflate(raw, num, size-num);
+        if ( n == 0 && (inflater.needsInput() || inflater.needsDictionary()) ) {
+          break;
+        }
+        num += n;
+      }
+      if ( num < size ) throw new IOException("image data too short");
+    } catch ( DataFormatException ex ) {
+      throw new IOException("bad image data: " + ex.getMessage());
+    } finally {
+      inflater.end();
+    }
+    return raw;
+
+  } // inflate()
+
+  // undo the PNG filter on a row of bytes
+  private static void unfilter(int filter, byte row[], byte prev[], int bpp)
+                                                          throws IOException {
+
+    final int n = row.length;
+    switch ( filter ) {
+      case 0: {
+      } break;
+      case 1: {
+        for ( int k = bpp ; k < n ; k++ ) row[k] += row[k-bpp];
+      } break;
+      case 2: {
+        for ( int k = 0 ; k < n ; k++ ) row[k] += prev[k];
+      } break;
+      case 3: {
+        for ( int k = 0 ; k < n ; k++ ) {
+          int a = ( k >= bpp ) ? (row[k-bpp] & 0xFF) : 0;
+          row[k] += (byte)( (a + (prev[k] & 0xFF)) >> 1 );
+        }
+      } break;
+      case 4: {
+        for ( int k = 0 ; k < n ; k++ ) {
+          int a = ( k >= bpp ) ? (row[k-bpp] & 0xFF) : 0,
+              b = prev[k] & 0xFF,
+              c = ( k >= bpp ) ? (prev[k-bpp] & 0xFF) : 0;
+          int p = a + b - c,
+              pa = Math.abs(p - a),
+              pb = Math.abs(p - b),
+              pc = Math.abs(p - c);
+          int pred = ( pa <= pb && pa <= pc ) ? a : ( pb <= pc ) ? b : c;
+          row[k] += (byte)pred;
+        }
+      } break;
+      default: {
+        throw new IOException("bad filter type " + filter);
+      }
+    }
+
+  } // unfilter()
+
+  // big-endian integer from a byte array
+  private static int readInt(byte data[], int index) {
+
+    return ( ((data[index] & 0xFF) << 24) | ((data[index+1] & 0xFF) << 16)
+           | ((data[index+2] & 0xFF) << 8) | (data[index+3] & 0xFF) );
+
+  } // readInt()
+
+} // class PngDecoder
@@ -0,0 +1,506 @@
+/*
+ *  Replay.java
+ *  Copyright (c) 2017 Simon Hern
+ *  Contact: dishmoth@yahoo.co.uk, dishmoth.com, github.com/dishmoth
+ */
+
+package com.dishmoth.miniquests;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import com.dishmoth.miniquests.game.QuestStory;
+
+// a recording of a quest: the seed that the game started with and the keys
+// held on each tick, which is all that is needed to play it again exactly
+// (see KeyMonitorRecorder and KeyMonitorReplay)
+// (file layout, big-endian as for DataOutputStream:
+//   header:  magic, version, quest number (ints), seed (long)
+//   then sections, each a tag (int), a length in bytes (int) and contents
+//   "KEYS":  number of ticks, number of runs (varints), then for each run
+//            the key bits (byte) and how many ticks they were held (varint)
+//   "STRT":  (optional) room name (UTF) and entry point (int) if the game
+//            doesn't begin in the quest's first room, see setStartPoint()
+// readers keep sections they don't recognize, and write them out again,
+// so other tools can add their own, see section() and setSection())
+public class Replay {
+
+  // main method (records a game with random keys, saves it, loads it, and
+  // checks that it reads back and plays back the same way, that a copy
+  // with some keys changed plays differently, and that damaged files are
+  // refused; exits with an error code if not)
+  // arguments: [quest number] [number of ticks] [seed] [replay file]
+  public static void main(String args[]) throws IOException {
+
+    final int  questNum = ( args.length > 0 ) ? Integer.parseInt(args[0]) : 0;
+    final int  numTicks = ( args.length > 1 ) ? Integer.parseInt(args[1])
+                                              : 30*60*5;
+    final long seed     = ( args.length > 2 ) ? Long.parseLong(args[2]) : 0;
+    final File file     = ( args.length > 3 )
+                          ? new File(args[3])
+                          : File.createTempFile("replay", ".mqr");
+
+    KeyMonitorBits keys = new KeyMonitorBits();
+    Replay replay = new Replay(questNum, seed);
+    KeyMonitorRecorder recorder = new KeyMonitorRecorder(keys, replay);
+    HeadlessRunner runner = new HeadlessRunner(questNum, seed, recorder);
+
+    Random random = new Random(seed);
+    int keyBits[] = new int[numTicks];
+    long hashes[] = new long[numTicks];
+    int bits = 0;
+    for ( int k = 0 ; k < numTicks ; k++ ) {
+      if ( random.nextInt(8) == 0 ) bits = random.nextInt(KeyMonitorBits.ALL);
+      keys.set(bits & ~KeyMonitorBits.ESCAPE);
+      keyBits[k] = keys.bits();
+      runner.run(1);
+      hashes[k] = runner.gameManager().stateHash();
+    }
+    recorder.finish(runner.context().ticks());
+    byte extra[] = new byte[100];
+    random.nextBytes(extra);
+    final int extraTag = 0x54455354; // "TEST"
+    replay.setSection(extraTag, extra);
+    replay.save(file);
+
+    String problem = null;
+    Replay loaded = Replay.load(file);
+    if ( loaded.questNum() != questNum || loaded.seed() != seed ||
+         loaded.numTicks() != numTicks ) {
+      problem = "header read back wrongly";
+    }
+    for ( int k = 0 ; k < numTicks && problem == null ; k++ ) {
+      if ( loaded.keyBits(k) != keyBits[k] ) {
+        problem = "keys read back wrongly on tick " + k;
+      }
+    }
+    for ( int k = 0 ; k < 1000 && problem == null ; k++ ) {
+      final int tick = random.nextInt(numTicks);
+      if ( loaded.keyBits(tick) != keyBits[tick] ) {
+        problem = "keys looked up wrongly on tick " + tick;
+      }
+    }
+    if ( problem == null &&
+         !Arrays.equals(loaded.section(extraTag), extra) ) {
+      problem = "extra section not kept";
+    }
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    loaded.write(bytes);
+    final byte fileBytes[] = readBytes(file);
+    if ( problem == null && !Arrays.equals(bytes.toByteArray(), fileBytes) ) {
+      problem = "written again differently";
+    }
+
+    HeadlessRunner player = new HeadlessRunner(loaded);
+    int numDiffs = 0;
+    final long startNanos = System.nanoTime();
+    for ( int k = 0 ; k < loaded.numTicks() ; k++ ) {
+      player.run(1);
+      if ( player.gameManager().stateHash() != hashes[k] ) numDiffs++;
+    }
+    final double secs = (System.nanoTime() - startNanos)*1.0e-9;
+
+    Replay changed = new Replay(questNum, seed);
+    for ( int k = 0 ; k < numTicks ; k++ ) {
+      changed.record( (k < numTicks/2) ? keyBits[k]
+                                       : KeyMonitorBits.ALL
+                                         & ~KeyMonitorBits.ESCAPE
+                                         & ~keyBits[k] );
+    }
+    HeadlessRunner changedPlayer = new HeadlessRunner(changed);
+    int numChangedDiffs = 0;
+    for ( int k = 0 ; k < changed.numTicks() ; k++ ) {
+      changedPlayer.run(1);
+      if ( changedPlayer.gameManager().stateHash() != hashes[k] ) {
+        numChangedDiffs++;
+      }
+    }
+
+    byte damaged[] = Arrays.copyOf(fileBytes, fileBytes.length);
+    damaged[0] ^= 1;
+    if ( problem == null && readable(damaged) ) {
+      problem = "file with a bad header read";
+    }
+    damaged = Arrays.copyOf(fileBytes, fileBytes.length/2);
+    if ( problem == null && readable(damaged) ) {
+      problem = "truncated file read";
+    }
+
+    System.out.println("Replay: " + loaded.numTicks() + " ticks, "
+                       + loaded.numRuns() + " runs of keys, "
+                       + file.length() + " bytes (" + file + ")");
+    System.out.println("Played back in " + String.format("%.2f", secs)
+                       + " sec, " + numDiffs + " ticks differ ("
+                       + numChangedDiffs + " with keys changed from tick "
+                       + numTicks/2 + ")");
+
+    if ( problem == null && numDiffs > 0 ) problem = "playback differs";
+    if ( problem == null && numChangedDiffs == 0 ) {
+      problem = "playback with keys changed doesn't differ";
+    }
+    if ( problem != null ) {
+      System.out.println("Replay test failed: " + problem);
+      System.exit(1);
+    }
+
+  } // main()
+
+  // the contents of a file (for testing)
+  private static byte[] readBytes(File file) throws IOException {
+
+    InputStream stream = new BufferedInputStream(new FileInputStream(file));
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      int b;
+      while ( (b = stream.read()) >= 0 ) bytes.write(b);
+      return bytes.toByteArray();
+    } finally {
+      stream.close();
+    }
+
+  } // readBytes()
+
+  // whether some bytes read as a replay without error (for testing)
+  private static boolean readable(byte bytes[]) {
+
+    try {
+      read(new ByteArrayInputStream(bytes));
+      return true;
+    } catch ( IOException ex ) {
+      return false;
+    }
+
+  } // readable()
+
+  // identifies a replay file
+  public static final int MAGIC   = 0x4D515250, // "MQRP"
+                          VERSION = 1;
+
+  // section tags
+  public static final int SECTION_KEYS  = 0x4B455953, // "KEYS"
+                          SECTION_START = 0x53545254; // "STRT"
+
+  // largest section that will be read
+  private static final int kMaxSectionBytes = 1 << 26;
+
+  // which quest, and the seed for the game's random numbers
+  private final int  mQuestNum;
+  private final long mSeed;
+
+  // keys held, as runs of ticks with the same bits (see KeyMonitorBits)
+  // (mRunEnds holds the tick after the end of each run)
+  private int mNumTicks,
+              mNumRuns;
+  private int mRunBits[],
+              mRunEnds[];
+
+  // the run that the last key lookup was in (lookups are usually in order)
+  private int mCursor;
+
+  // other sections (tag => contents), in the order they were added
+  private LinkedHashMap<Integer,byte[]> mSections;
+
+  // constructor (nothing recorded yet)
+  public Replay(int questNum, long seed) {
+
+    mQuestNum = questNum;
+    mSeed = seed;
+    mNumTicks = mNumRuns = 0;
+    mRunBits = new int[64];
+    mRunEnds = new int[64];
+    mCursor = 0;
+    mSections = new LinkedHashMap<Integer,byte[]>();
+
+  } // constructor
+
+  // which quest is played
+  public int questNum() { return mQuestNum; }
+
+  // seed for the game's random numbers (see GameContext)
+  public long seed() { return mSeed; }
+
+  // number of ticks recorded
+  public int numTicks() { return mNumTicks; }
+
+  // number of changes of keys (plus one)
+  public int numRuns() { return mNumRuns; }
+
+  // add the keys for the next tick
+  public void record(int keyBits) {
+
+    assert( (keyBits & ~KeyMonitorBits.ALL) == 0 );
+
+    if ( mNumRuns > 0 && mRunBits[mNumRuns-1] == keyBits ) {
+      mRunEnds[mNumRuns-1]++;
+    } else {
+      addRun(keyBits, mNumTicks+1);
+    }
+    mNumTicks++;
+
+  } // record()
+
+  // the keys held on a tick (none after the end of the recording)
+  public int keyBits(long tick) {
+
+    assert( tick >= 0 );
+    if ( tick >= mNumTicks ) return 0;
+
+    int run = mCursor;
+    if ( tick >= mRunEnds[run] ||
+         (run > 0 && tick < mRunEnds[run-1]) ) {
+      int low = 0,
+          high = mNumRuns-1;
+      while ( low < high ) {
+        final int mid = (low + high)/2;
+        if ( tick < mRunEnds[mid] ) high = mid;
+        else                        low = mid + 1;
+      }
+      run = mCursor = low;
+    }
+    return mRunBits[run];
+
+  } // keyBits()
+
+  // contents of another section (or null if there's no such section)
+  public byte[] section(int tag) { return mSections.get(tag); }
+
+  // add or replace another section (or remove it if the contents are null)
+  public void setSection(int tag, byte contents[]) {
+
+    assert( tag != SECTION_KEYS );
+    if ( contents == null ) mSections.remove(tag);
+    else                    mSections.put(tag, contents);
+
+  } // setSection()
+
+  // begin somewhere other than the quest's first room (see
+  // QuestStory.setStartPoint())
+  public void setStartPoint(String roomName, int entryPoint) {
+
+    assert( roomName != null && entryPoint >= 0 );
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream data = new DataOutputStream(bytes);
+    try {
+      data.writeUTF(roomName);
+      data.writeInt(entryPoint);
+      data.flush();
+    } catch ( IOException ex ) {
+      throw new IllegalStateException("Cannot write start point: " + ex);
+    }
+    mSections.put(SECTION_START, bytes.toByteArray());
+
+  } // setStartPoint()
+
+  // the room that the game begins in (or null for the quest's first room)
+  public String startRoom() {
+
+    DataInputStream data = startData();
+    try {
+      return ( (data != null) ? data.readUTF() : null );
+    } catch ( IOException ex ) {
+      return null;
+    }
+
+  } // startRoom()
+
+  // the entry point that the game begins at (zero if not specified)
+  public int startEntryPoint() {
+
+    DataInputStream data = startData();
+    try {
+      if ( data == null ) return 0;
+      data.readUTF();
+      return Math.max(0, data.readInt());
+    } catch ( IOException ex ) {
+      return 0;
+    }
+
+  } // startEntryPoint()
+
+  // the contents of the start section (or null if there isn't one)
+  private DataInputStream startData() {
+
+    byte contents[] = mSections.get(SECTION_START);
+    if ( contents == null ) return null;
+    return new DataInputStream(new ByteArrayInputStream(contents));
+
+  } // startData()
+
+  // write to a file
+  public void save(File file) throws IOException {
+
+    OutputStream stream = new BufferedOutputStream(new FileOutputStream(file));
+    try {
+      write(stream);
+    } finally {
+      stream.close();
+    }
+
+  } // save()
+
+  // read from a file
+  public static Replay load(File file) throws IOException {
+
+    InputStream stream = new BufferedInputStream(new FileInputStream(file));
+    try {
+      return read(stream);
+    } finally {
+      stream.close();
+    }
+
+  } // load()
+
+  // write to a stream
+  public void write(OutputStream stream) throws IOException {
+
+    DataOutputStream data = new DataOutputStream(stream);
+    data.writeInt(MAGIC);
+    data.writeInt(VERSION);
+    data.writeInt(mQuestNum);
+    data.writeLong(mSeed);
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream keys = new DataOutputStream(bytes);
+    writeVarint(keys, mNumTicks);
+    writeVarint(keys, mNumRuns);
+    int start = 0;
+    for ( int k = 0 ; k < mNumRuns ; k++ ) {
+      keys.writeByte(mRunBits[k]);
+      writeVarint(keys, mRunEnds[k] - start);
+      start = mRunEnds[k];
+    }
+    writeSection(data, SECTION_KEYS, bytes.toByteArray());
+    for ( Map.Entry<Integer,byte[]> entry : mSections.entrySet() ) {
+      writeSection(data, entry.getKey(), entry.getValue());
+    }
+    data.flush();
+
+  } // write()
+
+  // read from a stream
+  public static Replay read(InputStream stream) throws IOException {
+
+    DataInputStream data = new DataInputStream(stream);
+    if ( data.readInt() != MAGIC ) throw new IOException("not a replay");
+    final int version = data.readInt();
+    if ( version > VERSION ) {
+      throw new IOException("unsupported replay version " + version);
+    }
+    final int questNum = data.readInt();
+    if ( questNum < 0 || questNum >= QuestStory.NUM_QUESTS ) {
+      throw new IOException("bad quest number in replay");
+    }
+    final long seed = data.readLong();
+    Replay replay = new Replay(questNum, seed);
+
+    boolean haveKeys = false;
+    while ( true ) {
+      final int first = data.read();
+      if ( first < 0 ) break;
+      final int tag = (first << 24) | (data.readUnsignedByte() << 16)
+                      | data.readUnsignedShort();
+      final int length = data.readInt();
+      if ( length < 0 || length > kMaxSectionBytes ) {
+        throw new IOException("bad replay section");
+      }
+      byte contents[] = new byte[length];
+      data.readFully(contents);
+      if ( tag == SECTION_KEYS ) {
+        replay.readKeys(new DataInputStream(
+                                       new ByteArrayInputStream(contents)));
+        haveKeys = true;
+      } else {
+        replay.mSections.put(tag, contents);
+      }
+    }
+    if ( !haveKeys ) throw new IOException("replay has no keys");
+    return replay;
+
+  } // read()
+
+  // read the contents of the keys section
+  private void readKeys(DataInputStream data) throws IOException {
+
+    final int numTicks = readVarint(data),
+              numRuns  = readVarint(data);
+    for ( int k = 0 ; k < numRuns ; k++ ) {
+      final int bits = data.readUnsignedByte(),
+                length = readVarint(data);
+      if ( (bits & ~KeyMonitorBits.ALL) != 0 || length <= 0 ) {
+        throw new IOException("bad replay keys");
+      }
+      addRun(bits, mNumTicks + length);
+      mNumTicks += length;
+    }
+    if ( mNumTicks != numTicks ) throw new IOException("bad replay length");
+
+  } // readKeys()
+
+  // add a new run of keys to the end
+  private void addRun(int bits, int end) {
+
+    if ( mNumRuns == mRunBits.length ) {
+      int newBits[] = new int[2*mNumRuns],
+          newEnds[] = new int[2*mNumRuns];
+      System.arraycopy(mRunBits, 0, newBits, 0, mNumRuns);
+      System.arraycopy(mRunEnds, 0, newEnds, 0, mNumRuns);
+      mRunBits = newBits;
+      mRunEnds = newEnds;
+    }
+    mRunBits[mNumRuns] = bits;
+    mRunEnds[mNumRuns] = end;
+    mNumRuns++;
+
+  } // addRun()
+
+  // write a section: tag, length, contents
+  private static void writeSection(DataOutputStream data, int tag,
+                                   byte contents[]) throws IOException {
+
+    data.writeInt(tag);
+    data.writeInt(contents.length);
+    data.write(contents);
+
+  } // writeSection()
+
+  // write a non-negative number, seven bits per byte (low bits first)
+  static void writeVarint(DataOutputStream data,
+                          int value) throws IOException {
+
+    assert( value >= 0 );
+    while ( value >= 0x80 ) {
+      data.writeByte( (value & 0x7F) | 0x80 );
+      value >>>= 7;
+    }
+    data.writeByte(value);
+
+  } // writeVarint()
+
+  // read a number written by writeVarint()
+  static int readVarint(DataInputStream data) throws IOException {
+
+    int value = 0;
+    for ( int shift = 0 ; shift < 32 ; shift += 7 ) {
+      final int b = data.readUnsignedByte();
+      value |= (b & 0x7F) << shift;
+      if ( (b & 0x80) == 0 ) return value;
+    }
+    throw new IOException("bad number in replay");
+
+  } // readVarint()
+
+} // class Replay
@@ -0,0 +1,398 @@
+/*
+ *  ReplayChecksums.java
+ *  Copyright (c) 2017 Simon Hern
+ *  Contact: dishmoth@yahoo.co.uk, dishmoth.com, github.com/dishmoth
+ */
+
+package com.dishmoth.miniquests;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Random;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import com.dishmoth.miniquests.game.Env;
+import com.dishmoth.miniquests.game.GameManager;
+import com.dishmoth.miniquests.game.Particle;
+import com.dishmoth.miniquests.game.Particles;
+import com.dishmoth.miniquests.game.Sprite;
+
+// checksums of the game state taken every so many ticks while a replay is
+// recorded, so that playing it back can spot the first point at which the
+// game goes differently (after a change to the game code, say) and say
+// which sprites are to blame
+// (each checksum is the story's state hash plus a 32-bit hash for each
+// sprite, see GameManager.stateHash(); sprites that don't change repeat the
+// same bytes, which compress well)
+// (layout, compressed with Deflater: interval, number of checksums, number
+// of sprite classes (varints), class names, then for each checksum the
+// story hash (long), number of sprites (varint), and for each sprite its
+// class (varint) and hash (int))
+public class ReplayChecksums {
+
+  // main method (records a game with random keys along with checksums,
+  // plays it back, then plays it back again with some keys changed, and
+  // again with one particle moved very slightly; exits with an error code
+  // unless the first playback matches and the other two don't)
+  // arguments: [quest number] [number of ticks] [interval] [seed]
+  public static void main(String args[]) throws IOException {
+
+    final int  questNum = ( args.length > 0 ) ? Integer.parseInt(args[0]) : 0;
+    final int  numTicks = ( args.length > 1 ) ? Integer.parseInt(args[1])
+                                              : 30*60*5;
+    final int  interval = ( args.length > 2 ) ? Integer.parseInt(args[2])
+                                              : DEFAULT_INTERVAL;
+    final long seed     = ( args.length > 3 ) ? Long.parseLong(args[3]) : 0;
+
+    KeyMonitorBits keys = new KeyMonitorBits();
+    Replay replay = new Replay(questNum, seed);
+    KeyMonitorRecorder recorder = new KeyMonitorRecorder(keys, replay);
+    HeadlessRunner runner = new HeadlessRunner(questNum, seed, recorder);
+    ReplayChecksums checksums = new ReplayChecksums(interval);
+
+    Random random = new Random(seed);
+    int bits = 0;
+    long recordNanos = 0;
+    for ( int k = 0 ; k < numTicks ; k++ ) {
+      if ( random.nextInt(8) == 0 ) bits = random.nextInt(KeyMonitorBits.ALL);
+      keys.set(bits & ~KeyMonitorBits.ESCAPE);
+      runner.run(1);
+      final long startNanos = System.nanoTime();
+      checksums.record(runner.gameManager());
+      recordNanos += System.nanoTime() - startNanos;
+    }
+    recorder.finish(runner.context().ticks());
+    checksums.addTo(replay);
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    replay.write(bytes);
+    replay = Replay.read(new ByteArrayInputStream(bytes.toByteArray()));
+    System.out.println(checksums.numChecksums() + " checksums, "
+                       + replay.section(SECTION_CHECKSUMS).length
+                       + " bytes (replay " + bytes.size() + " bytes), "
+                       + String.format("%.1f", recordNanos*1.0e-3/numTicks)
+                       + " us per tick to record");
+
+    final String played = play(replay);
+    System.out.println("Playback: " + played);
+    final int changedTick = numTicks/2 + 1;
+    final String changed = play(changedCopy(replay, changedTick));
+    System.out.println("Playback with the keys changed from tick "
+                       + changedTick + ": " + changed);
+    final String nudged = playNudged(replay);
+    System.out.println("Playback with one particle moved: " + nudged);
+
+    if ( !played.startsWith("all ") || changed.startsWith("all ") ||
+         nudged.startsWith("all ") ) {
+      System.out.println("Checksums test failed");
+      System.exit(1);
+    }
+
+  } // main()
+
+  // play a replay back, checking its checksums, and report how it went
+  private static String play(Replay replay) throws IOException {
+
+    ReplayChecksums checksums = fromReplay(replay);
+    HeadlessRunner runner = new HeadlessRunner(replay);
+    while ( runner.context().ticks() < replay.numTicks() ) {
+      runner.run(1);
+      final String problem = checksums.check(runner.gameManager());
+      if ( problem != null ) return problem;
+    }
+    return "all " + checksums.numChecksums() + " checksums match";
+
+  } // play()
+
+  // play a replay back, but move one particle by a tiny amount just before
+  // a checksum is checked (so the checksum should spot the difference)
+  private static String playNudged(Replay replay) throws IOException {
+
+    ReplayChecksums checksums = fromReplay(replay);
+    HeadlessRunner runner = new HeadlessRunner(replay);
+    boolean nudged = false;
+    while ( runner.context().ticks() < replay.numTicks() ) {
+      runner.run(1);
+      final long tick = runner.context().ticks();
+      if ( !nudged && tick % checksums.interval() == 0 ) {
+        nudged = nudgeParticle(runner.gameManager());
+      }
+      final String problem = checksums.check(runner.gameManager());
+      if ( problem != null ) return problem;
+    }
+    return ( nudged ? "all " + checksums.numChecksums() + " checksums match"
+                    : "no particles to move" );
+
+  } // playNudged()
+
+  // move one particle of the first sprite that has any by a tiny amount
+  // (returns false if there are no particles)
+  private static boolean nudgeParticle(GameManager game) {
+
+    for ( Sprite sprite : game.spriteManager().list() ) {
+      if ( !(sprite instanceof Particles) ) continue;
+      LinkedList<?> list;
+      try {
+        Field field = Particles.class.getDeclaredField("mParticles");
+        field.setAccessible(true);
+        list = (LinkedList<?>)field.get(sprite);
+      } catch ( Exception ex ) {
+        throw new IllegalStateException("Cannot reach particles: " + ex);
+      }
+      if ( list.isEmpty() ) continue;
+      Particle p = (Particle)list.getFirst();
+      p.setPos(p.getXPos() + 1.0e-3f, p.getYPos(), p.getZPos());
+      return true;
+    }
+    return false;
+
+  } // nudgeParticle()
+
+  // a copy of a replay (with its checksums) but with the right key changed
+  // for a second, starting from a given tick
+  private static Replay changedCopy(Replay replay, int changedTick) {
+
+    Replay copy = new Replay(replay.questNum(), replay.seed());
+    for ( int tick = 0 ; tick < replay.numTicks() ; tick++ ) {
+      final int bits = replay.keyBits(tick);
+      final boolean changed = ( tick >= changedTick &&
+                                tick < changedTick + Env.ticksPerSecond() );
+      copy.record( changed ? (bits ^ KeyMonitorBits.RIGHT) : bits );
+    }
+    copy.setSection(SECTION_CHECKSUMS, replay.section(SECTION_CHECKSUMS));
+    return copy;
+
+  } // changedCopy()
+
+  // tag for the checksums kept in a replay (see Replay.section())
+  public static final int SECTION_CHECKSUMS = 0x53554D53; // "SUMS"
+
+  // ticks between checksums unless specified (one second)
+  public static final int DEFAULT_INTERVAL = 30;
+
+  // largest number of things that will be read
+  private static final int kMaxCount = 1 << 24;
+
+  // most sprites to list when reporting a mismatch
+  private static final int kMaxReported = 8;
+
+  // ticks between checksums
+  private final int mInterval;
+
+  // the checksums (story hashes, and each sprite's class and hash)
+  private ArrayList<Long>  mStoryHashes;
+  private ArrayList<int[]> mSpriteClasses,
+                           mSpriteHashes;
+
+  // names of the sprite classes (and their positions in the list)
+  private ArrayList<String>        mClassNames;
+  private HashMap<String,Integer>  mClassIndices;
+
+  // constructor (no checksums yet)
+  public ReplayChecksums(int interval) {
+
+    assert( interval > 0 );
+    mInterval = interval;
+    mStoryHashes = new ArrayList<Long>();
+    mSpriteClasses = new ArrayList<int[]>();
+    mSpriteHashes = new ArrayList<int[]>();
+    mClassNames = new ArrayList<String>();
+    mClassIndices = new HashMap<String,Integer>();
+
+  } // constructor
+
+  // ticks between checksums
+  public int interval() { return mInterval; }
+
+  // number of checksums
+  public int numChecksums() { return mStoryHashes.size(); }
+
+  // take a checksum if the game is at the right tick (call after each tick)
+  public void record(GameManager game) {
+
+    final long tick = game.context().ticks();
+    if ( tick == 0 || tick % mInterval != 0 ) return;
+    if ( tick/mInterval != numChecksums() + 1 ) {
+      throw new IllegalStateException("Checksum for tick " + tick
+                                      + " is out of order");
+    }
+
+    LinkedList<Sprite> sprites = game.spriteManager().list();
+    int classes[] = new int[sprites.size()],
+        hashes[]  = new int[sprites.size()];
+    int k = 0;
+    for ( Sprite sprite : sprites ) {
+      classes[k] = classIndex(sprite);
+      hashes[k] = spriteHash(sprite);
+      k++;
+    }
+    mStoryHashes.add(storyHash(game));
+    mSpriteClasses.add(classes);
+    mSpriteHashes.add(hashes);
+
+  } // record()
+
+  // compare the game with the checksum for its tick, if there is one
+  // (call after each tick; returns null if there is nothing wrong, or else
+  // a description of which parts of the game differ)
+  public String check(GameManager game) {
+
+    final long tick = game.context().ticks();
+    if ( tick == 0 || tick % mInterval != 0 ) return null;
+    final long index = tick/mInterval - 1;
+    if ( index >= numChecksums() ) return null;
+
+    final int i = (int)index;
+    final int classes[] = mSpriteClasses.get(i),
+              hashes[]  = mSpriteHashes.get(i);
+    ArrayList<String> problems = new ArrayList<String>();
+
+    if ( storyHash(game) != mStoryHashes.get(i) ) {
+      problems.add("story or room state");
+    }
+
+    LinkedList<Sprite> sprites = game.spriteManager().list();
+    if ( sprites.size() != classes.length ) {
+      problems.add(sprites.size() + " sprites, not " + classes.length);
+    }
+    int k = 0;
+    for ( Sprite sprite : sprites ) {
+      if ( k >= classes.length ) break;
+      final String name = sprite.getClass().getSimpleName();
+      if ( !name.equals(mClassNames.get(classes[k])) ) {
+        problems.add("sprite " + k + " is " + name + ", not "
+                     + mClassNames.get(classes[k]));
+      } else if ( spriteHash(sprite) != hashes[k] ) {
+        problems.add("sprite " + k + " (" + name + ")");
+      }
+      k++;
+    }
+
+    if ( problems.size() == 0 ) return null;
+    StringBuilder text = new StringBuilder("state differs on tick " + tick
+                                           + ": ");
+    for ( int n = 0 ; n < problems.size() && n < kMaxReported ; n++ ) {
+      if ( n > 0 ) text.append(", ");
+      text.append(problems.get(n));
+    }
+    if ( problems.size() > kMaxReported ) {
+      text.append(" and " + (problems.size() - kMaxReported) + " more");
+    }
+    return text.toString();
+
+  } // check()
+
+  // the checksums kept in a replay (or null if it doesn't have any)
+  public static ReplayChecksums fromReplay(Replay replay) throws IOException {
+
+    byte contents[] = replay.section(SECTION_CHECKSUMS);
+    if ( contents == null ) return null;
+    DataInputStream data = new DataInputStream(
+              new InflaterInputStream(new ByteArrayInputStream(contents)));
+
+    final int interval = readCount(data);
+    if ( interval == 0 ) throw new IOException("bad checksum interval");
+    ReplayChecksums checksums = new ReplayChecksums(interval);
+
+    final int numChecksums = readCount(data),
+              numClasses   = readCount(data);
+    for ( int k = 0 ; k < numClasses ; k++ ) {
+      checksums.mClassNames.add(data.readUTF());
+    }
+    for ( int k = 0 ; k < numChecksums ; k++ ) {
+      checksums.mStoryHashes.add(data.readLong());
+      final int numSprites = readCount(data);
+      int classes[] = new int[numSprites],
+          hashes[]  = new int[numSprites];
+      for ( int n = 0 ; n < numSprites ; n++ ) {
+        classes[n] = readCount(data);
+        if ( classes[n] >= numClasses ) {
+          throw new IOException("bad sprite class in checksums");
+        }
+        hashes[n] = data.readInt();
+      }
+      checksums.mSpriteClasses.add(classes);
+      checksums.mSpriteHashes.add(hashes);
+    }
+    return checksums;
+
+  } // fromReplay()
+
+  // keep the checksums in a replay
+  public void addTo(Replay replay) {
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream data = new DataOutputStream(
+                                          new DeflaterOutputStream(bytes));
+    try {
+      Replay.writeVarint(data, mInterval);
+      Replay.writeVarint(data, numChecksums());
+      Replay.writeVarint(data, mClassNames.size());
+      for ( String name : mClassNames ) data.writeUTF(name);
+      for ( int k = 0 ; k < numChecksums() ; k++ ) {
+        final int classes[] = mSpriteClasses.get(k),
+                  hashes[]  = mSpriteHashes.get(k);
+        data.writeLong(mStoryHashes.get(k));
+        Replay.writeVarint(data, classes.length);
+        for ( int n = 0 ; n < classes.length ; n++ ) {
+          Replay.writeVarint(data, classes[n]);
+          data.writeInt(hashes[n]);
+        }
+      }
+      data.close();
+    } catch ( IOException ex ) {
+      throw new IllegalStateException("Cannot write checksums: " + ex);
+    }
+    replay.setSection(SECTION_CHECKSUMS, bytes.toByteArray());
+
+  } // addTo()
+
+  // position of a sprite's class in the list of names (added if new)
+  private int classIndex(Sprite sprite) {
+
+    final String name = sprite.getClass().getSimpleName();
+    Integer index = mClassIndices.get(name);
+    if ( index == null ) {
+      index = mClassNames.size();
+      mClassNames.add(name);
+      mClassIndices.put(name, index);
+    }
+    return index;
+
+  } // classIndex()
+
+  // the part of the game's state hash that is not from the sprites
+  private static long storyHash(GameManager game) {
+
+    return ( game.stateHash() - game.spriteManager().stateHash() );
+
+  } // storyHash()
+
+  // a sprite's state hash folded into 32 bits
+  private static int spriteHash(Sprite sprite) {
+
+    final long hash = sprite.stateHash();
+    return (int)(hash ^ (hash >>> 32));
+
+  } // spriteHash()
+
+  // read the number of things to follow
+  private static int readCount(DataInputStream data) throws IOException {
+
+    final int count = Replay.readVarint(data);
+    if ( count < 0 || count > kMaxCount ) {
+      throw new IOException("bad count in checksums");
+    }
+    return count;
+
+  } // readCount()
+
+} // class ReplayChecksums
@@ -0,0 +1,436 @@
+/*
+ *  ReplayIndex.java
+ *  Copyright (c) 2017 Simon Hern
+ *  Contact: dishmoth@yahoo.co.uk, dishmoth.com, github.com/dishmoth
+ */
+
+package com.dishmoth.miniquests;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import com.dishmoth.miniquests.game.StateHash;
+
+// keyframes for a replay: the complete game state saved every so many
+// ticks, so that a replay can be moved to any tick by restoring the
+// keyframe before it and playing on from there, rather than by playing
+// everything from the start (closer keyframes mean quicker seeks but more
+// bytes; an index can be kept in the replay itself, see SECTION_KEYFRAMES,
+// or in a file alongside it, see indexFile())
+// (layout, big-endian as for DataOutputStream:
+//   magic, version, spacing, number of ticks in the replay (ints)
+//   length and bytes of the lazily created shared data (images, etc.) that
+//   the keyframes need, see StateSerializer.writeStatics()
+//   number of keyframes, then for each its length and bytes (the keyframes
+//   are for ticks 0, spacing, 2*spacing, etc.) see GameSnapshot.toBytes())
+public class ReplayIndex {
+
+  // main method (builds an index for a replay, or loads it if it was saved
+  // before, then checks seeks against playing from the start, both for the
+  // index and for a copy of it saved and loaded again, and checks that an
+  // index for a different game gets them wrong; exits with an error code if
+  // not)
+  // arguments: [replay file] [spacing] [number of seeks]
+  public static void main(String args[]) throws IOException {
+
+    final int spacing  = ( args.length > 1 ) ? Integer.parseInt(args[1])
+                                             : DEFAULT_SPACING;
+    final int numSeeks = ( args.length > 2 ) ? Integer.parseInt(args[2]) : 50;
+
+    Replay replay;
+    File indexFile = null;
+    if ( args.length > 0 ) {
+      replay = Replay.load(new File(args[0]));
+      indexFile = indexFile(new File(args[0]));
+    } else {
+      replay = randomReplay(0, 30*60*5, 0);
+    }
+
+    ReplayIndex index;
+    long startNanos = System.nanoTime();
+    if ( indexFile != null && indexFile.exists() ) {
+      index = load(indexFile);
+      System.out.println("Loaded index from " + indexFile);
+    } else {
+      index = build(replay, spacing);
+      System.out.println("Built index in " + String.format("%.2f",
+                                     (System.nanoTime()-startNanos)*1.0e-9)
+                         + " sec");
+      if ( indexFile != null ) {
+        index.save(indexFile);
+      } else {
+        index.addTo(replay);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        replay.write(bytes);
+        replay = Replay.read(new ByteArrayInputStream(bytes.toByteArray()));
+        index = fromReplay(replay);
+      }
+    }
+    System.out.println(index.numKeyframes() + " keyframes, every "
+                       + index.spacing() + " ticks, " + index.numBytes()
+                       + " bytes (" + (index.numBytes()
+                                       /Math.max(1, index.numKeyframes()))
+                       + " per keyframe)");
+
+    HeadlessRunner player = new HeadlessRunner(replay);
+    long hashes[] = new long[replay.numTicks()+1];
+    startNanos = System.nanoTime();
+    hashes[0] = gameHash(player);
+    for ( int k = 1 ; k < hashes.length ; k++ ) {
+      player.run(1);
+      hashes[k] = gameHash(player);
+    }
+    final double playMicros = (System.nanoTime()-startNanos)*1.0e-3
+                              /hashes.length;
+
+    // (random ticks, plus the ends and either side of some keyframes)
+    Random random = new Random(1);
+    long ticks[] = new long[numSeeks + 6];
+    for ( int k = 0 ; k < numSeeks ; k++ ) {
+      ticks[k] = random.nextInt(hashes.length);
+    }
+    final int lastKeyframe = (index.numKeyframes()-1)*index.spacing();
+    final long special[] = { 0, hashes.length-1, index.spacing(),
+                             index.spacing()-1, lastKeyframe,
+                             Math.max(0, lastKeyframe-1) };
+    for ( int k = 0 ; k < special.length ; k++ ) {
+      ticks[numSeeks+k] = Math.min(special[k], hashes.length-1);
+    }
+
+    startNanos = System.nanoTime();
+    final int numDiffs = seekDiffs(index, player, ticks, hashes);
+    final double seekMicros = (System.nanoTime()-startNanos)*1.0e-3
+                              /ticks.length;
+
+    File copyFile = File.createTempFile("replay", ".idx");
+    index.save(copyFile);
+    ReplayIndex copy = load(copyFile);
+    copyFile.delete();
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(),
+                          copyBytes = new ByteArrayOutputStream();
+    index.write(bytes);
+    copy.write(copyBytes);
+    final boolean copySame = Arrays.equals(bytes.toByteArray(),
+                                           copyBytes.toByteArray());
+    final int numCopyDiffs = seekDiffs(copy, new HeadlessRunner(replay),
+                                       ticks, hashes);
+
+    ReplayIndex other = build(randomReplay(replay.questNum(),
+                                           replay.numTicks(),
+                                           replay.seed()+1),
+                              index.spacing());
+    final int numOtherDiffs = seekDiffs(other, new HeadlessRunner(replay),
+                                        ticks, hashes);
+
+    System.out.println(ticks.length + " seeks, "
+                       + String.format("%.0f", seekMicros)
+                       + " us on average (playing from the start would "
+                       + "take " + String.format("%.0f",
+                                                 playMicros*hashes.length/2)
+                       + " us), " + numDiffs + " differ");
+    System.out.println("Saved and loaded again: "
+                       + (copySame ? "same bytes, " : "different bytes, ")
+                       + numCopyDiffs + " seeks differ");
+    System.out.println("Index for another game: " + numOtherDiffs
+                       + " seeks differ");
+
+    if ( numDiffs > 0 || !copySame || numCopyDiffs > 0 ||
+         numOtherDiffs == 0 ) {
+      System.out.println("Index test failed");
+      System.exit(1);
+    }
+
+  } // main()
+
+  // hash of a game's state including its random numbers (for testing)
+  private static long gameHash(HeadlessRunner runner) {
+
+    return StateHash.add(runner.gameManager().stateHash(),
+                         runner.gameManager().randomHash());
+
+  } // gameHash()
+
+  // seek to each tick in turn, counting how many times the game's state
+  // (there, and for a few ticks after) differs from the hashes from
+  // playing from the start (for testing)
+  private static int seekDiffs(ReplayIndex index, HeadlessRunner player,
+                               long ticks[], long hashes[])
+                                                        throws IOException {
+
+    int numDiffs = 0;
+    for ( long tick : ticks ) {
+      index.seek(player, tick);
+      boolean same = ( player.context().ticks() == tick );
+      for ( long t = tick ; same && t < Math.min(tick+10, hashes.length) ;
+            t++ ) {
+        if ( t > tick ) player.run(1);
+        same = ( gameHash(player) == hashes[(int)t] );
+      }
+      if ( !same ) numDiffs++;
+    }
+    return numDiffs;
+
+  } // seekDiffs()
+
+  // a replay of a game played with random keys
+  private static Replay randomReplay(int questNum, int numTicks, long seed) {
+
+    KeyMonitorBits keys = new KeyMonitorBits();
+    Replay replay = new Replay(questNum, seed);
+    KeyMonitorRecorder recorder = new KeyMonitorRecorder(keys, replay);
+    HeadlessRunner runner = new HeadlessRunner(questNum, seed, recorder);
+
+    Random random = new Random(seed);
+    int bits = 0;
+    for ( int k = 0 ; k < numTicks ; k++ ) {
+      if ( random.nextInt(8) == 0 ) bits = random.nextInt(KeyMonitorBits.ALL);
+      keys.set(bits & ~KeyMonitorBits.ESCAPE);
+      runner.run(1);
+    }
+    recorder.finish(runner.context().ticks());
+    return replay;
+
+  } // randomReplay()
+
+  // identifies an index
+  public static final int MAGIC   = 0x4D514B46, // "MQKF"
+                          VERSION = 1;
+
+  // tag for an index kept in a replay (see Replay.section())
+  public static final int SECTION_KEYFRAMES = 0x4B46524D; // "KFRM"
+
+  // ticks between keyframes unless specified (ten seconds)
+  public static final int DEFAULT_SPACING = 300;
+
+  // largest keyframe that will be read
+  private static final int kMaxBytes = 1 << 26;
+
+  // ticks between keyframes
+  private final int mSpacing;
+
+  // length of the replay
+  private final int mNumTicks;
+
+  // lazily created shared data, and whether it has been used yet
+  private final byte mStatics[];
+  private boolean    mStaticsRead;
+
+  // the keyframes (as bytes, and as snapshots once they've been used)
+  private final byte         mKeyframes[][];
+  private final GameSnapshot mSnapshots[];
+
+  // constructor
+  private ReplayIndex(int spacing, int numTicks,
+                      byte statics[], byte keyframes[][]) {
+
+    assert( spacing > 0 );
+    mSpacing = spacing;
+    mNumTicks = numTicks;
+    mStatics = statics;
+    mStaticsRead = false;
+    mKeyframes = keyframes;
+    mSnapshots = new GameSnapshot[keyframes.length];
+
+  } // constructor
+
+  // play through a replay, taking a keyframe every so many ticks
+  public static ReplayIndex build(Replay replay, int spacing) {
+
+    assert( spacing > 0 );
+
+    HeadlessRunner runner = new HeadlessRunner(replay);
+    final int numKeyframes = replay.numTicks()/spacing + 1;
+    byte keyframes[][] = new byte[numKeyframes][];
+    GameSnapshot snapshots[] = new GameSnapshot[numKeyframes];
+    for ( int k = 0 ; k < numKeyframes ; k++ ) {
+      if ( k > 0 ) runner.run(spacing);
+      snapshots[k] = new GameSnapshot(runner.gameManager());
+      keyframes[k] = snapshots[k].toBytes();
+    }
+
+    ReplayIndex index = new ReplayIndex(spacing, replay.numTicks(),
+                                        StateSerializer.writeStatics(),
+                                        keyframes);
+    System.arraycopy(snapshots, 0, index.mSnapshots, 0, numKeyframes);
+    index.mStaticsRead = true;
+    return index;
+
+  } // build()
+
+  // the index kept in a replay (or null if it doesn't have one)
+  public static ReplayIndex fromReplay(Replay replay) throws IOException {
+
+    byte contents[] = replay.section(SECTION_KEYFRAMES);
+    if ( contents == null ) return null;
+    ReplayIndex index = read(new ByteArrayInputStream(contents));
+    if ( index.mNumTicks != replay.numTicks() ) {
+      throw new IOException("index does not match the replay");
+    }
+    return index;
+
+  } // fromReplay()
+
+  // keep the index in a replay (replacing any index already there)
+  public void addTo(Replay replay) {
+
+    assert( replay.numTicks() == mNumTicks );
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try {
+      write(bytes);
+    } catch ( IOException ex ) {
+      throw new IllegalStateException("Cannot write index: " + ex);
+    }
+    replay.setSection(SECTION_KEYFRAMES, bytes.toByteArray());
+
+  } // addTo()
+
+  // where the index for a replay file is kept (if not in the replay itself)
+  public static File indexFile(File replayFile) {
+
+    return new File(replayFile.getPath() + ".idx");
+
+  } // indexFile()
+
+  // ticks between keyframes
+  public int spacing() { return mSpacing; }
+
+  // number of keyframes
+  public int numKeyframes() { return mKeyframes.length; }
+
+  // total size of the keyframes (and the shared data)
+  public long numBytes() {
+
+    long total = mStatics.length;
+    for ( byte keyframe[] : mKeyframes ) total += keyframe.length;
+    return total;
+
+  } // numBytes()
+
+  // move a game that is playing the replay to a tick (by restoring the
+  // keyframe before the tick and playing on, unless the game can get there
+  // sooner by playing on from where it is)
+  public void seek(HeadlessRunner runner, long tick) throws IOException {
+
+    assert( tick >= 0 );
+
+    final int k = (int)Math.min(tick/mSpacing, mKeyframes.length-1);
+    final long now = runner.context().ticks();
+    if ( now > tick || now < (long)k*mSpacing ) {
+      keyframe(k).restore(runner.gameManager());
+    }
+    runner.run( (int)(tick - runner.context().ticks()) );
+
+  } // seek()
+
+  // one of the keyframes
+  private GameSnapshot keyframe(int k) throws IOException {
+
+    if ( mSnapshots[k] == null ) {
+      if ( !mStaticsRead ) {
+        StateSerializer.readStatics(mStatics);
+        mStaticsRead = true;
+      }
+      mSnapshots[k] = GameSnapshot.fromBytes(mKeyframes[k]);
+      if ( mSnapshots[k].ticks() != (long)k*mSpacing ) {
+        throw new IOException("keyframe " + k + " is for the wrong tick");
+      }
+    }
+    return mSnapshots[k];
+
+  } // keyframe()
+
+  // write to a file
+  public void save(File file) throws IOException {
+
+    OutputStream stream = new BufferedOutputStream(new FileOutputStream(file));
+    try {
+      write(stream);
+    } finally {
+      stream.close();
+    }
+
+  } // save()
+
+  // read from a file
+  public static ReplayIndex load(File file) throws IOException {
+
+    InputStream stream = new BufferedInputStream(new FileInputStream(file));
+    try {
+      return read(stream);
+    } finally {
+      stream.close();
+    }
+
+  } // load()
+
+  // write to a stream
+  public void write(OutputStream stream) throws IOException {
+
+    DataOutputStream data = new DataOutputStream(stream);
+    data.writeInt(MAGIC);
+    data.writeInt(VERSION);
+    data.writeInt(mSpacing);
+    data.writeInt(mNumTicks);
+    data.writeInt(mStatics.length);
+    data.write(mStatics);
+    data.writeInt(mKeyframes.length);
+    for ( byte keyframe[] : mKeyframes ) {
+      data.writeInt(keyframe.length);
+      data.write(keyframe);
+    }
+    data.flush();
+
+  } // write()
+
+  // read from a stream
+  public static ReplayIndex read(InputStream stream) throws IOException {
+
+    DataInputStream data = new DataInputStream(stream);
+    if ( data.readInt() != MAGIC ) throw new IOException("not an index");
+    final int version = data.readInt();
+    if ( version > VERSION ) {
+      throw new IOException("unsupported index version " + version);
+    }
+    final int spacing  = data.readInt(),
+              numTicks = data.readInt();
+    if ( spacing <= 0 || numTicks < 0 ) throw new IOException("bad index");
+    byte statics[] = readBytes(data);
+    final int numKeyframes = data.readInt();
+    if ( numKeyframes != numTicks/spacing + 1 ) {
+      throw new IOException("bad number of keyframes in index");
+    }
+    byte keyframes[][] = new byte[numKeyframes][];
+    for ( int k = 0 ; k < numKeyframes ; k++ ) {
+      keyframes[k] = readBytes(data);
+    }
+    return new ReplayIndex(spacing, numTicks, statics, keyframes);
+
+  } // read()
+
+  // read a length, then that many bytes
+  private static byte[] readBytes(DataInputStream data) throws IOException {
+
+    final int length = data.readInt();
+    if ( length < 0 || length > kMaxBytes ) {
+      throw new IOException("bad length in index");
+    }
+    byte bytes[] = new byte[length];
+    data.readFully(bytes);
+    return bytes;
+
+  } // readBytes()
+
+} // class ReplayIndex
@@ -0,0 +1,167 @@
+/*
+ *  ReplayOutcome.java
+ *  Copyright (c) 2017 Simon Hern
+ *  Contact: dishmoth@yahoo.co.uk, dishmoth.com, github.com/dishmoth
+ */
+
+package com.dishmoth.miniquests;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import com.dishmoth.miniquests.game.EndStory;
+import com.dishmoth.miniquests.game.GameManager;
+import com.dishmoth.miniquests.game.QuestStats;
+
+// how a quest turned out: which quest it was, whether it was completed (and
+// on which tick), and how many times the hero died
+// (worked out by watching the game after each tick; a replay can hold the
+// outcome that its recording claims, see SECTION_OUTCOME, which can then be
+// checked by playing the replay back, see ReplayVerifier)
+public class ReplayOutcome {
+
+  // tag for the outcome kept in a replay (see Replay.section())
+  public static final int SECTION_OUTCOME = 0x52534C54; // "RSLT"
+
+  // which quest was played (or -1 if no quest has been seen)
+  private int mQuestNum;
+
+  // whether the quest was completed, and the tick when it was (or -1)
+  private boolean mCompleted;
+  private long    mCompletionTick;
+
+  // number of times that the hero died
+  private int mDeaths;
+
+  // the stats of the quest being watched
+  private QuestStats mStats;
+
+  // constructor (nothing seen yet)
+  public ReplayOutcome() {
+
+    mQuestNum = -1;
+    mCompleted = false;
+    mCompletionTick = -1;
+    mDeaths = 0;
+    mStats = null;
+
+  } // constructor
+
+  // constructor (a known outcome)
+  public ReplayOutcome(int questNum, boolean completed, long completionTick,
+                       int deaths) {
+
+    this();
+    mQuestNum = questNum;
+    mCompleted = completed;
+    mCompletionTick = ( completed ? completionTick : -1 );
+    mDeaths = deaths;
+
+  } // constructor
+
+  // which quest was played (or -1 if no quest has been seen)
+  public int questNum() { return mQuestNum; }
+
+  // whether the quest was completed
+  public boolean completed() { return mCompleted; }
+
+  // the tick when the quest was completed (or -1)
+  public long completionTick() { return mCompletionTick; }
+
+  // number of times that the hero died
+  public int deaths() { return mDeaths; }
+
+  // look at the game after a tick (nothing changes once the quest is over)
+  public void update(GameManager game) {
+
+    if ( mCompleted ) return;
+
+    final QuestStats stats = game.context().saveState().questStats();
+    if ( stats != null && stats != mStats && stats.questNum() >= 0 &&
+         (mStats == null || stats.questNum() == mQuestNum) ) {
+      mStats = stats;
+      mQuestNum = stats.questNum();
+    }
+    if ( mStats != null ) mDeaths = mStats.numDeaths();
+
+    if ( mStats != null && game.story() instanceof EndStory ) {
+      mCompleted = true;
+      mCompletionTick = game.context().ticks();
+    }
+
+  } // update()
+
+  // description of how this differs from another outcome (or null if the
+  // two are the same)
+  public String differences(ReplayOutcome other) {
+
+    StringBuilder text = new StringBuilder();
+    if ( mQuestNum != other.mQuestNum ) {
+      text.append("quest " + mQuestNum + " not " + other.mQuestNum + "; ");
+    }
+    if ( mCompleted != other.mCompleted ) {
+      text.append( mCompleted ? "completed; " : "not completed; " );
+    } else if ( mCompletionTick != other.mCompletionTick ) {
+      text.append("completed on tick " + mCompletionTick + " not "
+                  + other.mCompletionTick + "; ");
+    }
+    if ( mDeaths != other.mDeaths ) {
+      text.append(mDeaths + " deaths not " + other.mDeaths + "; ");
+    }
+    if ( text.length() == 0 ) return null;
+    text.setLength(text.length()-2);
+    return text.toString();
+
+  } // differences()
+
+  // the outcome claimed by a replay (or null if it doesn't claim one)
+  public static ReplayOutcome fromReplay(Replay replay) throws IOException {
+
+    byte contents[] = replay.section(SECTION_OUTCOME);
+    if ( contents == null ) return null;
+    DataInputStream data = new DataInputStream(
+                                        new ByteArrayInputStream(contents));
+    final int questNum = data.readInt();
+    final boolean completed = data.readBoolean();
+    final long completionTick = data.readLong();
+    final int deaths = data.readInt();
+    if ( questNum < -1 || deaths < 0 ) {
+      throw new IOException("bad outcome in replay");
+    }
+    return new ReplayOutcome(questNum, completed, completionTick, deaths);
+
+  } // fromReplay()
+
+  // keep the outcome in a replay (as the outcome that it claims)
+  public void addTo(Replay replay) {
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream data = new DataOutputStream(bytes);
+    try {
+      data.writeInt(mQuestNum);
+      data.writeBoolean(mCompleted);
+      data.writeLong(mCompletionTick);
+      data.writeInt(mDeaths);
+      data.flush();
+    } catch ( IOException ex ) {
+      throw new IllegalStateException("Cannot write outcome: " + ex);
+    }
+    replay.setSection(SECTION_OUTCOME, bytes.toByteArray());
+
+  } // addTo()
+
+  // text output
+  @Override
+  public String toString() {
+
+    return ( "quest " + mQuestNum + ", "
+             + ( mCompleted ? ("completed on tick " + mCompletionTick)
+                            : "not completed" )
+             + ", " + mDeaths + " deaths" );
+
+  } // toString()
+
+} // class ReplayOutcome
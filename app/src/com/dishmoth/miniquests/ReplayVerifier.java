@@ -0,0 +1,337 @@
+/*
+ *  ReplayVerifier.java
+ *  Copyright (c) 2017 Simon Hern
+ *  Contact: dishmoth@yahoo.co.uk, dishmoth.com, github.com/dishmoth
+ */
+
+package com.dishmoth.miniquests;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// checks submitted replays by playing them back as quickly as possible:
+// the outcome that each replay claims (quest, completion tick, deaths, see
+// ReplayOutcome) must be what the game really produces, and the game state
+// must match any checksums in the replay (see ReplayChecksums)
+// (replays are shared between threads by a work-stealing pool, each one
+// played in a game context of its own; a result file is written for each)
+public class ReplayVerifier {
+
+  // main method (checks all of the replays in a directory; without a
+  // directory, makes some replays with random keys and checks those)
+  // arguments: [replay directory] [number of threads] [results directory]
+  public static void main(String args[]) throws IOException {
+
+    final File dir        = ( args.length > 0 ) ? new File(args[0])
+                                                : randomReplays(8, 30*60*2);
+    final int  numThreads = ( args.length > 1 ) ? Integer.parseInt(args[1])
+                                                : RouteSearch
+                                                  .defaultNumThreads();
+    final File resultsDir = ( args.length > 2 ) ? new File(args[2]) : dir;
+
+    File files[] = dir.listFiles();
+    if ( files == null ) throw new IOException("cannot read " + dir);
+    ArrayList<File> replays = new ArrayList<File>();
+    for ( File file : files ) {
+      if ( file.getName().endsWith(REPLAY_SUFFIX) ) replays.add(file);
+    }
+    files = replays.toArray(new File[replays.size()]);
+    Arrays.sort(files);
+
+    ReplayVerifier verifier = new ReplayVerifier(numThreads, resultsDir);
+    Result results[] = verifier.verifyAll(files);
+    verifier.close();
+    for ( Result result : results ) System.out.println(result);
+    System.out.println(verifier.report());
+
+  } // main()
+
+  // make some replays with random keys in a new directory, each claiming
+  // its true outcome except for the last, which claims an extra death
+  private static File randomReplays(int number,
+                                    int numTicks) throws IOException {
+
+    File dir = File.createTempFile("replays", "");
+    if ( !dir.delete() || !dir.mkdir() ) {
+      throw new IOException("cannot create " + dir);
+    }
+
+    for ( int k = 0 ; k < number ; k++ ) {
+      final int questNum = k % 2;
+      final long seed = k;
+      KeyMonitorBits keys = new KeyMonitorBits();
+      Replay replay = new Replay(questNum, seed);
+      KeyMonitorRecorder recorder = new KeyMonitorRecorder(keys, replay);
+      HeadlessRunner runner = new HeadlessRunner(questNum, seed, recorder);
+      ReplayOutcome outcome = new ReplayOutcome();
+      ReplayChecksums checksums
+                      = new ReplayChecksums(ReplayChecksums.DEFAULT_INTERVAL);
+
+      Random random = new Random(seed);
+      int bits = 0;
+      for ( int tick = 0 ; tick < numTicks ; tick++ ) {
+        if ( random.nextInt(8) == 0 ) {
+          bits = random.nextInt(KeyMonitorBits.ALL);
+        }
+        keys.set(bits & ~KeyMonitorBits.ESCAPE);
+        runner.run(1);
+        outcome.update(runner.gameManager());
+        checksums.record(runner.gameManager());
+      }
+      recorder.finish(runner.context().ticks());
+
+      if ( k == number-1 ) {
+        outcome = new ReplayOutcome(outcome.questNum(), outcome.completed(),
+                                    outcome.completionTick(),
+                                    outcome.deaths()+1);
+      }
+      outcome.addTo(replay);
+      checksums.addTo(replay);
+      replay.save(new File(dir, "random" + k + REPLAY_SUFFIX));
+    }
+    return dir;
+
+  } // randomReplays()
+
+  // file name endings for replays and for result files
+  public static final String REPLAY_SUFFIX = ".mqr",
+                             RESULT_SUFFIX = ".result";
+
+  // what a check found
+  public static final int VERIFIED = 0, // outcome matches the claim
+                          MISMATCH = 1, // outcome differs from the claim
+                          NO_CLAIM = 2, // replay doesn't claim an outcome
+                          FAILED   = 3, // replay couldn't be played
+                          DESYNC   = 4; // state differs from a checksum
+  private static final String kVerdictNames[] = { "verified", "mismatch",
+                                                  "no claim", "failed",
+                                                  "desync" };
+
+  // what checking one replay found
+  public static class Result {
+    public File          mFile;
+    public int           mVerdict;
+    public ReplayOutcome mClaimed,  // (null if not known)
+                         mActual;   // (null if not known)
+    public String        mMessage;  // (explains a mismatch or failure)
+    public long          mNumTicks; // (number of ticks played)
+    public double        mSeconds;  // (time taken)
+    @Override
+    public String toString() {
+      return ( mFile.getName() + ": " + kVerdictNames[mVerdict]
+               + ( (mMessage != null) ? (" (" + mMessage + ")") : "" ) );
+    }
+  } // class ReplayVerifier.Result
+
+  // threads that play the replays
+  private final ForkJoinPool mPool;
+
+  // where result files are written (or null for none)
+  private final File mResultsDir;
+
+  // statistics for the replays checked so far
+  private final AtomicInteger mVerdictCounts[];
+  private final AtomicLong    mNumTicks;
+  private final long          mStartNanos;
+
+  // constructor (result files are written to the given directory, or not
+  // written if it is null)
+  public ReplayVerifier(int numThreads, File resultsDir) {
+
+    assert( numThreads > 0 );
+
+    HeadlessRunner.initializeEnv(false);
+
+    mPool = new ForkJoinPool(numThreads);
+    mResultsDir = resultsDir;
+    mVerdictCounts = new AtomicInteger[kVerdictNames.length];
+    for ( int k = 0 ; k < mVerdictCounts.length ; k++ ) {
+      mVerdictCounts[k] = new AtomicInteger();
+    }
+    mNumTicks = new AtomicLong();
+    mStartNanos = System.nanoTime();
+
+  } // constructor
+
+  // check a replay when a thread is free (for replays that arrive one at a
+  // time; the result can be collected from the task)
+  public ForkJoinTask<Result> submit(final File file) {
+
+    return mPool.submit(new Callable<Result>() {
+      public Result call() { return check(file); }
+    });
+
+  } // submit()
+
+  // check a batch of replays, sharing them between the threads
+  public Result[] verifyAll(File files[]) {
+
+    Result results[] = new Result[files.length];
+    if ( files.length > 0 ) {
+      mPool.invoke(new CheckRange(files, results, 0, files.length));
+    }
+    return results;
+
+  } // verifyAll()
+
+  // stop the threads (once any work already submitted is done)
+  public void close() { mPool.shutdown(); }
+
+  // checks a range of replays, splitting it between threads
+  private class CheckRange extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final File   mFiles[];
+    private final Result mResults[];
+    private final int    mStart,
+                         mEnd;
+
+    CheckRange(File files[], Result results[], int start, int end) {
+      mFiles = files;
+      mResults = results;
+      mStart = start;
+      mEnd = end;
+    }
+
+    @Override
+    protected void compute() {
+      if ( mEnd - mStart == 1 ) {
+        mResults[mStart] = check(mFiles[mStart]);
+      } else {
+        final int mid = (mStart + mEnd)/2;
+        invokeAll(new CheckRange(mFiles, mResults, mStart, mid),
+                  new CheckRange(mFiles, mResults, mid, mEnd));
+      }
+    }
+
+  } // class ReplayVerifier.CheckRange
+
+  // check a replay (on the current thread), write its result file, and
+  // add it to the statistics
+  private Result check(File file) {
+
+    Result result = verify(file);
+    mVerdictCounts[result.mVerdict].incrementAndGet();
+    mNumTicks.addAndGet(result.mNumTicks);
+
+    if ( mResultsDir != null ) {
+      try {
+        writeResult(result, new File(mResultsDir,
+                                     file.getName() + RESULT_SUFFIX));
+      } catch ( IOException ex ) {
+        System.out.println("Result not written for " + file + ": " + ex);
+      }
+    }
+    return result;
+
+  } // check()
+
+  // play a replay (in a game of its own, on the current thread) and
+  // compare the outcome with the replay's claim
+  public static Result verify(File file) {
+
+    Result result = new Result();
+    result.mFile = file;
+    final long startNanos = System.nanoTime();
+
+    try {
+      Replay replay = Replay.load(file);
+      result.mClaimed = ReplayOutcome.fromReplay(replay);
+      ReplayChecksums checksums = ReplayChecksums.fromReplay(replay);
+
+      HeadlessRunner runner = new HeadlessRunner(replay);
+      ReplayOutcome actual = new ReplayOutcome();
+      String desync = null;
+      while ( runner.context().ticks() < replay.numTicks() &&
+              !actual.completed() && desync == null ) {
+        runner.run(1);
+        actual.update(runner.gameManager());
+        if ( checksums != null ) {
+          desync = checksums.check(runner.gameManager());
+        }
+      }
+      result.mActual = actual;
+      result.mNumTicks = runner.context().ticks();
+
+      if ( desync != null ) {
+        result.mVerdict = DESYNC;
+        result.mMessage = desync;
+      } else if ( result.mClaimed == null ) {
+        result.mVerdict = NO_CLAIM;
+      } else {
+        result.mMessage = actual.differences(result.mClaimed);
+        result.mVerdict = ( result.mMessage == null ) ? VERIFIED : MISMATCH;
+      }
+    } catch ( IOException ex ) {
+      result.mVerdict = FAILED;
+      result.mMessage = ex.toString();
+    } catch ( RuntimeException ex ) {
+      result.mVerdict = FAILED;
+      result.mMessage = ex.toString();
+    } catch ( AssertionError ex ) {
+      result.mVerdict = FAILED;
+      result.mMessage = ex.toString();
+    }
+
+    result.mSeconds = (System.nanoTime() - startNanos)*1.0e-9;
+    return result;
+
+  } // verify()
+
+  // write the details of a check to a file
+  public static void writeResult(Result result,
+                                 File file) throws IOException {
+
+    PrintWriter out = new PrintWriter(new OutputStreamWriter(
+                                      new FileOutputStream(file), "UTF-8"));
+    try {
+      out.println("replay: " + result.mFile.getPath());
+      out.println("verdict: " + kVerdictNames[result.mVerdict]);
+      if ( result.mMessage != null ) out.println("message: " + result.mMessage);
+      out.println("claimed: " + ( (result.mClaimed != null)
+                                  ? result.mClaimed.toString() : "none" ));
+      out.println("actual: " + ( (result.mActual != null)
+                                 ? result.mActual.toString() : "unknown" ));
+      out.println("ticks: " + result.mNumTicks);
+      out.println("seconds: " + String.format("%.3f", result.mSeconds));
+    } finally {
+      out.close();
+    }
+    if ( out.checkError() ) throw new IOException("cannot write " + file);
+
+  } // writeResult()
+
+  // text output (numbers of each verdict, and throughput)
+  public String report() {
+
+    int numRuns = 0;
+    StringBuilder text = new StringBuilder();
+    for ( int k = 0 ; k < mVerdictCounts.length ; k++ ) {
+      final int count = mVerdictCounts[k].get();
+      numRuns += count;
+      text.append(", " + count + " " + kVerdictNames[k]);
+    }
+    final double secs = Math.max(1.0e-9,
+                                 (System.nanoTime() - mStartNanos)*1.0e-9);
+    return ( numRuns + " runs" + text + " in "
+             + String.format("%.2f", secs) + " sec ("
+             + String.format("%.1f", 60*numRuns/secs) + " runs per minute, "
+             + String.format("%.0f", mNumTicks.get()/secs)
+             + " ticks per sec, " + mPool.getParallelism() + " threads)" );
+
+  } // report()
+
+} // class ReplayVerifier
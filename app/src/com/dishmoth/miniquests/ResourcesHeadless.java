@@ -0,0 +1,68 @@
+/*
+ *  ResourcesHeadless.java
+ *  Copyright (c) 2017 Simon Hern
+ *  Contact: dishmoth@yahoo.co.uk, dishmoth.com, github.com/dishmoth
+ */
+
+package com.dishmoth.miniquests;
+
+import java.io.BufferedInputStream;
+import java.io.InputStream;
+
+import com.dishmoth.miniquests.game.EgaImage;
+import com.dishmoth.miniquests.game.EgaTools;
+import com.dishmoth.miniquests.game.Resources;
+
+// manager for graphics (headless version, images are read without AWT)
+public class ResourcesHeadless implements Resources {
+
+  // path for files
+  static protected final String kRootPackageName = "data/";
+  
+  // constructor
+  public ResourcesHeadless() {
+    
+  } // constructor
+  
+  // return an EgaImage from file (exception if not known)
+  public EgaImage loadEgaImage(String resourceName) {
+    
+    PngDecoder image = null;
+    
+    try {
+      
+      String fullName = kRootPackageName + resourceName;
+      InputStream inS = ResourcesHeadless.class.getClassLoader()
+                                         .getResourceAsStream(fullName);
+      if ( inS == null ) throw new RuntimeException("resource not found");
+      BufferedInputStream inB = new BufferedInputStream(inS);
+      
+      image = new PngDecoder(inB);
+      
+      inB.close();
+      
+    } catch (Exception ex) {
+      throw new RuntimeException("Resources.loadEgaImage(): "
+                                 + "error reading \"" + resourceName 
+                                 + "\": " + ex.getClass().getName() 
+                                 + " " + ex.getMessage());
+    }
+    
+    final int width  = image.width(),
+              height = image.height();
+    final int argb[] = image.pixels();
+    
+    byte pixels[] = new byte[width*height];
+    for ( int index = 0 ; index < pixels.length ; index++ ) {
+      pixels[index] = (byte)EgaTools.argbToEga(argb[index]);
+    }
+    
+    final int refXPos = 0,
+              refYPos = 0;
+    final float depth = 0.0f;
+    
+    return new EgaImage(refXPos, refYPos, width, height, pixels, depth);
+    
+  } // loadEgaImage()
+  
+} // class ResourcesHeadless
@@ -0,0 +1,327 @@
+/*
+ *  RewindBuffer.java
+ *  Copyright (c) 2017 Simon Hern
+ *  Contact: dishmoth@yahoo.co.uk, dishmoth.com, github.com/dishmoth
+ */
+
+package com.dishmoth.miniquests;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Random;
+
+import com.dishmoth.miniquests.game.Env;
+import com.dishmoth.miniquests.game.GameManager;
+import com.dishmoth.miniquests.game.Sprite;
+
+// keeps the last few seconds of a game's history so that it can be stepped
+// backwards a tick at a time (for level testing, or for rewinding play)
+// (the buffer holds one complete copy of the game, brought up to date after
+// each tick, plus for each tick the earlier contents of just the objects
+// that changed; sprites that never change, like walls and block arrays,
+// cost nothing after the first copy)
+public class RewindBuffer {
+
+  // main method (plays with random keys, rewinds, then plays forward again,
+  // checking that the screens and state hashes match, and that playing
+  // forward with other keys doesn't; exits with an error code if not)
+  // arguments: [quest number] [number of ticks] [seconds of history] [seed]
+  public static void main(String args[]) {
+
+    final int  questNum   = ( args.length > 0 ) ? Integer.parseInt(args[0])
+                                                : 0;
+    final int  numTicks   = ( args.length > 1 ) ? Integer.parseInt(args[1])
+                                                : 30*60;
+    final int  numSeconds = ( args.length > 2 ) ? Integer.parseInt(args[2])
+                                                : DEFAULT_SECONDS;
+    final long seed       = ( args.length > 3 ) ? Long.parseLong(args[3])
+                                                : 0;
+
+    KeyMonitorBits keys = new KeyMonitorBits();
+    HeadlessRunner runner = new HeadlessRunner(questNum, seed, keys);
+    runner.setDrawInterval(1);
+    RewindBuffer rewind = new RewindBuffer(runner.gameManager(),
+                                           numSeconds*Env.ticksPerSecond(),
+                                           DEFAULT_MAX_BYTES);
+
+    Random random = new Random(seed);
+    int keyBits[] = new int[numTicks];
+    long hashes[] = new long[numTicks+1],
+         stateHashes[] = new long[numTicks+1];
+    drawScreen(runner);
+    hashes[0] = screenHash(runner);
+    stateHashes[0] = runner.gameManager().stateHash();
+    int bits = 0;
+    long recordNanos = 0;
+    for ( int k = 0 ; k < numTicks ; k++ ) {
+      if ( random.nextInt(8) == 0 ) bits = random.nextInt(KeyMonitorBits.ALL);
+      keys.set(bits & ~KeyMonitorBits.ESCAPE);
+      keyBits[k] = keys.bits();
+      runner.run(1);
+      hashes[k+1] = screenHash(runner);
+      stateHashes[k+1] = runner.gameManager().stateHash();
+      final long startNanos = System.nanoTime();
+      rewind.record();
+      recordNanos += System.nanoTime() - startNanos;
+    }
+    System.out.println("Recorded: " + rewind.report() + ", "
+                       + String.format("%.1f", recordNanos*1.0e-3/numTicks)
+                       + " us per tick");
+    final int numHeld = rewind.numTicks();
+
+    int numSteps = 0,
+        numDiffs = 0;
+    long stepNanos = 0;
+    while ( true ) {
+      final long startNanos = System.nanoTime();
+      if ( !rewind.stepBack() ) break;
+      stepNanos += System.nanoTime() - startNanos;
+      numSteps++;
+      drawScreen(runner);
+      final int tick = numTicks - numSteps;
+      if ( screenHash(runner) != hashes[tick] ||
+           runner.gameManager().stateHash() != stateHashes[tick] ) {
+        numDiffs++;
+      }
+    }
+    System.out.println("Rewound " + numSteps + " ticks, "
+                       + String.format("%.1f", stepNanos*1.0e-3
+                                               /Math.max(1, numSteps))
+                       + " us per tick, " + numDiffs + " ticks differ");
+
+    int numReplayDiffs = 0;
+    for ( int k = numTicks - numSteps ; k < numTicks ; k++ ) {
+      keys.set(keyBits[k]);
+      runner.run(1);
+      rewind.record();
+      if ( screenHash(runner) != hashes[k+1] ||
+           runner.gameManager().stateHash() != stateHashes[k+1] ) {
+        numReplayDiffs++;
+      }
+    }
+    System.out.println("Replayed " + numSteps + " ticks, " + numReplayDiffs
+                       + " ticks differ");
+
+    int numControlDiffs = 0;
+    for ( int k = 0 ; k < numSteps && rewind.stepBack() ; k++ ) {}
+    for ( int k = numTicks - numSteps ; k < numTicks ; k++ ) {
+      keys.set(~keyBits[k] & KeyMonitorBits.ALL & ~KeyMonitorBits.ESCAPE);
+      runner.run(1);
+      if ( screenHash(runner) != hashes[k+1] ||
+           runner.gameManager().stateHash() != stateHashes[k+1] ) {
+        numControlDiffs++;
+      }
+    }
+    System.out.println("Replayed with other keys, " + numControlDiffs
+                       + " ticks differ");
+
+    if ( numSteps == 0 || numSteps != numHeld || numDiffs > 0 ||
+         numReplayDiffs > 0 || numControlDiffs == 0 ) {
+      System.out.println("Rewind test failed");
+      System.exit(1);
+    }
+
+  } // main()
+
+  // draw the game onto the runner's screen
+  private static void drawScreen(HeadlessRunner runner) {
+
+    runner.screen().clear();
+    runner.gameManager().draw(runner.screen());
+
+  } // drawScreen()
+
+  // simple checksum of the screen (for testing)
+  private static long screenHash(HeadlessRunner runner) {
+
+    long hash = 0;
+    for ( byte pixel : runner.screen().pixels() ) hash = 31*hash + pixel;
+    return hash;
+
+  } // screenHash()
+
+  // default limits on how much history is kept
+  public static final int  DEFAULT_SECONDS   = 10;
+  public static final long DEFAULT_MAX_BYTES = 16L << 20;
+
+  // memory overheads for each tick and each changed object
+  private static final int kTickBytes   = 48,
+                           kObjectBytes = 8;
+
+  // the objects that changed during one tick, and their earlier contents
+  private static class Delta {
+    Object mObjects[];
+    Object mBefore[];
+    int    mNumSprites;
+    long   mNumBytes;
+  } // class RewindBuffer.Delta
+
+  // the game being recorded
+  private GameManager mGame;
+
+  // keeps the copy up to date (game object => copy), or null while the
+  // game is being stepped backwards
+  private StateCopier mCopier;
+
+  // brings the game back into line with the copy (copy => game object),
+  // or null while the game is being recorded
+  private StateCopier mRestorer;
+
+  // the copy of the game (as it was after the last tick recorded)
+  private GameManager mCopy;
+
+  // changes for each tick, oldest first
+  private LinkedList<Delta> mDeltas;
+
+  // limits on the history kept
+  private final int  mMaxTicks;
+  private final long mMaxBytes;
+
+  // memory used by the copy and by the changes
+  private long mCopyBytes,
+               mDeltaBytes;
+
+  // statistics (ticks recorded, and objects and sprites changed in them)
+  private long mNumRecorded,
+               mNumObjectsChanged,
+               mNumSpritesChanged;
+
+  // constructor (default limits)
+  public RewindBuffer(GameManager game) {
+
+    this(game, DEFAULT_SECONDS*Env.ticksPerSecond(), DEFAULT_MAX_BYTES);
+
+  } // constructor
+
+  // constructor (history limited by number of ticks and memory used)
+  public RewindBuffer(GameManager game, int maxTicks, long maxBytes) {
+
+    assert( game != null );
+    assert( maxTicks > 0 && maxBytes > 0 );
+
+    mGame = game;
+    mMaxTicks = maxTicks;
+    mMaxBytes = maxBytes;
+    mDeltas = new LinkedList<Delta>();
+    mNumRecorded = mNumObjectsChanged = mNumSpritesChanged = 0;
+    mDeltaBytes = 0;
+
+    StateCopier.refreshShared();
+    mCopier = new StateCopier();
+    mCopy = (GameManager)mCopier.copy(mGame);
+    if ( mCopier.sharedChanged() ) {
+      mCopier = new StateCopier();
+      mCopy = (GameManager)mCopier.copy(mGame);
+    }
+    mCopyBytes = mCopier.numBytes();
+    mRestorer = null;
+
+  } // constructor
+
+  // number of ticks that can be stepped back
+  public int numTicks() { return mDeltas.size(); }
+
+  // approximate memory used by the buffer
+  public long numBytes() { return mCopyBytes + mDeltaBytes; }
+
+  // note the changes made by the latest tick
+  // (call after each advance of the game)
+  public void record() {
+
+    if ( mCopier == null ) {
+      mCopier = new StateCopier(inverse(mRestorer.copies()));
+      mRestorer = null;
+    }
+
+    ArrayList<Object> changed = new ArrayList<Object>(),
+                      before  = new ArrayList<Object>();
+    StateCopier.refreshShared();
+    mCopier.refresh(mGame, changed, before);
+    mCopyBytes = mCopier.numBytes();
+
+    Delta delta = new Delta();
+    delta.mObjects = changed.toArray();
+    delta.mBefore = before.toArray();
+    delta.mNumSprites = 0;
+    delta.mNumBytes = kTickBytes;
+    for ( Object obj : delta.mBefore ) {
+      if ( obj instanceof Sprite ) delta.mNumSprites++;
+      delta.mNumBytes += kObjectBytes + StateCopier.sizeOf(obj);
+    }
+
+    mDeltas.add(delta);
+    mDeltaBytes += delta.mNumBytes;
+    mNumRecorded++;
+    mNumObjectsChanged += delta.mObjects.length;
+    mNumSpritesChanged += delta.mNumSprites;
+
+    while ( mDeltas.size() > mMaxTicks ||
+            (mDeltas.size() > 0 && numBytes() > mMaxBytes) ) {
+      mDeltaBytes -= mDeltas.removeFirst().mNumBytes;
+    }
+
+  } // record()
+
+  // return the game to how it was one tick earlier
+  // (returns false if there is no more history)
+  public boolean stepBack() {
+
+    if ( mDeltas.size() == 0 ) return false;
+    Delta delta = mDeltas.removeLast();
+    mDeltaBytes -= delta.mNumBytes;
+
+    for ( int k = delta.mObjects.length-1 ; k >= 0 ; k-- ) {
+      StateCopier.shallowCopyInto(delta.mBefore[k], delta.mObjects[k]);
+    }
+
+    if ( mRestorer == null ) {
+      mRestorer = new StateCopier(inverse(mCopier.copies()));
+      mCopier = null;
+    }
+    for ( Object obj : delta.mObjects ) mRestorer.update(obj);
+
+    return true;
+
+  } // stepBack()
+
+  // forget all of the history (the game continues from where it is)
+  public void clear() {
+
+    mDeltas.clear();
+    mDeltaBytes = 0;
+
+  } // clear()
+
+  // text output
+  public String report() {
+
+    final double perTick = 1.0/Math.max(1, mNumRecorded);
+    return new String(numTicks()
+                      + " ticks held, "
+                      + (numBytes() >> 10)
+                      + " KB (copy "
+                      + (mCopyBytes >> 10)
+                      + " KB), "
+                      + String.format("%.1f", mNumObjectsChanged*perTick)
+                      + " objects and "
+                      + String.format("%.1f", mNumSpritesChanged*perTick)
+                      + " sprites changed per tick");
+
+  } // report()
+
+  // a map with its keys and values swapped
+  private static IdentityHashMap<Object,Object> inverse(
+                                        IdentityHashMap<Object,Object> map) {
+
+    IdentityHashMap<Object,Object> result
+                            = new IdentityHashMap<Object,Object>(map.size());
+    for ( Map.Entry<Object,Object> entry : map.entrySet() ) {
+      result.put(entry.getValue(), entry.getKey());
+    }
+    return result;
+
+  } // inverse()
+
+} // class RewindBuffer
@@ -0,0 +1,619 @@
+/*
+ *  RoomFuzzer.java
+ *  Copyright (c) 2017 Simon Hern
+ *  Contact: dishmoth@yahoo.co.uk, dishmoth.com, github.com/dishmoth
+ */
+
+package com.dishmoth.miniquests;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.dishmoth.miniquests.game.GameManager;
+import com.dishmoth.miniquests.game.Player;
+import com.dishmoth.miniquests.game.QuestStory;
+import com.dishmoth.miniquests.game.Room;
+import com.dishmoth.miniquests.game.ScrollStory;
+import com.dishmoth.miniquests.game.Story;
+
+// plays every room of every quest with random keys, as quickly as possible,
+// looking for trouble: exceptions and failed assertions, warnings from the
+// game (such as the player intersecting obstacles), the player getting stuck,
+// and the player getting somewhere impossible
+// (each run starts the player at one of a room's entry points; runs are
+// shared between threads by a work-stealing pool, and for each problem found
+// the keys are cut down to a minimal replay that still reproduces it)
+public class RoomFuzzer {
+
+  // main method (run with assertions enabled, -ea)
+  // arguments: [ticks per run] [runs per entry point] [number of threads]
+  //            [replay directory] [quests, e.g. "0,2"]
+  public static void main(String args[]) throws IOException {
+
+    final int  numTicks   = ( args.length > 0 ) ? Integer.parseInt(args[0])
+                                                : 30*60;
+    final int  numRuns    = ( args.length > 1 ) ? Integer.parseInt(args[1])
+                                                : 2;
+    final int  numThreads = ( args.length > 2 ) ? Integer.parseInt(args[2])
+                                                : RouteSearch
+                                                  .defaultNumThreads();
+    final File dir        = ( args.length > 3 ) ? new File(args[3])
+                                                : replayDirectory();
+    final int  quests[]   = ( args.length > 4 ) ? parseQuests(args[4])
+                                                : allQuests();
+
+    RoomFuzzer fuzzer = new RoomFuzzer(numThreads);
+    Target targets[] = fuzzer.findTargets(quests);
+    System.out.println(targets.length + " entry points in "
+                       + quests.length + " quests (" + fuzzer.numBlocked()
+                       + " more blocked at the start)");
+
+    Problem problems[] = fuzzer.fuzz(targets, numRuns, numTicks);
+    System.out.println(fuzzer.report());
+
+    for ( int k = 0 ; k < problems.length ; k++ ) {
+      Problem problem = problems[k];
+      File file = new File(dir, "fuzz" + k + "-" + problem.mTarget.mRoom
+                                + "-" + problem.mTarget.mEntryPoint
+                                + ReplayVerifier.REPLAY_SUFFIX);
+      problem.mReplay.save(file);
+      System.out.println(problem + "\n  replay: " + file);
+    }
+    fuzzer.close();
+
+  } // main()
+
+  // a new directory for replays
+  private static File replayDirectory() throws IOException {
+
+    File dir = File.createTempFile("fuzz", "");
+    if ( !dir.delete() || !dir.mkdir() ) {
+      throw new IOException("cannot create " + dir);
+    }
+    return dir;
+
+  } // replayDirectory()
+
+  // quest numbers from a list like "0,2,4"
+  private static int[] parseQuests(String text) {
+
+    String parts[] = text.split(",");
+    int quests[] = new int[parts.length];
+    for ( int k = 0 ; k < parts.length ; k++ ) {
+      quests[k] = Integer.parseInt(parts[k].trim());
+      if ( quests[k] < 0 || quests[k] >= QuestStory.NUM_QUESTS ) {
+        throw new IllegalArgumentException("no quest " + quests[k]);
+      }
+    }
+    return quests;
+
+  } // parseQuests()
+
+  // every quest number
+  private static int[] allQuests() {
+
+    int quests[] = new int[QuestStory.NUM_QUESTS];
+    for ( int k = 0 ; k < quests.length ; k++ ) quests[k] = k;
+    return quests;
+
+  } // allQuests()
+
+  // entry points to try for each room (rooms don't have as many as this)
+  private static final int kMaxEntryPoints = 16;
+
+  // player hasn't moved (or hasn't been seen) for this many ticks
+  private static final int kStuckTicks = 30*30;
+
+  // player has been falling for this many ticks
+  private static final int kFallingTicks = 30*10;
+
+  // player's position is further than this from the room's origin
+  private static final int kMaxDistance = 8*Room.kSize;
+
+  // how long an entry point is tried for before it is used
+  private static final int kProbeTicks = 2;
+
+  // results of trying an entry point
+  private static final int kUsable  = 0,
+                           kBlocked = 1,
+                           kMissing = 2;
+
+  // limit on the replays played while shrinking a problem's keys
+  private static final int kMaxShrinkAttempts = 200;
+
+  // kinds of problem
+  public static final int EXCEPTION  = 0, // exception or failed assertion
+                          WARNING    = 1, // warning message from the game
+                          STUCK      = 2, // player not moving or missing
+                          IMPOSSIBLE = 3; // player somewhere they can't be
+  private static final String kKindNames[] = { "exception", "warning",
+                                               "stuck", "impossible" };
+
+  // where a run begins
+  public static class Target {
+    public int    mQuestNum;
+    public String mRoom;
+    public int    mEntryPoint;
+    public Target(int questNum, String room, int entryPoint) {
+      mQuestNum = questNum;
+      mRoom = room;
+      mEntryPoint = entryPoint;
+    }
+    @Override
+    public String toString() {
+      return ( "quest " + mQuestNum + ", " + mRoom + " entry " + mEntryPoint );
+    }
+  } // class RoomFuzzer.Target
+
+  // something that went wrong during a run
+  public static class Problem {
+    public int    mKind;
+    public String mMessage;   // (details, such as positions)
+    public String mSignature; // (same for repeats of the same problem)
+    public Target mTarget;    // (where the run began)
+    public long   mTick;      // (when the problem appeared)
+    public Replay mReplay;    // (keys leading up to the problem)
+    @Override
+    public String toString() {
+      return ( kKindNames[mKind] + ": " + mMessage + " (" + mTarget
+               + ", tick " + mTick + ")" );
+    }
+  } // class RoomFuzzer.Problem
+
+  // platform code that keeps the first warning message from the game
+  private static class EnvBitsWatcher extends EnvBitsHeadless {
+
+    private String mWarning;
+
+    EnvBitsWatcher() {
+      super(false);
+      mWarning = null;
+    }
+
+    @Override
+    public void debug(String message) {
+      if ( mWarning == null && message.startsWith("Warning") ) {
+        mWarning = message;
+      }
+    } // EnvBits.debug()
+
+    // the first warning since the last call (or null)
+    String takeWarning() {
+      String warning = mWarning;
+      mWarning = null;
+      return warning;
+    }
+
+  } // class RoomFuzzer.EnvBitsWatcher
+
+  // threads that play the runs
+  private final ForkJoinPool mPool;
+
+  // statistics for the runs so far
+  private final AtomicLong mNumRuns,
+                           mNumTicks;
+  private final long       mStartNanos;
+
+  // the first problem found with each signature (signature => problem)
+  private final TreeMap<String,Problem> mProblems;
+
+  // number of entry points found that exist but are blocked
+  private int mNumBlocked;
+
+  // constructor
+  public RoomFuzzer(int numThreads) {
+
+    assert( numThreads > 0 );
+
+    HeadlessRunner.initializeEnv(false);
+
+    mPool = new ForkJoinPool(numThreads);
+    mNumRuns = new AtomicLong();
+    mNumTicks = new AtomicLong();
+    mStartNanos = System.nanoTime();
+    mProblems = new TreeMap<String,Problem>();
+    mNumBlocked = 0;
+
+  } // constructor
+
+  // stop the threads
+  public void close() { mPool.shutdown(); }
+
+  // every usable entry point of every room in some quests (an entry point
+  // is usable if the player can be created there without complaint; some
+  // aren't because they are blocked, for instance by a door that is closed
+  // when the room is in its starting state, see numBlocked())
+  public Target[] findTargets(int quests[]) {
+
+    ArrayList<Target> targets = new ArrayList<Target>();
+    for ( int questNum : quests ) {
+      String rooms[] = new QuestStory(questNum).roomNames();
+      for ( String room : rooms ) {
+        for ( int entry = 0 ; entry < kMaxEntryPoints ; entry++ ) {
+          Target target = new Target(questNum, room, entry);
+          final int status = probe(target);
+          if ( status == kUsable ) targets.add(target);
+          if ( status == kBlocked ) mNumBlocked++;
+        }
+      }
+    }
+    return targets.toArray(new Target[targets.size()]);
+
+  } // findTargets()
+
+  // number of entry points found that exist but are blocked
+  public int numBlocked() { return mNumBlocked; }
+
+  // whether the player can be created at an entry point (kUsable), exists
+  // but complains (kBlocked), or doesn't exist (kMissing)
+  private static int probe(Target target) {
+
+    Replay replay = new Replay(target.mQuestNum, 0);
+    replay.setStartPoint(target.mRoom, target.mEntryPoint);
+    EnvBitsWatcher env = new EnvBitsWatcher();
+    try {
+      new HeadlessRunner(replay, env).run(kProbeTicks);
+    } catch ( RuntimeException ex ) {
+      return kMissing;
+    } catch ( AssertionError ex ) {
+      return kMissing;
+    }
+    return ( (env.takeWarning() == null) ? kUsable : kBlocked );
+
+  } // probe()
+
+  // play a number of runs from each target, then shrink the keys for each
+  // kind of problem found (returns the problems, sorted by signature)
+  public Problem[] fuzz(Target targets[], int runsPerTarget, int numTicks) {
+
+    assert( runsPerTarget > 0 && numTicks > 0 );
+
+    final int numJobs = targets.length * runsPerTarget;
+    if ( numJobs > 0 ) {
+      mPool.invoke(new RunRange(targets, runsPerTarget, numTicks,
+                                0, numJobs));
+    }
+
+    Problem problems[];
+    synchronized ( mProblems ) {
+      problems = mProblems.values().toArray(new Problem[mProblems.size()]);
+    }
+    if ( problems.length > 0 ) {
+      mPool.invoke(new ShrinkRange(problems, 0, problems.length));
+    }
+    return problems;
+
+  } // fuzz()
+
+  // plays a range of runs, splitting it between threads
+  private class RunRange extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Target mTargets[];
+    private final int    mRunsPerTarget,
+                         mNumTicks,
+                         mStart,
+                         mEnd;
+
+    RunRange(Target targets[], int runsPerTarget, int numTicks,
+             int start, int end) {
+      mTargets = targets;
+      mRunsPerTarget = runsPerTarget;
+      mNumTicks = numTicks;
+      mStart = start;
+      mEnd = end;
+    }
+
+    @Override
+    protected void compute() {
+      if ( mEnd - mStart == 1 ) {
+        final Target target = mTargets[mStart / mRunsPerTarget];
+        final long seed = mStart;
+        Problem problem = play(randomKeys(target, seed, mNumTicks));
+        mNumRuns.incrementAndGet();
+        if ( problem != null ) {
+          synchronized ( mProblems ) {
+            if ( !mProblems.containsKey(problem.mSignature) ) {
+              mProblems.put(problem.mSignature, problem);
+            }
+          }
+        }
+      } else {
+        final int mid = (mStart + mEnd)/2;
+        invokeAll(new RunRange(mTargets, mRunsPerTarget, mNumTicks,
+                               mStart, mid),
+                  new RunRange(mTargets, mRunsPerTarget, mNumTicks,
+                               mid, mEnd));
+      }
+    }
+
+  } // class RoomFuzzer.RunRange
+
+  // shrinks the keys for a range of problems, splitting it between threads
+  private class ShrinkRange extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Problem mProblems[];
+    private final int     mStart,
+                          mEnd;
+
+    ShrinkRange(Problem problems[], int start, int end) {
+      mProblems = problems;
+      mStart = start;
+      mEnd = end;
+    }
+
+    @Override
+    protected void compute() {
+      if ( mEnd - mStart == 1 ) {
+        mProblems[mStart] = shrink(mProblems[mStart]);
+      } else {
+        final int mid = (mStart + mEnd)/2;
+        invokeAll(new ShrinkRange(mProblems, mStart, mid),
+                  new ShrinkRange(mProblems, mid, mEnd));
+      }
+    }
+
+  } // class RoomFuzzer.ShrinkRange
+
+  // random keys for a run, mostly holding one direction for a while, with
+  // pauses and bursts of fire (the game uses the same seed)
+  private static Replay randomKeys(Target target, long seed, int numTicks) {
+
+    final int directions[] = { KeyMonitorBits.RIGHT, KeyMonitorBits.UP,
+                               KeyMonitorBits.LEFT, KeyMonitorBits.DOWN };
+
+    Replay replay = new Replay(target.mQuestNum, seed);
+    replay.setStartPoint(target.mRoom, target.mEntryPoint);
+    Random random = new Random(seed);
+    int tick = 0;
+    while ( tick < numTicks ) {
+      int bits = 0;
+      final int choice = random.nextInt(10);
+      if ( choice < 7 ) {
+        bits = directions[random.nextInt(4)];
+      } else if ( choice < 8 ) {
+        bits = directions[random.nextInt(4)] | directions[random.nextInt(4)];
+      }
+      if ( random.nextInt(4) == 0 ) bits |= KeyMonitorBits.FIRE;
+      int duration = 1 + random.nextInt(30);
+      if ( random.nextInt(4) == 0 ) duration = 1 + random.nextInt(4);
+      for ( int k = 0 ; k < duration && tick < numTicks ; k++, tick++ ) {
+        replay.record(bits);
+      }
+    }
+    return replay;
+
+  } // randomKeys()
+
+  // play some keys and return the first problem that appears (or null)
+  // (the run ends early if the player leaves the room it began in, since
+  // the other rooms are still in their starting states)
+  private Problem play(Replay replay) {
+
+    EnvBitsWatcher env = new EnvBitsWatcher();
+    HeadlessRunner runner = new HeadlessRunner(replay, env);
+    GameManager game = runner.gameManager();
+    QuestStory quest = (QuestStory)game.story();
+    Room startRoom = null;
+
+    Problem problem = null;
+    int stillTicks = 0,
+        absentTicks = 0,
+        fallingTicks = 0;
+    int x = 0, y = 0, z = 0;
+    Room room = null;
+
+    long tick = 0;
+    for ( ; tick < replay.numTicks() ; tick++ ) {
+      try {
+        runner.run(1);
+      } catch ( RuntimeException ex ) {
+        problem = exceptionProblem(ex);
+        break;
+      } catch ( AssertionError ex ) {
+        problem = exceptionProblem(ex);
+        break;
+      }
+
+      if ( startRoom == null ) startRoom = quest.currentRoom();
+
+      final String warning = env.takeWarning();
+      if ( warning != null ) {
+        problem = newProblem(WARNING, warning, warning, quest);
+        break;
+      }
+
+      final Story story = game.story();
+      if ( story != quest ) {
+        if ( story instanceof ScrollStory ) continue;
+        break;
+      }
+      if ( quest.currentRoom() != startRoom ) break;
+
+      final Player player = quest.player();
+      if ( player == null ) {
+        stillTicks = fallingTicks = 0;
+        if ( ++absentTicks >= kStuckTicks ) {
+          problem = newProblem(STUCK, "no player for " + absentTicks
+                                      + " ticks", "no player", quest);
+          break;
+        }
+        continue;
+      }
+      absentTicks = 0;
+
+      final int px = player.getXPos(),
+                py = player.getYPos(),
+                pz = player.getZPos();
+      if ( px == x && py == y && pz == z && quest.currentRoom() == room ) {
+        stillTicks++;
+      } else {
+        stillTicks = 0;
+      }
+      x = px;
+      y = py;
+      z = pz;
+      room = quest.currentRoom();
+      fallingTicks = ( player.isFalling() ? fallingTicks+1 : 0 );
+
+      if ( stillTicks >= kStuckTicks ) {
+        problem = newProblem(STUCK, "player hasn't moved for " + stillTicks
+                                    + " ticks at " + position(player),
+                             "player not moving", quest);
+      } else if ( fallingTicks >= kFallingTicks ) {
+        problem = newProblem(IMPOSSIBLE, "player falling for " + fallingTicks
+                                         + " ticks at " + position(player),
+                             "player falling", quest);
+      } else if ( Math.abs(px) > kMaxDistance ||
+                  Math.abs(py) > kMaxDistance ||
+                  Math.abs(pz) > kMaxDistance ) {
+        problem = newProblem(IMPOSSIBLE, "player at " + position(player),
+                             "player out of bounds", quest);
+      }
+      if ( problem != null ) break;
+    }
+    mNumTicks.addAndGet(runner.context().ticks());
+
+    if ( problem != null ) {
+      problem.mTarget = new Target(replay.questNum(), replay.startRoom(),
+                                   replay.startEntryPoint());
+      problem.mTick = tick;
+      problem.mReplay = replay;
+    }
+    return problem;
+
+  } // play()
+
+  // a problem (details not filled in yet)
+  private static Problem newProblem(int kind, String message, String what,
+                                    QuestStory quest) {
+
+    Room room = quest.currentRoom();
+    Problem problem = new Problem();
+    problem.mKind = kind;
+    problem.mMessage = message;
+    problem.mSignature = kKindNames[kind] + ": " + what + " in "
+                         + ( (room != null) ? room.name() : "no room" );
+    return problem;
+
+  } // newProblem()
+
+  // a problem for an exception (signed by the exception's type and where
+  // it was thrown from)
+  private static Problem exceptionProblem(Throwable ex) {
+
+    String where = "unknown";
+    for ( StackTraceElement frame : ex.getStackTrace() ) {
+      if ( frame.getClassName().startsWith("com.dishmoth.") ) {
+        where = frame.toString();
+        break;
+      }
+    }
+    Problem problem = new Problem();
+    problem.mKind = EXCEPTION;
+    problem.mMessage = ex + " at " + where;
+    problem.mSignature = kKindNames[EXCEPTION] + ": "
+                         + ex.getClass().getName() + " at " + where;
+    return problem;
+
+  } // exceptionProblem()
+
+  // text for the player's position
+  private static String position(Player player) {
+
+    return ( "(" + player.getXPos() + "," + player.getYPos() + ","
+             + player.getZPos() + ")" );
+
+  } // position()
+
+  // cut a problem's keys down as far as possible while the problem still
+  // appears: everything after the problem goes, then blocks of ticks are
+  // cleared of keys, halving the block size each time round
+  private Problem shrink(Problem problem) {
+
+    int keys[] = keysOf(problem.mReplay, (int)problem.mTick + 1);
+    int attempts = 0;
+    for ( int block = Math.max(1, keys.length/2) ;
+          block >= 1 && attempts < kMaxShrinkAttempts ;
+          block /= 2 ) {
+      for ( int start = 0 ;
+            start < keys.length && attempts < kMaxShrinkAttempts ;
+            start += block ) {
+        final int end = Math.min(start + block, keys.length);
+        if ( allClear(keys, start, end) ) continue;
+
+        int trial[] = Arrays.copyOf(keys, keys.length);
+        Arrays.fill(trial, start, end, 0);
+        Problem again = play(makeReplay(problem, trial));
+        attempts++;
+        if ( again != null && again.mSignature.equals(problem.mSignature) ) {
+          problem = again;
+          keys = Arrays.copyOf(trial, (int)again.mTick + 1);
+        }
+      }
+    }
+
+    Problem last = play(makeReplay(problem, keys));
+    return ( last != null && last.mSignature.equals(problem.mSignature) )
+           ? last : problem;
+
+  } // shrink()
+
+  // the keys for the first ticks of a replay
+  private static int[] keysOf(Replay replay, int numTicks) {
+
+    int keys[] = new int[numTicks];
+    for ( int k = 0 ; k < numTicks ; k++ ) keys[k] = replay.keyBits(k);
+    return keys;
+
+  } // keysOf()
+
+  // whether a range of ticks has no keys held
+  private static boolean allClear(int keys[], int start, int end) {
+
+    for ( int k = start ; k < end ; k++ ) {
+      if ( keys[k] != 0 ) return false;
+    }
+    return true;
+
+  } // allClear()
+
+  // a replay starting where a problem's run did, with different keys
+  private static Replay makeReplay(Problem problem, int keys[]) {
+
+    Replay replay = new Replay(problem.mReplay.questNum(),
+                               problem.mReplay.seed());
+    replay.setStartPoint(problem.mTarget.mRoom, problem.mTarget.mEntryPoint);
+    for ( int bits : keys ) replay.record(bits);
+    return replay;
+
+  } // makeReplay()
+
+  // text output (runs, ticks and throughput so far)
+  public String report() {
+
+    int numProblems;
+    synchronized ( mProblems ) {
+      numProblems = mProblems.size();
+    }
+    final double secs = Math.max(1.0e-9,
+                                 (System.nanoTime() - mStartNanos)*1.0e-9);
+    return ( mNumRuns.get() + " runs, " + mNumTicks.get() + " ticks in "
+             + String.format("%.2f", secs) + " sec ("
+             + String.format("%.0f", 60*mNumTicks.get()/secs)
+             + " ticks per minute, " + mPool.getParallelism()
+             + " threads), " + numProblems + " kinds of problem" );
+
+  } // report()
+
+} // class RoomFuzzer
@@ -0,0 +1,806 @@
+/*
+ *  RoomValidator.java
+ *  Copyright (c) 2017 Simon Hern
+ *  Contact: dishmoth@yahoo.co.uk, dishmoth.com, github.com/dishmoth
+ */
+
+package com.dishmoth.miniquests;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.dishmoth.miniquests.game.Critter;
+import com.dishmoth.miniquests.game.Door;
+import com.dishmoth.miniquests.game.Dragon;
+import com.dishmoth.miniquests.game.Env;
+import com.dishmoth.miniquests.game.Exit;
+import com.dishmoth.miniquests.game.FloorBossHead;
+import com.dishmoth.miniquests.game.GameContext;
+import com.dishmoth.miniquests.game.Obstacle;
+import com.dishmoth.miniquests.game.Player;
+import com.dishmoth.miniquests.game.QuestStory;
+import com.dishmoth.miniquests.game.Room;
+import com.dishmoth.miniquests.game.Snake;
+import com.dishmoth.miniquests.game.SnakeEgg;
+import com.dishmoth.miniquests.game.Spook;
+import com.dishmoth.miniquests.game.Sprite;
+import com.dishmoth.miniquests.game.SpriteManager;
+import com.dishmoth.miniquests.game.Triffid;
+import com.dishmoth.miniquests.game.TriffidBoss;
+import com.dishmoth.miniquests.game.Wall;
+
+// checks the layout of every room: works out every position that the
+// player can stand at from each entry point (stepping as in
+// Player.stepHeight()), and reports exits that can't be reached, places
+// that can't be left, and places where the floor gives way to a fatal drop
+// (the layout is the room's starting state, with its exits' doors opened
+// and its creatures left out; the room is also left to run, without its
+// creatures, while the player stands still, so a lift or raft that carries
+// the player away from the entry point takes the search with it; a drop is
+// only seen if the floor moves or disappears while the player stands still
+// at the entry point, and only counts if a player put there dies)
+public class RoomValidator {
+
+  // problems that are part of a room's design rather than mistakes in it
+  // (reported but always allowed): in B06, the floor tiles slide off the
+  // edge of the room, so a player standing still on one falls with it
+  private static final String kExpectedProblems[]
+      = { "quest 1, B06: 3 positions where the floor gives way to a fatal "
+          + "drop, e.g. (3,6,0) (3,7,0) (3,8,0)" };
+
+  // main method (exits with status 1 if any room has new problems)
+  // (problems listed in the known-problems file, or expected ones, are
+  // reported but allowed; if the file doesn't exist, it is written with the
+  // problems found now)
+  // arguments: [quests, e.g. "0,2"] [number of threads] [known problems]
+  public static void main(String args[]) throws IOException {
+
+    final int  quests[]   = ( args.length > 0 ) ? parseQuests(args[0])
+                                                : allQuests();
+    final int  numThreads = ( args.length > 1 ) ? Integer.parseInt(args[1])
+                                                : RouteSearch
+                                                  .defaultNumThreads();
+    final File knownFile  = ( args.length > 2 ) ? new File(args[2]) : null;
+
+    RoomValidator validator = new RoomValidator(numThreads);
+    final long startNanos = System.nanoTime();
+    Report reports[] = validator.validateAll(quests);
+    final double secs = (System.nanoTime() - startNanos)*1.0e-9;
+    validator.close();
+
+    HashSet<String> known = new HashSet<String>();
+    known.addAll(Arrays.asList(kExpectedProblems));
+    final boolean haveKnown = ( knownFile != null && knownFile.exists() );
+    if ( haveKnown ) known.addAll(readLines(knownFile));
+
+    ArrayList<String> found = new ArrayList<String>();
+    int numNew = 0;
+    for ( Report report : reports ) {
+      System.out.println(report);
+      for ( String problem : report.mProblems ) {
+        final String line = report.name() + ": " + problem;
+        found.add(line);
+        if ( !known.contains(line) ) numNew++;
+      }
+    }
+    if ( knownFile != null && !haveKnown ) {
+      writeLines(knownFile, found);
+      numNew = 0;
+    }
+
+    System.out.println(reports.length + " rooms, " + found.size()
+                       + " problems (" + numNew + " new) in "
+                       + String.format("%.2f", secs) + " sec");
+    if ( numNew > 0 ) System.exit(1);
+
+  } // main()
+
+  // the lines of a text file
+  private static ArrayList<String> readLines(File file) throws IOException {
+
+    ArrayList<String> lines = new ArrayList<String>();
+    BufferedReader in = new BufferedReader(new InputStreamReader(
+                                      new FileInputStream(file), "UTF-8"));
+    try {
+      String line;
+      while ( (line = in.readLine()) != null ) lines.add(line);
+    } finally {
+      in.close();
+    }
+    return lines;
+
+  } // readLines()
+
+  // write lines to a text file
+  private static void writeLines(File file,
+                                 ArrayList<String> lines) throws IOException {
+
+    PrintWriter out = new PrintWriter(new OutputStreamWriter(
+                                      new FileOutputStream(file), "UTF-8"));
+    try {
+      for ( String line : lines ) out.println(line);
+    } finally {
+      out.close();
+    }
+    if ( out.checkError() ) throw new IOException("cannot write " + file);
+
+  } // writeLines()
+
+  // quest numbers from a list like "0,2,4"
+  private static int[] parseQuests(String text) {
+
+    String parts[] = text.split(",");
+    int quests[] = new int[parts.length];
+    for ( int k = 0 ; k < parts.length ; k++ ) {
+      quests[k] = Integer.parseInt(parts[k].trim());
+      if ( quests[k] < 0 || quests[k] >= QuestStory.NUM_QUESTS ) {
+        throw new IllegalArgumentException("no quest " + quests[k]);
+      }
+    }
+    return quests;
+
+  } // parseQuests()
+
+  // every quest number
+  private static int[] allQuests() {
+
+    int quests[] = new int[QuestStory.NUM_QUESTS];
+    for ( int k = 0 ; k < quests.length ; k++ ) quests[k] = k;
+    return quests;
+
+  } // allQuests()
+
+  // entry points to try for each room (rooms don't have as many as this)
+  private static final int kMaxEntryPoints = 16;
+
+  // how long the room is watched for moving floors, how long the player is
+  // left standing for a lift or raft to carry them (the longest lift, in
+  // C14, takes nearly 20 seconds), and how far below a position a landing
+  // place is looked for
+  private static final int kWatchTicks = 30*10,
+                           kRideTicks  = 30*25,
+                           kFallDepth  = 8*Room.kSize;
+
+  // how many example positions are listed for each problem
+  private static final int kMaxExamples = 3;
+
+  // what was found in one room
+  public static class Report {
+    public int               mQuestNum;
+    public String            mRoom;
+    public int               mNumEntryPoints; // (entry points that work)
+    public int               mNumClosed;      // (entry points shut at first)
+    public int               mNumExits;       // (exits with doors)
+    public int               mNumPositions;   // (reachable positions)
+    public ArrayList<String> mProblems = new ArrayList<String>();
+    public String name() { return ( "quest " + mQuestNum + ", " + mRoom ); }
+    @Override
+    public String toString() {
+      StringBuilder text = new StringBuilder();
+      text.append(name() + ": "
+                  + mNumEntryPoints + " entry points"
+                  + ( (mNumClosed > 0) ? (" (" + mNumClosed + " closed)")
+                                       : "" )
+                  + ", " + mNumExits
+                  + " exits, " + mNumPositions + " positions");
+      for ( String problem : mProblems ) text.append("\n  " + problem);
+      return text.toString();
+    }
+  } // class RoomValidator.Report
+
+  // threads that check the rooms
+  private final ForkJoinPool mPool;
+
+  // constructor
+  public RoomValidator(int numThreads) {
+
+    assert( numThreads > 0 );
+
+    HeadlessRunner.initializeEnv(false);
+    mPool = new ForkJoinPool(numThreads);
+
+  } // constructor
+
+  // stop the threads
+  public void close() { mPool.shutdown(); }
+
+  // check every room in some quests, sharing the rooms between threads
+  public Report[] validateAll(int quests[]) {
+
+    ArrayList<Report> list = new ArrayList<Report>();
+    for ( int questNum : quests ) {
+      for ( String room : new QuestStory(questNum).roomNames() ) {
+        Report report = new Report();
+        report.mQuestNum = questNum;
+        report.mRoom = room;
+        list.add(report);
+      }
+    }
+    Report reports[] = list.toArray(new Report[list.size()]);
+    if ( reports.length > 0 ) {
+      mPool.invoke(new CheckRange(reports, 0, reports.length));
+    }
+    return reports;
+
+  } // validateAll()
+
+  // checks a range of rooms, splitting it between threads
+  private class CheckRange extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Report mReports[];
+    private final int    mStart,
+                         mEnd;
+
+    CheckRange(Report reports[], int start, int end) {
+      mReports = reports;
+      mStart = start;
+      mEnd = end;
+    }
+
+    @Override
+    protected void compute() {
+      if ( mEnd - mStart == 1 ) {
+        validate(mReports[mStart]);
+      } else {
+        final int mid = (mStart + mEnd)/2;
+        invokeAll(new CheckRange(mReports, mStart, mid),
+                  new CheckRange(mReports, mid, mEnd));
+      }
+    }
+
+  } // class RoomValidator.CheckRange
+
+  // the positions reachable from an entry point, the steps between them,
+  // and the rides between them (places the player is carried to while
+  // standing still)
+  private static class Reach {
+    final HashMap<Integer,int[]> mSteps = new HashMap<Integer,int[]>();
+    final HashMap<Integer,ArrayList<Integer>> mRides
+                                  = new HashMap<Integer,ArrayList<Integer>>();
+    final HashSet<Integer>        mExitsReached = new HashSet<Integer>();
+  } // class RoomValidator.Reach
+
+  // check a room (on the current thread), filling in its report
+  public static void validate(Report report) {
+
+    Exit allExits[] = null;
+    HashMap<Integer,Exit> exits = null;
+    HashSet<Integer> reached = new HashSet<Integer>(),
+                     exitsReached = new HashSet<Integer>();
+    int watchEntry = -1;
+
+    for ( int entry = 0 ; entry < kMaxEntryPoints ; entry++ ) {
+      HeadlessRunner runner = start(report, entry);
+      if ( runner == null ) continue;
+      QuestStory quest = (QuestStory)runner.gameManager().story();
+      Player player = quest.player();
+      if ( player == null ) continue;
+
+      if ( allExits == null ) allExits = exitsOf(quest.currentRoom());
+      final LinkedList<Obstacle> layout = layout(player);
+      HashMap<Integer,Exit> liveExits = openExits(quest.currentRoom(),
+                                                  layout);
+      if ( exits == null ) {
+        exits = liveExits;
+        report.mNumExits = exits.size();
+      }
+
+      final int x = player.getXPos(),
+                y = player.getYPos(),
+                z = player.getZPos();
+      if ( !Player.standingPosition(layout, x, y, z) &&
+           closedDoorway(allExits, liveExits, x, y, z) ) {
+        report.mNumClosed++;
+        continue;
+      }
+      report.mNumEntryPoints++;
+
+      final int start = landing(layout, x, y, z);
+      if ( start == kNoPosition ) {
+        report.mProblems.add("entry " + entry + ": falls out of the room "
+                             + "from " + position(player));
+        continue;
+      }
+      final int drop = player.getZPos() - zPos(start);
+      if ( drop >= player.fatalFallDistance() ) {
+        report.mProblems.add("entry " + entry + ": fatal drop of " + drop
+                             + " from " + position(player));
+      }
+
+      Reach reach = new Reach();
+      explore(layout, start, liveExits, reach);
+      ride(runner, start, reach);
+      reached.addAll(reach.mSteps.keySet());
+      exitsReached.addAll(reach.mExitsReached);
+      if ( !liveExits.isEmpty() ) {
+        ArrayList<Integer> traps = traps(reach);
+        if ( traps.size() == reach.mSteps.size() ) {
+          report.mProblems.add("entry " + entry + ": no exit can be reached");
+        } else if ( !traps.isEmpty() ) {
+          report.mProblems.add("entry " + entry + ": " + traps.size()
+                               + " positions with no way out, e.g. "
+                               + examples(traps));
+        }
+      }
+
+      if ( watchEntry < 0 ) watchEntry = entry;
+    }
+    report.mNumPositions = reached.size();
+
+    if ( exits != null ) {
+      for ( Map.Entry<Integer,Exit> e : exits.entrySet() ) {
+        if ( !exitsReached.contains(e.getKey()) ) {
+          report.mProblems.add("exit to " + e.getValue().mDestination
+                               + " at " + position(e.getKey())
+                               + " can't be reached");
+        }
+      }
+    }
+
+    final HeadlessRunner watcher = ( (watchEntry >= 0)
+                                     ? start(report, watchEntry) : null );
+    if ( watcher != null ) {
+      ArrayList<Integer> drops = confirmDrops(report, watchEntry,
+                                              watchFloors(watcher, reached));
+      if ( !drops.isEmpty() ) {
+        report.mProblems.add(drops.size() + " positions where the floor "
+                             + "gives way to a fatal drop, e.g. "
+                             + examples(drops));
+      }
+    }
+
+  } // validate()
+
+  // a game that has just begun in a room at an entry point (or null if the
+  // room can't be started there)
+  private static HeadlessRunner start(Report report, int entry) {
+
+    Replay replay = new Replay(report.mQuestNum, 0);
+    replay.setStartPoint(report.mRoom, entry);
+    HeadlessRunner runner = new HeadlessRunner(replay);
+    try {
+      runner.run(1);
+    } catch ( RuntimeException ex ) {
+      return null;
+    } catch ( AssertionError ex ) {
+      return null;
+    }
+    return runner;
+
+  } // start()
+
+  // every exit in the static tables of a room's class
+  private static Exit[] exitsOf(Room room) {
+
+    ArrayList<Exit> exits = new ArrayList<Exit>();
+    for ( Field field : room.getClass().getDeclaredFields() ) {
+      if ( !Modifier.isStatic(field.getModifiers()) ) continue;
+      final Class<?> type = field.getType();
+      if ( type != Exit[].class && type != Exit[][].class ) continue;
+      field.setAccessible(true);
+      Object value;
+      try {
+        value = field.get(null);
+      } catch ( IllegalAccessException ex ) {
+        throw new IllegalStateException("Cannot read " + field + ": " + ex);
+      }
+      if ( value instanceof Exit[][] ) {
+        for ( Exit row[] : (Exit[][])value ) {
+          if ( row != null ) exits.addAll(Arrays.asList(row));
+        }
+      } else if ( value != null ) {
+        exits.addAll(Arrays.asList((Exit[])value));
+      }
+    }
+    return exits.toArray(new Exit[exits.size()]);
+
+  } // exitsOf()
+
+  // the exits that have doors in the room's current layout (keyed by the
+  // doorway position), opening any of their doors that are closed
+  // (the doors belong to this game's room, so other games don't see them
+  // open; exits without a destination are dummies, and left out)
+  private static HashMap<Integer,Exit> openExits(Room room,
+                                              LinkedList<Obstacle> layout) {
+
+    HashMap<Integer,Exit> open = new HashMap<Integer,Exit>();
+    for ( int index = 0 ; index < room.numDoors() ; index++ ) {
+      final Exit exit = room.doorExit(index);
+      final Door door = room.door(index);
+      if ( door == null || exit.mDestination.length() == 0 ) continue;
+      boolean built = false;
+      for ( Obstacle ob : layout ) {
+        if ( ob instanceof Wall && ((Wall)ob).hasDoor(door) ) {
+          built = true;
+          break;
+        }
+      }
+      if ( !built ) continue;
+      door.setClosed(false);
+      open.put(pack(exit.doorwayXPos(), exit.doorwayYPos(), exit.mDoorZPos),
+               exit);
+    }
+    return open;
+
+  } // openExits()
+
+  // whether a position is the doorway of an exit that has no door in the
+  // room's current layout (as when a door only appears later on)
+  private static boolean closedDoorway(Exit exits[],
+                                       HashMap<Integer,Exit> liveExits,
+                                       int x, int y, int z) {
+
+    for ( Exit exit : exits ) {
+      if ( exit.doorwayXPos() == x && exit.doorwayYPos() == y &&
+           exit.mDoorZPos == z && !liveExits.containsKey(pack(x, y, z)) ) {
+        return true;
+      }
+    }
+    return false;
+
+  } // closedDoorway()
+
+  // the obstacles that the player navigates, without any creatures
+  private static LinkedList<Obstacle> layout(Player player) {
+
+    LinkedList<Obstacle> layout = new LinkedList<Obstacle>();
+    for ( Obstacle ob : player.obstacles() ) {
+      if ( !isCreature(ob) ) layout.add(ob);
+    }
+    return layout;
+
+  } // layout()
+
+  // whether a Sprite (or Obstacle) is one of the creatures that the checks
+  // leave out
+  private static boolean isCreature(Object sprite) {
+
+    return ( sprite instanceof Critter || sprite instanceof Dragon ||
+             sprite instanceof FloorBossHead || sprite instanceof Snake ||
+             sprite instanceof SnakeEgg || sprite instanceof Spook ||
+             sprite instanceof Triffid || sprite instanceof TriffidBoss );
+
+  } // isCreature()
+
+  // take the creatures out of a game (so that they can't kill the player
+  // while the player stands still)
+  private static void removeCreatures(HeadlessRunner runner) {
+
+    SpriteManager sprites = runner.gameManager().spriteManager();
+    LinkedList<Sprite> creatures = new LinkedList<Sprite>();
+    for ( Sprite sprite : sprites.list() ) {
+      if ( isCreature(sprite) ) creatures.add(sprite);
+    }
+    if ( creatures.isEmpty() ) return;
+    GameContext old = Env.bindContext(runner.context());
+    try {
+      sprites.removeSprites(creatures);
+    } finally {
+      Env.bindContext(old);
+    }
+
+  } // removeCreatures()
+
+  // add every position reachable by stepping from a start position
+  // (the doorway of an exit is as far as the player goes; positions that
+  // have been reached already are not explored again)
+  private static void explore(LinkedList<Obstacle> layout, int start,
+                              HashMap<Integer,Exit> exits, Reach reach) {
+
+    if ( reach.mSteps.containsKey(start) ) return;
+    ArrayDeque<Integer> queue = new ArrayDeque<Integer>();
+    queue.add(start);
+    reach.mSteps.put(start, null);
+    while ( !queue.isEmpty() ) {
+      final int pos = queue.poll();
+      if ( exits.containsKey(pos) ) {
+        reach.mExitsReached.add(pos);
+        if ( pos != start ) continue;
+      }
+      final int x = xPos(pos),
+                y = yPos(pos),
+                z = zPos(pos);
+      int steps[] = new int[4];
+      for ( int direc = 0 ; direc < 4 ; direc++ ) {
+        final int zDest = Player.stepHeight(layout, x, y, z, direc);
+        steps[direc] = kNoPosition;
+        if ( zDest == Player.NO_STEP ) continue;
+        final int dest = pack(x + Env.STEP_X[direc], y + Env.STEP_Y[direc],
+                               zDest);
+        steps[direc] = dest;
+        if ( !reach.mSteps.containsKey(dest) ) {
+          reach.mSteps.put(dest, null);
+          queue.add(dest);
+        }
+      }
+      reach.mSteps.put(pos, steps);
+    }
+
+  } // explore()
+
+  // let the room run while the player stands still, adding each standing
+  // position that the player is carried to (by a lift or a raft, or by the
+  // player's own brain at the start of a quest) as a ride from the last
+  // one, along with the positions reachable from there at the time
+  // (the room's doors are opened again each tick, in case it closes them,
+  // and its creatures are taken out as they appear)
+  private static void ride(HeadlessRunner runner, int start, Reach reach) {
+
+    QuestStory quest = (QuestStory)runner.gameManager().story();
+    final Room room = quest.currentRoom();
+    final Player player = quest.player();
+    int last = start;
+    for ( int tick = 0 ; tick < kRideTicks ; tick++ ) {
+      removeCreatures(runner);
+      try {
+        runner.run(1);
+      } catch ( RuntimeException ex ) {
+        break;
+      } catch ( AssertionError ex ) {
+        break;
+      }
+      if ( quest.currentRoom() != room || quest.player() != player ) break;
+
+      final LinkedList<Obstacle> layout = layout(player);
+      final HashMap<Integer,Exit> exits = openExits(room, layout);
+      final int x = player.getXPos(),
+                y = player.getYPos(),
+                z = player.getZPos();
+      if ( !Player.standingPosition(layout, x, y, z) ) continue;
+      final int pos = pack(x, y, z);
+      if ( pos == last ) continue;
+
+      explore(layout, pos, exits, reach);
+      ArrayList<Integer> rides = reach.mRides.get(last);
+      if ( rides == null ) {
+        rides = new ArrayList<Integer>();
+        reach.mRides.put(last, rides);
+      }
+      rides.add(pos);
+      last = pos;
+    }
+
+  } // ride()
+
+  // the reachable positions from which no exit can be reached (by steps
+  // or rides)
+  private static ArrayList<Integer> traps(Reach reach) {
+
+    HashMap<Integer,ArrayList<Integer>> backSteps
+                                  = new HashMap<Integer,ArrayList<Integer>>();
+    for ( Map.Entry<Integer,int[]> e : reach.mSteps.entrySet() ) {
+      if ( e.getValue() == null ) continue;
+      for ( int dest : e.getValue() ) {
+        if ( dest != kNoPosition ) addBackStep(backSteps, e.getKey(), dest);
+      }
+    }
+    for ( Map.Entry<Integer,ArrayList<Integer>> e : reach.mRides.entrySet() ) {
+      for ( int dest : e.getValue() ) {
+        addBackStep(backSteps, e.getKey(), dest);
+      }
+    }
+
+    HashSet<Integer> canLeave = new HashSet<Integer>(reach.mExitsReached);
+    ArrayDeque<Integer> queue = new ArrayDeque<Integer>(reach.mExitsReached);
+    while ( !queue.isEmpty() ) {
+      ArrayList<Integer> sources = backSteps.get(queue.poll());
+      if ( sources == null ) continue;
+      for ( Integer source : sources ) {
+        if ( canLeave.add(source) ) queue.add(source);
+      }
+    }
+
+    ArrayList<Integer> traps = new ArrayList<Integer>();
+    for ( Integer pos : reach.mSteps.keySet() ) {
+      if ( !canLeave.contains(pos) ) traps.add(pos);
+    }
+    Collections.sort(traps);
+    return traps;
+
+  } // traps()
+
+  // record that a position can be reached from another one
+  private static void addBackStep(HashMap<Integer,ArrayList<Integer>> backSteps,
+                                  int source, int dest) {
+
+    ArrayList<Integer> list = backSteps.get(dest);
+    if ( list == null ) {
+      list = new ArrayList<Integer>();
+      backSteps.put(dest, list);
+    }
+    list.add(source);
+
+  } // addBackStep()
+
+  // let the room run while the player stands still, and find the reachable
+  // positions where the floor goes (rather than moving up or down a step)
+  // and the fall from there is fatal
+  private static ArrayList<Integer> watchFloors(HeadlessRunner runner,
+                                             HashSet<Integer> positions) {
+
+    QuestStory quest = (QuestStory)runner.gameManager().story();
+    Player player = quest.player();
+    final int fatalDistance = player.fatalFallDistance();
+
+    // which obstacle holds up each position
+    IdentityHashMap<Obstacle,ArrayList<Integer>> floors
+                        = new IdentityHashMap<Obstacle,ArrayList<Integer>>();
+    final LinkedList<Obstacle> startLayout = layout(player);
+    for ( Integer pos : positions ) {
+      for ( Obstacle ob : startLayout ) {
+        if ( ob.isPlatform(xPos(pos), yPos(pos), zPos(pos)) ) {
+          ArrayList<Integer> list = floors.get(ob);
+          if ( list == null ) {
+            list = new ArrayList<Integer>();
+            floors.put(ob, list);
+          }
+          list.add(pos);
+          break;
+        }
+      }
+    }
+
+    ArrayList<Integer> drops = new ArrayList<Integer>();
+    HashSet<Integer> done = new HashSet<Integer>();
+    for ( int tick = 0 ; tick < kWatchTicks ; tick++ ) {
+      try {
+        runner.run(1);
+      } catch ( RuntimeException ex ) {
+        break;
+      } catch ( AssertionError ex ) {
+        break;
+      }
+      if ( quest.player() == null ) break;
+      LinkedList<Obstacle> layout = layout(quest.player());
+
+      for ( Map.Entry<Obstacle,ArrayList<Integer>> e : floors.entrySet() ) {
+        final Obstacle floor = e.getKey();
+        final boolean here = layout.contains(floor);
+        for ( Integer pos : e.getValue() ) {
+          final int x = xPos(pos),
+                    y = yPos(pos),
+                    z = zPos(pos);
+          if ( here && floor.isPlatform(x, y, z) ) continue;
+          if ( done.contains(pos) ) continue;
+          done.add(pos);
+          if ( Player.isPlatform(layout, x, y, z+1) ||
+               Player.isPlatform(layout, x, y, z) ||
+               Player.isPlatform(layout, x, y, z-1) ) continue;
+          final int land = landing(layout, x, y, z);
+          if ( land == kNoPosition || z - zPos(land) >= fatalDistance ) {
+            drops.add(pos);
+          }
+        }
+      }
+    }
+    Collections.sort(drops);
+    return drops;
+
+  } // watchFloors()
+
+  // the drops that really are fatal: for each one, a new game is begun
+  // with the player put straight there and left standing still (without
+  // any creatures), and the drop counts if the player doesn't survive
+  // (a floor that moves the player along with it, as a raft or a sliding
+  // tile does, looks like a drop to watchFloors() but isn't one)
+  private static ArrayList<Integer> confirmDrops(Report report, int entry,
+                                              ArrayList<Integer> drops) {
+
+    ArrayList<Integer> fatal = new ArrayList<Integer>();
+    for ( Integer pos : drops ) {
+      HeadlessRunner runner = start(report, entry);
+      if ( runner == null ) continue;
+      QuestStory quest = (QuestStory)runner.gameManager().story();
+      final Room room = quest.currentRoom();
+      final Player player = quest.player();
+      GameContext old = Env.bindContext(runner.context());
+      try {
+        player.shiftPos(xPos(pos) - player.getXPos(),
+                        yPos(pos) - player.getYPos(),
+                        zPos(pos) - player.getZPos());
+      } finally {
+        Env.bindContext(old);
+      }
+      for ( int tick = 0 ; tick < kWatchTicks ; tick++ ) {
+        removeCreatures(runner);
+        try {
+          runner.run(1);
+        } catch ( RuntimeException ex ) {
+          break;
+        } catch ( AssertionError ex ) {
+          break;
+        }
+        if ( quest.currentRoom() != room ) break;
+        if ( quest.player() != player ) {
+          fatal.add(pos);
+          break;
+        }
+      }
+    }
+    return fatal;
+
+  } // confirmDrops()
+
+  // where the player ends up after falling from a position (or
+  // kNoPosition if there's nothing to land on)
+  private static int landing(LinkedList<Obstacle> layout,
+                              int x, int y, int z) {
+
+    for ( int zz = z ; zz >= z - kFallDepth ; zz-- ) {
+      if ( Player.isPlatform(layout, x, y, zz) ) return pack(x, y, zz);
+    }
+    return kNoPosition;
+
+  } // landing()
+
+  // positions packed into ints (10 bits for each coordinate)
+  private static final int kNoPosition = Integer.MIN_VALUE;
+  private static final int kBits = 10,
+                           kMask = (1 << kBits) - 1,
+                           kBias = 1 << (kBits-1);
+
+  private static int pack(int x, int y, int z) {
+    assert( Math.abs(x) < kBias && Math.abs(y) < kBias &&
+            Math.abs(z) < kBias );
+    return ( ((x + kBias) << (2*kBits)) | ((y + kBias) << kBits)
+             | (z + kBias) );
+  }
+  private static int xPos(int pos) {
+    return ((pos >> (2*kBits)) & kMask) - kBias;
+  }
+  private static int yPos(int pos) {
+    return ((pos >> kBits) & kMask) - kBias;
+  }
+  private static int zPos(int pos) {
+    return (pos & kMask) - kBias;
+  }
+
+  // text for positions
+  private static String position(int pos) {
+
+    return ( "(" + xPos(pos) + "," + yPos(pos) + "," + zPos(pos) + ")" );
+
+  } // position()
+
+  private static String position(Player player) {
+
+    return ( "(" + player.getXPos() + "," + player.getYPos() + ","
+             + player.getZPos() + ")" );
+
+  } // position()
+
+  // text for the first few of a list of positions
+  private static String examples(ArrayList<Integer> positions) {
+
+    StringBuilder text = new StringBuilder();
+    for ( int k = 0 ; k < positions.size() && k < kMaxExamples ; k++ ) {
+      if ( k > 0 ) text.append(" ");
+      text.append(position(positions.get(k)));
+    }
+    if ( positions.size() > kMaxExamples ) text.append(" ...");
+    return text.toString();
+
+  } // examples()
+
+} // class RoomValidator
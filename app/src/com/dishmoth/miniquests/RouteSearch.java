@@ -0,0 +1,468 @@
+/*
+ *  RouteSearch.java
+ *  Copyright (c) 2017 Simon Hern
+ *  Contact: dishmoth@yahoo.co.uk, dishmoth.com, github.com/dishmoth
+ */
+
+package com.dishmoth.miniquests;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.dishmoth.miniquests.game.Env;
+import com.dishmoth.miniquests.game.GameManager;
+import com.dishmoth.miniquests.game.QuestStory;
+import com.dishmoth.miniquests.game.StateHash;
+import com.dishmoth.miniquests.game.Story;
+
+// searches for the quickest way through a quest, one leg at a time: from a
+// room's entry point to another room (or to the end of the quest)
+// (moves are short macros of held keys, in the style of Brain.ZombieModule;
+// states are expanded fewest ticks first, a batch at a time in parallel,
+// each from a snapshot of its parent; states whose hash has already been
+// reached as quickly are dropped, see visit())
+public class RouteSearch {
+
+  // main method
+  // arguments: [quest number] [route] [number of threads] [max states]
+  //            [start room] [start entry point]
+  // (the route lists the rooms to pass through, comma separated, with 'win'
+  // meaning the end of the quest; e.g., "A02,A03" or "win")
+  public static void main(String args[]) {
+
+    final int    questNum   = ( args.length > 0 ) ? Integer.parseInt(args[0])
+                                                  : 0;
+    final String route      = ( args.length > 1 ) ? args[1] : TARGET_WIN;
+    final int    numThreads = ( args.length > 2 ) ? Integer.parseInt(args[2])
+                                                  : defaultNumThreads();
+    final int    maxStates  = ( args.length > 3 ) ? Integer.parseInt(args[3])
+                                                  : DEFAULT_MAX_STATES;
+    final String startRoom  = ( args.length > 4 ) ? args[4] : null;
+    final int    startEntry = ( args.length > 5 ) ? Integer.parseInt(args[5])
+                                                  : 0;
+
+    RouteSearch search = new RouteSearch(questNum, startRoom, startEntry,
+                                         numThreads);
+    search.setMaxStates(maxStates);
+
+    int totalTicks = 0;
+    for ( String target : route.split(",") ) {
+      final String from = search.roomName();
+      final int ticks = search.solve(target);
+      System.out.println(from + " -> " + target + ": " + search.report());
+      if ( ticks < 0 ) return;
+      System.out.println("  " + search.routeText());
+      totalTicks += ticks;
+    }
+    search.close();
+
+    System.out.println("Total: " + totalTicks + " ticks ("
+                       + String.format("%.2f",
+                                       totalTicks/(float)Env.ticksPerSecond())
+                       + " sec)");
+
+  } // main()
+
+  // target meaning the end of the quest
+  public static final String TARGET_WIN = "win";
+
+  // default limits
+  public static final int DEFAULT_MAX_STATES = 200000,
+                          DEFAULT_MACRO_TICKS = 3;
+
+  // number of states expanded at once by each thread
+  private static final int kBatchPerThread = 16;
+
+  // the moves tried from each state (keys held for the length of a macro)
+  private static final int kMoves[] = { 0,
+                                        KeyMonitorBits.RIGHT,
+                                        KeyMonitorBits.UP,
+                                        KeyMonitorBits.LEFT,
+                                        KeyMonitorBits.DOWN,
+                                        KeyMonitorBits.FIRE };
+
+  // names of the moves (for text output)
+  private static final String kMoveNames[] = { "NONE", "RIGHT", "UP", "LEFT",
+                                               "DOWN", "FIRE" };
+
+  // directions of the moves (for Brain.ZombieModule instructions, -2 if none)
+  private static final int kMoveDirecs[] = { Env.NONE, Env.RIGHT, Env.UP,
+                                             Env.LEFT, Env.DOWN, -2 };
+
+  // what a move led to
+  private static final int kContinue = 0,
+                           kGoal     = 1,
+                           kFailed   = 2;
+
+  // a state reached during the search
+  private static class Node {
+    GameSnapshot mSnapshot; // (discarded once the node is expanded)
+    Node         mParent;
+    int          mMove,
+                 mMoveTicks,
+                 mTicks;
+  } // class RouteSearch.Node
+
+  // orders nodes by ticks taken
+  private static final Comparator<Node> kByTicks = new Comparator<Node>() {
+    public int compare(Node a, Node b) { return (a.mTicks - b.mTicks); }
+  };
+
+  // a game for each thread to play out moves in
+  private static class Worker {
+    KeyMonitorBits mKeys = new KeyMonitorBits();
+    HeadlessRunner mRunner;
+  } // class RouteSearch.Worker
+
+  // which quest is being played
+  private final int mQuestNum;
+
+  // the threads, and a game for each of them
+  private final int mNumThreads;
+  private ForkJoinPool mPool;
+  private ThreadLocal<Worker> mWorkers;
+
+  // length of each move
+  private int mMacroTicks;
+
+  // limit on the number of states expanded for each leg
+  private int mMaxStates;
+
+  // state at the start of the next leg of the route
+  private GameSnapshot mStart;
+  private String mStartRoom;
+  private int mStartDeaths;
+
+  // current leg: the target, the states seen (hash => ticks), the best
+  // route found so far, and counts for the report
+  private String mTarget;
+  private ConcurrentHashMap<Long,Integer> mSeen;
+  private Node mBest;
+  private AtomicLong mNumExpanded,
+                     mNumDropped;
+  private long mNumNanos;
+
+  // constructor (the search begins from the quest's start or a given room)
+  public RouteSearch(int questNum, String startRoom, int startEntry,
+                     int numThreads) {
+
+    assert( questNum >= 0 && questNum < QuestStory.NUM_QUESTS );
+    assert( numThreads > 0 );
+
+    HeadlessRunner.initializeEnv(false);
+
+    mQuestNum = questNum;
+    mNumThreads = numThreads;
+    mPool = new ForkJoinPool(numThreads);
+    mWorkers = new ThreadLocal<Worker>();
+    mMacroTicks = DEFAULT_MACRO_TICKS;
+    mMaxStates = DEFAULT_MAX_STATES;
+
+    Worker worker = worker();
+    GameManager game = worker.mRunner.gameManager();
+    if ( startRoom != null ) {
+      ((QuestStory)game.story()).setStartPoint(startRoom, startEntry);
+    }
+    worker.mKeys.set(0);
+    worker.mRunner.run(1);
+    setStart(game);
+
+    mBest = null;
+    mSeen = null;
+
+  } // constructor
+
+  // change the length of the moves
+  public void setMacroTicks(int ticks) {
+
+    assert( ticks > 0 );
+    mMacroTicks = ticks;
+
+  } // setMacroTicks()
+
+  // change the limit on the number of states expanded
+  public void setMaxStates(int num) {
+
+    assert( num > 0 );
+    mMaxStates = num;
+
+  } // setMaxStates()
+
+  // number of threads to use if not specified (one per core)
+  public static int defaultNumThreads() {
+
+    return Runtime.getRuntime().availableProcessors();
+
+  } // defaultNumThreads()
+
+  // the room where the next leg starts
+  public String roomName() { return mStartRoom; }
+
+  // find the quickest way from the current start to the target room (or
+  // TARGET_WIN), returning the number of ticks taken (or -1 if not found)
+  // (if found, the next leg starts where this one ends)
+  public int solve(String target) {
+
+    assert( target != null );
+
+    final long startNanos = System.nanoTime();
+
+    mTarget = target;
+    mSeen = new ConcurrentHashMap<Long,Integer>();
+    mBest = null;
+    mNumExpanded = new AtomicLong(0);
+    mNumDropped = new AtomicLong(0);
+
+    Node root = new Node();
+    root.mSnapshot = mStart;
+    root.mParent = null;
+    root.mMove = -1;
+    root.mMoveTicks = 0;
+    root.mTicks = 0;
+
+    PriorityQueue<Node> open = new PriorityQueue<Node>(1024, kByTicks);
+    open.add(root);
+    final int batchSize = kBatchPerThread*mNumThreads;
+    while ( !open.isEmpty() && mNumExpanded.get() < mMaxStates ) {
+      if ( mBest != null && open.peek().mTicks >= mBest.mTicks ) break;
+
+      ArrayList<Node> batch = new ArrayList<Node>(batchSize);
+      while ( batch.size() < batchSize && !open.isEmpty() ) {
+        batch.add(open.poll());
+      }
+      ConcurrentLinkedQueue<Node> children = new ConcurrentLinkedQueue<Node>();
+      mPool.invoke(new Expand(batch, 0, batch.size(), children));
+      open.addAll(children);
+    }
+
+    mNumNanos = System.nanoTime() - startNanos;
+
+    if ( mBest == null ) return -1;
+    mStart = mBest.mSnapshot;
+    mBest.mSnapshot = null;
+    Worker worker = worker();
+    mStart.restore(worker.mRunner.gameManager());
+    setStart(worker.mRunner.gameManager());
+    return mBest.mTicks;
+
+  } // solve()
+
+  // release the threads
+  public void close() {
+
+    mPool.shutdown();
+
+  } // close()
+
+  // the moves of the route found by the latest leg, as Brain.ZombieModule
+  // instructions (if no firing is needed) or as a list of moves
+  public String routeText() {
+
+    if ( mBest == null ) return "no route";
+
+    LinkedList<Node> nodes = new LinkedList<Node>();
+    for ( Node node = mBest ; node.mParent != null ; node = node.mParent ) {
+      nodes.addFirst(node);
+    }
+
+    ArrayList<Integer> moves  = new ArrayList<Integer>(),
+                       counts = new ArrayList<Integer>();
+    boolean firing = false;
+    for ( Node node : nodes ) {
+      final int last = moves.size() - 1;
+      if ( last >= 0 && moves.get(last) == node.mMove ) {
+        counts.set(last, counts.get(last) + node.mMoveTicks);
+      } else {
+        moves.add(node.mMove);
+        counts.add(node.mMoveTicks);
+      }
+      if ( kMoveDirecs[node.mMove] < -1 ) firing = true;
+    }
+
+    StringBuilder text = new StringBuilder();
+    if ( firing ) {
+      for ( int k = 0 ; k < moves.size() ; k++ ) {
+        text.append( (k > 0) ? ", " : "" );
+        text.append(kMoveNames[moves.get(k)] + " " + counts.get(k));
+      }
+    } else {
+      text.append("new int[]{ ");
+      for ( int k = 0 ; k < moves.size() ; k++ ) {
+        text.append( (k > 0) ? ", " : "" );
+        text.append("Env." + kMoveNames[moves.get(k)] + "," + counts.get(k));
+      }
+      text.append(" }");
+    }
+    return text.toString();
+
+  } // routeText()
+
+  // text output (for the latest leg)
+  public String report() {
+
+    final double secs = mNumNanos*1.0e-9;
+    return new String(( (mBest == null)
+                        ? "not found"
+                        : (mBest.mTicks + " ticks ("
+                           + String.format("%.2f", mBest.mTicks
+                                                   /(float)Env.ticksPerSecond())
+                           + " sec)") )
+                      + ", "
+                      + mNumExpanded.get()
+                      + " states expanded, "
+                      + mSeen.size()
+                      + " distinct, "
+                      + mNumDropped.get()
+                      + " dropped as repeats, "
+                      + String.format("%.2f", secs)
+                      + " sec ("
+                      + String.format("%.0f", mNumExpanded.get()
+                                              /Math.max(1.0e-9, secs))
+                      + " states per sec, "
+                      + mNumThreads
+                      + " threads)");
+
+  } // report()
+
+  // expands a range of nodes, splitting it between threads
+  private class Expand extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final ArrayList<Node> mNodes;
+    private final int mStart,
+                      mEnd;
+    private final ConcurrentLinkedQueue<Node> mChildren;
+
+    Expand(ArrayList<Node> nodes, int start, int end,
+           ConcurrentLinkedQueue<Node> children) {
+      mNodes = nodes;
+      mStart = start;
+      mEnd = end;
+      mChildren = children;
+    }
+
+    @Override
+    protected void compute() {
+      if ( mEnd - mStart == 1 ) {
+        expand(mNodes.get(mStart), mChildren);
+      } else {
+        final int mid = (mStart + mEnd)/2;
+        invokeAll(new Expand(mNodes, mStart, mid, mChildren),
+                  new Expand(mNodes, mid, mEnd, mChildren));
+      }
+    }
+
+  } // class RouteSearch.Expand
+
+  // try each move from a node (on the current thread)
+  private void expand(Node node, ConcurrentLinkedQueue<Node> children) {
+
+    Worker worker = worker();
+    GameManager game = worker.mRunner.gameManager();
+    mNumExpanded.incrementAndGet();
+
+    for ( int move = 0 ; move < kMoves.length ; move++ ) {
+      node.mSnapshot.restore(game);
+      worker.mKeys.set(kMoves[move]);
+
+      int result = kContinue,
+          ticks = 0;
+      while ( ticks < mMacroTicks && result == kContinue ) {
+        worker.mRunner.run(1);
+        ticks++;
+        result = check(game);
+      }
+      if ( result == kFailed ) continue;
+
+      Node child = new Node();
+      child.mParent = node;
+      child.mMove = move;
+      child.mMoveTicks = ticks;
+      child.mTicks = node.mTicks + ticks;
+
+      if ( result == kGoal ) {
+        child.mSnapshot = new GameSnapshot(game);
+        offerBest(child);
+      } else if ( visit(game, child.mTicks) ) {
+        child.mSnapshot = new GameSnapshot(game);
+        children.add(child);
+      } else {
+        mNumDropped.incrementAndGet();
+      }
+    }
+
+    node.mSnapshot = null;
+
+  } // expand()
+
+  // whether the game has reached the target, or gone wrong
+  private int check(GameManager game) {
+
+    Story story = game.story();
+    if ( !(story instanceof QuestStory) ) {
+      return ( mTarget.equals(TARGET_WIN) ? kGoal : kFailed );
+    }
+    if ( game.context().saveState().questStats().numDeaths() > mStartDeaths ) {
+      return kFailed;
+    }
+    final String room = ((QuestStory)story).currentRoom().name();
+    if ( room.equals(mStartRoom) ) return kContinue;
+    return ( room.equals(mTarget) ? kGoal : kFailed );
+
+  } // check()
+
+  // note that a state has been reached (false if it was reached as quickly
+  // before)
+  // (states are told apart by the game's hash together with the state of its
+  // random numbers, since states that only differ in their random numbers
+  // can play out differently, see GameManager.randomHash())
+  private boolean visit(GameManager game, int ticks) {
+
+    final Long key = StateHash.add(game.stateHash(), game.randomHash());
+    while ( true ) {
+      Integer old = mSeen.putIfAbsent(key, ticks);
+      if ( old == null ) return true;
+      if ( old <= ticks ) return false;
+      if ( mSeen.replace(key, old, ticks) ) return true;
+    }
+
+  } // visit()
+
+  // keep the quickest route to the target
+  private synchronized void offerBest(Node node) {
+
+    if ( mBest == null || node.mTicks < mBest.mTicks ) mBest = node;
+
+  } // offerBest()
+
+  // remember where the next leg starts
+  private void setStart(GameManager game) {
+
+    mStart = new GameSnapshot(game);
+    mStartRoom = ((QuestStory)game.story()).currentRoom().name();
+    mStartDeaths = game.context().saveState().questStats().numDeaths();
+
+  } // setStart()
+
+  // the game belonging to the current thread
+  private Worker worker() {
+
+    Worker worker = mWorkers.get();
+    if ( worker == null ) {
+      worker = new Worker();
+      worker.mRunner = new HeadlessRunner(mQuestNum, 0, worker.mKeys);
+      mWorkers.set(worker);
+    }
+    return worker;
+
+  } // worker()
+
+} // class RouteSearch
@@ -0,0 +1,369 @@
+/*
+ *  SessionHost.java
+ *  Copyright (c) 2017 Simon Hern
+ *  Contact: dishmoth@yahoo.co.uk, dishmoth.com, github.com/dishmoth
+ */
+
+package com.dishmoth.miniquests;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.LockSupport;
+
+import com.dishmoth.miniquests.game.EgaCanvas;
+import com.dishmoth.miniquests.game.Env;
+import com.dishmoth.miniquests.game.GameContext;
+import com.dishmoth.miniquests.game.GameManager;
+import com.dishmoth.miniquests.game.KeyMonitor;
+import com.dishmoth.miniquests.game.QuestStory;
+import com.dishmoth.miniquests.game.Story;
+
+// runs each game session in a loop on its own thread (a virtual thread if
+// the Java runtime supports them, otherwise an ordinary daemon thread)
+// (sessions park between ticks, keep their save data in separate files, and
+// are all stopped and saved together when the host is closed)
+public class SessionHost {
+
+  // main method (runs a number of sessions in real time, then reports)
+  // arguments: [number of sessions] [number of seconds] [max drawing]
+  //            [save directory]
+  public static void main(String args[]) throws InterruptedException {
+
+    final int  numSessions = ( args.length > 0 ) ? Integer.parseInt(args[0])
+                                                 : 100;
+    final int  numSeconds  = ( args.length > 1 ) ? Integer.parseInt(args[1])
+                                                 : 10;
+    final int  maxDrawing  = ( args.length > 2 ) ? Integer.parseInt(args[2])
+                                                 : defaultMaxDrawing();
+    final File saveDir     = ( args.length > 3 ) ? new File(args[3])
+                                                 : new File("sessions");
+
+    SessionHost host = new SessionHost(saveDir, maxDrawing);
+    System.out.println("Virtual threads: " + host.usingVirtualThreads());
+    for ( int k = 0 ; k < numSessions ; k++ ) {
+      host.start(k % QuestStory.NUM_QUESTS, k, new KeyMonitorNull(), null);
+    }
+
+    Thread.sleep(numSeconds*1000L);
+    host.close();
+
+    System.out.print(host.report());
+
+  } // main()
+
+  // the far end of a session (where input comes from and frames go to)
+  // (both methods are called on the session's thread, and may block)
+  public interface Client {
+
+    // update the session's key monitor before the game advances
+    public void pollInput();
+
+    // send out the newly drawn screen
+    // (see EgaCanvas.frameBuffer() for the frame without copying)
+    public void publishFrame(Session session, EgaCanvas screen)
+                                                          throws IOException;
+
+  } // interface SessionHost.Client
+
+  // time between ticks
+  static private final long kNanosPerTick = Math.round(1.0e9
+                                                       /Env.ticksPerSecond());
+
+  // a late session may advance several ticks at once to catch up, but if it
+  // falls further behind than this then the extra ticks are dropped
+  static private final int kMaxCatchUpTicks = 4;
+
+  // how long close() waits for each session to save and finish
+  static private final long kJoinMillis = 5000;
+
+  // makes virtual threads (or null if the runtime doesn't have them)
+  static private final ThreadFactory kVirtualThreads = virtualThreadFactory();
+
+  // one game session, running on its own thread
+  public class Session implements Runnable {
+
+    // identifying number (also names the save file)
+    private final int mId;
+
+    // how the session's game is set up
+    private final int        mQuestNum;
+    private final long       mSeed;
+    private final KeyMonitor mKeys;
+    private final Client     mClient;
+
+    // the session's game (created on the session's thread)
+    private EnvBitsSession mEnvBits;
+    private GameContext    mContext;
+    private GameManager    mGameManager;
+    private EgaCanvas      mScreen;
+
+    // the thread running the session
+    private Thread mThread;
+
+    // set when the session should finish
+    private volatile boolean mStopping;
+
+    // why the session finished early (or null)
+    private volatile Throwable mFailure;
+
+    // statistics (ticks advanced, ticks dropped, frames published)
+    private volatile long mNumTicks,
+                          mNumDropped,
+                          mNumFrames;
+
+    // constructor
+    private Session(int id, int questNum, long seed,
+                    KeyMonitor keys, Client client) {
+
+      mId       = id;
+      mQuestNum = questNum;
+      mSeed     = seed;
+      mKeys     = keys;
+      mClient   = client;
+      mStopping = false;
+      mFailure  = null;
+
+    } // constructor
+
+    // identifying number
+    public int id() { return mId; }
+
+    // the session's game (null until the session has started)
+    public GameManager gameManager() { return mGameManager; }
+
+    // whether the session's thread is still going
+    public boolean running() { return mThread.isAlive(); }
+
+    // ask the session to finish (it saves before stopping)
+    public void stop() {
+
+      mStopping = true;
+      LockSupport.unpark(mThread);
+
+    } // stop()
+
+    // the session's loop
+    public void run() {
+
+      mEnvBits = new EnvBitsSession(new File(mSaveDir,
+                                             "session" + mId + ".dat"),
+                                    null);
+      mContext = new GameContext(mEnvBits, new SoundsNull(), mKeys, mSeed);
+      GameContext oldContext = Env.bindContext(mContext);
+
+      try {
+        mContext.saveState().load();
+        mGameManager = new GameManager(startingStory(), mContext);
+        mScreen = new EgaCanvas(Env.screenWidth(), Env.screenHeight(),
+                                EgaCanvas.allocateFrameBuffer(
+                                            Env.screenWidth(),
+                                            Env.screenHeight()));
+
+        long deadline = System.nanoTime();
+        while ( !mStopping && !mEnvBits.exitRequested() ) {
+
+          // wait
+          long nanos;
+          while ( (nanos = deadline - System.nanoTime()) > 0 && !mStopping ) {
+            LockSupport.parkNanos(nanos);
+          }
+          if ( mStopping ) break;
+
+          // work out how many ticks are due
+          final long lag = -nanos;
+          int numDue = 1 + (int)(lag/kNanosPerTick);
+          if ( numDue > kMaxCatchUpTicks ) {
+            mNumDropped += numDue - kMaxCatchUpTicks;
+            deadline += (numDue - kMaxCatchUpTicks)*kNanosPerTick;
+            numDue = kMaxCatchUpTicks;
+          }
+
+          // advance
+          if ( mClient != null ) mClient.pollInput();
+          for ( int k = 0 ; k < numDue ; k++ ) mGameManager.advance();
+          mNumTicks += numDue;
+          deadline += numDue*kNanosPerTick;
+
+          // draw (limited number of sessions at once)
+          mDrawPermits.acquire();
+          try {
+            mScreen.clear();
+            mGameManager.draw(mScreen);
+          } finally {
+            mDrawPermits.release();
+          }
+
+          // publish
+          mScreen.publish();
+          if ( mClient != null ) mClient.publishFrame(this, mScreen);
+          mNumFrames++;
+
+        }
+      } catch ( InterruptedException ex ) {
+        // fall through to save and finish
+      } catch ( Throwable ex ) {
+        mFailure = ex;
+      } finally {
+        try {
+          mContext.saveState().save();
+        } catch ( RuntimeException ex ) {
+          if ( mFailure == null ) mFailure = ex;
+        }
+        Env.bindContext(oldContext);
+      }
+
+    } // Runnable.run()
+
+    // resume a saved quest if there is one, otherwise start a new quest
+    private Story startingStory() {
+
+      if ( mContext.saveState().hasRestartData() ) {
+        QuestStory story = new QuestStory();
+        if ( story.restore() ) return story;
+        Env.debug("Could not restore quest restart data");
+        mContext.saveState().clearRestartData();
+      }
+      return new QuestStory(mQuestNum);
+
+    } // startingStory()
+
+    // text output
+    public String report() {
+
+      return new String(mNumTicks
+                        + " ticks, "
+                        + mNumDropped
+                        + " dropped, "
+                        + mNumFrames
+                        + " frames"
+                        + ( mFailure != null ? ", failed: " + mFailure : "" ));
+
+    } // report()
+
+  } // class SessionHost.Session
+
+  // where the sessions' save files go
+  private File mSaveDir;
+
+  // limit on how many sessions can draw at the same time
+  private Semaphore mDrawPermits;
+
+  // the sessions started so far (in order)
+  private ArrayList<Session> mSessions;
+
+  // set once close() has been called
+  private boolean mClosed;
+
+  // number of sessions that can draw at once if not specified (one per core)
+  public static int defaultMaxDrawing() {
+
+    return Runtime.getRuntime().availableProcessors();
+
+  } // defaultMaxDrawing()
+
+  // constructor
+  public SessionHost(File saveDir, int maxDrawing) {
+
+    assert( saveDir != null );
+    assert( maxDrawing > 0 );
+
+    HeadlessRunner.initializeEnv(false);
+
+    mSaveDir = saveDir;
+    if ( !mSaveDir.exists() && !mSaveDir.mkdirs() ) {
+      Env.debug("Could not create directory " + mSaveDir);
+    }
+
+    mDrawPermits = new Semaphore(maxDrawing);
+    mSessions = new ArrayList<Session>();
+    mClosed = false;
+
+  } // constructor
+
+  // whether sessions run on virtual threads
+  public boolean usingVirtualThreads() { return (kVirtualThreads != null); }
+
+  // start a new session (client may be null if nobody is listening)
+  // (the session resumes from its save file if it has one)
+  public synchronized Session start(int questNum, long seed,
+                                    KeyMonitor keys, Client client) {
+
+    assert( questNum >= 0 && questNum < QuestStory.NUM_QUESTS );
+    assert( keys != null );
+    if ( mClosed ) throw new IllegalStateException("SessionHost is closed");
+
+    Session session = new Session(mSessions.size(), questNum, seed,
+                                  keys, client);
+    session.mThread = newThread(session);
+    mSessions.add(session);
+    session.mThread.start();
+    return session;
+
+  } // start()
+
+  // stop every session and wait for them all to save and finish
+  public void close() throws InterruptedException {
+
+    ArrayList<Session> sessions;
+    synchronized ( this ) {
+      mClosed = true;
+      sessions = new ArrayList<Session>(mSessions);
+    }
+
+    for ( Session session : sessions ) session.stop();
+    for ( Session session : sessions ) {
+      session.mThread.join(kJoinMillis);
+      if ( session.mThread.isAlive() ) {
+        Env.debug("Session " + session.id() + " did not finish");
+      }
+    }
+
+  } // close()
+
+  // text output (one line per session)
+  public synchronized String report() {
+
+    StringBuilder text = new StringBuilder();
+    for ( Session session : mSessions ) {
+      text.append("Session " + session.id() + ": " + session.report() + "\n");
+    }
+    return text.toString();
+
+  } // report()
+
+  // create a thread to run a session
+  private Thread newThread(Session session) {
+
+    Thread thread;
+    if ( kVirtualThreads != null ) {
+      thread = kVirtualThreads.newThread(session);
+    } else {
+      thread = new Thread(session);
+      thread.setDaemon(true);
+    }
+    thread.setName("Session-" + session.id());
+    return thread;
+
+  } // newThread()
+
+  // find the runtime's factory for virtual threads (Java 21 onwards)
+  // (looked up by reflection so that older runtimes can still run the host)
+  private static ThreadFactory virtualThreadFactory() {
+
+    try {
+      Method ofVirtual = Thread.class.getMethod("ofVirtual");
+      Object builder = ofVirtual.invoke(null);
+      Method factory = Class.forName("java.lang.Thread$Builder")
+                            .getMethod("factory");
+      return (ThreadFactory)factory.invoke(builder);
+    } catch ( Exception ex ) {
+      return null;
+    }
+
+  } // virtualThreadFactory()
+
+} // class SessionHost
@@ -0,0 +1,54 @@
+/*
+ *  SoundsNull.java
+ *  Copyright (c) 2017 Simon Hern
+ *  Contact: dishmoth@yahoo.co.uk, dishmoth.com, github.com/dishmoth
+ */
+
+package com.dishmoth.miniquests;
+
+import com.dishmoth.miniquests.game.Sounds;
+
+// silent audio (for games running headless)
+public class SoundsNull extends Sounds {
+
+  // constructor
+  public SoundsNull() {
+
+    super();
+    
+  } // constructor
+  
+  // nothing to load
+  @Override
+  public void initialize() {
+  } // Sounds.initialize()
+  
+  // prepare a sound resource (nothing to do)
+  @Override
+  protected void loadSound(int id, String fileName, int numVersions) {
+  } // Sounds.loadSound()
+
+  // check that all sounds have loaded (sound is never available)
+  @Override
+  protected void checkSounds() {
+    
+    mAvailable = false;
+    
+  } // Sounds.checkSounds()
+
+  // play a sound effect (nothing to do)
+  @Override
+  public void play(int id) {
+  } // Sounds.play()
+
+  // start a sound looping (nothing to do)
+  @Override
+  public void loop(int id) {
+  } // Sounds.loop()
+  
+  // stop a looping sound (nothing to do)
+  @Override
+  public void stop(int id) {
+  } // Sounds.stop()
+
+} // class SoundsNull
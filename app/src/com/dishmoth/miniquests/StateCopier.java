@@ -0,0 +1,905 @@
+/*
+ *  StateCopier.java
+ *  Copyright (c) 2017 Simon Hern
+ *  Contact: dishmoth@yahoo.co.uk, dishmoth.com, github.com/dishmoth
+ */
+
+package com.dishmoth.miniquests;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.dishmoth.miniquests.game.Env;
+import com.dishmoth.miniquests.game.EnvBits;
+import com.dishmoth.miniquests.game.GameContext;
+import com.dishmoth.miniquests.game.KeyMonitor;
+import com.dishmoth.miniquests.game.Resources;
+import com.dishmoth.miniquests.game.Sounds;
+
+// deep copies of game objects, made by reflection (see GameSnapshot)
+// objects that can be reached from static fields (images and other data
+// shared between games) are never copied, nor are the platform objects
+// (key monitor, sounds, etc.) that a game uses but doesn't own
+// (a copier records which objects it has copied, so shared references and
+// cycles in the original are the same in the copy; a copier can be used
+// again to bring its copy up to date with changes in the original)
+public class StateCopier {
+
+  // what a copier needs to know about a class
+  private static class ClassInfo {
+    Constructor<?> mAllocator;
+    Field          mFields[];
+    int            mTypes[];
+    int            mSize;
+  } // class StateCopier.ClassInfo
+
+  // types of field (and some other things)
+  private static final int kObject  = 0,
+                           kBoolean = 1,
+                           kByte    = 2,
+                           kChar    = 3,
+                           kShort   = 4,
+                           kInt     = 5,
+                           kLong    = 6,
+                           kFloat   = 7,
+                           kDouble  = 8;
+
+  // how objects of a class are treated
+  private static final Integer kCopied    = 0,
+                               kImmutable = 1,
+                               kPlatform  = 2,
+                               kSometimes = 3;
+
+  // game code lives in this package (and those below it)
+  private static final String kGamePackage = "com.dishmoth.miniquests.";
+
+  // details of the classes seen so far
+  private static final ConcurrentHashMap<Class<?>,ClassInfo> kClassInfo
+                               = new ConcurrentHashMap<Class<?>,ClassInfo>();
+
+  // how objects of each class seen so far are treated
+  private static final ConcurrentHashMap<Class<?>,Integer> kClassKinds
+                                 = new ConcurrentHashMap<Class<?>,Integer>();
+
+  // objects reachable from static fields, and their classes (replaced
+  // rather than changed, so that copiers on other threads can look at them
+  // without locking)
+  private static volatile IdentityHashMap<Object,Object> kShared
+                                        = new IdentityHashMap<Object,Object>();
+  private static volatile IdentityHashMap<Class<?>,Object> kSharedClasses
+                                      = new IdentityHashMap<Class<?>,Object>();
+
+  // classes whose static fields have been looked at, and the static fields
+  // that might change later (lazily created images, etc.)
+  private static final ConcurrentHashMap<Class<?>,Object> kScannedClasses
+                                    = new ConcurrentHashMap<Class<?>,Object>();
+  private static final ArrayList<Field> kChangeableStatics
+                                                     = new ArrayList<Field>();
+
+  // increases each time that the shared objects are replaced
+  private static volatile int kSharedVersion = 0;
+
+  // makes objects without calling their constructors
+  private static Object kReflectionFactory = null;
+  private static Method kNewConstructor    = null;
+
+  // copies made so far (original => copy)
+  private IdentityHashMap<Object,Object> mCopies;
+
+  // objects that have been created but not yet filled in
+  private ArrayList<Object> mPending;
+
+  // rough count of bytes copied
+  private long mNumBytes;
+
+  // set if new shared objects turn up during the copy
+  private boolean mSharedChanged;
+
+  // how objects of each class are treated (as for kClassKinds, or
+  // kSometimes if only some objects of the class are shared), and the
+  // version of the shared objects that this is based on
+  private IdentityHashMap<Class<?>,Integer> mKinds;
+  private int                               mKindsVersion;
+
+  // constructor
+  public StateCopier() {
+
+    mCopies = new IdentityHashMap<Object,Object>();
+    mPending = new ArrayList<Object>();
+    mNumBytes = 0;
+    mSharedChanged = false;
+    mKinds = new IdentityHashMap<Class<?>,Integer>();
+    mKindsVersion = kSharedVersion;
+
+  } // constructor
+
+  // constructor (carries on from earlier copies, original => copy)
+  public StateCopier(IdentityHashMap<Object,Object> copies) {
+
+    this();
+    mCopies = copies;
+
+  } // constructor
+
+  // the copies made so far (original => copy)
+  public IdentityHashMap<Object,Object> copies() { return mCopies; }
+
+  // number of objects copied
+  public int numObjects() { return mCopies.size(); }
+
+  // approximate memory used by the copies
+  public long numBytes() { return mNumBytes; }
+
+  // whether shared objects were discovered part way through the copy
+  // (some of them may have been copied when they shouldn't have been, so
+  // the copy should be made again with a new copier)
+  public boolean sharedChanged() { return mSharedChanged; }
+
+  // look for new objects in static fields (before starting to copy)
+  public static void refreshShared() {
+
+    synchronized ( kScannedClasses ) {
+      IdentityHashMap<Object,Object> shared = null;
+      for ( Field field : kChangeableStatics ) {
+        final Object value = getField(field, null);
+        if ( value == null || kShared.containsKey(value) ) continue;
+        if ( shared == null ) {
+          shared = new IdentityHashMap<Object,Object>(kShared);
+        }
+        addShared(value, shared);
+      }
+      if ( shared != null ) setShared(shared);
+    }
+
+  } // refreshShared()
+
+  // make a deep copy of an object
+  public Object copy(Object original) {
+
+    Object result = copyReference(original);
+    finish();
+    return result;
+
+  } // copy()
+
+  // make a deep copy of an object, putting the result into an existing
+  // object of the same class (references to the original become references
+  // to the target; platform objects in the target's fields are kept)
+  public void copyInto(Object original, Object target) {
+
+    addTarget(original, target);
+    finish();
+
+  } // copyInto()
+
+  // note that an existing object is to receive a copy of the original
+  // (use before copyInto() when several existing objects are to be reused)
+  public void addTarget(Object original, Object target) {
+
+    assert( original.getClass() == target.getClass() );
+    assert( !mCopies.containsKey(original) );
+    mCopies.put(original, target);
+    mPending.add(original);
+
+  } // addTarget()
+
+  // copy an original into its existing copy again (or copy it for the first
+  // time), reusing the copies of the objects it refers to
+  public void update(Object original) {
+
+    if ( mCopies.containsKey(original) ) {
+      mPending.add(original);
+    } else {
+      copyReference(original);
+    }
+    finish();
+
+  } // update()
+
+  // bring the copy of an object (and of everything it refers to) up to date
+  // (each existing copy that has to change is added to the changed list,
+  // with a shallow copy of its previous contents in the before list; copies
+  // of objects that can no longer be reached are forgotten, since the game
+  // may still change them after letting go of them)
+  public void refresh(Object original,
+                      ArrayList<Object> changed, ArrayList<Object> before) {
+
+    IdentityHashMap<Object,Object> visited
+                        = new IdentityHashMap<Object,Object>(mCopies.size());
+    ArrayList<Object> stack = new ArrayList<Object>();
+    stack.add(original);
+    mNumBytes = 0;
+
+    while ( stack.size() > 0 ) {
+      final Object obj = stack.remove(stack.size()-1);
+      if ( obj == null || visited.containsKey(obj) || isShared(obj) ) continue;
+
+      final Class<?> cls = obj.getClass();
+      final ClassInfo info = ( cls.isArray() || cls == ArrayList.class ||
+                               cls == LinkedList.class )
+                             ? null : classInfo(cls);
+
+      Object copy = mCopies.get(obj);
+      if ( copy == null ) {
+        copy = copyReference(obj);
+      } else {
+        if ( differs(obj, copy, info) ) {
+          changed.add(copy);
+          before.add(shallowCopy(copy));
+          mPending.add(obj);
+        }
+        mNumBytes += ( info != null ) ? info.mSize : sizeOf(copy);
+      }
+      visited.put(obj, copy);
+      addReferences(obj, info, stack);
+    }
+    finish();
+
+    mCopies = visited;
+
+  } // refresh()
+
+  // a new object with the same contents as an existing one (the objects
+  // that it refers to are not copied)
+  public static Object shallowCopy(Object obj) {
+
+    final Class<?> cls = obj.getClass();
+    if ( cls.isArray() ) {
+      if ( cls.getComponentType().isPrimitive() ) {
+        return primitiveArrayCopy(obj);
+      }
+      return ((Object[])obj).clone();
+    }
+    if ( cls == ArrayList.class ) return new ArrayList<Object>((List<?>)obj);
+    if ( cls == LinkedList.class ) return new LinkedList<Object>((List<?>)obj);
+
+    ClassInfo info = classInfo(cls);
+    Object copy;
+    try {
+      copy = info.mAllocator.newInstance();
+    } catch ( Exception ex ) {
+      throw new IllegalStateException("Cannot copy " + cls + ": " + ex);
+    }
+    shallowCopyInto(obj, copy);
+    return copy;
+
+  } // shallowCopy()
+
+  // give an existing object the same contents as another of the same class
+  // (the objects that they refer to are not copied)
+  @SuppressWarnings("unchecked")
+  public static void shallowCopyInto(Object source, Object target) {
+
+    assert( source.getClass() == target.getClass() );
+
+    final Class<?> cls = source.getClass();
+    if ( cls.isArray() ) {
+      System.arraycopy(source, 0, target, 0, Array.getLength(source));
+      return;
+    }
+    if ( cls == ArrayList.class || cls == LinkedList.class ) {
+      ((List<Object>)target).clear();
+      ((List<Object>)target).addAll((List<Object>)source);
+      return;
+    }
+
+    ClassInfo info = classInfo(cls);
+    for ( Field field : info.mFields ) {
+      try {
+        field.set(target, field.get(source));
+      } catch ( IllegalAccessException ex ) {
+        throw new IllegalStateException("Cannot copy " + field + ": " + ex);
+      }
+    }
+
+  } // shallowCopyInto()
+
+  // approximate memory used by an object (not counting what it refers to)
+  public static long sizeOf(Object obj) {
+
+    final Class<?> cls = obj.getClass();
+    if ( cls.isArray() ) {
+      final int length = Array.getLength(obj);
+      return 16 + length*( cls.getComponentType().isPrimitive()
+                           ? primitiveSize(cls.getComponentType()) : 4 );
+    }
+    if ( cls == ArrayList.class ) return 24 + 4*((List<?>)obj).size();
+    if ( cls == LinkedList.class ) return 24 + 24*((List<?>)obj).size();
+    return classInfo(cls).mSize;
+
+  } // sizeOf()
+
+  // the fields of a game class that are copied (in a fixed order)
+  static Field[] fieldsOf(Class<?> cls) { return classInfo(cls).mFields; }
+
+  // a new object of a game class, without its constructor being called
+  static Object allocate(Class<?> cls) {
+
+    try {
+      return classInfo(cls).mAllocator.newInstance();
+    } catch ( Exception ex ) {
+      throw new IllegalStateException("Cannot create " + cls + ": " + ex);
+    }
+
+  } // allocate()
+
+  // whether objects of a class are never changed (strings, numbers, etc.)
+  static boolean isImmutable(Class<?> cls) {
+
+    return ( classKind(cls) == kImmutable );
+
+  } // isImmutable()
+
+  // whether objects of a class belong to the platform (key monitor, etc.)
+  static boolean isPlatform(Class<?> cls) {
+
+    return ( classKind(cls) == kPlatform );
+
+  } // isPlatform()
+
+  // whether an object is one of those reachable from static fields
+  static boolean isSharedObject(Object obj) {
+
+    return kShared.containsKey(obj);
+
+  } // isSharedObject()
+
+  // increases each time that the shared objects change
+  static int sharedVersion() { return kSharedVersion; }
+
+  // the static fields that the shared objects are reached from, sorted by
+  // class and field name (so that the order is the same in every run)
+  static ArrayList<Field> sharedRoots() {
+
+    ArrayList<Class<?>> classes;
+    synchronized ( kScannedClasses ) {
+      classes = new ArrayList<Class<?>>(kScannedClasses.keySet());
+    }
+
+    ArrayList<Field> roots = new ArrayList<Field>();
+    for ( Class<?> cls : classes ) {
+      if ( !cls.getName().startsWith(kGamePackage) || cls == Env.class ) {
+        continue;
+      }
+      for ( Field field : cls.getDeclaredFields() ) {
+        if ( !Modifier.isStatic(field.getModifiers()) ) continue;
+        if ( field.getType().isPrimitive() ) continue;
+        field.setAccessible(true);
+        roots.add(field);
+      }
+    }
+    sortFields(roots);
+    return roots;
+
+  } // sharedRoots()
+
+  // the static fields that may be given new objects after the class is
+  // loaded (lazily created images, etc.), sorted as for sharedRoots()
+  static ArrayList<Field> changeableStatics() {
+
+    ArrayList<Field> fields;
+    synchronized ( kScannedClasses ) {
+      fields = new ArrayList<Field>(kChangeableStatics);
+    }
+    sortFields(fields);
+    return fields;
+
+  } // changeableStatics()
+
+  // read a static field (the root of some shared objects)
+  static Object getStatic(Field field) { return getField(field, null); }
+
+  // fill in the copies, for as long as new ones keep being made
+  private void finish() {
+
+    while ( mPending.size() > 0 ) {
+      Object original = mPending.remove(mPending.size()-1);
+      fill(original, mCopies.get(original));
+    }
+
+  } // finish()
+
+  // copy of an object (created if necessary, filled in later)
+  private Object copyReference(Object original) {
+
+    if ( original == null ) return null;
+    if ( isShared(original) ) return original;
+
+    Object copy = mCopies.get(original);
+    if ( copy != null ) return copy;
+
+    final Class<?> cls = original.getClass();
+    if ( cls.isArray() ) {
+      if ( cls.getComponentType().isPrimitive() ) {
+        copy = primitiveArrayCopy(original);
+        mCopies.put(original, copy);
+        mNumBytes += sizeOf(original);
+        return copy;
+      }
+      copy = Array.newInstance(cls.getComponentType(),
+                               Array.getLength(original));
+    } else if ( cls == ArrayList.class ) {
+      copy = new ArrayList<Object>(((List<?>)original).size());
+    } else if ( cls == LinkedList.class ) {
+      copy = new LinkedList<Object>();
+    } else {
+      ClassInfo info = classInfo(cls);
+      try {
+        copy = info.mAllocator.newInstance();
+      } catch ( Exception ex ) {
+        throw new IllegalStateException("Cannot copy " + cls + ": " + ex);
+      }
+    }
+    mNumBytes += sizeOf(original);
+
+    mCopies.put(original, copy);
+    mPending.add(original);
+    return copy;
+
+  } // copyReference()
+
+  // copy the contents of one object into another
+  @SuppressWarnings("unchecked")
+  private void fill(Object original, Object copy) {
+
+    final Class<?> cls = original.getClass();
+
+    if ( cls.isArray() ) {
+      if ( cls.getComponentType().isPrimitive() ) {
+        System.arraycopy(original, 0, copy, 0, Array.getLength(original));
+      } else {
+        Object source[] = (Object[])original,
+               dest[]   = (Object[])copy;
+        for ( int k = 0 ; k < source.length ; k++ ) {
+          dest[k] = copyReference(source[k]);
+        }
+      }
+      return;
+    }
+
+    if ( cls == ArrayList.class || cls == LinkedList.class ) {
+      List<Object> source = (List<Object>)original,
+                   dest   = (List<Object>)copy;
+      dest.clear();
+      for ( Object obj : source ) dest.add(copyReference(obj));
+      return;
+    }
+
+    ClassInfo info = classInfo(cls);
+    for ( int k = 0 ; k < info.mFields.length ; k++ ) {
+      final Field field = info.mFields[k];
+      try {
+        switch ( info.mTypes[k] ) {
+          case kBoolean: field.setBoolean(copy, field.getBoolean(original));
+                         break;
+          case kByte:    field.setByte(copy, field.getByte(original));
+                         break;
+          case kChar:    field.setChar(copy, field.getChar(original));
+                         break;
+          case kShort:   field.setShort(copy, field.getShort(original));
+                         break;
+          case kInt:     field.setInt(copy, field.getInt(original));
+                         break;
+          case kLong:    field.setLong(copy, field.getLong(original));
+                         break;
+          case kFloat:   field.setFloat(copy, field.getFloat(original));
+                         break;
+          case kDouble:  field.setDouble(copy, field.getDouble(original));
+                         break;
+          default: {
+            final Object value = field.get(original);
+            if ( value != null && classKind(value.getClass()) == kPlatform ) {
+              final Object current = field.get(copy);
+              if ( current != null &&
+                   classKind(current.getClass()) == kPlatform ) continue;
+            }
+            field.set(copy, copyReference(value));
+          }
+        }
+      } catch ( IllegalAccessException ex ) {
+        throw new IllegalStateException("Cannot copy " + field + ": " + ex);
+      }
+    }
+
+  } // fill()
+
+  // whether the contents of an object's existing copy are out of date
+  // (info is the class's details, or null for arrays and lists)
+  private boolean differs(Object original, Object copy, ClassInfo info) {
+
+    final Class<?> cls = original.getClass();
+
+    if ( cls.isArray() ) {
+      if ( cls.getComponentType().isPrimitive() ) {
+        return !primitiveArraysEqual(original, copy);
+      }
+      Object source[] = (Object[])original,
+             dest[]   = (Object[])copy;
+      for ( int k = 0 ; k < source.length ; k++ ) {
+        if ( !isCopyOf(dest[k], source[k]) ) return true;
+      }
+      return false;
+    }
+
+    if ( cls == ArrayList.class || cls == LinkedList.class ) {
+      List<?> source = (List<?>)original,
+              dest   = (List<?>)copy;
+      if ( source.size() != dest.size() ) return true;
+      Iterator<?> it = dest.iterator();
+      for ( Object obj : source ) {
+        if ( !isCopyOf(it.next(), obj) ) return true;
+      }
+      return false;
+    }
+
+    for ( int k = 0 ; k < info.mFields.length ; k++ ) {
+      final Field field = info.mFields[k];
+      try {
+        switch ( info.mTypes[k] ) {
+          case kBoolean: if ( field.getBoolean(copy)
+                              != field.getBoolean(original) ) return true;
+                         break;
+          case kByte:    if ( field.getByte(copy)
+                              != field.getByte(original) ) return true;
+                         break;
+          case kChar:    if ( field.getChar(copy)
+                              != field.getChar(original) ) return true;
+                         break;
+          case kShort:   if ( field.getShort(copy)
+                              != field.getShort(original) ) return true;
+                         break;
+          case kInt:     if ( field.getInt(copy)
+                              != field.getInt(original) ) return true;
+                         break;
+          case kLong:    if ( field.getLong(copy)
+                              != field.getLong(original) ) return true;
+                         break;
+          case kFloat:   if ( Float.floatToRawIntBits(field.getFloat(copy))
+                              != Float.floatToRawIntBits(
+                                         field.getFloat(original)) ) {
+                           return true;
+                         }
+                         break;
+          case kDouble:  if ( Double.doubleToRawLongBits(
+                                         field.getDouble(copy))
+                              != Double.doubleToRawLongBits(
+                                         field.getDouble(original)) ) {
+                           return true;
+                         }
+                         break;
+          default: {
+            final Object value = field.get(original);
+            if ( value != null && classKind(value.getClass()) == kPlatform ) {
+              continue;
+            }
+            if ( !isCopyOf(field.get(copy), value) ) return true;
+          }
+        }
+      } catch ( IllegalAccessException ex ) {
+        throw new IllegalStateException("Cannot read " + field + ": " + ex);
+      }
+    }
+    return false;
+
+  } // differs()
+
+  // whether a reference in a copy matches the reference in the original
+  private boolean isCopyOf(Object copy, Object original) {
+
+    if ( original == null ) return ( copy == null );
+    final Object expected = mCopies.get(original);
+    if ( expected != null ) return ( copy == expected );
+    return ( copy == original && isShared(original) );
+
+  } // isCopyOf()
+
+  // add the objects that an object refers to onto a list
+  // (info is the class's details, or null for arrays and lists)
+  private static void addReferences(Object obj, ClassInfo info,
+                                    ArrayList<Object> list) {
+
+    final Class<?> cls = obj.getClass();
+    if ( cls.isArray() ) {
+      if ( !cls.getComponentType().isPrimitive() ) {
+        for ( Object element : (Object[])obj ) {
+          if ( element != null ) list.add(element);
+        }
+      }
+    } else if ( cls == ArrayList.class || cls == LinkedList.class ) {
+      list.addAll((List<?>)obj);
+    } else {
+      for ( int k = 0 ; k < info.mFields.length ; k++ ) {
+        if ( info.mTypes[k] != kObject ) continue;
+        final Object value = getField(info.mFields[k], obj);
+        if ( value != null ) list.add(value);
+      }
+    }
+
+  } // addReferences()
+
+  // whether an object is shared rather than copied
+  private boolean isShared(Object obj) {
+
+    if ( mKindsVersion != kSharedVersion ) {
+      mKinds.clear();
+      mKindsVersion = kSharedVersion;
+    }
+
+    final Class<?> cls = obj.getClass();
+    Integer kind = mKinds.get(cls);
+    if ( kind == null ) {
+      kind = classKind(cls);
+      if ( kind == kCopied ) {
+        if ( !cls.isArray() && !kScannedClasses.containsKey(cls) ) {
+          scanClass(cls);
+        }
+        if ( kSharedClasses.containsKey(cls) ) kind = kSometimes;
+      }
+      mKinds.put(cls, kind);
+    }
+
+    if ( kind == kCopied ) return false;
+    if ( kind == kSometimes ) return kShared.containsKey(obj);
+    return true;
+
+  } // isShared()
+
+  // how objects of a class are treated (copied, immutable or platform)
+  private static Integer classKind(Class<?> cls) {
+
+    Integer kind = kClassKinds.get(cls);
+    if ( kind != null ) return kind;
+
+    if ( cls == String.class || Number.class.isAssignableFrom(cls) ||
+         cls == Boolean.class || cls == Character.class ||
+         Enum.class.isAssignableFrom(cls) || cls == Class.class ) {
+      kind = kImmutable;
+    } else if ( EnvBits.class.isAssignableFrom(cls) ||
+                KeyMonitor.class.isAssignableFrom(cls) ||
+                ControllerModule.class.isAssignableFrom(cls) ||
+                Sounds.class.isAssignableFrom(cls) ||
+                Resources.class.isAssignableFrom(cls) ||
+                GameContext.Binding.class.isAssignableFrom(cls) ) {
+      kind = kPlatform;
+    } else {
+      kind = kCopied;
+    }
+    kClassKinds.put(cls, kind);
+    return kind;
+
+  } // classKind()
+
+  // look at the static fields of a class (and the classes it extends)
+  private void scanClass(Class<?> cls) {
+
+    synchronized ( kScannedClasses ) {
+      IdentityHashMap<Object,Object> shared = null;
+      for ( Class<?> c = cls ; c != null ; c = c.getSuperclass() ) {
+        if ( kScannedClasses.containsKey(c) ) continue;
+        kScannedClasses.put(c, c);
+        if ( !c.getName().startsWith(kGamePackage) || c == Env.class ) {
+          continue;
+        }
+        for ( Field field : c.getDeclaredFields() ) {
+          final int mods = field.getModifiers();
+          if ( !Modifier.isStatic(mods) ) continue;
+          if ( field.getType().isPrimitive() ) continue;
+          field.setAccessible(true);
+          if ( !Modifier.isFinal(mods) ) kChangeableStatics.add(field);
+          final Object value = getField(field, null);
+          if ( value == null || kShared.containsKey(value) ) continue;
+          if ( shared == null ) {
+            shared = new IdentityHashMap<Object,Object>(kShared);
+          }
+          addShared(value, shared);
+        }
+      }
+      if ( shared != null ) {
+        setShared(shared);
+        if ( mCopies.size() > 0 ) mSharedChanged = true;
+      }
+    }
+
+  } // scanClass()
+
+  // add an object and everything it refers to into the shared set
+  private static void addShared(Object root,
+                                IdentityHashMap<Object,Object> shared) {
+
+    ArrayList<Object> stack = new ArrayList<Object>();
+    stack.add(root);
+    while ( stack.size() > 0 ) {
+      final Object obj = stack.remove(stack.size()-1);
+      if ( obj == null || shared.containsKey(obj) ) continue;
+      final Class<?> cls = obj.getClass();
+      if ( classKind(cls) != kCopied ) continue;
+      if ( cls.isArray() ) {
+        shared.put(obj, obj);
+        if ( !cls.getComponentType().isPrimitive() ) {
+          for ( Object element : (Object[])obj ) stack.add(element);
+        }
+      } else if ( obj instanceof List ) {
+        shared.put(obj, obj);
+        stack.addAll((List<?>)obj);
+      } else if ( cls.getName().startsWith(kGamePackage) ) {
+        shared.put(obj, obj);
+        ClassInfo info = classInfo(cls);
+        for ( int k = 0 ; k < info.mFields.length ; k++ ) {
+          if ( info.mTypes[k] == kObject ) {
+            stack.add(getField(info.mFields[k], obj));
+          }
+        }
+      }
+    }
+
+  } // addShared()
+
+  // replace the set of shared objects (and update the classes they're from)
+  private static void setShared(IdentityHashMap<Object,Object> shared) {
+
+    IdentityHashMap<Class<?>,Object> classes
+                                      = new IdentityHashMap<Class<?>,Object>();
+    for ( Object obj : shared.keySet() ) classes.put(obj.getClass(), obj);
+    kSharedClasses = classes;
+    kShared = shared;
+    kSharedVersion++;
+
+  } // setShared()
+
+  // details of a class (worked out the first time they're needed)
+  private static ClassInfo classInfo(Class<?> cls) {
+
+    ClassInfo info = kClassInfo.get(cls);
+    if ( info != null ) return info;
+
+    if ( !cls.getName().startsWith(kGamePackage) ) {
+      throw new IllegalArgumentException("Cannot copy " + cls.getName());
+    }
+
+    info = new ClassInfo();
+    info.mAllocator = allocator(cls);
+    ArrayList<Field> fields = new ArrayList<Field>();
+    int size = 16;
+    for ( Class<?> c = cls ; c != Object.class ; c = c.getSuperclass() ) {
+      for ( Field field : c.getDeclaredFields() ) {
+        if ( Modifier.isStatic(field.getModifiers()) ) continue;
+        field.setAccessible(true);
+        fields.add(field);
+        size += field.getType().isPrimitive()
+                ? primitiveSize(field.getType()) : 4;
+      }
+    }
+    info.mFields = fields.toArray(new Field[fields.size()]);
+    info.mTypes = new int[info.mFields.length];
+    for ( int k = 0 ; k < info.mFields.length ; k++ ) {
+      info.mTypes[k] = fieldType(info.mFields[k].getType());
+    }
+    info.mSize = size;
+
+    kClassInfo.putIfAbsent(cls, info);
+    return kClassInfo.get(cls);
+
+  } // classInfo()
+
+  // a constructor that makes an object of the class without initializing it
+  // (the way that deserialization does)
+  private static synchronized Constructor<?> allocator(Class<?> cls) {
+
+    try {
+      if ( kReflectionFactory == null ) {
+        Class<?> factoryClass;
+        try {
+          factoryClass = Class.forName("sun.reflect.ReflectionFactory");
+        } catch ( ClassNotFoundException ex ) {
+          factoryClass = Class.forName("jdk.internal.reflect"
+                                       + ".ReflectionFactory");
+        }
+        kReflectionFactory = factoryClass.getMethod("getReflectionFactory")
+                                         .invoke(null);
+        kNewConstructor = factoryClass.getMethod(
+                                            "newConstructorForSerialization",
+                                            Class.class, Constructor.class);
+      }
+      Constructor<?> constructor = (Constructor<?>)kNewConstructor.invoke(
+                                   kReflectionFactory, cls,
+                                   Object.class.getDeclaredConstructor());
+      constructor.setAccessible(true);
+      return constructor;
+    } catch ( Exception ex ) {
+      throw new IllegalStateException("Cannot create " + cls + ": " + ex);
+    }
+
+  } // allocator()
+
+  // sort static fields by the names of their classes and themselves
+  private static void sortFields(ArrayList<Field> fields) {
+
+    Collections.sort(fields, new Comparator<Field>() {
+      public int compare(Field a, Field b) {
+        final int c = a.getDeclaringClass().getName()
+                      .compareTo(b.getDeclaringClass().getName());
+        return ( c != 0 ) ? c : a.getName().compareTo(b.getName());
+      }
+    });
+
+  } // sortFields()
+
+  // read a field (which has already been made accessible)
+  private static Object getField(Field field, Object obj) {
+
+    try {
+      return field.get(obj);
+    } catch ( IllegalAccessException ex ) {
+      throw new IllegalStateException("Cannot read " + field + ": " + ex);
+    }
+
+  } // getField()
+
+  // copy of an array of numbers, booleans, etc.
+  private static Object primitiveArrayCopy(Object array) {
+
+    if ( array instanceof byte[] )    return ((byte[])array).clone();
+    if ( array instanceof int[] )     return ((int[])array).clone();
+    if ( array instanceof float[] )   return ((float[])array).clone();
+    if ( array instanceof boolean[] ) return ((boolean[])array).clone();
+    if ( array instanceof long[] )    return ((long[])array).clone();
+    if ( array instanceof double[] )  return ((double[])array).clone();
+    if ( array instanceof short[] )   return ((short[])array).clone();
+    return ((char[])array).clone();
+
+  } // primitiveArrayCopy()
+
+  // whether two arrays of numbers, booleans, etc., have the same contents
+  private static boolean primitiveArraysEqual(Object a, Object b) {
+
+    if ( a instanceof byte[] )    return Arrays.equals((byte[])a, (byte[])b);
+    if ( a instanceof int[] )     return Arrays.equals((int[])a, (int[])b);
+    if ( a instanceof float[] )   return Arrays.equals((float[])a, (float[])b);
+    if ( a instanceof boolean[] ) return Arrays.equals((boolean[])a,
+                                                       (boolean[])b);
+    if ( a instanceof long[] )    return Arrays.equals((long[])a, (long[])b);
+    if ( a instanceof double[] )  return Arrays.equals((double[])a,
+                                                       (double[])b);
+    if ( a instanceof short[] )   return Arrays.equals((short[])a, (short[])b);
+    return Arrays.equals((char[])a, (char[])b);
+
+  } // primitiveArraysEqual()
+
+  // which kind of value a field holds
+  private static int fieldType(Class<?> type) {
+
+    if ( type == boolean.class ) return kBoolean;
+    if ( type == byte.class )    return kByte;
+    if ( type == char.class )    return kChar;
+    if ( type == short.class )   return kShort;
+    if ( type == int.class )     return kInt;
+    if ( type == long.class )    return kLong;
+    if ( type == float.class )   return kFloat;
+    if ( type == double.class )  return kDouble;
+    return kObject;
+
+  } // fieldType()
+
+  // memory used by a number, boolean, etc.
+  private static int primitiveSize(Class<?> type) {
+
+    if ( type == long.class || type == double.class ) return 8;
+    if ( type == int.class || type == float.class ) return 4;
+    if ( type == short.class || type == char.class ) return 2;
+    return 1;
+
+  } // primitiveSize()
+
+} // class StateCopier
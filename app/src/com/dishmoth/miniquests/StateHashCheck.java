@@ -0,0 +1,474 @@
+/*
+ *  StateHashCheck.java
+ *  Copyright (c) 2017 Simon Hern
+ *  Contact: dishmoth@yahoo.co.uk, dishmoth.com, github.com/dishmoth
+ */
+
+package com.dishmoth.miniquests;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import com.dishmoth.miniquests.game.EgaImage;
+import com.dishmoth.miniquests.game.GameContext;
+import com.dishmoth.miniquests.game.GameManager;
+import com.dishmoth.miniquests.game.Obstacle;
+import com.dishmoth.miniquests.game.QuestStory;
+import com.dishmoth.miniquests.game.RandomStream;
+import com.dishmoth.miniquests.game.Room;
+import com.dishmoth.miniquests.game.Sprite;
+import com.dishmoth.miniquests.game.SpriteManager;
+import com.dishmoth.miniquests.game.Story;
+
+// checks the game's state hash (see GameManager.stateHash()), failing (with
+// a non-zero exit code) if any of these go wrong:
+//  - every Sprite or Room class with fields that can change must have a
+//    stateHash() of its own;
+//  - after every tick the running totals must match the hashes of the
+//    Sprites and Rooms worked out from scratch (so no change of state went
+//    unnoticed, see Sprite.stateChanged() and Room.stateChanged());
+//  - whenever a field of a Sprite or of the current Room changes, its hash
+//    must change too (the rooms are played from every entry point with
+//    random keys);
+//  - a game restored from a snapshot must repeat the same hashes
+public class StateHashCheck {
+
+  // fields that are left out of the hashes on purpose: key presses that are
+  // read afresh before every use, workspace that is rebuilt before every
+  // use, versions of door images (which only matter for drawing), and
+  // the room's own book-keeping (lists of Sprites or Obstacles are also
+  // left out, since the Sprites are hashed by themselves)
+  private static final String kExcludedFields[]
+                                = { "Module.mRight", "Module.mUp",
+                                    "Module.mLeft", "Module.mDown",
+                                    "Module.mFire",
+                                    "Spook.mValidDirections",
+                                    "SnakeBoss1.mWaypoints",
+                                    "SnakeBoss2.mWaypoints",
+                                    "SnakeBoss3.mWaypoints",
+                                    "Door.mImageVersion",
+                                    "Room.mStateChanged" };
+
+  // how deeply to follow references when fingerprinting fields
+  private static final int kMaxDepth = 5;
+
+  // problems found (description and number of times seen)
+  private TreeMap<String,Integer> mProblems = new TreeMap<String,Integer>();
+
+  // fingerprints of the fields of Sprites and Rooms after the previous tick
+  private IdentityHashMap<Object,long[]> mFingerprints
+                                     = new IdentityHashMap<Object,long[]>();
+
+  // hashes of Sprites and Rooms after the previous tick
+  private IdentityHashMap<Object,Long> mHashes
+                                     = new IdentityHashMap<Object,Long>();
+
+  // main method (run with assertions enabled, -ea)
+  // arguments: [ticks per run] [runs per entry point] [seed]
+  public static void main(String args[]) throws IOException {
+
+    final int  numTicks = ( args.length > 0 ) ? Integer.parseInt(args[0])
+                                              : 300;
+    final int  numRuns  = ( args.length > 1 ) ? Integer.parseInt(args[1])
+                                              : 2;
+    final long seed     = ( args.length > 2 ) ? Long.parseLong(args[2]) : 0;
+
+    HeadlessRunner.initializeEnv(false);
+    StateHashCheck check = new StateHashCheck();
+
+    final int numClasses = check.checkClasses();
+    System.out.println(numClasses + " Sprite and Room classes checked");
+
+    int quests[] = new int[QuestStory.NUM_QUESTS];
+    for ( int k = 0 ; k < quests.length ; k++ ) quests[k] = k;
+    RoomFuzzer fuzzer = new RoomFuzzer(1);
+    RoomFuzzer.Target targets[] = fuzzer.findTargets(quests);
+    fuzzer.close();
+
+    Random random = new Random(seed);
+    long totalTicks = 0;
+    for ( RoomFuzzer.Target target : targets ) {
+      for ( int run = 0 ; run < numRuns ; run++ ) {
+        totalTicks += check.checkRun(target, random.nextLong(), numTicks);
+      }
+    }
+    System.out.println(totalTicks + " ticks played from " + targets.length
+                       + " entry points");
+
+    for ( int questNum : quests ) {
+      check.checkSnapshot(questNum, 30*60, seed);
+    }
+
+    if ( check.mProblems.isEmpty() ) {
+      System.out.println("State hashes okay");
+    } else {
+      for ( String problem : check.mProblems.keySet() ) {
+        System.out.println(problem + " (" + check.mProblems.get(problem)
+                           + " times)");
+      }
+      System.out.println(check.mProblems.size() + " problems");
+      System.exit(1);
+    }
+
+  } // main()
+
+  // note down a problem
+  private void problem(String description) {
+
+    Integer count = mProblems.get(description);
+    mProblems.put(description, (count == null) ? 1 : count+1);
+
+  } // problem()
+
+  // every Sprite or Room class with fields that can change must have its
+  // own hash (returns the number of classes checked)
+  private int checkClasses() throws IOException {
+
+    int numChecked = 0;
+    for ( Class<?> cls : gameClasses() ) {
+      if ( !Sprite.class.isAssignableFrom(cls) &&
+           !Room.class.isAssignableFrom(cls) ) continue;
+      numChecked++;
+      if ( cls == Sprite.class || cls == Room.class ) continue;
+
+      boolean hasHash;
+      try {
+        cls.getDeclaredMethod("stateHash");
+        hasHash = true;
+      } catch ( NoSuchMethodException ex ) {
+        hasHash = false;
+      }
+      if ( hasHash ) continue;
+
+      for ( Field field : cls.getDeclaredFields() ) {
+        if ( !isChecked(field) ) continue;
+        if ( Modifier.isFinal(field.getModifiers()) ) continue;
+        if ( isReference(field.getType()) ) continue;
+        problem(cls.getSimpleName() + " has no stateHash() but its field "
+                + field.getName() + " can change");
+      }
+    }
+    return numChecked;
+
+  } // checkClasses()
+
+  // play a room from one entry point, checking the hashes after every tick
+  // (returns the number of ticks played)
+  private long checkRun(RoomFuzzer.Target target, long seed, int numTicks) {
+
+    Random random = new Random(seed);
+    Replay replay = new Replay(target.mQuestNum, seed);
+    replay.setStartPoint(target.mRoom, target.mEntryPoint);
+    int bits = 0;
+    for ( int k = 0 ; k < numTicks ; k++ ) {
+      if ( random.nextInt(8) == 0 ) {
+        bits = random.nextInt(KeyMonitorBits.ALL) & ~KeyMonitorBits.ESCAPE;
+      }
+      replay.record(bits);
+    }
+
+    HeadlessRunner runner = new HeadlessRunner(replay);
+    runner.setDrawInterval(0);
+    GameManager game = runner.gameManager();
+    mFingerprints.clear();
+    mHashes.clear();
+
+    int tick;
+    for ( tick = 0 ; tick < numTicks ; tick++ ) {
+      try {
+        runner.run(1);
+      } catch ( Throwable ex ) {
+        // (the fuzzer reports these, see RoomFuzzer)
+        break;
+      }
+      checkTotals(game);
+      for ( Sprite sprite : game.spriteManager().list() ) {
+        checkFields(sprite, Sprite.class, sprite.stateHash());
+      }
+      if ( game.story() instanceof QuestStory ) {
+        Room room = ((QuestStory)game.story()).currentRoom();
+        if ( room != null ) checkFields(room, Object.class, room.stateHash());
+      }
+    }
+    return tick;
+
+  } // checkRun()
+
+  // compare the running totals with the hashes worked out from scratch
+  private void checkTotals(GameManager game) {
+
+    SpriteManager spriteManager = game.spriteManager();
+    final long total = spriteManager.stateHash();
+    long sum = 0;
+    for ( Sprite sprite : spriteManager.list() ) {
+      final long hash = sprite.stateHash();
+      sum += hash;
+      if ( hash != (Long)fieldValue(sprite, Sprite.class, "mLastStateHash") ) {
+        problem(sprite.getClass().getSimpleName()
+                + " changed without calling stateChanged()");
+      }
+    }
+    if ( sum != total ) problem("Sprite hash total is out of date");
+
+    if ( game.story() instanceof QuestStory ) {
+      QuestStory story = (QuestStory)game.story();
+      Room rooms[] = (Room[])fieldValue(story, QuestStory.class,
+                                        "mRoomList");
+      long hashes[] = (long[])fieldValue(story, QuestStory.class,
+                                         "mRoomHashes");
+      for ( int k = 0 ; k < rooms.length ; k++ ) {
+        if ( rooms[k].stateHash() != hashes[k] ) {
+          problem(rooms[k].getClass().getSimpleName()
+                  + " changed without calling stateChanged()");
+        }
+      }
+    }
+
+  } // checkTotals()
+
+  // look for fields that changed while the object's hash didn't
+  private void checkFields(Object obj, Class<?> baseClass, long hash) {
+
+    ArrayList<Field> fields = fieldsOf(obj.getClass(), baseClass);
+    long fingerprint[] = new long[fields.size()];
+    for ( int k = 0 ; k < fingerprint.length ; k++ ) {
+      fingerprint[k] = fingerprint(get(fields.get(k), obj), 0,
+                                   new IdentityHashMap<Object,Boolean>());
+    }
+
+    long oldFingerprint[] = mFingerprints.put(obj, fingerprint);
+    Long oldHash = mHashes.put(obj, hash);
+    if ( oldFingerprint == null || oldHash.longValue() != hash ) return;
+    for ( int k = 0 ; k < fingerprint.length ; k++ ) {
+      if ( fingerprint[k] != oldFingerprint[k] ) {
+        Field field = fields.get(k);
+        problem(field.getDeclaringClass().getSimpleName() + "."
+                + field.getName() + " changed but the hash did not");
+      }
+    }
+
+  } // checkFields()
+
+  // replay a quest from a snapshot, expecting the same hashes
+  private void checkSnapshot(int questNum, int numTicks, long seed) {
+
+    KeyMonitorBits keys = new KeyMonitorBits();
+    HeadlessRunner runner = new HeadlessRunner(questNum, seed, keys);
+    runner.setDrawInterval(0);
+    GameManager game = runner.gameManager();
+
+    Random random = new Random(seed);
+    int keyBits[] = new int[numTicks];
+    long hashes[] = new long[numTicks];
+    HashSet<Long> distinct = new HashSet<Long>();
+    GameSnapshot snapshot = null;
+    final int snapshotTick = numTicks/2;
+    int bits = 0;
+    for ( int k = 0 ; k < numTicks ; k++ ) {
+      if ( k == snapshotTick ) snapshot = new GameSnapshot(game);
+      if ( random.nextInt(8) == 0 ) bits = random.nextInt(KeyMonitorBits.ALL);
+      keys.set(bits & ~KeyMonitorBits.ESCAPE);
+      keyBits[k] = keys.bits();
+      runner.run(1);
+      hashes[k] = game.stateHash();
+      distinct.add(hashes[k]);
+    }
+    if ( distinct.size() < numTicks/10 ) {
+      problem("Quest " + questNum + " has too few distinct hashes");
+    }
+
+    snapshot.restore(game);
+    for ( int k = snapshotTick ; k < numTicks ; k++ ) {
+      keys.set(keyBits[k]);
+      runner.run(1);
+      if ( game.stateHash() != hashes[k] ) {
+        problem("Quest " + questNum + " hashes differ after restoring "
+                + "a snapshot");
+      }
+    }
+
+  } // checkSnapshot()
+
+  // a number that changes whenever a value does
+  // (Sprites and Rooms only count as being there or not, since they are
+  // hashed by themselves; images, random numbers and the like don't count)
+  private static long fingerprint(Object value, int depth,
+                                  IdentityHashMap<Object,Boolean> seen) {
+
+    if ( value == null ) return 0;
+    if ( value instanceof Float ) {
+      return Float.floatToIntBits((Float)value);
+    }
+    if ( value instanceof Number || value instanceof Boolean ||
+         value instanceof Character || value instanceof String ) {
+      return value.hashCode();
+    }
+    if ( value instanceof Enum ) return ((Enum<?>)value).ordinal() + 1;
+    if ( isReference(value.getClass()) ) return 1;
+    if ( value instanceof EgaImage || value instanceof RandomStream ||
+         value instanceof Story || value instanceof GameContext ||
+         value instanceof SpriteManager ) return 2;
+
+    if ( depth >= kMaxDepth || seen.containsKey(value) ) return 3;
+    seen.put(value, true);
+
+    long result = 17;
+    if ( value.getClass().isArray() ) {
+      final int length = java.lang.reflect.Array.getLength(value);
+      for ( int k = 0 ; k < length ; k++ ) {
+        Object element = java.lang.reflect.Array.get(value, k);
+        result = 31*result + fingerprint(element, depth+1, seen);
+      }
+    } else if ( value instanceof Collection ) {
+      for ( Object element : (Collection<?>)value ) {
+        result = 31*result + fingerprint(element, depth+1, seen);
+      }
+    } else if ( value.getClass().getName().startsWith("com.dishmoth.") ) {
+      for ( Field field : fieldsOf(value.getClass(), Object.class) ) {
+        result = 31*result + fingerprint(get(field, value), depth+1, seen);
+      }
+    } else {
+      return 4;
+    }
+    return result;
+
+  } // fingerprint()
+
+  // whether a class is one whose objects are hashed by themselves
+  private static boolean isReference(Class<?> cls) {
+
+    return ( Sprite.class.isAssignableFrom(cls) ||
+             Room.class.isAssignableFrom(cls) ||
+             Obstacle.class.isAssignableFrom(cls) );
+
+  } // isReference()
+
+  // whether a field is part of the state that should be hashed
+  private static boolean isChecked(Field field) {
+
+    if ( Modifier.isStatic(field.getModifiers()) ) return false;
+    if ( field.isSynthetic() ) return false;
+
+    final String name = field.getDeclaringClass().getSimpleName() + "."
+                        + field.getName();
+    if ( Arrays.asList(kExcludedFields).contains(name) ) return false;
+
+    Type type = field.getGenericType();
+    if ( type instanceof ParameterizedType &&
+         Collection.class.isAssignableFrom(field.getType()) ) {
+      Type arg = ((ParameterizedType)type).getActualTypeArguments()[0];
+      if ( arg instanceof Class && isReference((Class<?>)arg) ) return false;
+    }
+    return true;
+
+  } // isChecked()
+
+  // the checked fields of a class, up to (but not including) a base class
+  private static ArrayList<Field> fieldsOf(Class<?> cls, Class<?> base) {
+
+    ArrayList<Field> fields = new ArrayList<Field>();
+    for ( Class<?> c = cls ; c != null && c != base ; c = c.getSuperclass() ) {
+      for ( Field field : c.getDeclaredFields() ) {
+        if ( isChecked(field) ) {
+          field.setAccessible(true);
+          fields.add(field);
+        }
+      }
+    }
+    return fields;
+
+  } // fieldsOf()
+
+  // the value of a field
+  private static Object get(Field field, Object obj) {
+
+    try {
+      return field.get(obj);
+    } catch ( IllegalAccessException ex ) {
+      throw new RuntimeException(ex);
+    }
+
+  } // get()
+
+  // the value of a named field (which may not be public)
+  private static Object fieldValue(Object obj, Class<?> cls, String name) {
+
+    try {
+      Field field = cls.getDeclaredField(name);
+      field.setAccessible(true);
+      return field.get(obj);
+    } catch ( NoSuchFieldException ex ) {
+      throw new RuntimeException(ex);
+    } catch ( IllegalAccessException ex ) {
+      throw new RuntimeException(ex);
+    }
+
+  } // fieldValue()
+
+  // all of the classes in the game and rooms packages
+  private static ArrayList<Class<?>> gameClasses() throws IOException {
+
+    File source;
+    try {
+      source = new File(Sprite.class.getProtectionDomain().getCodeSource()
+                                    .getLocation().toURI());
+    } catch ( URISyntaxException ex ) {
+      throw new IOException(ex);
+    }
+
+    ArrayList<String> names = new ArrayList<String>();
+    final String packages[] = { "com/dishmoth/miniquests/game/",
+                                "com/dishmoth/miniquests/rooms/" };
+    if ( source.isDirectory() ) {
+      for ( String pkg : packages ) {
+        String files[] = new File(source, pkg).list();
+        if ( files == null ) continue;
+        for ( String file : files ) names.add(pkg + file);
+      }
+    } else {
+      JarFile jar = new JarFile(source);
+      try {
+        for ( Enumeration<JarEntry> en = jar.entries() ;
+              en.hasMoreElements() ; ) {
+          String name = en.nextElement().getName();
+          for ( String pkg : packages ) {
+            if ( name.startsWith(pkg) &&
+                 name.indexOf('/', pkg.length()) == -1 ) names.add(name);
+          }
+        }
+      } finally {
+        jar.close();
+      }
+    }
+
+    ArrayList<Class<?>> classes = new ArrayList<Class<?>>();
+    for ( String name : names ) {
+      if ( !name.endsWith(".class") ) continue;
+      String className = name.substring(0, name.length()-6).replace('/', '.');
+      try {
+        classes.add(Class.forName(className, false,
+                                  Sprite.class.getClassLoader()));
+      } catch ( ClassNotFoundException ex ) {
+        throw new IOException(ex);
+      }
+    }
+    return classes;
+
+  } // gameClasses()
+
+} // class StateHashCheck
@@ -0,0 +1,751 @@
+/*
+ *  StateSerializer.java
+ *  Copyright (c) 2017 Simon Hern
+ *  Contact: dishmoth@yahoo.co.uk, dishmoth.com, github.com/dishmoth
+ */
+
+package com.dishmoth.miniquests;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import com.dishmoth.miniquests.game.EnvBits;
+import com.dishmoth.miniquests.game.Env;
+import com.dishmoth.miniquests.game.KeyMonitor;
+import com.dishmoth.miniquests.game.Resources;
+import com.dishmoth.miniquests.game.Sounds;
+
+// turns game objects (and everything they refer to) into bytes and back,
+// treating them in the same way as StateCopier does: objects reachable from
+// static fields are written as the route to them from the static field,
+// and platform objects (key monitor, sounds, etc.) just as which kind they
+// are, since whatever reads the bytes will have its own
+// (layout, compressed with Deflater:
+//   version, number of classes, then each class's name and a hash of its
+//   fields (so that bytes from different code are noticed)
+//   number of objects, then each object's class (and length for arrays and
+//   lists), then the contents of each object in turn)
+public class StateSerializer {
+
+  // changes whenever the layout changes
+  private static final int kVersion = 1;
+
+  // how a reference is written (after which come the details)
+  private static final int kRefNull     = 0,
+                           kRefPlatform = 1,
+                           kRefShared   = 2,
+                           kRefValue    = 3,
+                           kRefObject   = 4; // plus the object's index
+
+  // kinds of immutable value
+  private static final int kString    = 0,
+                           kInteger   = 1,
+                           kLong      = 2,
+                           kFloat     = 3,
+                           kDouble    = 4,
+                           kShort     = 5,
+                           kByte      = 6,
+                           kBoolean   = 7,
+                           kCharacter = 8,
+                           kEnum      = 9,
+                           kClass     = 10;
+
+  // kinds of platform object
+  private static final int kEnvBits    = 0,
+                           kKeyMonitor = 1,
+                           kSounds     = 2,
+                           kResources  = 3,
+                           kOther      = 4;
+
+  // largest number of classes or objects that will be read
+  private static final int kMaxCount = 1 << 24;
+
+  // the route to a shared object: a static field, then a series of steps
+  // (array or list indices, or field numbers, see StateCopier.fieldsOf())
+  private static class Route {
+    Field mRoot;
+    int   mSteps[];
+  } // class StateSerializer.Route
+
+  // routes to all of the shared objects, and the version of the shared
+  // objects that they were worked out for (see StateCopier.sharedVersion())
+  private static IdentityHashMap<Object,Route> kRoutes        = null;
+  private static int                           kRoutesVersion = -1;
+
+  // whether shared objects are written in full (rather than as routes)
+  private final boolean mCopyShared;
+
+  // objects written (or read) so far, and their indices (when writing)
+  private ArrayList<Object>               mObjects;
+  private IdentityHashMap<Object,Integer> mIndices;
+
+  // classes of the objects, and their indices (when writing)
+  private ArrayList<Class<?>>               mClasses;
+  private IdentityHashMap<Class<?>,Integer> mClassIndices;
+
+  // constructor
+  private StateSerializer(boolean copyShared) {
+
+    mCopyShared = copyShared;
+    mObjects = new ArrayList<Object>();
+    mIndices = new IdentityHashMap<Object,Integer>();
+    mClasses = new ArrayList<Class<?>>();
+    mClassIndices = new IdentityHashMap<Class<?>,Integer>();
+
+  } // constructor
+
+  // an object and everything it refers to, as bytes (shared objects are
+  // written as routes, so must be the same when the bytes are read)
+  public static byte[] write(Object root) {
+
+    StateCopier.refreshShared();
+    return new StateSerializer(false).writeRoot(root);
+
+  } // write()
+
+  // an object and everything it refers to, as bytes (including any shared
+  // objects, so the bytes can be read into a program that lacks them)
+  public static byte[] writeAll(Object root) {
+
+    return new StateSerializer(true).writeRoot(root);
+
+  } // writeAll()
+
+  // the objects from write() or writeAll()
+  public static Object read(byte bytes[]) throws IOException {
+
+    return new StateSerializer(false).readRoot(bytes);
+
+  } // read()
+
+  // the current values of the static fields that can change (lazily created
+  // images, etc.) as bytes
+  public static byte[] writeStatics() {
+
+    ArrayList<Object> entries = new ArrayList<Object>();
+    for ( Field field : StateCopier.changeableStatics() ) {
+      final Object value = StateCopier.getStatic(field);
+      if ( value == null ) continue;
+      entries.add(field.getDeclaringClass().getName());
+      entries.add(field.getName());
+      entries.add(value);
+    }
+    return writeAll(entries.toArray());
+
+  } // writeStatics()
+
+  // fill in any of the static fields from writeStatics() that haven't been
+  // set yet in this program (values that have been set already are kept)
+  public static void readStatics(byte bytes[]) throws IOException {
+
+    Object entries[] = (Object[])read(bytes);
+    for ( int k = 0 ; k+2 < entries.length ; k += 3 ) {
+      final Field field = findStatic((String)entries[k],
+                                     (String)entries[k+1]);
+      if ( field == null ) continue;
+      try {
+        final Object current = field.get(null);
+        if ( current == null ) field.set(null, entries[k+2]);
+        else                   fillGaps(current, entries[k+2]);
+      } catch ( Exception ex ) {
+        throw new IOException("cannot set " + field + ": " + ex);
+      }
+    }
+    StateCopier.refreshShared();
+
+  } // readStatics()
+
+  // fill in null entries in an array (or the arrays within it)
+  private static void fillGaps(Object current, Object value) {
+
+    if ( !(current instanceof Object[]) || !(value instanceof Object[]) ) {
+      return;
+    }
+    Object a[] = (Object[])current,
+           b[] = (Object[])value;
+    if ( a.length != b.length ) return;
+    for ( int k = 0 ; k < a.length ; k++ ) {
+      if ( a[k] == null ) a[k] = b[k];
+      else                fillGaps(a[k], b[k]);
+    }
+
+  } // fillGaps()
+
+  // write everything
+  private byte[] writeRoot(Object root) {
+
+    assert( root != null );
+    addObject(root);
+    for ( int k = 0 ; k < mObjects.size() ; k++ ) {
+      addReferences(mObjects.get(k));
+    }
+
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      DataOutputStream data = new DataOutputStream(
+                                          new DeflaterOutputStream(bytes));
+      data.writeInt(kVersion);
+
+      Replay.writeVarint(data, mClasses.size());
+      for ( Class<?> cls : mClasses ) {
+        data.writeUTF(cls.getName());
+        data.writeInt(classHash(cls));
+      }
+
+      Replay.writeVarint(data, mObjects.size());
+      for ( Object obj : mObjects ) {
+        Replay.writeVarint(data, mClassIndices.get(obj.getClass()));
+        if ( obj.getClass().isArray() ) {
+          Replay.writeVarint(data, Array.getLength(obj));
+        } else if ( obj instanceof List ) {
+          Replay.writeVarint(data, ((List<?>)obj).size());
+        }
+      }
+
+      for ( Object obj : mObjects ) writeContents(data, obj);
+      data.close();
+      return bytes.toByteArray();
+    } catch ( IOException ex ) {
+      throw new IllegalStateException("Cannot write state: " + ex);
+    }
+
+  } // writeRoot()
+
+  // how a reference is written
+  private int refType(Object obj) {
+
+    if ( obj == null ) return kRefNull;
+    final Class<?> cls = obj.getClass();
+    if ( StateCopier.isImmutable(cls) ) return kRefValue;
+    if ( StateCopier.isPlatform(cls) ) return kRefPlatform;
+    if ( !mCopyShared && StateCopier.isSharedObject(obj) ) return kRefShared;
+    return kRefObject;
+
+  } // refType()
+
+  // give an object an index (if it doesn't have one already)
+  private void addObject(Object obj) {
+
+    if ( mIndices.containsKey(obj) ) return;
+
+    final Class<?> cls = obj.getClass();
+    if ( !cls.isArray() && cls != ArrayList.class && cls != LinkedList.class ) {
+      StateCopier.fieldsOf(cls);
+    }
+    if ( !mClassIndices.containsKey(cls) ) {
+      mClassIndices.put(cls, mClasses.size());
+      mClasses.add(cls);
+    }
+    mIndices.put(obj, mObjects.size());
+    mObjects.add(obj);
+
+  } // addObject()
+
+  // give indices to the objects that an object refers to
+  private void addReferences(Object obj) {
+
+    final Class<?> cls = obj.getClass();
+    if ( cls.isArray() ) {
+      if ( cls.getComponentType().isPrimitive() ) return;
+      for ( Object element : (Object[])obj ) {
+        if ( refType(element) == kRefObject ) addObject(element);
+      }
+    } else if ( obj instanceof List ) {
+      for ( Object element : (List<?>)obj ) {
+        if ( refType(element) == kRefObject ) addObject(element);
+      }
+    } else {
+      for ( Field field : StateCopier.fieldsOf(cls) ) {
+        if ( field.getType().isPrimitive() ) continue;
+        final Object value = get(field, obj);
+        if ( refType(value) == kRefObject ) addObject(value);
+      }
+    }
+
+  } // addReferences()
+
+  // write the contents of an object
+  private void writeContents(DataOutputStream data,
+                             Object obj) throws IOException {
+
+    final Class<?> cls = obj.getClass();
+
+    if ( cls.isArray() ) {
+      final Class<?> type = cls.getComponentType();
+      if      ( type == byte.class )    data.write((byte[])obj);
+      else if ( type == int.class )     for ( int v : (int[])obj )
+                                          data.writeInt(v);
+      else if ( type == boolean.class ) for ( boolean v : (boolean[])obj )
+                                          data.writeBoolean(v);
+      else if ( type == float.class )   for ( float v : (float[])obj )
+                                          data.writeFloat(v);
+      else if ( type == long.class )    for ( long v : (long[])obj )
+                                          data.writeLong(v);
+      else if ( type == double.class )  for ( double v : (double[])obj )
+                                          data.writeDouble(v);
+      else if ( type == short.class )   for ( short v : (short[])obj )
+                                          data.writeShort(v);
+      else if ( type == char.class )    for ( char v : (char[])obj )
+                                          data.writeChar(v);
+      else for ( Object v : (Object[])obj ) writeReference(data, v);
+      return;
+    }
+
+    if ( obj instanceof List ) {
+      for ( Object v : (List<?>)obj ) writeReference(data, v);
+      return;
+    }
+
+    try {
+      for ( Field field : StateCopier.fieldsOf(cls) ) {
+        final Class<?> type = field.getType();
+        if      ( type == boolean.class ) data.writeBoolean(
+                                                     field.getBoolean(obj));
+        else if ( type == byte.class )    data.writeByte(field.getByte(obj));
+        else if ( type == char.class )    data.writeChar(field.getChar(obj));
+        else if ( type == short.class )   data.writeShort(field.getShort(obj));
+        else if ( type == int.class )     data.writeInt(field.getInt(obj));
+        else if ( type == long.class )    data.writeLong(field.getLong(obj));
+        else if ( type == float.class )   data.writeFloat(field.getFloat(obj));
+        else if ( type == double.class )  data.writeDouble(
+                                                      field.getDouble(obj));
+        else writeReference(data, field.get(obj));
+      }
+    } catch ( IllegalAccessException ex ) {
+      throw new IllegalStateException("Cannot read " + cls + ": " + ex);
+    }
+
+  } // writeContents()
+
+  // write a reference to an object
+  private void writeReference(DataOutputStream data,
+                              Object obj) throws IOException {
+
+    final int type = refType(obj);
+    if ( type == kRefObject ) {
+      Replay.writeVarint(data, kRefObject + mIndices.get(obj));
+      return;
+    }
+
+    Replay.writeVarint(data, type);
+    if ( type == kRefValue ) {
+      writeValue(data, obj);
+    } else if ( type == kRefPlatform ) {
+      data.writeByte( (obj instanceof EnvBits)    ? kEnvBits
+                    : (obj instanceof KeyMonitor) ? kKeyMonitor
+                    : (obj instanceof Sounds)     ? kSounds
+                    : (obj instanceof Resources)  ? kResources
+                                                  : kOther );
+    } else if ( type == kRefShared ) {
+      Route route = routeTo(obj);
+      data.writeUTF(route.mRoot.getDeclaringClass().getName());
+      data.writeUTF(route.mRoot.getName());
+      Replay.writeVarint(data, route.mSteps.length);
+      for ( int step : route.mSteps ) Replay.writeVarint(data, step);
+    }
+
+  } // writeReference()
+
+  // write an immutable value (string, number, etc.)
+  private static void writeValue(DataOutputStream data,
+                                 Object obj) throws IOException {
+
+    if ( obj instanceof String ) {
+      data.writeByte(kString);
+      data.writeUTF((String)obj);
+    } else if ( obj instanceof Integer ) {
+      data.writeByte(kInteger);
+      data.writeInt((Integer)obj);
+    } else if ( obj instanceof Long ) {
+      data.writeByte(kLong);
+      data.writeLong((Long)obj);
+    } else if ( obj instanceof Float ) {
+      data.writeByte(kFloat);
+      data.writeFloat((Float)obj);
+    } else if ( obj instanceof Double ) {
+      data.writeByte(kDouble);
+      data.writeDouble((Double)obj);
+    } else if ( obj instanceof Short ) {
+      data.writeByte(kShort);
+      data.writeShort((Short)obj);
+    } else if ( obj instanceof Byte ) {
+      data.writeByte(kByte);
+      data.writeByte((Byte)obj);
+    } else if ( obj instanceof Boolean ) {
+      data.writeByte(kBoolean);
+      data.writeBoolean((Boolean)obj);
+    } else if ( obj instanceof Character ) {
+      data.writeByte(kCharacter);
+      data.writeChar((Character)obj);
+    } else if ( obj instanceof Enum ) {
+      data.writeByte(kEnum);
+      data.writeUTF(((Enum<?>)obj).getDeclaringClass().getName());
+      data.writeUTF(((Enum<?>)obj).name());
+    } else if ( obj instanceof Class ) {
+      data.writeByte(kClass);
+      data.writeUTF(((Class<?>)obj).getName());
+    } else {
+      throw new IllegalArgumentException("Cannot write " + obj.getClass());
+    }
+
+  } // writeValue()
+
+  // read everything
+  private Object readRoot(byte bytes[]) throws IOException {
+
+    DataInputStream data = new DataInputStream(
+                 new InflaterInputStream(new ByteArrayInputStream(bytes)));
+    if ( data.readInt() != kVersion ) {
+      throw new IOException("unsupported state version");
+    }
+
+    final int numClasses = readCount(data);
+    for ( int k = 0 ; k < numClasses ; k++ ) {
+      final String name = data.readUTF();
+      final int hash = data.readInt();
+      final Class<?> cls = findClass(name);
+      if ( classHash(cls) != hash ) {
+        throw new IOException("class " + name + " has changed");
+      }
+      mClasses.add(cls);
+    }
+
+    final int numObjects = readCount(data);
+    if ( numObjects == 0 ) throw new IOException("no objects in state");
+    int sizes[] = new int[numObjects];
+    for ( int k = 0 ; k < numObjects ; k++ ) {
+      final int index = Replay.readVarint(data);
+      if ( index < 0 || index >= numClasses ) {
+        throw new IOException("bad class in state");
+      }
+      final Class<?> cls = mClasses.get(index);
+      if ( cls.isArray() ) {
+        mObjects.add(Array.newInstance(cls.getComponentType(),
+                                       readCount(data)));
+      } else if ( cls == ArrayList.class ) {
+        sizes[k] = readCount(data);
+        mObjects.add(new ArrayList<Object>(sizes[k]));
+      } else if ( cls == LinkedList.class ) {
+        sizes[k] = readCount(data);
+        mObjects.add(new LinkedList<Object>());
+      } else {
+        try {
+          mObjects.add(StateCopier.allocate(cls));
+        } catch ( RuntimeException ex ) {
+          throw new IOException("cannot create " + cls.getName() + ": " + ex);
+        }
+      }
+    }
+
+    try {
+      for ( int k = 0 ; k < numObjects ; k++ ) {
+        readContents(data, mObjects.get(k), sizes[k]);
+      }
+    } catch ( RuntimeException ex ) {
+      throw new IOException("bad state: " + ex);
+    }
+    return mObjects.get(0);
+
+  } // readRoot()
+
+  // read the contents of an object (size is only needed for lists)
+  @SuppressWarnings("unchecked")
+  private void readContents(DataInputStream data,
+                            Object obj, int size) throws IOException {
+
+    final Class<?> cls = obj.getClass();
+
+    if ( cls.isArray() ) {
+      final Class<?> type = cls.getComponentType();
+      final int length = Array.getLength(obj);
+      if ( type == byte.class ) {
+        data.readFully((byte[])obj);
+      } else if ( type == int.class ) {
+        int a[] = (int[])obj;
+        for ( int k = 0 ; k < length ; k++ ) a[k] = data.readInt();
+      } else if ( type == boolean.class ) {
+        boolean a[] = (boolean[])obj;
+        for ( int k = 0 ; k < length ; k++ ) a[k] = data.readBoolean();
+      } else if ( type == float.class ) {
+        float a[] = (float[])obj;
+        for ( int k = 0 ; k < length ; k++ ) a[k] = data.readFloat();
+      } else if ( type == long.class ) {
+        long a[] = (long[])obj;
+        for ( int k = 0 ; k < length ; k++ ) a[k] = data.readLong();
+      } else if ( type == double.class ) {
+        double a[] = (double[])obj;
+        for ( int k = 0 ; k < length ; k++ ) a[k] = data.readDouble();
+      } else if ( type == short.class ) {
+        short a[] = (short[])obj;
+        for ( int k = 0 ; k < length ; k++ ) a[k] = data.readShort();
+      } else if ( type == char.class ) {
+        char a[] = (char[])obj;
+        for ( int k = 0 ; k < length ; k++ ) a[k] = data.readChar();
+      } else {
+        Object a[] = (Object[])obj;
+        for ( int k = 0 ; k < length ; k++ ) a[k] = readReference(data);
+      }
+      return;
+    }
+
+    if ( obj instanceof List ) {
+      List<Object> list = (List<Object>)obj;
+      for ( int k = 0 ; k < size ; k++ ) list.add(readReference(data));
+      return;
+    }
+
+    try {
+      for ( Field field : StateCopier.fieldsOf(cls) ) {
+        final Class<?> type = field.getType();
+        if      ( type == boolean.class ) field.setBoolean(obj,
+                                                        data.readBoolean());
+        else if ( type == byte.class )    field.setByte(obj, data.readByte());
+        else if ( type == char.class )    field.setChar(obj, data.readChar());
+        else if ( type == short.class )   field.setShort(obj,
+                                                         data.readShort());
+        else if ( type == int.class )     field.setInt(obj, data.readInt());
+        else if ( type == long.class )    field.setLong(obj, data.readLong());
+        else if ( type == float.class )   field.setFloat(obj,
+                                                         data.readFloat());
+        else if ( type == double.class )  field.setDouble(obj,
+                                                          data.readDouble());
+        else field.set(obj, readReference(data));
+      }
+    } catch ( IllegalAccessException ex ) {
+      throw new IOException("cannot set " + cls.getName() + ": " + ex);
+    }
+
+  } // readContents()
+
+  // read a reference to an object
+  private Object readReference(DataInputStream data) throws IOException {
+
+    final int type = Replay.readVarint(data);
+    if ( type >= kRefObject ) {
+      final int index = type - kRefObject;
+      if ( index >= mObjects.size() ) throw new IOException("bad reference");
+      return mObjects.get(index);
+    }
+
+    switch ( type ) {
+      case kRefNull: {
+        return null;
+      }
+      case kRefValue: {
+        return readValue(data);
+      }
+      case kRefPlatform: {
+        switch ( data.readUnsignedByte() ) {
+          case kEnvBits:    return Env.defaultContext().envBits();
+          case kKeyMonitor: return Env.defaultContext().keys();
+          case kSounds:     return Env.defaultContext().sounds();
+          case kResources:  return Env.resources();
+          default:          return null;
+        }
+      }
+      case kRefShared: {
+        final String className = data.readUTF(),
+                     fieldName = data.readUTF();
+        final Field root = findStatic(className, fieldName);
+        if ( root == null ) {
+          throw new IOException("missing " + className + "." + fieldName);
+        }
+        Object obj = get(root, null);
+        final int numSteps = readCount(data);
+        for ( int k = 0 ; k < numSteps ; k++ ) {
+          final int step = Replay.readVarint(data);
+          if ( obj == null ) continue;
+          if ( obj instanceof Object[] ) {
+            obj = ((Object[])obj)[step];
+          } else if ( obj instanceof List ) {
+            obj = ((List<?>)obj).get(step);
+          } else {
+            obj = get(StateCopier.fieldsOf(obj.getClass())[step], obj);
+          }
+        }
+        if ( obj == null ) {
+          throw new IOException("missing shared object in " + className
+                                + "." + fieldName);
+        }
+        return obj;
+      }
+    }
+    throw new IOException("bad reference");
+
+  } // readReference()
+
+  // read an immutable value (string, number, etc.)
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  private static Object readValue(DataInputStream data) throws IOException {
+
+    switch ( data.readUnsignedByte() ) {
+      case kString:    return data.readUTF();
+      case kInteger:   return data.readInt();
+      case kLong:      return data.readLong();
+      case kFloat:     return data.readFloat();
+      case kDouble:    return data.readDouble();
+      case kShort:     return data.readShort();
+      case kByte:      return data.readByte();
+      case kBoolean:   return data.readBoolean();
+      case kCharacter: return data.readChar();
+      case kEnum: {
+        final Class cls = findClass(data.readUTF());
+        final String name = data.readUTF();
+        if ( !cls.isEnum() ) throw new IOException("bad enum in state");
+        try {
+          return Enum.valueOf(cls, name);
+        } catch ( IllegalArgumentException ex ) {
+          throw new IOException("unknown value " + name + " in "
+                                + cls.getName());
+        }
+      }
+      case kClass: {
+        return findClass(data.readUTF());
+      }
+    }
+    throw new IOException("bad value in state");
+
+  } // readValue()
+
+  // read the number of things to follow
+  private static int readCount(DataInputStream data) throws IOException {
+
+    final int count = Replay.readVarint(data);
+    if ( count < 0 || count > kMaxCount ) {
+      throw new IOException("bad count in state");
+    }
+    return count;
+
+  } // readCount()
+
+  // the route from a static field to a shared object
+  private static synchronized Route routeTo(Object obj) {
+
+    if ( kRoutes == null || kRoutesVersion != StateCopier.sharedVersion() ) {
+      kRoutesVersion = StateCopier.sharedVersion();
+      kRoutes = findRoutes();
+    }
+    Route route = kRoutes.get(obj);
+    if ( route == null ) {
+      throw new IllegalStateException("No route to shared " + obj.getClass());
+    }
+    return route;
+
+  } // routeTo()
+
+  // the shortest routes to all of the shared objects
+  private static IdentityHashMap<Object,Route> findRoutes() {
+
+    IdentityHashMap<Object,Route> routes = new IdentityHashMap<Object,Route>();
+    ArrayList<Object> queue = new ArrayList<Object>();
+
+    for ( Field root : StateCopier.sharedRoots() ) {
+      final Object value = StateCopier.getStatic(root);
+      if ( value == null || routes.containsKey(value) ||
+           !StateCopier.isSharedObject(value) ) continue;
+      Route route = new Route();
+      route.mRoot = root;
+      route.mSteps = new int[0];
+      routes.put(value, route);
+      queue.add(value);
+    }
+
+    for ( int index = 0 ; index < queue.size() ; index++ ) {
+      final Object obj = queue.get(index);
+      final Route route = routes.get(obj);
+      final Class<?> cls = obj.getClass();
+      Object children[];
+      if ( cls.isArray() ) {
+        if ( cls.getComponentType().isPrimitive() ) continue;
+        children = (Object[])obj;
+      } else if ( obj instanceof List ) {
+        children = ((List<?>)obj).toArray();
+      } else {
+        Field fields[] = StateCopier.fieldsOf(cls);
+        children = new Object[fields.length];
+        for ( int k = 0 ; k < fields.length ; k++ ) {
+          if ( !fields[k].getType().isPrimitive() ) {
+            children[k] = get(fields[k], obj);
+          }
+        }
+      }
+      for ( int k = 0 ; k < children.length ; k++ ) {
+        final Object child = children[k];
+        if ( child == null || routes.containsKey(child) ||
+             !StateCopier.isSharedObject(child) ) continue;
+        Route childRoute = new Route();
+        childRoute.mRoot = route.mRoot;
+        childRoute.mSteps = new int[route.mSteps.length + 1];
+        System.arraycopy(route.mSteps, 0, childRoute.mSteps, 0,
+                         route.mSteps.length);
+        childRoute.mSteps[route.mSteps.length] = k;
+        routes.put(child, childRoute);
+        queue.add(child);
+      }
+    }
+    return routes;
+
+  } // findRoutes()
+
+  // a hash of the names and types of a class's fields
+  private static int classHash(Class<?> cls) {
+
+    if ( cls.isArray() || cls == ArrayList.class || cls == LinkedList.class ) {
+      return 0;
+    }
+    int hash = 0;
+    for ( Field field : StateCopier.fieldsOf(cls) ) {
+      hash = 31*hash + field.getName().hashCode();
+      hash = 31*hash + field.getType().getName().hashCode();
+    }
+    return hash;
+
+  } // classHash()
+
+  // look up a class by name
+  private static Class<?> findClass(String name) throws IOException {
+
+    try {
+      return Class.forName(name);
+    } catch ( ClassNotFoundException ex ) {
+      throw new IOException("unknown class " + name);
+    }
+
+  } // findClass()
+
+  // look up a static field by name (or null if there's no such field)
+  private static Field findStatic(String className, String fieldName) {
+
+    try {
+      Field field = Class.forName(className).getDeclaredField(fieldName);
+      field.setAccessible(true);
+      return field;
+    } catch ( Exception ex ) {
+      return null;
+    }
+
+  } // findStatic()
+
+  // read a field (which has already been made accessible)
+  private static Object get(Field field, Object obj) {
+
+    try {
+      return field.get(obj);
+    } catch ( IllegalAccessException ex ) {
+      throw new IllegalStateException("Cannot read " + field + ": " + ex);
+    }
+
+  } // get()
+
+} // class StateSerializer
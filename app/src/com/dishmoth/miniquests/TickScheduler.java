@@ -0,0 +1,298 @@
+/*
+ *  TickScheduler.java
+ *  Copyright (c) 2017 Simon Hern
+ *  Contact: dishmoth@yahoo.co.uk, dishmoth.com, github.com/dishmoth
+ */
+
+package com.dishmoth.miniquests;
+
+import java.util.ArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import com.dishmoth.miniquests.game.EgaCanvas;
+import com.dishmoth.miniquests.game.Env;
+import com.dishmoth.miniquests.game.GameManager;
+
+// advances many games at the normal frame rate using a small pool of threads
+// (each game keeps its own deadlines; threads sleep rather than spin between
+// ticks, so one machine can host hundreds of games)
+public class TickScheduler {
+
+  // main method (runs a number of games in real time, then reports on them)
+  // arguments: [number of games] [number of seconds] [number of threads]
+  public static void main(String args[]) throws InterruptedException {
+
+    final int numGames   = ( args.length > 0 ) ? Integer.parseInt(args[0])
+                                               : 100;
+    final int numSeconds = ( args.length > 1 ) ? Integer.parseInt(args[1])
+                                               : 10;
+    final int numThreads = ( args.length > 2 ) ? Integer.parseInt(args[2])
+                                               : defaultNumThreads();
+
+    HeadlessRunner.initializeEnv(false);
+
+    TickScheduler scheduler = new TickScheduler(numThreads);
+    for ( int k = 0 ; k < numGames ; k++ ) {
+      HeadlessRunner runner = new HeadlessRunner(0, k, new KeyMonitorNull());
+      scheduler.add(runner.gameManager(), new EgaCanvas(Env.screenWidth(),
+                                                        Env.screenHeight()),
+                    null);
+    }
+
+    Thread.sleep(numSeconds*1000L);
+    scheduler.shutdown();
+
+    System.out.print(scheduler.report());
+
+  } // main()
+
+  // something that wants to see each new frame of a game
+  // (called on a scheduler thread, so should return quickly)
+  public interface FrameListener {
+    public void frameReady(Session session, EgaCanvas screen);
+  } // interface TickScheduler.FrameListener
+
+  // time between ticks
+  static private final long kNanosPerTick = Math.round(1.0e9
+                                                       /Env.ticksPerSecond());
+
+  // a late game may advance several ticks at once to catch up, but if it
+  // falls further behind than this then the extra ticks are dropped
+  static private final int kMaxCatchUpTicks = 4;
+
+  // one game being advanced by the scheduler
+  public class Session implements Runnable {
+
+    // the game and where it is drawn (screen may be null for no drawing)
+    private final GameManager   mGameManager;
+    private final EgaCanvas     mScreen;
+    private final FrameListener mListener;
+
+    // when the next tick is due (system nanos)
+    private long mDeadline;
+
+    // the pending run of this session (or null once removed)
+    private ScheduledFuture<?> mFuture;
+    private boolean            mRemoved;
+
+    // statistics (ticks advanced, ticks that finished after the following
+    // deadline, ticks dropped when too far behind, and lateness of runs)
+    private long mNumTicks,
+                 mNumRuns,
+                 mNumOverruns,
+                 mNumDropped,
+                 mTotalLagNanos,
+                 mMaxLagNanos;
+
+    // constructor
+    private Session(GameManager gameManager, EgaCanvas screen,
+                    FrameListener listener) {
+
+      mGameManager = gameManager;
+      mScreen      = screen;
+      mListener    = listener;
+      mDeadline    = System.nanoTime();
+      mFuture      = null;
+      mRemoved     = false;
+
+    } // constructor
+
+    // the game being advanced
+    public GameManager gameManager() { return mGameManager; }
+
+    // the screen the game is drawn to (may be null)
+    public EgaCanvas screen() { return mScreen; }
+
+    // advance the game by as many ticks as are due, then reschedule
+    public void run() {
+
+      final long startNanos = System.nanoTime();
+      final long lag = startNanos - mDeadline;
+
+      int numDue = 1 + (int)Math.max(0, lag/kNanosPerTick);
+      int numDropped = 0;
+      if ( numDue > kMaxCatchUpTicks ) {
+        numDropped = numDue - kMaxCatchUpTicks;
+        numDue = kMaxCatchUpTicks;
+        mDeadline += numDropped*kNanosPerTick;
+      }
+
+      try {
+        for ( int k = 0 ; k < numDue ; k++ ) mGameManager.advance();
+        if ( mScreen != null ) {
+          mScreen.clear();
+          mGameManager.draw(mScreen);
+          mScreen.publish();
+          if ( mListener != null ) mListener.frameReady(this, mScreen);
+        }
+      } catch ( RuntimeException ex ) {
+        Env.debug("Session stopped: " + ex);
+        remove(this);
+        return;
+      }
+      mDeadline += numDue*kNanosPerTick;
+
+      final long endNanos = System.nanoTime();
+      synchronized ( this ) {
+        mNumTicks += numDue;
+        mNumRuns += 1;
+        mNumDropped += numDropped;
+        if ( endNanos - mDeadline > 0 ) mNumOverruns += 1;
+        if ( lag > 0 ) {
+          mTotalLagNanos += lag;
+          mMaxLagNanos = Math.max(mMaxLagNanos, lag);
+        }
+        if ( !mRemoved ) schedule(this, mDeadline - endNanos);
+      }
+
+    } // Runnable.run()
+
+    // text output
+    public synchronized String report() {
+
+      final double meanLag = ( mNumRuns > 0 ) ? mTotalLagNanos*1.0e-6/mNumRuns
+                                              : 0.0;
+      return new String(mNumTicks
+                        + " ticks, "
+                        + mNumOverruns
+                        + " overruns, "
+                        + mNumDropped
+                        + " dropped, lag "
+                        + String.format("%.2f", meanLag)
+                        + " ms mean "
+                        + String.format("%.2f", mMaxLagNanos*1.0e-6)
+                        + " ms max");
+
+    } // report()
+
+  } // class TickScheduler.Session
+
+  // the threads that the games run on
+  private ScheduledThreadPoolExecutor mExecutor;
+
+  // the games being run
+  private ArrayList<Session> mSessions;
+
+  // number of threads to use if not specified (one per core)
+  public static int defaultNumThreads() {
+
+    return Runtime.getRuntime().availableProcessors();
+
+  } // defaultNumThreads()
+
+  // constructor
+  public TickScheduler(int numThreads) {
+
+    assert( numThreads > 0 );
+
+    HeadlessRunner.initializeEnv(false);
+
+    mExecutor = new ScheduledThreadPoolExecutor(numThreads,
+      new ThreadFactory() {
+        private int mCount = 0;
+        public synchronized Thread newThread(Runnable r) {
+          Thread thread = new Thread(r, "TickScheduler-" + (mCount++));
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+    mExecutor.setRemoveOnCancelPolicy(true);
+
+    mSessions = new ArrayList<Session>();
+
+  } // constructor
+
+  // start advancing a game (screen may be null if frames aren't needed,
+  // listener may be null if nobody needs telling about new frames)
+  // (the game should have its own context, see HeadlessRunner)
+  public synchronized Session add(GameManager   gameManager,
+                                  EgaCanvas     screen,
+                                  FrameListener listener) {
+
+    assert( gameManager != null );
+
+    Session session = new Session(gameManager, screen, listener);
+    mSessions.add(session);
+    synchronized ( session ) {
+      schedule(session, 0);
+    }
+    return session;
+
+  } // add()
+
+  // stop advancing a game
+  public synchronized void remove(Session session) {
+
+    synchronized ( session ) {
+      session.mRemoved = true;
+      if ( session.mFuture != null ) session.mFuture.cancel(false);
+      session.mFuture = null;
+    }
+    mSessions.remove(session);
+
+  } // remove()
+
+  // number of games being run
+  public synchronized int numSessions() { return mSessions.size(); }
+
+  // queue a session's next run (the session should be locked)
+  private void schedule(Session session, long delayNanos) {
+
+    try {
+      session.mFuture = mExecutor.schedule(session, Math.max(0, delayNanos),
+                                           TimeUnit.NANOSECONDS);
+    } catch ( RejectedExecutionException ex ) {
+      session.mRemoved = true;
+      session.mFuture = null;
+    }
+
+  } // schedule()
+
+  // stop all the games and wait for the threads to finish
+  public void shutdown() throws InterruptedException {
+
+    synchronized ( this ) {
+      for ( Session session : mSessions ) {
+        synchronized ( session ) {
+          session.mRemoved = true;
+        }
+      }
+    }
+    mExecutor.shutdownNow();
+    mExecutor.awaitTermination(10, TimeUnit.SECONDS);
+
+  } // shutdown()
+
+  // text output (one line per game, plus a summary)
+  public synchronized String report() {
+
+    StringBuilder text = new StringBuilder();
+    long numTicks = 0,
+         numOverruns = 0,
+         numDropped = 0,
+         maxLag = 0;
+    for ( int k = 0 ; k < mSessions.size() ; k++ ) {
+      Session session = mSessions.get(k);
+      text.append("Session " + k + ": " + session.report() + "\n");
+      synchronized ( session ) {
+        numTicks += session.mNumTicks;
+        numOverruns += session.mNumOverruns;
+        numDropped += session.mNumDropped;
+        maxLag = Math.max(maxLag, session.mMaxLagNanos);
+      }
+    }
+    text.append(mSessions.size() + " sessions on "
+                + mExecutor.getCorePoolSize() + " threads: "
+                + numTicks + " ticks, "
+                + numOverruns + " overruns, "
+                + numDropped + " dropped, max lag "
+                + String.format("%.2f", maxLag*1.0e-6) + " ms\n");
+    return text.toString();
+
+  } // report()
+
+} // class TickScheduler
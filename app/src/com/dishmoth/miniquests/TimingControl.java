@@ -6,6 +6,8 @@
 
 package com.dishmoth.miniquests;
 
+import java.util.Random;
+
 import com.dishmoth.miniquests.game.Env;
 
 
@@ -56,6 +58,9 @@ public class TimingControl {
   // time of previous tick
   private long mPrevTickNanos;
   
+  // random numbers for skipping draws (kept apart from the game's numbers)
+  private Random mRandom = new Random();
+  
   // constructor
   public TimingControl() {
     
@@ -91,9 +96,11 @@ public class TimingControl {
   } // reset()
   
   // update the timers and delay until it's time for the next frame
+  // (the frame may have advanced the game several times if fast-forwarding)
   public void tick(long    nanosAfterAdvance, 
                    long    nanosAfterDraw, 
-                   boolean tickSkipsDraw) {
+                   boolean tickSkipsDraw,
+                   int     numAdvances) {
     
     // wait
     boolean tickHasOverrun = delayUntil(nextTickFromHistory());
@@ -107,7 +114,7 @@ public class TimingControl {
       updateProgress(newTickNanos - mPrevTickNanos,
                      nanosAfterAdvance - mPrevTickNanos,
                      nanosAfterDraw - nanosAfterAdvance,
-                     tickHasOverrun, tickSkipsDraw);
+                     tickHasOverrun, tickSkipsDraw, numAdvances);
       if ( kReportProgressInterval >= 0 && newTickNanos > mNextUpdateTime ) {
         Env.debug(mLocalStats.toString());
         mLocalStats.clear();
@@ -192,7 +199,8 @@ public class TimingControl {
                   / (kTickHistoryLength-1);
     if ( meanTick <= kNanosPerTick*kAcceptableSlowdown ) return false;
     
-    mNumDrawsBeforeSkip = Env.randomInt(kMinTicksWithDraw, kMaxTicksWithDraw);
+    mNumDrawsBeforeSkip = kMinTicksWithDraw 
+                        + mRandom.nextInt(kMaxTicksWithDraw-kMinTicksWithDraw+1);
     return true;
     
   } // gameRunningSlow()
@@ -202,12 +210,13 @@ public class TimingControl {
                               long    nanosInAdvance,
                               long    nanosInDraw,
                               boolean tickHasOverrun,
-                              boolean tickSkipsDraw) {
+                              boolean tickSkipsDraw,
+                              int     numAdvances) {
     
-    mTotalStats.update(nanosInTick, nanosInAdvance, 
-                       nanosInDraw, tickHasOverrun, tickSkipsDraw);
-    mLocalStats.update(nanosInTick, nanosInAdvance, 
-                       nanosInDraw, tickHasOverrun, tickSkipsDraw);
+    mTotalStats.update(nanosInTick, nanosInAdvance, nanosInDraw, 
+                       tickHasOverrun, tickSkipsDraw, numAdvances);
+    mLocalStats.update(nanosInTick, nanosInAdvance, nanosInDraw, 
+                       tickHasOverrun, tickSkipsDraw, numAdvances);
     
   } // updateProgress()
   
@@ -13,7 +13,7 @@ class TimingStats {
   private long mNanosPerTick;
   
   // assorted counters
-  private int  mNumTicks, mNumOverruns, mNumDrawSkips;
+  private int  mNumTicks, mNumOverruns, mNumDrawSkips, mNumAdvances;
   private long mNumNanos, mNumNanosInAdvance, mNumNanosInDraw;
   private long mPeakNanos, mPeakNanosInAdvance, mPeakNanosInDraw;
   
@@ -28,20 +28,23 @@ class TimingStats {
   // reset counters
   public void clear() {
   
-    mNumTicks = mNumOverruns = mNumDrawSkips = 0;
+    mNumTicks = mNumOverruns = mNumDrawSkips = mNumAdvances = 0;
     mNumNanos = mNumNanosInAdvance = mNumNanosInDraw = 0;
     mPeakNanos = mPeakNanosInAdvance = mPeakNanosInDraw = 0;
     
   } // clear()
   
   // update timing statistics after each tick 
+  // (the tick may have advanced the game several times if fast-forwarding)
   public void update(long    nanosInTick,
                      long    nanosInAdvance,
                      long    nanosInDraw,
                      boolean tickHasOverrun,
-                     boolean tickSkippedDraw) {
+                     boolean tickSkippedDraw,
+                     int     numAdvances) {
     
     mNumTicks++;
+    mNumAdvances += numAdvances;
     
     if ( tickHasOverrun ) mNumOverruns++;
     if ( tickSkippedDraw ) mNumDrawSkips++;
@@ -82,7 +85,12 @@ class TimingStats {
                       + mNumDrawSkips
                       + " no draw ("
                       + (100*mNumDrawSkips)/numTicks
-                      + "%)");
+                      + "%)"
+                      + ( (mNumAdvances > mNumTicks)
+                          ? ", " + String.format("%.1f", 
+                                                 mNumAdvances/(float)numTicks)
+                            + " advances per frame"
+                          : "" ));
     
   } // toString()
   
@@ -6,8 +6,11 @@
 
 package com.dishmoth.miniquests;
 
+import java.nio.ByteBuffer;
+
 import com.badlogic.gdx.ApplicationAdapter;
 import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Input;
 import com.badlogic.gdx.Version;
 import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.Pixmap;
@@ -15,9 +18,11 @@ import com.badlogic.gdx.graphics.Pixmap.Format;
 import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.utils.BufferUtils;
 import com.dishmoth.miniquests.game.EgaCanvas;
 import com.dishmoth.miniquests.game.EgaTools;
 import com.dishmoth.miniquests.game.Env;
+import com.dishmoth.miniquests.game.FastForward;
 import com.dishmoth.miniquests.game.GameManager;
 import com.dishmoth.miniquests.game.MapStory;
 import com.dishmoth.miniquests.game.MenuStory;
@@ -41,6 +46,14 @@ public class MiniQuestsGame extends ApplicationAdapter {
   private SpriteBatch mScreenBatch   = null;
   private Pixmap      mScreenPixmap  = null;
   private Texture     mScreenTexture = null;
+  private FastForward mFastForward   = null;
+
+  // RGB888 bytes for the screen texture (the pixmap's own pixels, except 
+  // for HTML, where a pixmap is a canvas element and they can't be written)
+  private ByteBuffer  mScreenBytes   = null;
+
+  // workspace for converting a row of the screen (see EgaTools.writeRgb888())
+  private byte        mScreenRow[]   = null;
 
   // seconds since the last advance
   private double mTimeSince;
@@ -95,7 +108,13 @@ public class MiniQuestsGame extends ApplicationAdapter {
     mScreenPixmap = new Pixmap(MathUtils.nextPowerOfTwo(Env.screenWidth()), 
                                MathUtils.nextPowerOfTwo(Env.screenHeight()),
                                Format.RGB888);
+    mScreenBytes = ( Env.platform() == Env.Platform.HTML )
+                   ? BufferUtils.newByteBuffer(3*mScreenPixmap.getWidth()
+                                               *mScreenPixmap.getHeight())
+                   : mScreenPixmap.getPixels();
+    mScreenRow = new byte[3*Env.screenWidth()];
 
+    mFastForward = new FastForward();
     mTimeSince = 0.0;
     
   } // ApplicationListener.create()
@@ -149,10 +168,15 @@ public class MiniQuestsGame extends ApplicationAdapter {
   @Override
   public void render() {
 
+    if ( Env.debugMode() && Gdx.input.isKeyJustPressed(Input.Keys.F) ) {
+      mFastForward.cycle();
+    }
+    
     double dt = Gdx.graphics.getDeltaTime();
     dt = Math.min(dt, 0.1);
-    mTimeSince += dt;
+    mTimeSince += dt*mFastForward.ticksPerFrame();
 
+    // (when fast-forwarding, only the last of several ticks is drawn)
     boolean screenChanged = false;
     while ( mTimeSince > 1.0/Env.ticksPerSecond() ) {
       mGameManager.advance();
@@ -172,22 +196,22 @@ public class MiniQuestsGame extends ApplicationAdapter {
   } // ApplicationListener.render()
 
   // draw the game screen
+  // (only the pixels that have changed since the last frame are converted, 
+  // only the rows holding them are uploaded, and nothing is done if there 
+  // are none, unless the texture is new)
   private void drawScreenToTexture() {
 
-    int pixIndex = 0;
-    byte pixels[] = mGameScreen.pixels();
-    for ( int iy = 0 ; iy < Env.screenHeight() ; iy++ ) {
-      for ( int ix = 0 ; ix < Env.screenWidth() ; ix++ ) {
-        int col = EgaTools.EGA_PALETTE[ pixels[pixIndex++] ];
-        int r = (col >> 16) & 0xFF,
-            g = (col >>  8) & 0xFF,
-            b = (col      ) & 0xFF;
-        mScreenPixmap.setColor(r/255.0f, g/255.0f, b/255.0f, 1.0f);
-        mScreenPixmap.drawPixel(ix, iy);
-      }
-    }
+    final boolean newTexture = ( mScreenTexture == null );
+    if ( !mGameScreen.findChanges() && !newTexture ) return;
+    
+    final int y0 = mGameScreen.changedY0(),
+              y1 = mGameScreen.changedY1();
+    final int rowBytes = 3*mScreenPixmap.getWidth();
+    EgaTools.writeRgb888(mGameScreen, 
+                         mGameScreen.changedX0(), mGameScreen.changedX1(), 
+                         y0, y1, mScreenBytes, rowBytes, mScreenRow);
 
-    if ( mScreenTexture == null ) {
+    if ( newTexture ) {
       mScreenTexture = new Texture( mScreenPixmap.getWidth(), 
                                     mScreenPixmap.getHeight(),
                                     Format.RGB888 );
@@ -196,16 +220,24 @@ public class MiniQuestsGame extends ApplicationAdapter {
     if ( Env.platform() == Env.Platform.HTML ) {
       // Texture.draw() uses glTexSubImage2D(), which won't run in WebGL
       // for some reason, so we hack around it instead
+      // (the bytes are RGB888, whatever format the canvas pixmap claims)
       mScreenTexture.bind();
-      Gdx.gl.glTexImage2D(GL20.GL_TEXTURE_2D, 0, 
-                          mScreenPixmap.getGLInternalFormat(), 
+      Gdx.gl.glTexImage2D(GL20.GL_TEXTURE_2D, 0, GL20.GL_RGB, 
                           mScreenPixmap.getWidth(), mScreenPixmap.getHeight(), 
-                          0,
-                          mScreenPixmap.getGLFormat(), 
-                          mScreenPixmap.getGLType(), 
-                          mScreenPixmap.getPixels());
-    } else {
+                          0, GL20.GL_RGB, GL20.GL_UNSIGNED_BYTE, 
+                          mScreenBytes);
+    } else if ( newTexture ) {
       mScreenTexture.draw(mScreenPixmap, 0, 0);
+    } else {
+      mScreenBytes.position(y0*rowBytes);
+      mScreenTexture.bind();
+      Gdx.gl.glPixelStorei(GL20.GL_UNPACK_ALIGNMENT, 1);
+      Gdx.gl.glTexSubImage2D(GL20.GL_TEXTURE_2D, 0, 
+                             0, y0, mScreenPixmap.getWidth(), y1-y0+1,
+                             mScreenPixmap.getGLFormat(), 
+                             mScreenPixmap.getGLType(), 
+                             mScreenBytes);
+      mScreenBytes.position(0);
     }
   
   } // drawScreenToTexture()
@@ -82,6 +82,7 @@ public class AnimPicture extends Sprite {
 
     if ( mTimer == -1 ) return;
     
+    stateChanged();
     assert( mTimer > 0 );
     if ( --mTimer == 0 ) {
       mStage = (mStage+1) % mDelays.length;
@@ -93,6 +94,17 @@ public class AnimPicture extends Sprite {
     
   } // Sprite.advance()
 
+  // hash of the animation's progress (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = StateHash.start(0x416E696DL); // "Anim"
+    hash = StateHash.add(hash, mStage);
+    hash = StateHash.add(hash, mTimer);
+    return hash;
+    
+  } // Sprite.stateHash()
+  
   // display the text
   @Override
   public void draw(EgaCanvas canvas) {
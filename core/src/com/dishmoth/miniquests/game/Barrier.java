@@ -108,6 +108,7 @@ public class Barrier extends Sprite3D implements Obstacle {
     mXPos += dx;
     mYPos += dy;
     mZPos += dz;
+    stateChanged();
     
   } // shiftPos()
   
@@ -117,6 +118,7 @@ public class Barrier extends Sprite3D implements Obstacle {
     mXPos = x;
     mYPos = y;
     mZPos = z;
+    stateChanged();
     
   } // setPos()
   
@@ -135,6 +137,21 @@ public class Barrier extends Sprite3D implements Obstacle {
   // whether the position is outside of the game world
   public boolean isVoid(int x, int y, int z) { return false; }
 
+  // hash of the barrier's position (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = StateHash.start(0x42617272L); // "Barr"
+    hash = StateHash.add(hash, mXPos);
+    hash = StateHash.add(hash, mYPos);
+    hash = StateHash.add(hash, mZPos);
+    hash = StateHash.add(hash, mXSize);
+    hash = StateHash.add(hash, mYSize);
+    hash = StateHash.add(hash, mZSize);
+    return hash;
+    
+  } // Sprite.stateHash()
+  
   // nothing to do here
   @Override
   public void advance(LinkedList<Sprite> addTheseSprites,
@@ -87,6 +87,9 @@ public class BlockArray extends Sprite3D implements Obstacle {
     mYPos = y;
     mZPos = z;
 
+    imageChanged();
+    stateChanged();
+    
     if ( mBlocks == null ) {
       mXSize = mYSize = mZSize = 0;
       mImage = null;
@@ -124,6 +127,8 @@ public class BlockArray extends Sprite3D implements Obstacle {
     mXPos += dx;
     mYPos += dy;
     mZPos += dz;
+    imageChanged();
+    stateChanged();
     
   } // shiftPos()
   
@@ -133,6 +138,8 @@ public class BlockArray extends Sprite3D implements Obstacle {
     mXPos = x;
     mYPos = y;
     mZPos = z;
+    imageChanged();
+    stateChanged();
     
   } // setPos()
   
@@ -153,6 +160,7 @@ public class BlockArray extends Sprite3D implements Obstacle {
     int xPos = 2*( x - y ),
         yPos = -( x + y + z );
     colours.draw(mImage, xPos, yPos);
+    imageChanged();
     
   } // paint()
   
@@ -198,6 +206,22 @@ public class BlockArray extends Sprite3D implements Obstacle {
                       LinkedList<StoryEvent> newStoryEvents) {
   } // Sprite.advance()
 
+  // hash of the blocks' state (see StateHash; anything painted on the image
+  // follows from the state of the room that painted it)
+  @Override
+  public long stateHash() {
+    
+    long hash = StateHash.start(0x426C6F63L); // "Bloc"
+    hash = StateHash.add(hash, mXPos);
+    hash = StateHash.add(hash, mYPos);
+    hash = StateHash.add(hash, mZPos);
+    if ( mBlocks == null ) return StateHash.add(hash, -1);
+    hash = StateHash.add(hash, mBlocks.length);
+    for ( String layer[] : mBlocks ) hash = StateHash.add(hash, layer);
+    return hash;
+    
+  } // Sprite.stateHash()
+
   // construct the image of the blocks
   protected void buildImage() {
     
@@ -274,6 +298,10 @@ public class BlockArray extends Sprite3D implements Obstacle {
     
   } // buildImage()
   
+  // the blocks only change when they are rebuilt, moved or painted
+  @Override
+  public boolean isStatic() { return true; }
+  
   // display the blocks
   @Override
   public void draw(EgaCanvas canvas) {
@@ -154,6 +154,7 @@ public class BlockPattern extends BlockArray {
     if ( mStartRate != v ) {
       mStartRate = v;
       mStartTimer = 0;
+      stateChanged();
     }
     
   } // setStartRate()
@@ -164,6 +165,7 @@ public class BlockPattern extends BlockArray {
     if ( mEndRate != v ) {
       mEndRate = v;
       mEndTimer = 0;
+      stateChanged();
     }
     
   } // setStartRate()
@@ -217,6 +219,8 @@ public class BlockPattern extends BlockArray {
     
     boolean changed = false;
     
+    if ( mStartRate != 0 || mEndRate != 0 ) stateChanged();
+    
     if ( mStartRate > 0 ) {
       if ( ++mStartTimer >= mStartRate ) {
         mStartTimer = 0;
@@ -251,4 +255,22 @@ public class BlockPattern extends BlockArray {
     
   } // Sprite.advance()
 
+  // hash of the pattern's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.add(hash, mXPosPattern);
+    hash = StateHash.add(hash, mYPosPattern);
+    hash = StateHash.add(hash, mZPosPattern);
+    hash = StateHash.add(hash, mStart);
+    hash = StateHash.add(hash, mEnd);
+    hash = StateHash.add(hash, mStartRate);
+    hash = StateHash.add(hash, mEndRate);
+    hash = StateHash.add(hash, mStartTimer);
+    hash = StateHash.add(hash, mEndTimer);
+    return hash;
+    
+  } // Sprite.stateHash()
+
 } // class BlockPattern
@@ -114,6 +114,7 @@ public class BlockStairs extends Sprite3D implements Obstacle {
     if ( z != mZStart ) {
       mZStart = z;
       if ( mTimer == 0 ) mTimer = kBlockMoveTime;
+      stateChanged();
     }
     
   } // setZStart()
@@ -124,6 +125,7 @@ public class BlockStairs extends Sprite3D implements Obstacle {
     if ( z != mZEnd ) {
       mZEnd = z;
       if ( mTimer == 0 ) mTimer = kBlockMoveTime;
+      stateChanged();
     }
     
   } // setZEnd()
@@ -142,6 +144,7 @@ public class BlockStairs extends Sprite3D implements Obstacle {
     assert( type >= -1 && type <= +1 );
     mSlopeType = type;
     updateBlocks();
+    stateChanged();
     
   } // setSlopeType()
   
@@ -162,6 +165,7 @@ public class BlockStairs extends Sprite3D implements Obstacle {
     b1.setPos(b1.getXPos(), b1.getYPos(), mZEnd - 2*(mDepth - 1));
 
     updateBlocks();
+    stateChanged();
     
   } // reset()
   
@@ -198,6 +202,7 @@ public class BlockStairs extends Sprite3D implements Obstacle {
                       LinkedList<StoryEvent> newStoryEvents) {
     
     if ( mTimer > 0 ) {
+      stateChanged();
       if ( --mTimer == 0 ) {
         boolean update = false;
         BlockArray blockStart = mBlocks[0],
@@ -225,6 +230,20 @@ public class BlockStairs extends Sprite3D implements Obstacle {
     
   } // Sprite.advance()
 
+  // hash of the stairs' state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = StateHash.start(0x42537461L); // "BSta"
+    hash = StateHash.add(hash, mZStart);
+    hash = StateHash.add(hash, mZEnd);
+    hash = StateHash.add(hash, mSlopeType);
+    hash = StateHash.add(hash, mTimer);
+    for ( BlockArray b : mBlocks ) hash = StateHash.add(hash, b.stateHash());
+    return hash;
+    
+  } // Sprite.stateHash()
+  
   // display the blocks
   @Override
   public void draw(EgaCanvas canvas) {
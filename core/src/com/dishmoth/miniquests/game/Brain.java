@@ -24,6 +24,10 @@ public class Brain {
     public boolean finished() { return mFinished; }
 
     public abstract void advance();
+
+    // hash of the module's progress (see StateHash; the key values are
+    // refreshed before every use, so they are left out)
+    public long stateHash() { return StateHash.add(0, mFinished); }
   } // class Brain.Module
   
   // the default brain simply reads the keyboard 
@@ -75,16 +79,27 @@ public class Brain {
         if ( ++mIndex >= mInstructions.length/2 ) mFinished = true;
       }
     }
+    
+    @Override
+    public long stateHash() {
+      long hash = super.stateHash();
+      hash = StateHash.add(hash, mInstructions);
+      hash = StateHash.add(hash, mIndex);
+      hash = StateHash.add(hash, mCounter);
+      return hash;
+    }
   } // class Brain.ZombieModule 
   
   // stack of brains, the active one is at the end of the list
   private LinkedList<Module> mBrainStack;
   
-  // constructor
+  // constructor (the game's controller, if it has one, takes the place of
+  // the keys; see GameContext.setController())
   public Brain() {
     
+    Module controller = Env.context().controller();
     mBrainStack = new LinkedList<Module>();
-    mBrainStack.add( new KeyModule() );
+    mBrainStack.add( (controller != null) ? controller : new KeyModule() );
     
   } // constructor
 
@@ -122,4 +137,14 @@ public class Brain {
     
   } // remove()
   
+  // hash of the brain's state (see StateHash)
+  public long stateHash() {
+    
+    long hash = StateHash.start(0x42726169L); // "Brai"
+    hash = StateHash.add(hash, mBrainStack.size());
+    for ( Module m : mBrainStack ) hash = StateHash.add(hash, m.stateHash());
+    return hash;
+    
+  } // stateHash()
+  
 } // class Brain
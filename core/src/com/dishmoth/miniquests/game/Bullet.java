@@ -82,6 +82,7 @@ public class Bullet extends Sprite3D {
     mXPos += dx; 
     mYPos += dy; 
     mZPos += dz;
+    stateChanged();
     
   } // shiftPos();
   
@@ -133,6 +134,8 @@ public class Bullet extends Sprite3D {
   public void advance(LinkedList<Sprite> addTheseSprites,
                       LinkedList<Sprite> killTheseSprites,
                       LinkedList<StoryEvent> newStoryEvents) {
+
+    stateChanged();
     
     if ( --mStepTimer == 0 ) {
       mStepTimer = kStepDelay;
@@ -316,6 +319,22 @@ public class Bullet extends Sprite3D {
     
   } // Sprite.aftermath()
   
+  // hash of the bullet's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = StateHash.start(0x42756C6CL); // "Bull"
+    hash = StateHash.add(hash, mXPos);
+    hash = StateHash.add(hash, mYPos);
+    hash = StateHash.add(hash, mZPos);
+    hash = StateHash.add(hash, mDirec);
+    hash = StateHash.add(hash, mStepTimer);
+    hash = StateHash.add(hash, mRange);
+    hash = StateHash.add(hash, mHitTarget);
+    return hash;
+    
+  } // Sprite.stateHash()
+  
   // display the bullet
   @Override
   public void draw(EgaCanvas canvas) {
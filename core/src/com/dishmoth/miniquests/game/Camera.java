@@ -27,8 +27,38 @@ public class Camera extends Sprite {
   public int xPos() { return mXPos; }
   public int yPos() { return mYPos; }
   public int zPos() { return mZPos; }
-  public void set(int x, int y, int z) {mXPos=x; mYPos=y; mZPos=z;}
-  public void shift(int dx, int dy, int dz) {mXPos+=dx; mYPos+=dy; mZPos+=dz;}
+  
+  // move the camera (the image version changes, since the image of every 
+  // 3D sprite moves with it)
+  public void set(int x, int y, int z) {
+    
+    if ( x == mXPos && y == mYPos && z == mZPos ) return;
+    mXPos = x; 
+    mYPos = y; 
+    mZPos = z;
+    imageChanged();
+    stateChanged();
+    
+  } // set()
+  
+  // move the camera relative to its current position
+  public void shift(int dx, int dy, int dz) {
+    
+    set(mXPos+dx, mYPos+dy, mZPos+dz);
+    
+  } // shift()
+  
+  // hash of the camera's position (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = StateHash.start(0x43616D65L); // "Came"
+    hash = StateHash.add(hash, mXPos);
+    hash = StateHash.add(hash, mYPos);
+    hash = StateHash.add(hash, mZPos);
+    return hash;
+    
+  } // Sprite.stateHash()
   
   // update (does nothing)
   @Override
@@ -40,4 +70,8 @@ public class Camera extends Sprite {
   @Override
   public void draw(EgaCanvas canvas) {}
   
+  // nothing is drawn, so nothing changes
+  @Override
+  public boolean isStatic() { return true; }
+  
 } // class Camera
@@ -33,7 +33,7 @@ public class Chest extends Sprite3D implements Obstacle {
   private boolean mDirecDown;
   
   // prepare images
-  public static void initialize() {
+  public static synchronized void initialize() {
 
     if ( kImageOpenDown != null ) return;
     
@@ -102,7 +102,7 @@ public class Chest extends Sprite3D implements Obstacle {
   public boolean isOpen() { return mIsOpen; }
   
   // open or close the object
-  public void setOpen(boolean open) { mIsOpen = open; }
+  public void setOpen(boolean open) { mIsOpen = open; stateChanged(); }
   
   // shift position
   public void shiftPos(int dx, int dy, int dz) {
@@ -110,6 +110,7 @@ public class Chest extends Sprite3D implements Obstacle {
     mXPos += dx;
     mYPos += dy;
     mZPos += dz;
+    stateChanged();
     
   } // shiftPos()
   
@@ -138,6 +139,19 @@ public class Chest extends Sprite3D implements Obstacle {
                       LinkedList<StoryEvent> newStoryEvents) {
   } // Sprite.advance()
 
+  // hash of the chest's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = StateHash.start(0x43686573L); // "Ches"
+    hash = StateHash.add(hash, mXPos);
+    hash = StateHash.add(hash, mYPos);
+    hash = StateHash.add(hash, mZPos);
+    hash = StateHash.add(hash, mIsOpen);
+    return hash;
+    
+  } // Sprite.stateHash()
+  
   // display the object
   @Override
   public void draw(EgaCanvas canvas) {
@@ -94,7 +94,7 @@ public class Critter extends Sprite3D implements Obstacle {
   private LinkedList<Obstacle> mObstacles = new LinkedList<Obstacle>();
 
   // prepare the images
-  static public void initialize() {
+  static synchronized public void initialize() {
 
     if ( kCritterImages != null ) return;
     
@@ -165,6 +165,7 @@ public class Critter extends Sprite3D implements Obstacle {
     mStepXPos += dx;
     mStepYPos += dy;
     mStepZPos += dz;
+    stateChanged();
     
   } // shiftPos()
   
@@ -180,6 +181,7 @@ public class Critter extends Sprite3D implements Obstacle {
       return;
     }
     mFreezeTimer = mFreezeTime; 
+    stateChanged();
     if ( !mSilent ) Env.sounds().play(Sounds.CRITTER_STUN);
     
   } // stun()
@@ -189,6 +191,7 @@ public class Critter extends Sprite3D implements Obstacle {
     
     assert( scheme >= 0 && scheme < kColourSchemes.length );
     mColour = scheme;
+    stateChanged();
     
   } // setColour()
   
@@ -196,14 +199,17 @@ public class Critter extends Sprite3D implements Obstacle {
   public int getColour() { return mColour; }
   
   // access the critter's track
-  public void setTrack(Track track) { mTrack = track; }
+  public void setTrack(Track track) { mTrack = track; stateChanged(); }
   public Track getTrack() { return mTrack; }
   
   // set whether the critter is killed by bullets
-  public void easilyKilled(boolean v) { mInstantKill = v; }
+  public void easilyKilled(boolean v) { mInstantKill = v; stateChanged(); }
   
   // set how long a shot stuns the critter for (may be zero)
-  public void setStunTime(int t) { mFreezeTime = Math.max(0, t); }
+  public void setStunTime(int t) { 
+    mFreezeTime = Math.max(0, t); 
+    stateChanged(); 
+  }
   
   // query whether critter is frozen
   public boolean isStunned() { return (mFreezeTimer > 0); }
@@ -214,11 +220,12 @@ public class Critter extends Sprite3D implements Obstacle {
     assert( direc >= -1 && direc < 4 );
     mDestroyed = true;
     mDestroyDirec = direc;
+    stateChanged();
 
   } // destroy()
   
   // set whether the critter makes any sound
-  public void setSilent(boolean v) { mSilent = v; }
+  public void setSilent(boolean v) { mSilent = v; stateChanged(); }
   
   // check for Sprites we want to keep track of
   @Override
@@ -258,6 +265,8 @@ public class Critter extends Sprite3D implements Obstacle {
                       LinkedList<Sprite> killTheseSprites,
                       LinkedList<StoryEvent> newStoryEvents) {
 
+    stateChanged();
+    
     if ( mFreezeTimer > 0 && !mFalling ) {
       
       // critter is stunned
@@ -481,6 +490,36 @@ public class Critter extends Sprite3D implements Obstacle {
     
   } // Sprite.aftermath()
   
+  // hash of the critter's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = StateHash.start(0x43726974L); // "Crit"
+    hash = StateHash.add(hash, mXPos);
+    hash = StateHash.add(hash, mYPos);
+    hash = StateHash.add(hash, mZPos);
+    hash = StateHash.add(hash, mDirec);
+    hash = StateHash.add(hash, mDirecFrom);
+    hash = StateHash.add(hash, mActionTimer);
+    hash = StateHash.add(hash, mTurning);
+    hash = StateHash.add(hash, mStepping);
+    hash = StateHash.add(hash, mStepXPos);
+    hash = StateHash.add(hash, mStepYPos);
+    hash = StateHash.add(hash, mStepZPos);
+    hash = StateHash.add(hash, mFalling);
+    hash = StateHash.add(hash, mFallDistance);
+    hash = StateHash.add(hash, mFreezeTime);
+    hash = StateHash.add(hash, mFreezeTimer);
+    hash = StateHash.add(hash, mColour);
+    hash = StateHash.add(hash, mInstantKill);
+    hash = StateHash.add(hash, mDestroyed);
+    hash = StateHash.add(hash, mDestroyDirec);
+    hash = StateHash.add(hash, mSilent);
+    hash = StateHash.add(hash, (mTrack == null) ? 0 : mTrack.stateHash());
+    return hash;
+    
+  } // Sprite.stateHash()
+  
   // display the critter
   @Override
   public void draw(EgaCanvas canvas) {
@@ -49,6 +49,18 @@ public class CritterTrack implements Track {
     
   } // canMove()
   
+  // hash of the track's layout (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = StateHash.start(0x43547261L); // "CTra"
+    hash = StateHash.add(hash, mXRef);
+    hash = StateHash.add(hash, mYRef);
+    hash = StateHash.add(hash, mTrackData);
+    return hash;
+    
+  } // Track.stateHash()
+  
   // whether the track is defined at the specified position 
   private boolean trackAt(int x, int y) {
     
@@ -138,6 +138,9 @@ public class Door {
   // whether the door is open as an exit
   private boolean mClosed;
   
+  // number that changes whenever the door's image does
+  private long mImageVersion;
+  
   // constructor
   public Door(int xyPos, int zPos, int wallSide, 
               byte floorColour[], int floorDrop) { 
@@ -156,6 +159,7 @@ public class Door {
     mFloorDrop = floorDrop;
 
     mClosed = false;
+    mImageVersion = Sprite.newImageVersion(0);
     
   } // constructor
 
@@ -170,7 +174,17 @@ public class Door {
   public boolean closed() { return mClosed; }
   
   // change the door state
-  public void setClosed(boolean v) { mClosed = v; }
+  public void setClosed(boolean v) { 
+    
+    if ( v == mClosed ) return;
+    mClosed = v; 
+    mImageVersion = Sprite.newImageVersion(mImageVersion);
+    
+  } // setClosed()
+
+  // number that changes whenever the door's image does
+  // (see Sprite.imageVersion())
+  public long imageVersion() { return mImageVersion; }
 
   // draw the door (relative to the room)
   public void draw(EgaCanvas canvas, int mRoomX, int mRoomY, int mRoomZ) {
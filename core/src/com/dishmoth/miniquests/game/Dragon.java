@@ -201,7 +201,7 @@ public class Dragon extends Sprite3D implements Obstacle {
   private boolean mKillable;
   
   // prepare resources
-  static public void initialize() {
+  static synchronized public void initialize() {
     
     if ( kBasicImages != null ) return;
     
@@ -302,7 +302,7 @@ public class Dragon extends Sprite3D implements Obstacle {
   protected int zBase() { return (mZPos + mHeight - kFullHeight); } 
 
   // specify what happens to the dragon when it is shot
-  public void setKillable(boolean v) { mKillable = v; }
+  public void setKillable(boolean v) { mKillable = v; stateChanged(); }
   
   // methods required for the Obstacle interface
   public boolean isPlatform(int x, int y, int z) { return false; }
@@ -343,6 +343,7 @@ public class Dragon extends Sprite3D implements Obstacle {
     }
       
     mHitTimer = kHitDelay;
+    stateChanged();
     
   } // stun()
   
@@ -352,6 +353,8 @@ public class Dragon extends Sprite3D implements Obstacle {
                       LinkedList<Sprite>     killTheseSprites,
                       LinkedList<StoryEvent> newStoryEvents) {
 
+    stateChanged();
+    
     final boolean fullHeight = (mTargetHeight == kFullHeight);
     
     switch ( mState ) {
@@ -454,6 +457,31 @@ public class Dragon extends Sprite3D implements Obstacle {
     
   } // Sprite.advance()
 
+  // hash of the dragon's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = StateHash.start(0x44726167L); // "Drag"
+    hash = StateHash.add(hash, mState.ordinal());
+    hash = StateHash.add(hash, mTimer);
+    hash = StateHash.add(hash, mXPos);
+    hash = StateHash.add(hash, mYPos);
+    hash = StateHash.add(hash, mZPos);
+    hash = StateHash.add(hash, mDirec);
+    hash = StateHash.add(hash, mTargetHeight);
+    hash = StateHash.add(hash, mHeight);
+    hash = StateHash.add(hash, mFlameBolt != null);
+    hash = StateHash.add(hash, mBlast != null);
+    hash = StateHash.add(hash, mBlastTimer);
+    hash = StateHash.add(hash, mHitTimer);
+    hash = StateHash.add(hash, mTargetXPos);
+    hash = StateHash.add(hash, mTargetYPos);
+    hash = StateHash.add(hash, mTargetZPos);
+    hash = StateHash.add(hash, mKillable);
+    return hash;
+    
+  } // Sprite.stateHash()
+  
   // display the creature
   @Override
   public void draw(EgaCanvas canvas) {
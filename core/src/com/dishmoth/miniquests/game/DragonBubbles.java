@@ -34,6 +34,7 @@ public class DragonBubbles extends Flame {
 
     super.advance(addTheseSprites, killTheseSprites, newStoryEvents);
     
+    stateChanged();
     if ( --mTimer == 0 ) {
       setFlame(false);
     }
@@ -44,4 +45,14 @@ public class DragonBubbles extends Flame {
     
   } // Sprite.advance()
 
+  // hash of the effect's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.add(hash, mTimer);
+    return hash;
+    
+  } // Sprite.stateHash()
+
 } // class DragonBubbles
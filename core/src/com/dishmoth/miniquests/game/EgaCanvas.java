@@ -6,33 +6,339 @@
 
 package com.dishmoth.miniquests.game;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.Arrays;
 
 // screen image based on pixels in EGA format
+// (finished frames can also be published to a direct byte buffer, which 
+// code outside the JVM can read without copying; the buffer starts with a 
+// frame sequence number, which is odd while a frame is being written, and a
+// checksum of the frame, see frameChecksum() and readFrame())
+// (the canvas keeps track of where it has been drawn on, so that the code
+// that displays it can find which pixels have changed, see findChanges())
+// (the canvas can also keep a background image, made up of the static 
+// sprites at the back of the scene, to copy in place of drawing them again,
+// see SpriteManager.draw())
 public class EgaCanvas extends EgaImage {
   
+  // byte offsets of the fields in a frame buffer (in native byte order)
+  public static final int FRAME_SEQUENCE     = 0,
+                          FRAME_CHECKSUM     = 8,
+                          FRAME_HEADER_BYTES = 16;
+  
+  // constants for the checksum (64-bit FNV-1a)
+  private static final long kChecksumStart = 0xcbf29ce484222325L,
+                            kChecksumPrime = 0x100000001b3L;
+  
   // number of different EGA colours used (for sanity checking)
   private int mMaxDistinctColours;
   
+  // where finished frames are published (or null)
+  private ByteBuffer mFrameBuffer;
+  
+  // number of frames published so far (times two)
+  private volatile long mFrameSequence;
+  
+  // bounding box of the pixels drawn on since the last clear
+  // (empty if x1 < x0; outside it the pixels are all the clear colour)
+  private int mDrawnX0, mDrawnX1,
+              mDrawnY0, mDrawnY1;
+  
+  // pixels as they were at the last findChanges(), and the box that had
+  // been drawn on then
+  private byte mLastPixels[];
+  private int  mLastX0, mLastX1,
+               mLastY0, mLastY1;
+  
+  // rectangle of pixels that changed at the last findChanges()
+  // (empty if x1 < x0)
+  private int mChangedX0, mChangedX1,
+              mChangedY0, mChangedY1;
+  
+  // the background image kept (or null), and the box drawn on in it
+  private byte  mBackPixels[];
+  private float mBackDepths[];
+  private int   mBackX0, mBackX1,
+                mBackY0, mBackY1;
+  
+  // what the background image kept is made of (objects and their image 
+  // versions), and what the one wanted now is made of
+  private Object mBackObjects[],
+                 mWantedObjects[];
+  private long   mBackVersions[],
+                 mWantedVersions[];
+  private int    mNumBack,
+                 mNumWanted;
+  
   // constructor
   public EgaCanvas(int width, int height) {
 
+    this(width, height, null);
+    
+  } // constructor
+
+  // constructor (frames are published to the buffer, if not null)
+  public EgaCanvas(int width, int height, ByteBuffer frameBuffer) {
+
     super(0, 0, width, height);
     
     clear();
     
     mMaxDistinctColours = 0;
     
+    assert( frameBuffer == null || 
+            frameBuffer.capacity() >= frameBufferSize(width, height) );
+    mFrameBuffer = frameBuffer;
+    mFrameSequence = 0;
+    
+    mLastPixels = new byte[width*height];
+    Arrays.fill(mLastPixels, (byte)-1);
+    mLastX0 = mLastY0 = 0;
+    mLastX1 = width-1;
+    mLastY1 = height-1;
+    mChangedX0 = mChangedY0 = 0;
+    mChangedX1 = mChangedY1 = -1;
+    
+    mBackPixels = null;
+    mBackDepths = null;
+    mBackObjects = new Object[16];
+    mWantedObjects = new Object[16];
+    mBackVersions = new long[16];
+    mWantedVersions = new long[16];
+    mNumBack = mNumWanted = 0;
+    
   } // constructor
 
+  // number of bytes needed to publish frames of a given size
+  public static int frameBufferSize(int width, int height) {
+    
+    return ( FRAME_HEADER_BYTES + width*height );
+    
+  } // frameBufferSize()
+  
+  // create a buffer (outside the Java heap) for publishing frames to
+  public static ByteBuffer allocateFrameBuffer(int width, int height) {
+    
+    ByteBuffer buffer = ByteBuffer.allocateDirect(frameBufferSize(width, 
+                                                                  height));
+    buffer.order(ByteOrder.nativeOrder());
+    buffer.putLong(FRAME_SEQUENCE, 0);
+    buffer.putLong(FRAME_CHECKSUM, frameChecksum(0, new byte[width*height]));
+    return buffer;
+    
+  } // allocateFrameBuffer()
+  
+  // the buffer that frames are published to (or null)
+  public ByteBuffer frameBuffer() { return mFrameBuffer; }
+  
+  // sequence number of the latest frame (even when the frame is complete)
+  public long frameSequence() { return mFrameSequence; }
+  
+  // number of frames published so far
+  public long numFramesPublished() { return (mFrameSequence >> 1); }
+  
+  // checksum of a frame: 64-bit FNV-1a over the sequence number (eight 
+  // bytes, least significant first) followed by the pixels
+  public static long frameChecksum(long sequence, byte pixels[]) {
+    
+    long hash = kChecksumStart;
+    for ( int k = 0 ; k < 8 ; k++ ) {
+      hash = (hash ^ ((sequence >>> 8*k) & 0xFF)) * kChecksumPrime;
+    }
+    for ( int k = 0 ; k < pixels.length ; k++ ) {
+      hash = (hash ^ (pixels[k] & 0xFF)) * kChecksumPrime;
+    }
+    return hash;
+    
+  } // frameChecksum()
+  
+  // make the current pixels available to readers of the frame buffer
+  // (the stores may reach another thread or process in any order, so 
+  // readers should check the frame against its checksum, see readFrame())
+  public void publish() {
+    
+    final long sequence = mFrameSequence;
+    if ( mFrameBuffer != null ) {
+      mFrameBuffer.putLong(FRAME_SEQUENCE, sequence+1);
+      mFrameBuffer.position(FRAME_HEADER_BYTES);
+      mFrameBuffer.put(mPixels);
+      mFrameBuffer.position(0);
+      mFrameBuffer.putLong(FRAME_CHECKSUM, 
+                           frameChecksum(sequence+2, mPixels));
+      mFrameBuffer.putLong(FRAME_SEQUENCE, sequence+2);
+    }
+    mFrameSequence = sequence + 2;
+    
+  } // publish()
+
+  // copy the latest frame out of a frame buffer, returning its sequence 
+  // number (or -1 if the frame is being written, or was torn by the writer 
+  // and must be read again)
+  // (the frame is only used if its sequence number, pixels and checksum 
+  // agree, which doesn't depend on the order in which the writer's stores
+  // become visible; a torn frame has a 1 in 2^64 chance of passing)
+  public static long readFrame(ByteBuffer buffer, byte pixels[]) {
+    
+    final long sequence = buffer.getLong(FRAME_SEQUENCE);
+    if ( (sequence & 1) != 0 ) return -1;
+    final long checksum = buffer.getLong(FRAME_CHECKSUM);
+    for ( int k = 0 ; k < pixels.length ; k++ ) {
+      pixels[k] = buffer.get(FRAME_HEADER_BYTES + k);
+    }
+    if ( frameChecksum(sequence, pixels) != checksum ) return -1;
+    return sequence;
+    
+  } // readFrame()
+
   // clear the canvas (pixels and depths)
   public void clear() {
     
     Arrays.fill(mPixels, (byte)63);
-    Arrays.fill(mDepths, 1.0e6f);
+    ensureDepths();
+    Arrays.fill(mDepths, kFarDepth);
+    
+    mDrawnX0 = mWidth;
+    mDrawnY0 = mHeight;
+    mDrawnX1 = mDrawnY1 = -1;
     
   } // clear()
   
+  // note that a rectangle of pixels may have been changed by drawing
+  @Override
+  protected void drawnOn(int x0, int y0, int x1, int y1) {
+    
+    if ( x0 < mDrawnX0 ) mDrawnX0 = x0;
+    if ( x1 > mDrawnX1 ) mDrawnX1 = x1;
+    if ( y0 < mDrawnY0 ) mDrawnY0 = y0;
+    if ( y1 > mDrawnY1 ) mDrawnY1 = y1;
+    
+  } // EgaImage.drawnOn()
+  
+  // note that any pixel may have changed (for instance, if the pixels have 
+  // been written to directly)
+  public void drawnOnAll() { drawnOn(0, 0, mWidth-1, mHeight-1); }
+  
+  // compare the pixels with how they were at the previous call, finding the
+  // rectangle that has changed (returns false if nothing has changed)
+  // (only the boxes drawn on then and now need comparing, since clear() 
+  // leaves the same colour everywhere else)
+  public boolean findChanges() {
+    
+    final int x0 = Math.min(mDrawnX0, mLastX0),
+              x1 = Math.max(mDrawnX1, mLastX1),
+              y0 = Math.min(mDrawnY0, mLastY0),
+              y1 = Math.max(mDrawnY1, mLastY1);
+    
+    mChangedX0 = mWidth;
+    mChangedY0 = mHeight;
+    mChangedX1 = mChangedY1 = -1;
+    
+    for ( int iy = y0 ; iy <= y1 ; iy++ ) {
+      final int row = iy*mWidth;
+      int start = row + x0,
+          end   = row + x1;
+      while ( start <= end && mPixels[start] == mLastPixels[start] ) start++;
+      if ( start > end ) continue;
+      while ( mPixels[end] == mLastPixels[end] ) end--;
+      System.arraycopy(mPixels, start, mLastPixels, start, end-start+1);
+      
+      if ( start-row < mChangedX0 ) mChangedX0 = start-row;
+      if ( end-row > mChangedX1 ) mChangedX1 = end-row;
+      if ( mChangedY1 < 0 ) mChangedY0 = iy;
+      mChangedY1 = iy;
+    }
+    
+    mLastX0 = mDrawnX0;
+    mLastX1 = mDrawnX1;
+    mLastY0 = mDrawnY0;
+    mLastY1 = mDrawnY1;
+    
+    return ( mChangedX1 >= 0 );
+    
+  } // findChanges()
+  
+  // rectangle of pixels that changed at the last findChanges()
+  // (empty if x1 < x0)
+  public int changedX0() { return mChangedX0; }
+  public int changedX1() { return mChangedX1; }
+  public int changedY0() { return mChangedY0; }
+  public int changedY1() { return mChangedY1; }
+  
+  // whether nothing has been drawn since the last clear()
+  public boolean isClear() { return ( mDrawnX1 < mDrawnX0 ); }
+  
+  // begin describing the background wanted (see addToBackground())
+  public void startBackground() { mNumWanted = 0; }
+  
+  // add an object to the description of the background wanted, with a 
+  // number that changes whenever the object's image does
+  // (see Sprite.describeImage())
+  public void addToBackground(Object obj, long version) {
+    
+    if ( mNumWanted == mWantedObjects.length ) {
+      Object objects[] = new Object[2*mNumWanted];
+      long versions[] = new long[2*mNumWanted];
+      System.arraycopy(mWantedObjects, 0, objects, 0, mNumWanted);
+      System.arraycopy(mWantedVersions, 0, versions, 0, mNumWanted);
+      mWantedObjects = objects;
+      mWantedVersions = versions;
+    }
+    mWantedObjects[mNumWanted] = obj;
+    mWantedVersions[mNumWanted] = version;
+    mNumWanted++;
+    
+  } // addToBackground()
+  
+  // if the background kept is the one wanted, copy it onto the (clear)
+  // canvas and return true, otherwise return false
+  public boolean useBackground() {
+    
+    assert( isClear() );
+    
+    if ( mBackPixels == null || mNumBack != mNumWanted ) return false;
+    for ( int k = 0 ; k < mNumWanted ; k++ ) {
+      if ( mBackObjects[k] != mWantedObjects[k] ||
+           mBackVersions[k] != mWantedVersions[k] ) return false;
+    }
+    
+    System.arraycopy(mBackPixels, 0, mPixels, 0, mPixels.length);
+    System.arraycopy(mBackDepths, 0, mDepths, 0, mDepths.length);
+    mDrawnX0 = mBackX0;
+    mDrawnX1 = mBackX1;
+    mDrawnY0 = mBackY0;
+    mDrawnY1 = mBackY1;
+    return true;
+    
+  } // useBackground()
+  
+  // keep the canvas as it is now as the background wanted
+  // (the static sprites having just been drawn onto a clear canvas)
+  public void keepBackground() {
+    
+    if ( mBackPixels == null ) {
+      mBackPixels = new byte[mPixels.length];
+      mBackDepths = new float[mDepths.length];
+    }
+    System.arraycopy(mPixels, 0, mBackPixels, 0, mPixels.length);
+    System.arraycopy(mDepths, 0, mBackDepths, 0, mDepths.length);
+    mBackX0 = mDrawnX0;
+    mBackX1 = mDrawnX1;
+    mBackY0 = mDrawnY0;
+    mBackY1 = mDrawnY1;
+    
+    Object objects[] = mBackObjects;
+    long versions[] = mBackVersions;
+    mBackObjects = mWantedObjects;
+    mBackVersions = mWantedVersions;
+    mWantedObjects = objects;
+    mWantedVersions = versions;
+    mNumBack = mNumWanted;
+    mNumWanted = 0;
+    Arrays.fill(mWantedObjects, null);
+    
+  } // keepBackground()
+  
   // check that no more than 16 different pixel colours are used at once
   public void checkColourCount() {
 
@@ -11,8 +11,17 @@ import java.util.Arrays;
 // image in EGA format to display on canvas
 // 2D coords: x right, y down
 // 3D coords: x right-up, y left-up, z up
+// (depths must be within kMaxDepth either way, or kFarDepth for pixels
+// never drawn at any depth; an image whose pixels all have the same depth
+// keeps just the one rather than an array)
 public class EgaImage {
 
+  // largest depth (either way) of anything drawn
+  private static final float kMaxDepth = 1.0e5f;
+  
+  // depth for 'nothing drawn here' (beyond any sum of depths)
+  protected static final float kFarDepth = 1.0e6f;
+  
   // position of reference pixel relative to top-left of pixel data
   protected int mRefXPos,
                 mRefYPos;
@@ -24,9 +33,15 @@ public class EgaImage {
   // pixel colours (0 to 63, or -1 for transparent)
   protected byte mPixels[];
 
-  // relative depths of pixels
+  // relative depths of pixels, or null if all are the same
+  // (floats rather than fixed point: depths such as -0.05 or sums such as 
+  // -0.05-0.01 have no exact fixed point form, and particles closer in 
+  // depth than any fixed point step would tie rather than keep their order)
   protected float mDepths[];
   
+  // depth of every pixel if there's no depth array
+  protected float mConstantDepth;
+  
   // constructor (blank data)
   public EgaImage(int refXPos, int refYPos, 
                   int width, int height) {
@@ -112,24 +127,48 @@ public class EgaImage {
       mPixels = pixels;
     }
     
+    mDepths = null;
     if ( depths == null ) {
-      mDepths = new float[mWidth*mHeight];
-      Arrays.fill(mDepths, 1.0e6f);
+      mConstantDepth = kFarDepth;
     } else if ( depths.length == 1 ) {
-      mDepths = new float[mWidth*mHeight];
-      Arrays.fill(mDepths, depths[0]);
+      assert( validDepth(depths[0]) );
+      mConstantDepth = depths[0];
     } else {
       assert( depths.length == mWidth*mHeight );
-      mDepths = depths;
+      mConstantDepth = depths[0];
+      for ( int k = 0 ; k < depths.length ; k++ ) {
+        assert( validDepth(depths[k]) );
+        if ( depths[k] != depths[0] ) mDepths = depths;
+      }
     }
     
   } // set()
 
+  // whether a depth is in range (within kMaxDepth, or exactly kFarDepth)
+  static boolean validDepth(float depth) {
+    
+    return ( depth == kFarDepth 
+             || (depth >= -kMaxDepth && depth <= kMaxDepth) );
+    
+  } // validDepth()
+  
+  // make sure that the image has an array of depths (before drawing on it)
+  protected void ensureDepths() {
+    
+    if ( mDepths != null ) return;
+    mDepths = new float[mWidth*mHeight];
+    Arrays.fill(mDepths, mConstantDepth);
+    
+  } // ensureDepths()
+
   // copy the image
   public EgaImage clone() {
     
-    return new EgaImage(mRefXPos, mRefYPos, mWidth, mHeight, 
-                        pixelsCopy(), depthsCopy()); 
+    EgaImage image = new EgaImage(mRefXPos, mRefYPos, mWidth, mHeight, 
+                                  pixelsCopy());
+    image.mConstantDepth = mConstantDepth;
+    if ( mDepths != null ) image.mDepths = Env.copyOf(mDepths);
+    return image;
     
   } // clone()
   
@@ -145,11 +184,24 @@ public class EgaImage {
   // clone of the pixel array
   final public byte[] pixelsCopy() { return Env.copyOf(mPixels); }
   
-  // access to the pixel depths
-  final public float[] depths() { return mDepths; }
+  // whether all of the pixels have the same depth
+  final public boolean constantDepth() { return ( mDepths == null ); }
   
-  // clone of the pixel depths
-  final public float[] depthsCopy() { return Env.copyOf(mDepths); }
+  // depth of a pixel (given its index in the pixel array)
+  final public float depth(int index) {
+    
+    return ( (mDepths == null) ? mConstantDepth : mDepths[index] );
+    
+  } // depth()
+  
+  // copy of the pixel depths
+  final public float[] depthsCopy() {
+    
+    float depths[] = new float[mWidth*mHeight];
+    for ( int k = 0 ; k < depths.length ; k++ ) depths[k] = depth(k);
+    return depths;
+    
+  } // depthsCopy()
   
   // colour an individual pixel (ignoring depth)
   public void plot(int x, int y, byte colour) {
@@ -162,6 +214,7 @@ public class EgaImage {
     if ( x < 0 || x >= mWidth || y < 0 || y >= mHeight ) return;
     final int index = x + y*mWidth;
     mPixels[index] = colour;
+    drawnOn(x, y, x, y);
     
   } // plot()
   
@@ -174,10 +227,13 @@ public class EgaImage {
     y += mRefYPos;
     
     if ( x < 0 || x >= mWidth || y < 0 || y >= mHeight ) return;
+    ensureDepths();
     final int index = x + y*mWidth;
+    assert( validDepth(depth) );
     if ( depth > mDepths[index] ) return;
     mPixels[index] = colour;
     mDepths[index] = depth;
+    drawnOn(x, y, x, y);
     
   } // plot()
   
@@ -207,6 +263,7 @@ public class EgaImage {
       }
       index += mWidth - xSize;
     }
+    drawnOn(x0, y0, x1, y1);
     
   } // fill()
   
@@ -229,6 +286,9 @@ public class EgaImage {
     final int xSize = x1 - x0 + 1,
               ySize = y1 - y0 + 1;
     
+    ensureDepths();
+    assert( validDepth(depth) );
+    
     int index = x0 + y0*mWidth;
     for ( int iy = 0 ; iy < ySize ; iy++ ) {
       for ( int ix = 0 ; ix < xSize ; ix++ ) {
@@ -240,9 +300,14 @@ public class EgaImage {
       }
       index += mWidth - xSize;
     }
+    drawnOn(x0, y0, x1, y1);
     
   } // fill()
   
+  // note that a rectangle of pixels may have been changed by drawing
+  // (nothing is done here, but a canvas keeps track, see EgaCanvas)
+  protected void drawnOn(int x0, int y0, int x1, int y1) {}
+  
   // display the image with its reference point at the specified position
   // (xy in pixels, origin top-left) 
   public void draw(EgaImage canvas, int xPos, int yPos, float depth) {
@@ -289,22 +354,42 @@ public class EgaImage {
     assert( sGap >= 0 && dGap >= 0 );
     
     byte destPixels[] = canvas.pixels();
-    float destDepths[] = canvas.depths();
+    canvas.drawnOn(dx, dy, dx+nx-1, dy+ny-1);
     
     int sInd = sy*mWidth + sx,
         dInd = dy*canvas.width() + dx;
     
     if ( useDepth ) {
     
-      for ( int ky = 0 ; ky < ny ; ky++, sInd+=sGap, dInd+=dGap ) {
-        for ( int kx = 0 ; kx < nx ; kx++, sInd++, dInd++ ) {
-          final byte pixel = mPixels[sInd];
-          if ( pixel < 0 ) continue;
-          final float pixDepth = mDepths[sInd] + depth;
-          if ( pixDepth > destDepths[dInd] ) continue;
-          destPixels[dInd] = pixel;
-          destDepths[dInd] = pixDepth;
+      canvas.ensureDepths();
+      float destDepths[] = canvas.mDepths;
+      assert( validDepth(depth) );
+      
+      if ( mDepths == null ) {
+        
+        final float pixDepth = mConstantDepth + depth;
+        for ( int ky = 0 ; ky < ny ; ky++, sInd+=sGap, dInd+=dGap ) {
+          for ( int kx = 0 ; kx < nx ; kx++, sInd++, dInd++ ) {
+            final byte pixel = mPixels[sInd];
+            if ( pixel < 0 || pixDepth > destDepths[dInd] ) continue;
+            destPixels[dInd] = pixel;
+            destDepths[dInd] = pixDepth;
+          }
+        }
+        
+      } else {
+      
+        for ( int ky = 0 ; ky < ny ; ky++, sInd+=sGap, dInd+=dGap ) {
+          for ( int kx = 0 ; kx < nx ; kx++, sInd++, dInd++ ) {
+            final byte pixel = mPixels[sInd];
+            if ( pixel < 0 ) continue;
+            final float pixDepth = mDepths[sInd] + depth;
+            if ( pixDepth > destDepths[dInd] ) continue;
+            destPixels[dInd] = pixel;
+            destDepths[dInd] = pixDepth;
+          }
         }
+        
       }
       
     } else {
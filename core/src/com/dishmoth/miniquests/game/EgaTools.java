@@ -6,6 +6,7 @@
 
 package com.dishmoth.miniquests.game;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 // utilities for dealing with EGA images 
@@ -23,6 +24,16 @@ public class EgaTools {
     }
   }
 
+  // EGA palette as RGB888 bytes (three per colour, red first)
+  public static final byte EGA_PALETTE_RGB[] = new byte[3*NUM_EGA_COLOURS];
+  static {
+    for ( int k = 0 ; k < NUM_EGA_COLOURS ; k++ ) {
+      EGA_PALETTE_RGB[3*k  ] = (byte)( EGA_PALETTE[k] >> 16 );
+      EGA_PALETTE_RGB[3*k+1] = (byte)( EGA_PALETTE[k] >> 8 );
+      EGA_PALETTE_RGB[3*k+2] = (byte)( EGA_PALETTE[k] );
+    }
+  }
+
   // EGA-to-RGB (24-bit) palette conversion
   public static int egaToRgb(int egaIndex) {
     
@@ -31,6 +42,41 @@ public class EgaTools {
     
   } // egaToRgb()
   
+  // write a rectangle of an image's pixels (x0 to x1, y0 to y1, inclusive)
+  // into a buffer as RGB888 bytes, one row at a time
+  // (the buffer holds rows of rowBytes bytes each, starting at index zero,
+  // such as the pixels of an RGB888 Pixmap; its position is left at zero;
+  // each row is made in the workspace first, which must hold at least
+  // 3*(x1-x0+1) bytes, so that the caller can keep one for every frame)
+  public static void writeRgb888(EgaImage image, int x0, int x1, 
+                                 int y0, int y1, 
+                                 ByteBuffer buffer, int rowBytes,
+                                 byte row[]) {
+    
+    if ( x1 < x0 || y1 < y0 ) return;
+    assert( x0 >= 0 && x1 < image.width() && y0 >= 0 && y1 < image.height() );
+    assert( 3*image.width() <= rowBytes );
+    assert( row != null && row.length >= 3*(x1-x0+1) );
+    
+    final byte pixels[] = image.pixels();
+    final int  width    = image.width();
+    
+    for ( int iy = y0 ; iy <= y1 ; iy++ ) {
+      int index = iy*width + x0,
+          k     = 0;
+      for ( int ix = x0 ; ix <= x1 ; ix++ ) {
+        final int p = 3*pixels[index++];
+        row[k++] = EGA_PALETTE_RGB[p];
+        row[k++] = EGA_PALETTE_RGB[p+1];
+        row[k++] = EGA_PALETTE_RGB[p+2];
+      }
+      buffer.position(iy*rowBytes + 3*x0);
+      buffer.put(row, 0, k);
+    }
+    buffer.position(0);
+    
+  } // writeRgb888()
+  
   // ARGB-to-EGA palette conversion (returns -1 for transparent) 
   public static int argbToEga(int argb) {
 
@@ -62,7 +62,7 @@ public class EndStory extends Story {
   private LinkedList<Sprite> mStars;
 
   // prepare resources
-  static public void initialize() {
+  static synchronized public void initialize() {
   
     if ( kEndText == null ) {
       kEndText = Env.resources().loadEgaImage("EndText.png");
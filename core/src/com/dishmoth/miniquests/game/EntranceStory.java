@@ -51,14 +51,14 @@ public class EntranceStory extends Story {
   // keep track of whether the escape key is held down
   private boolean mEscPressed;
   
-  // constructor
-  public EntranceStory(int questNum) {
-
+  // prepare resources (the reminder texts only if they will be needed)
+  static synchronized public void initialize(boolean remindersNeeded) {
+    
     if ( kMissionText == null ) {
       kMissionText = Env.resources().loadEgaImage("MissionText.png");
     }
 
-    if ( kMoveText == null && Env.saveState().remindersNeeded() ) {
+    if ( kMoveText == null && remindersNeeded ) {
       String gdxText = ( Env.platform()==Env.Platform.ANDROID ? "Android" 
                        : Env.platform()==Env.Platform.IOS     ? "Android" 
                                                               : "" );
@@ -66,6 +66,13 @@ public class EntranceStory extends Story {
       kFireText = Env.resources().loadEgaImage("FireText"+gdxText+".png");
     }
     
+  } // initialize()
+  
+  // constructor
+  public EntranceStory(int questNum) {
+
+    initialize(Env.saveState().remindersNeeded());
+    
     mQuestNum = questNum;
     
     mTextPic = null;
@@ -44,43 +44,37 @@ public class Env {
   // frame rate
   static private final int kTicksPerSecond = 30;
   
-  // frames since the game was initialized
-  static private long kTicks;
-
-  // assorted helper objects
-  static private Random      kRandom;
+  // assorted helper objects (shared by all games)
   static private EnvBits     kEnvBits;
-  static private KeyMonitor  kKeyMonitor;
   static private Resources   kResources;
-  static private Sounds      kSounds;
-  static private SaveState   kSaveState;
   static private ScreenScale kScreenScale;
   
+  // the context of the default game, and how the current context is found
+  static private GameContext         kDefaultContext;
+  static private GameContext.Binding kContextBinding 
+                                             = new GameContext.GlobalBinding();
+  
   // this sets up a global Env for the application
   static public void initialize(EnvBits envBits,
                                 Resources resources, 
                                 Sounds sounds) {
 
-    kTicks = 0;
-    
-    kRandom      = new Random();
     kEnvBits     = envBits;
-    kKeyMonitor  = null;
     kResources   = resources;
-    kSounds      = sounds;
-    kSaveState   = new SaveState();
     kScreenScale = new ScreenScale();
     
+    kDefaultContext = new GameContext(envBits, sounds, null);
+    kContextBinding.set(kDefaultContext);
+    
     kEnvBits.initialize();
-    kSounds.initialize();
+    sounds.initialize();
     
   } // initialize()
 
   // add the key/mouse/etc controller after initialization
   static public void addKeyMonitor(KeyMonitor keyMonitor) {
     
-    assert( kKeyMonitor == null && keyMonitor != null );
-    kKeyMonitor = keyMonitor;
+    kDefaultContext.setKeyMonitor(keyMonitor);
     
   } // addKeyMonitor()
   
@@ -92,18 +86,45 @@ public class Env {
     
   } // setScreenScale()
   
+  // replace the way the current context is found (e.g., one per thread)
+  // (unbound code falls back on the default context)
+  static public void setContextBinding(GameContext.Binding binding) {
+    
+    assert( binding != null );
+    kContextBinding = binding;
+    
+  } // setContextBinding()
+  
+  // the context for the game that is currently running
+  static public GameContext context() {
+    
+    GameContext context = kContextBinding.current();
+    return ( (context != null) ? context : kDefaultContext );
+    
+  } // context()
+  
+  // the context set up by initialize() (used by the launchers)
+  static public GameContext defaultContext() { return kDefaultContext; }
+  
+  // make a context current (returns the previous one, for restoring later)
+  static public GameContext bindContext(GameContext context) {
+    
+    GameContext previous = kContextBinding.current();
+    if ( previous != context ) kContextBinding.set(context);
+    return previous;
+    
+  } // bindContext()
+  
   // discard resources
   static public void dispose() {
     
-    kRandom = null;
-    kKeyMonitor = null;
+    if ( kDefaultContext != null ) kDefaultContext.dispose();
     kResources = null;
-    kSounds = null;
     
   } // dispose()
 
   // which device we're running on
-  static public Platform platform() { return kEnvBits.platform(); }
+  static public Platform platform() { return envBits().platform(); }
   
   // size of screen (pixels)
   static public int screenWidth() { return kScreenWidth; }
@@ -126,39 +147,50 @@ public class Env {
   static public int ticksPerSecond() { return kTicksPerSecond; }
   
   // frames since the start of the game
-  static public long ticks() { return kTicks; }
+  static public long ticks() { return context().ticks(); }
   
   // note that the game has advanced by one frame
-  static public void incrementTicks() { ++kTicks; }
+  static public void incrementTicks() { context().incrementTicks(); }
   
   // display debug text
   static public boolean debugMode() { return kDebugMode; }
-  static public void debug(String s) { if (kDebugMode) kEnvBits.debug(s); }
+  static public void debug(String s) { if (kDebugMode) envBits().debug(s); }
   
   // terminate the game
-  static public void exit() { kEnvBits.exit(); }
+  static public void exit() { envBits().exit(); }
   
   // save some game data
-  static public void save(byte data[]) { kEnvBits.save(data); }
+  static public void save(byte data[]) { envBits().save(data); }
   
   // load the game data
-  static public byte[] load() { return kEnvBits.load(); }
+  static public byte[] load() { return envBits().load(); }
 
   // return reference to keyboard and mouse monitors
-  static public KeyMonitor keys()  { return kKeyMonitor; }
+  static public KeyMonitor keys()  { return context().keys(); }
   
   // return reference to game resources
   static public Resources resources() { return kResources; }
   
   // return reference to game audio
-  static public Sounds sounds() { return kSounds; }
+  static public Sounds sounds() { return context().sounds(); }
 
   // return reference to game's save state
-  static public SaveState saveState() { return kSaveState; }
+  static public SaveState saveState() { return context().saveState(); }
 
   // return reference to game's screen scale helper
   static public ScreenScale screenScale() { return kScreenScale; }
   
+  // platform-dependent code for the current game (or the global default)
+  static private EnvBits envBits() {
+    
+    GameContext context = context();
+    return ( (context != null) ? context.envBits() : kEnvBits );
+    
+  } // envBits()
+  
+  // the random number stream in use by the current game
+  static private RandomStream random() { return context().random(); }
+  
   // send a log message back to HQ (for beta testing only)
   static public void report(String message) {
     //kEnvBits.report("http://dishmoth.com/log.html", message);
@@ -166,27 +198,27 @@ public class Env {
   
   // assorted functions for returning random numbers
   static public float randomFloat() { // in range [0,1]
-    return kRandom.nextFloat(); 
+    return random().nextFloat(); 
   } // randomFloat()
   static public float randomFloat(float a, float b) { // in range [a,b] 
-    return ( a + (b-a)*kRandom.nextFloat() ); 
+    return ( a + (b-a)*random().nextFloat() ); 
   } // randomFloat()
   static public double randomDouble() { // in range [0,1]
-    return kRandom.nextDouble(); 
+    return random().nextDouble(); 
   } // randomDouble()
   static public double randomDouble(double a, double b) { // in range [a,b] 
-    return ( a + (b-a)*kRandom.nextDouble() ); 
+    return ( a + (b-a)*random().nextDouble() ); 
   } // randomDouble()
   static public int randomInt(int n) { // in range [0,n-1] 
-    return kRandom.nextInt(n); 
+    return random().nextInt(n); 
   } // randomInt()
   static public int randomInt(int a, int b) { // in range [a,b]
-    if ( a > b )      return ( b + kRandom.nextInt(a-b+1) );
-    else if ( a < b ) return ( a + kRandom.nextInt(b-a+1) );
+    if ( a > b )      return ( b + random().nextInt(a-b+1) );
+    else if ( a < b ) return ( a + random().nextInt(b-a+1) );
     else              return a;
   } // randomInt()
   static public boolean randomBoolean() { 
-    return kRandom.nextBoolean(); 
+    return random().nextBoolean(); 
   } // randomBoolean()
 
   // assorted modulo-type functions
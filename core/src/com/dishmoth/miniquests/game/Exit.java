@@ -7,6 +7,8 @@
 package com.dishmoth.miniquests.game;
 
 // basic details an exit/entry point for a room
+// (exits are shared by every game, so don't change; the room keeps the
+// door for each exit, see Room.door())
 public class Exit {
 
   // for a multi-zone room, which zone the exit is in (zero otherwise)
@@ -32,9 +34,6 @@ public class Exit {
   // which level the camera should be on if the player enters the room here
   final public int mCameraLevel;
   
-  // reference to the associated Door object, if the room is current
-  public Door mDoor;
-  
   // constructor (no zone)
   public Exit(int wallSide, 
               int doorXYPos, int doorZPos, String floorColour, int floorDrop,
@@ -62,8 +61,6 @@ public class Exit {
     
     assert( entryPoint >= 0 );
     mEntryPoint = entryPoint;
-
-    mDoor = null;
     
   } // constructor
   
@@ -95,8 +92,48 @@ public class Exit {
     assert( entryPoint >= 0 );
     mEntryPoint = entryPoint;
     
-    mDoor = null;
-    
   } // constructor
   
+  // x-position of the player standing in the doorway (room coordinates)
+  public int doorwayXPos() {
+    
+    final int x = mZoneX*Room.kSize;
+    switch ( mWallSide ) {
+      case Env.RIGHT: return x + Room.kSize;
+      case Env.LEFT:  return x - 1;
+      default:        return x + mDoorXYPos;
+    }
+    
+  } // doorwayXPos()
+  
+  // y-position of the player standing in the doorway (room coordinates)
+  public int doorwayYPos() {
+    
+    final int y = mZoneY*Room.kSize;
+    switch ( mWallSide ) {
+      case Env.UP:    return y + Room.kSize;
+      case Env.DOWN:  return y - 1;
+      default:        return y + mDoorXYPos;
+    }
+    
+  } // doorwayYPos()
+  
+  // hash of the exit's details (see StateHash)
+  public long stateHash() {
+    
+    long hash = StateHash.start(0x45786974L); // "Exit"
+    hash = StateHash.add(hash, mZoneX);
+    hash = StateHash.add(hash, mZoneY);
+    hash = StateHash.add(hash, mWallSide);
+    hash = StateHash.add(hash, mDoorXYPos);
+    hash = StateHash.add(hash, mDoorZPos);
+    hash = StateHash.add(hash, mFloorColour);
+    hash = StateHash.add(hash, mFloorDrop);
+    hash = StateHash.add(hash, mDestination);
+    hash = StateHash.add(hash, mEntryPoint);
+    hash = StateHash.add(hash, mCameraLevel);
+    return hash;
+    
+  } // stateHash()
+  
 } // class Exit
@@ -62,7 +62,7 @@ public class FadeOut extends Sprite {
   } // constructor
   
   // stop or start the fade
-  public void pause(boolean val) { mPaused = val; } 
+  public void pause(boolean val) { mPaused = val; stateChanged(); } 
   
   // retrieve the current time
   public int time() { return mTime; }
@@ -91,10 +91,22 @@ public class FadeOut extends Sprite {
     if ( !mPaused && mTime < kFadeTime+kFadeDelta+1 ) {
       mTime++;
       updateImage();
+      stateChanged();
     }
     
   } // Sprite.advance()
 
+  // hash of the fade's progress (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = StateHash.start(0x46616465L); // "Fade"
+    hash = StateHash.add(hash, mTime);
+    hash = StateHash.add(hash, mPaused);
+    return hash;
+    
+  } // Sprite.stateHash()
+  
   // display the fade
   @Override
   public void draw(EgaCanvas canvas) {
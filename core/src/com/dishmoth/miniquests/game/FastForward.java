@@ -0,0 +1,37 @@
+/*
+ *  FastForward.java
+ *  Copyright (c) 2017 Simon Hern
+ *  Contact: dishmoth@yahoo.co.uk, dishmoth.com, github.com/dishmoth
+ */
+
+package com.dishmoth.miniquests.game;
+
+// turbo mode for testing: several game ticks are advanced per displayed frame
+// (the launchers only draw the screen after the last of those ticks)
+public class FastForward {
+
+  // the speeds available (ticks per displayed frame)
+  private static final int kSpeeds[] = { 1, 4, 8, 16 };
+
+  // which speed is in use
+  private int mSpeedIndex;
+
+  // constructor
+  public FastForward() {
+
+    mSpeedIndex = 0;
+
+  } // constructor
+
+  // number of ticks to advance per displayed frame
+  public int ticksPerFrame() { return kSpeeds[mSpeedIndex]; }
+
+  // switch to the next speed (wrapping back to normal speed)
+  public void cycle() {
+
+    mSpeedIndex = (mSpeedIndex + 1) % kSpeeds.length;
+    Env.debug("Fast forward: x" + ticksPerFrame());
+
+  } // cycle()
+
+} // class FastForward
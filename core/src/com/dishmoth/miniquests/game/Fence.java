@@ -82,6 +82,10 @@ public class Fence extends Sprite3D implements Obstacle {
 
   } // Sprite.advance()
 
+  // the fence never changes
+  @Override
+  public boolean isStatic() { return true; }
+  
   // display the object
   @Override
   public void draw(EgaCanvas canvas) {
@@ -88,7 +88,7 @@ public class FenceGate extends Sprite3D implements Obstacle {
   private boolean mIsClosed;
 
   // prepare image
-  public static void initialize() {
+  public static synchronized void initialize() {
     
     if ( kImageRightClosed != null ) return;
 
@@ -158,7 +158,7 @@ public class FenceGate extends Sprite3D implements Obstacle {
   } // constructor
   
   // open or close the gate
-  public void setClosed(boolean c) { mIsClosed = c; }
+  public void setClosed(boolean c) { mIsClosed = c; stateChanged(); }
   
   // whether the gate is open or closed
   public boolean isClosed() { return mIsClosed; } 
@@ -196,6 +196,21 @@ public class FenceGate extends Sprite3D implements Obstacle {
     
   } // Obstacle.isVoid()
 
+  // hash of the gate's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = StateHash.start(0x46656E63L); // "Fenc"
+    hash = StateHash.add(hash, mXPos);
+    hash = StateHash.add(hash, mYPos);
+    hash = StateHash.add(hash, mZPos);
+    hash = StateHash.add(hash, mDirec);
+    hash = StateHash.add(hash, mColourScheme);
+    hash = StateHash.add(hash, mIsClosed);
+    return hash;
+    
+  } // Sprite.stateHash()
+  
   // nothing to do here
   @Override
   public void advance(LinkedList<Sprite> addTheseSprites,
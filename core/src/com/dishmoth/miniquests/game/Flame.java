@@ -60,6 +60,7 @@ public class Flame extends FlameParticles {
     setLifeTime( kLifeTimeMin[mode], kLifeTimeMax[mode] );
 
     mParticleRate = kParticleRates[mode];
+    stateChanged();
     
   } // setPhysicsMode()
 
@@ -130,6 +131,19 @@ public class Flame extends FlameParticles {
     
   } // hits()
   
+  // hash of the flame's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.add(hash, mParticleRate);
+    hash = StateHash.add(hash, mXPos);
+    hash = StateHash.add(hash, mYPos);
+    hash = StateHash.add(hash, mZPos);
+    return hash;
+    
+  } // Sprite.stateHash()
+  
   // display the particles
   @Override
   public void draw(EgaCanvas canvas) {
@@ -113,6 +113,7 @@ public class FlameArea extends FlameParticles {
     }
     
     mPattern = pattern;
+    stateChanged();
     
   } // setPattern()
   
@@ -133,6 +134,7 @@ public class FlameArea extends FlameParticles {
     mTimeOn = timeOn;
     mTimeOff = timeOff;
     updateStrength();
+    stateChanged();
     
   } // setTimeCycle()
   
@@ -156,6 +158,7 @@ public class FlameArea extends FlameParticles {
       }
     }
     updateStrength();
+    stateChanged();
     
   } // FlameParticles.setFlame()
   
@@ -164,6 +167,7 @@ public class FlameArea extends FlameParticles {
   public void warmUp(int warmUpTime) {
 
     if ( mIsOn && mTimeOn == 0 ) mTimer = kTimeChange; 
+    stateChanged();
     super.warmUp(warmUpTime);
         
   } // FlameParticles.warmUp()
@@ -212,6 +216,8 @@ public class FlameArea extends FlameParticles {
                       LinkedList<Sprite> killTheseSprites,
                       LinkedList<StoryEvent> newStoryEvents) {
 
+    stateChanged();
+    
     super.advance(addTheseSprites, killTheseSprites, newStoryEvents);
 
     if ( mIsOn && mTimeOn == 0 ) {
@@ -225,6 +231,26 @@ public class FlameArea extends FlameParticles {
     
   } // Sprite3D.advance()
 
+  // hash of the flames' state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.add(hash, mXPos);
+    hash = StateHash.add(hash, mYPos);
+    hash = StateHash.add(hash, mZPos);
+    hash = StateHash.add(hash, mXSize);
+    hash = StateHash.add(hash, mYSize);
+    hash = StateHash.add(hash, mArea);
+    hash = StateHash.add(hash, mPattern);
+    hash = StateHash.add(hash, mTimeOn);
+    hash = StateHash.add(hash, mTimeOff);
+    hash = StateHash.add(hash, mTimer);
+    hash = StateHash.add(hash, mStrength);
+    return hash;
+    
+  } // Sprite.stateHash()
+  
   // whether the flames hit a point
   public boolean hits(int x, int y, int z) {
 
@@ -66,6 +66,7 @@ public class FlameBeam extends FlameParticles {
     setLifeTime( kLifeTimeMin[mode], kLifeTimeMax[mode] );
 
     mParticleDensity = kParticleDensities[mode];
+    stateChanged();
     
   } // setPhysicsMode()
 
@@ -160,6 +161,22 @@ public class FlameBeam extends FlameParticles {
     return ( xyDist2 <= xyTol*xyTol && zDist <= zTol );
     
   } // hits()
+
+  // hash of the beam's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.add(hash, mParticleDensity);
+    hash = StateHash.add(hash, mXPos0);
+    hash = StateHash.add(hash, mYPos0);
+    hash = StateHash.add(hash, mZPos0);
+    hash = StateHash.add(hash, mXPos1);
+    hash = StateHash.add(hash, mYPos1);
+    hash = StateHash.add(hash, mZPos1);
+    return hash;
+    
+  } // Sprite.stateHash()
   
   // display the particles
   @Override
@@ -65,13 +65,17 @@ public class FlameBeamSpin extends FlameBeam {
   } // constructor
   
   // change the noisiness of the flame
-  public void setSilent(boolean silent) { mIsSilent = silent; } 
+  public void setSilent(boolean silent) { 
+    mIsSilent = silent; 
+    stateChanged(); 
+  } 
   
   // change the rotation radii
   public void setRadii(float radiusMin, float radiusMax) {
     
     mRadiusMin = radiusMin;
     mRadiusMax = radiusMax;
+    stateChanged();
     
   } // setRadii()
   
@@ -104,6 +108,7 @@ public class FlameBeamSpin extends FlameBeam {
                       LinkedList<Sprite> killTheseSprites,
                       LinkedList<StoryEvent> newStoryEvents) {
 
+    stateChanged();
     mAngle += mAngSpeed;
     mAngle = Env.fold(mAngle, 2.0f*(float)Math.PI);
     
@@ -151,4 +156,22 @@ public class FlameBeamSpin extends FlameBeam {
     
   } // Sprite3D.advance()
 
+  // hash of the beam's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.add(hash, mAngle);
+    hash = StateHash.add(hash, mRadiusMin);
+    hash = StateHash.add(hash, mRadiusMax);
+    hash = StateHash.add(hash, mXPos);
+    hash = StateHash.add(hash, mYPos);
+    hash = StateHash.add(hash, mZPos);
+    hash = StateHash.add(hash, mAngSpeed);
+    hash = StateHash.add(hash, mAxis);
+    hash = StateHash.add(hash, mIsSilent);
+    return hash;
+    
+  } // Sprite.stateHash()
+
 } // class FlameBeamSpin
@@ -77,6 +77,7 @@ public class FlameBolt extends FlameBeam {
       return;
     }
     
+    stateChanged();
     mHeadPos += mSpeed;
     mTailPos += mSpeed;
 
@@ -95,4 +96,23 @@ public class FlameBolt extends FlameBeam {
     
   } // Sprite3D.advance()
 
+  // hash of the bolt's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.add(hash, mTotalLength);
+    hash = StateHash.add(hash, mSpeed);
+    hash = StateHash.add(hash, mHeadPos);
+    hash = StateHash.add(hash, mTailPos);
+    hash = StateHash.add(hash, mXStart);
+    hash = StateHash.add(hash, mYStart);
+    hash = StateHash.add(hash, mZStart);
+    hash = StateHash.add(hash, mXDirec);
+    hash = StateHash.add(hash, mYDirec);
+    hash = StateHash.add(hash, mZDirec);
+    return hash;
+    
+  } // Sprite.stateHash()
+
 } // class FlameBolt
@@ -51,13 +51,14 @@ abstract public class FlameParticles extends Particles {
   public boolean isOn() { return mIsOn; }
   
   // change the state of the flame
-  public void setFlame(boolean on) { mIsOn = on; }
+  public void setFlame(boolean on) { mIsOn = on; stateChanged(); }
   
   // change physical constants for the particles
   public void setPhysics(float speed, float gravity) {
   
     mSpeed = speed;
     mGravity = gravity;
+    stateChanged();
     
   } // setPhysics()
   
@@ -66,6 +67,7 @@ abstract public class FlameParticles extends Particles {
     
     mLifeTimeMin = min;
     mLifeTimeMax = max;
+    stateChanged();
     
   } // setLifeTime()
   
@@ -73,6 +75,7 @@ abstract public class FlameParticles extends Particles {
   public void setColours(byte colours[]) {
     
     mColours = colours;
+    stateChanged();
     
   } // setColours()
   
@@ -142,6 +145,21 @@ abstract public class FlameParticles extends Particles {
     
   } // Sprite3D.advance()
 
+  // hash of the flame's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.add(hash, mSpeed);
+    hash = StateHash.add(hash, mGravity);
+    hash = StateHash.add(hash, mLifeTimeMin);
+    hash = StateHash.add(hash, mLifeTimeMax);
+    hash = StateHash.add(hash, mColours);
+    hash = StateHash.add(hash, mIsOn);
+    return hash;
+    
+  } // Sprite.stateHash()
+  
   // display the particles
   @Override
   public void draw(EgaCanvas canvas) {
@@ -137,6 +137,7 @@ public class FloorBoss extends BlockArray {
     mState = State.kDead; 
     mFullSize = kRoomRadius;
     mMouthTimer = 0;
+    stateChanged();
     
   } // setDead()
   
@@ -152,6 +153,7 @@ public class FloorBoss extends BlockArray {
     if ( newSprite instanceof Player ) {
       assert( mPlayer == null );
       mPlayer = (Player)newSprite;
+      stateChanged();
     }
     
   } // Sprite.observeArrival()
@@ -163,6 +165,7 @@ public class FloorBoss extends BlockArray {
     if ( deadSprite instanceof Player ) {
       assert( deadSprite == mPlayer );
       mPlayer = null;
+      stateChanged();
     }
 
     super.observeDeparture(deadSprite);
@@ -277,6 +280,8 @@ public class FloorBoss extends BlockArray {
                       LinkedList<Sprite>     killTheseSprites,
                       LinkedList<StoryEvent> newStoryEvents) {
 
+    stateChanged();
+    
     mXPos += mXVel;
     mYPos += mYVel;
     
@@ -487,6 +492,34 @@ public class FloorBoss extends BlockArray {
                         LinkedList<StoryEvent> newStoryEvents) {
   } // Sprite.aftermath()
   
+  // hash of the boss's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.add(hash, mXPos);
+    hash = StateHash.add(hash, mYPos);
+    hash = StateHash.add(hash, mXVel);
+    hash = StateHash.add(hash, mYVel);
+    hash = StateHash.add(hash, mState.ordinal());
+    hash = StateHash.add(hash, mFullSize);
+    hash = StateHash.add(hash, mMouthTimer);
+    hash = StateHash.add(hash, mPlayer != null);
+    hash = StateHash.add(hash, mSwitch != null);
+    hash = StateHash.add(hash, mTimer);
+    hash = StateHash.add(hash, mHead != null);
+    hash = StateHash.add(hash, mHeadHits);
+    hash = StateHash.add(hash, mLiquid != null);
+    hash = StateHash.add(hash, mLiquidXPos);
+    hash = StateHash.add(hash, mLiquidYPos);
+    return hash;
+    
+  } // Sprite.stateHash()
+  
+  // the blocks are rebuilt on most frames, so aren't worth keeping
+  @Override
+  public boolean isStatic() { return false; }
+  
   // display the creature
   @Override
   public void draw(EgaCanvas canvas) {
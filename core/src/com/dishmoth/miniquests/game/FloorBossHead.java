@@ -86,7 +86,7 @@ public class FloorBossHead extends Sprite3D implements Obstacle {
   private boolean mKillable;
   
   // prepare resources
-  static public void initialize() {
+  static synchronized public void initialize() {
     
     if ( kBasicImages != null ) return;
 
@@ -147,7 +147,7 @@ public class FloorBossHead extends Sprite3D implements Obstacle {
   public boolean isHit() { return (mHitCounter > 0); }
   
   // the head dies the next time it is shot
-  public void setKillable() { mKillable = true; }
+  public void setKillable() { mKillable = true; stateChanged(); }
   
   // methods required for the Obstacle interface
   public boolean isPlatform(int x, int y, int z) { return false; }
@@ -189,6 +189,7 @@ public class FloorBossHead extends Sprite3D implements Obstacle {
       }
       mHitCounter = 1;
       Env.sounds().play(Sounds.FLOOR_HIT);
+      stateChanged();
     }
     
   } // stun()
@@ -199,6 +200,8 @@ public class FloorBossHead extends Sprite3D implements Obstacle {
                       LinkedList<Sprite>     killTheseSprites,
                       LinkedList<StoryEvent> newStoryEvents) {
 
+    stateChanged();
+    
     switch (mStage) {
     
       case 0: {
@@ -253,6 +256,24 @@ public class FloorBossHead extends Sprite3D implements Obstacle {
     
   } // Sprite.advance()
 
+  // hash of the head's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = StateHash.start(0x46426864L); // "FBhd"
+    hash = StateHash.add(hash, mXPos);
+    hash = StateHash.add(hash, mYPos);
+    hash = StateHash.add(hash, mZPos);
+    hash = StateHash.add(hash, mStage);
+    hash = StateHash.add(hash, mTimer);
+    hash = StateHash.add(hash, mLookCount);
+    hash = StateHash.add(hash, mLookingLeft);
+    hash = StateHash.add(hash, mHitCounter);
+    hash = StateHash.add(hash, mKillable);
+    return hash;
+    
+  } // Sprite.stateHash()
+
   // display the head
   @Override
   public void draw(EgaCanvas canvas) {
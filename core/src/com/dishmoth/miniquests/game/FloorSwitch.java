@@ -78,10 +78,18 @@ public class FloorSwitch extends Sprite3D {
   public boolean isOn() { return mIsOn; }
   
   // freeze the state of the switch
-  public void freezeState(boolean on) { mIsOn = on; mStateFrozen = true; }
+  public void freezeState(boolean on) { 
+    mIsOn = on; 
+    mStateFrozen = true; 
+    stateChanged(); 
+  }
 
   // unfreeze the state of the switch
-  public void unfreezeState() { mIsOn = false; mStateFrozen = false; }
+  public void unfreezeState() { 
+    mIsOn = false; 
+    mStateFrozen = false; 
+    stateChanged(); 
+  }
 
   // access to position
   public int getXPos() { return mXPos; }
@@ -152,6 +160,11 @@ public class FloorSwitch extends Sprite3D {
       if ( somethingOnSwitch ) break;
     }
     
+    final boolean oldToggleState = mToggleState;
+    final float   oldDepthLeft   = mDepthLeft,
+                  oldDepthRight  = mDepthRight,
+                  oldDepthBottom = mDepthBottom;
+    
     if ( !mStateFrozen ) {
       mToggleState = ( somethingOnSwitch != mIsOn );
     }
@@ -178,6 +191,11 @@ public class FloorSwitch extends Sprite3D {
     }
     assert( platformExistsBelow );
     
+    if ( mToggleState != oldToggleState || mDepthLeft != oldDepthLeft ||
+         mDepthRight != oldDepthRight || mDepthBottom != oldDepthBottom ) {
+      stateChanged();
+    }
+    
   } // Sprite.interact()
   
   // change the state of the switch
@@ -190,11 +208,30 @@ public class FloorSwitch extends Sprite3D {
       assert( !mStateFrozen );
       mToggleState = false;
       mIsOn = !mIsOn;
+      stateChanged();
       newStoryEvents.add( new EventStateChange(this) );
     }
     
   } // Sprite.aftermath()
   
+  // hash of the switch's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = StateHash.start(0x46537769L); // "FSwi"
+    hash = StateHash.add(hash, mXPos);
+    hash = StateHash.add(hash, mYPos);
+    hash = StateHash.add(hash, mZPos);
+    hash = StateHash.add(hash, mIsOn);
+    hash = StateHash.add(hash, mToggleState);
+    hash = StateHash.add(hash, mStateFrozen);
+    hash = StateHash.add(hash, mDepthLeft);
+    hash = StateHash.add(hash, mDepthRight);
+    hash = StateHash.add(hash, mDepthBottom);
+    return hash;
+    
+  } // Sprite.stateHash()
+  
   // display the object
   @Override
   public void draw(EgaCanvas canvas) {
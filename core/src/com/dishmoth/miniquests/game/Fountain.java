@@ -167,6 +167,7 @@ public class Fountain extends Sprite3D implements Obstacle {
                       LinkedList<StoryEvent> newStoryEvents) {
 
     if ( mParticles == null ) return;
+    stateChanged();
     
     float numParticles = kParticleRate;
     while ( numParticles > 1.0f ) {
@@ -181,6 +182,20 @@ public class Fountain extends Sprite3D implements Obstacle {
     
   } // Sprite.advance()
 
+  // hash of the fountain's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = StateHash.start(0x466F756EL); // "Foun"
+    hash = StateHash.add(hash, mXPos);
+    hash = StateHash.add(hash, mYPos);
+    hash = StateHash.add(hash, mZPos);
+    hash = StateHash.add(hash, (mParticles == null) ? 0 
+                                                    : mParticles.stateHash());
+    return hash;
+    
+  } // Sprite.stateHash()
+  
   // display the object
   @Override
   public void draw(EgaCanvas canvas) {
@@ -0,0 +1,165 @@
+/*
+ *  GameContext.java
+ *  Copyright (c) 2017 Simon Hern
+ *  Contact: dishmoth@yahoo.co.uk, dishmoth.com, github.com/dishmoth
+ */
+
+package com.dishmoth.miniquests.game;
+
+// the per-game state that Env hands out (random numbers, keys, sounds, etc.)
+// each GameManager owns one of these, so several games can exist at once
+public class GameContext {
+
+  // how Env finds the context for the code that is currently running
+  // (the default binding is a single global; see Env.setContextBinding())
+  public interface Binding {
+
+    // the context in use (or null if none has been bound)
+    public GameContext current();
+
+    // change the context in use
+    public void set(GameContext context);
+
+  } // interface GameContext.Binding
+
+  // the default binding: one context shared by everything (as for GWT)
+  static class GlobalBinding implements Binding {
+    private GameContext mContext = null;
+    public GameContext current() { return mContext; }
+    public void set(GameContext context) { mContext = context; }
+  } // class GameContext.GlobalBinding
+
+  // keys identifying the random substreams used within a game
+  private static final long kStoryStreamKey   = 1L << 40,
+                            kSpriteStreamKeys = 2L << 40;
+  
+  // frames since the game was initialized
+  private long mTicks;
+
+  // random numbers: the game's seed, plus the stream currently in use
+  private RandomStream mRootRandom,
+                       mRandom;
+  
+  // number of sprite substreams handed out so far
+  private int mNumSpriteStreams;
+  
+  // assorted helper objects
+  private EnvBits    mEnvBits;
+  private KeyMonitor mKeyMonitor;
+  private Sounds     mSounds;
+  private SaveState  mSaveState;
+
+  // what controls the player in place of the keys (or null for the keys)
+  private Brain.Module mController;
+
+  // constructor (envBits and sounds should be initialized by the caller)
+  public GameContext(EnvBits envBits, Sounds sounds, KeyMonitor keyMonitor) {
+
+    this(envBits, sounds, keyMonitor, RandomStream.freshSeed());
+    
+  } // constructor
+
+  // constructor (a given seed and inputs always play out the same way)
+  public GameContext(EnvBits envBits, Sounds sounds, KeyMonitor keyMonitor,
+                     long seed) {
+
+    assert( envBits != null && sounds != null );
+
+    mTicks = 0;
+
+    mRootRandom = new RandomStream(seed);
+    mRandom     = mRootRandom;
+    mNumSpriteStreams = 0;
+    
+    mEnvBits    = envBits;
+    mKeyMonitor = keyMonitor;
+    mSounds     = sounds;
+    mSaveState  = new SaveState();
+    mController = null;
+
+  } // constructor
+
+  // add the key/mouse/etc controller after construction
+  public void setKeyMonitor(KeyMonitor keyMonitor) {
+
+    assert( mKeyMonitor == null && keyMonitor != null );
+    mKeyMonitor = keyMonitor;
+
+  } // setKeyMonitor()
+
+  // control the player by something other than the keys (or by the keys
+  // again if null); affects players created after the change
+  public void setController(Brain.Module controller) {
+
+    mController = controller;
+
+  } // setController()
+
+  // discard references
+  public void dispose() {
+
+    mRootRandom = mRandom = null;
+    mKeyMonitor = null;
+    mSounds = null;
+    mController = null;
+
+  } // dispose()
+
+  // frames since the start of the game
+  public long ticks() { return mTicks; }
+
+  // note that the game has advanced by one frame
+  public void incrementTicks() { ++mTicks; }
+
+  // the seed that the game's random numbers derive from
+  public long seed() { return mRootRandom.seed(); }
+  
+  // the random number stream currently in use
+  public RandomStream random() { return mRandom; }
+  
+  // change the random number stream in use (returns the previous one)
+  public RandomStream useRandom(RandomStream stream) {
+    
+    assert( stream != null );
+    RandomStream previous = mRandom;
+    mRandom = stream;
+    return previous;
+    
+  } // useRandom()
+  
+  // hash of how far the game's own random numbers have got 
+  // (see GameManager.randomHash())
+  public long randomHash() {
+    
+    long hash = StateHash.start(mRootRandom.state());
+    hash = StateHash.add(hash, mNumSpriteStreams);
+    return hash;
+    
+  } // randomHash()
+  
+  // random numbers for the game's stories (and rooms)
+  public RandomStream storyRandom() { 
+    
+    return mRootRandom.split(kStoryStreamKey); 
+    
+  } // storyRandom()
+  
+  // random numbers for a newly created sprite
+  // (sprites are created in a fixed order, so each gets the same stream
+  // from one run to the next, however the sprites are advanced)
+  public RandomStream newSpriteRandom() {
+    
+    return mRootRandom.split(kSpriteStreamKeys + (mNumSpriteStreams++));
+    
+  } // newSpriteRandom()
+  
+  // access to the helper objects
+  public EnvBits    envBits()   { return mEnvBits; }
+  public KeyMonitor keys()      { return mKeyMonitor; }
+  public Sounds     sounds()    { return mSounds; }
+  public SaveState  saveState() { return mSaveState; }
+
+  // what controls the player in place of the keys (or null for the keys)
+  public Brain.Module controller() { return mController; }
+
+} // class GameContext
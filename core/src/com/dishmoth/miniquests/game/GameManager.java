@@ -24,11 +24,28 @@ public class GameManager {
   // generated by the sprites to be processed by the current story
   private LinkedList<StoryEvent> mStoryEvents = null;
   
-  // constructor (Agency may be null)
-  public GameManager(Story  startingStory) {
+  // random numbers, keys, sounds, etc. for this game
+  private GameContext mContext = null;
+  
+  // random numbers used while the story advances
+  private RandomStream mStoryRandom = null;
+  
+  // constructor (uses the current context, see Env.context())
+  public GameManager(Story startingStory) {
+    
+    this(startingStory, Env.context());
+    
+  } // constructor
+  
+  // constructor (the story should be created with the context bound)
+  public GameManager(Story startingStory, GameContext context) {
     
+    assert( startingStory != null && context != null );
+    
+    mContext       = context;
+    mStoryRandom   = context.storyRandom();
     mStory         = startingStory;
-    mSpriteManager = new SpriteManager();
+    mSpriteManager = new SpriteManager(context);
 
     mStoryEvents = new LinkedList<StoryEvent>();
     mStoryEvents.add(new Story.EventGameBegins());
@@ -38,29 +55,77 @@ public class GameManager {
   // advance the game (story and sprites) by one frame
   public void advance() {
 
-    // advance the story (possibly replace with a new story; advance that too)
-    while (true) {
-      Story changeOfStory = mStory.advance(mStoryEvents, mSpriteManager);
-      if ( changeOfStory == null ) break;
-      mStory = changeOfStory;
-    }
-    
-    // advance the sprites
-    mSpriteManager.advance(mStoryEvents);
+    GameContext oldContext = Env.bindContext(mContext);
+    try {
     
-    // play queued sounds
-    Env.sounds().advance();
-    
-    // count the frame
-    Env.incrementTicks();
+      // advance the story (possibly replace with a new story; advance that)
+      RandomStream oldRandom = mContext.useRandom(mStoryRandom);
+      try {
+        while (true) {
+          Story changeOfStory = mStory.advance(mStoryEvents, mSpriteManager);
+          if ( changeOfStory == null ) break;
+          mStory = changeOfStory;
+        }
+      } finally {
+        mContext.useRandom(oldRandom);
+      }
+      
+      // advance the sprites
+      mSpriteManager.advance(mStoryEvents);
+      
+      // play queued sounds
+      Env.sounds().advance();
+      
+      // count the frame
+      Env.incrementTicks();
+      
+    } finally {
+      Env.bindContext(oldContext);
+    }
     
   } // advance()
 
   // draw the current game screen
   public void draw(EgaCanvas canvas) {
 
-    mSpriteManager.draw(canvas);
+    GameContext oldContext = Env.bindContext(mContext);
+    try {
+      mSpriteManager.draw(canvas);
+    } finally {
+      Env.bindContext(oldContext);
+    }
     
   } // draw()
   
+  // the context that this game runs in
+  public GameContext context() { return mContext; }
+  
+  // access to the game's sprites
+  public SpriteManager spriteManager() { return mSpriteManager; }
+  
+  // the current story controller
+  public Story story() { return mStory; }
+  
+  // 64-bit hash of the state of the game (story, rooms and sprites)
+  // (kept up to date as the game advances, so cheap to call; games that
+  // would play out the same way have the same hash, but the tick count and
+  // random numbers are not included)
+  public long stateHash() {
+    
+    return mSpriteManager.stateHash() + mStory.stateHash();
+    
+  } // stateHash()
+  
+  // hash of how far the game's random numbers have got (kept apart from 
+  // stateHash() since it changes whenever a number is drawn; two games are 
+  // only sure to play out the same way if both hashes match)
+  public long randomHash() {
+    
+    long hash = mContext.randomHash();
+    hash = StateHash.add(hash, mStoryRandom.state());
+    hash = StateHash.add(hash, mSpriteManager.randomHash());
+    return hash;
+    
+  } // randomHash()
+  
 } // class GameManager
@@ -104,7 +104,7 @@ public class GlowPath extends Sprite3D {
   } // buildPath()
   
   // make the path all light up
-  public void setComplete() { mPathIndex = mPath.size()-1; }
+  public void setComplete() { mPathIndex = mPath.size()-1; stateChanged(); }
   
   // whether the path is complete or not
   public boolean complete() { return (mPathIndex == mPath.size()-1); }
@@ -113,7 +113,11 @@ public class GlowPath extends Sprite3D {
   public int index() { return mPathIndex; }
   
   // modify the current path position
-  public void setIndex(int i) { assert(i>=0 && i<mPath.size()); mPathIndex=i; }
+  public void setIndex(int i) { 
+    assert(i>=0 && i<mPath.size()); 
+    mPathIndex=i; 
+    stateChanged(); 
+  }
 
   // whether a particular position is on the path
   public boolean includes(int x, int y, int z) {
@@ -132,6 +136,7 @@ public class GlowPath extends Sprite3D {
     if ( newSprite instanceof Player ) {
       assert( mPlayer == null );
       mPlayer = (Player)newSprite;
+      stateChanged();
     } else {
       super.observeArrival(newSprite);
     }
@@ -145,6 +150,7 @@ public class GlowPath extends Sprite3D {
     if ( deadSprite instanceof Player ) {
       assert( deadSprite == mPlayer );
       mPlayer = null;
+      stateChanged();
     } else {
       super.observeDeparture(deadSprite);
     }
@@ -174,6 +180,7 @@ public class GlowPath extends Sprite3D {
                         LinkedList<StoryEvent> newStoryEvents) {
     
     if ( complete() ) return;
+    stateChanged();
     
     int x = ( (mPlayer!=null) ? mPlayer.getXPos() : -1 ),
         y = ( (mPlayer!=null) ? mPlayer.getYPos() : -1 ),
@@ -198,6 +205,20 @@ public class GlowPath extends Sprite3D {
     
   } // Sprite.aftermath()
   
+  // hash of the path's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = StateHash.start(0x476C6F77L); // "Glow"
+    hash = StateHash.add(hash, mPath.size());
+    hash = StateHash.add(hash, mColour);
+    hash = StateHash.add(hash, mPlayer != null);
+    hash = StateHash.add(hash, mPathIndex);
+    hash = StateHash.add(hash, mRetreatTimer);
+    return hash;
+    
+  } // Sprite.stateHash()
+  
   // display the glowing tiles
   @Override
   public void draw(EgaCanvas canvas) {
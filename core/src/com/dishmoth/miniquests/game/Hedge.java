@@ -83,6 +83,10 @@ public class Hedge extends Sprite3D implements Obstacle {
 
   } // Sprite.advance()
 
+  // the hedge never changes
+  @Override
+  public boolean isStatic() { return true; }
+  
   // display the object
   @Override
   public void draw(EgaCanvas canvas) {
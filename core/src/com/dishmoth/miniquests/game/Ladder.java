@@ -36,6 +36,7 @@ public class Ladder extends Sprite3D implements Obstacle {
     if ( newSprite instanceof Player ) {
       assert( mPlayer == null );
       mPlayer = (Player)newSprite;
+      stateChanged();
     }
     
   } // Sprite.observeArrival()
@@ -47,6 +48,7 @@ public class Ladder extends Sprite3D implements Obstacle {
     if ( deadSprite instanceof Player ) {
       assert( mPlayer == deadSprite );
       mPlayer = null;
+      stateChanged();
     }
 
     super.observeDeparture(deadSprite);
@@ -70,6 +72,16 @@ public class Ladder extends Sprite3D implements Obstacle {
   public boolean isPlatform(int x, int y, int z) { return false; }
   public boolean isVoid(int x, int y, int z) { return false; }
 
+  // hash of the ladder's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = StateHash.start(0x4C616464L); // "Ladd"
+    hash = StateHash.add(hash, mPlayer != null);
+    return hash;
+    
+  } // Sprite.stateHash()
+  
   // nothing to do here
   @Override
   public void advance(LinkedList<Sprite> addTheseSprites,
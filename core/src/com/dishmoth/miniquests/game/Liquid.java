@@ -100,9 +100,9 @@ public class Liquid extends Sprite3D {
   } // constructor
   
   // set position (in pixels)
-  public void setXPos(int x) { mXPos = x; }
-  public void setYPos(int y) { mYPos = y; }
-  public void setZPos(int z) { mZPos = z; }
+  public void setXPos(int x) { mXPos = x; stateChanged(); }
+  public void setYPos(int y) { mYPos = y; stateChanged(); }
+  public void setZPos(int z) { mZPos = z; stateChanged(); }
 
   // access to position (in pixels)
   public int getXPos() { return mXPos; }
@@ -114,6 +114,7 @@ public class Liquid extends Sprite3D {
     
     assert( depth >= 1 ); 
     mLethalDepth = depth; 
+    stateChanged();
     
   } // setLethalDepth()
   
@@ -151,10 +152,10 @@ public class Liquid extends Sprite3D {
               refYPos = above,
               width   = left + right + 1,
               height  = above + below + 1;
-    mImage = new EgaImage(refXPos, refYPos, width, height);
-    
-    byte pixels[] = mImage.pixels();
-    float depths[] = mImage.depths();
+    byte pixels[] = new byte[width*height];
+    float depths[] = new float[width*height];
+    Arrays.fill(pixels, (byte)-1);
+    Arrays.fill(depths, 1.0e6f);
     
     for ( int iy = 0 ; iy < mYSize ; iy++ ) {
       String yRow = mPattern[mYSize-1-iy];
@@ -177,6 +178,8 @@ public class Liquid extends Sprite3D {
       }
     }
 
+    mImage = new EgaImage(refXPos, refYPos, width, height, pixels, depths);
+    
     mPixelTypes = new int[pixels.length];
     Arrays.fill(mPixelTypes, -1);
     
@@ -193,13 +196,16 @@ public class Liquid extends Sprite3D {
   // direct access to the image object
   public EgaImage image() { return mImage; }
   
-  // direct access to the pixel type array
+  // direct access to the pixel type array (call recolourPixels() after
+  // changing it)
   public int[] pixelTypes() { return mPixelTypes; }
   
   // make replacement image pixels for ones that have been erased 
   // (this provides a way of updating after changing pixel types)
   public void recolourPixels() {
     
+    stateChanged();
+    
     byte pixels[] = mImage.pixels();
     for ( int k = 0 ; k < pixels.length ; k++ ) {
       if ( pixels[k] == -1 && mPixelTypes[k] >= 0 ) {
@@ -267,6 +273,24 @@ public class Liquid extends Sprite3D {
     
   } // Sprite.advance()
 
+  // hash of the liquid's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = StateHash.start(0x4C697175L); // "Liqu"
+    hash = StateHash.add(hash, mType);
+    hash = StateHash.add(hash, mLethalDepth);
+    hash = StateHash.add(hash, mXPos);
+    hash = StateHash.add(hash, mYPos);
+    hash = StateHash.add(hash, mZPos);
+    hash = StateHash.add(hash, mXSize);
+    hash = StateHash.add(hash, mYSize);
+    hash = StateHash.add(hash, mPattern);
+    hash = StateHash.add(hash, mPixelTypes);
+    return hash;
+    
+  } // Sprite.stateHash()
+  
   // display the liquid
   @Override
   public void draw(EgaCanvas canvas) {
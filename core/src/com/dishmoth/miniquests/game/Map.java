@@ -90,7 +90,11 @@ public class Map extends Sprite {
   } // reset()
   
   // freeze the map for a time
-  public void pause(int delay) { assert(delay > 0); mPauseTimer = delay; }
+  public void pause(int delay) { 
+    assert(delay > 0); 
+    mPauseTimer = delay; 
+    stateChanged(); 
+  }
   
   // get information for restarting the map here
   public int[] getRestartData() { return new int[]{ mPos }; }
@@ -100,6 +104,7 @@ public class Map extends Sprite {
     
     assert( mScrollDirec == -1 );
     mDungeonEntrance = true; 
+    stateChanged();
     
   } // dungeonEntrance()
   
@@ -114,6 +119,8 @@ public class Map extends Sprite {
                   keyLeft  = Env.keys().left(),
                   keyRight = Env.keys().right(),
                   keyFire  = Env.keys().fire();
+
+    stateChanged();
     
     if ( mPauseTimer != 0 ) {
       
@@ -198,6 +205,22 @@ public class Map extends Sprite {
     
   } // clearArrows()
   
+  // hash of the map's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = StateHash.start(0x4D617020L); // "Map "
+    hash = StateHash.add(hash, mPos);
+    hash = StateHash.add(hash, mScrollDirec);
+    hash = StateHash.add(hash, mScrollDist);
+    hash = StateHash.add(hash, mPauseTimer);
+    hash = StateHash.add(hash, mDungeonEntrance);
+    hash = StateHash.add(hash, mDungeonTrigger);
+    hash = StateHash.addPresence(hash, mArrows);
+    return hash;
+    
+  } // Sprite.stateHash()
+  
   // display the image
   @Override
   public void draw(EgaCanvas canvas) {
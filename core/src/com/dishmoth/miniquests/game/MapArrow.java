@@ -52,7 +52,7 @@ public class MapArrow extends Sprite {
   private int mTimer;
   
   // prepare images
-  public static void initialize() {
+  public static synchronized void initialize() {
 
     if ( kImages != null ) return;
     
@@ -131,6 +131,7 @@ public class MapArrow extends Sprite {
     
     assert( col >= 0 && col < kColourMap.length );
     mColour = col;
+    stateChanged();
     
   } // setColour()
   
@@ -141,9 +142,22 @@ public class MapArrow extends Sprite {
                       LinkedList<StoryEvent> newStoryEvents) {
 
     if ( ++mTimer >= kTimeOut ) mTimer = 0;
+    stateChanged();
     
   } // Sprite.advance()
 
+  // hash of the arrow's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = StateHash.start(0x4D617041L); // "MapA"
+    hash = StateHash.add(hash, mDirec);
+    hash = StateHash.add(hash, mColour);
+    hash = StateHash.add(hash, mTimer);
+    return hash;
+    
+  } // Sprite.stateHash()
+  
   // display the arrow
   @Override
   public void draw(EgaCanvas canvas) {
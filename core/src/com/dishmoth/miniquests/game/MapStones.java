@@ -94,6 +94,7 @@ public class MapStones extends Sprite {
                       LinkedList<StoryEvent> newStoryEvents) {
     
     if ( mNumQuests == 0 ) return;
+    stateChanged();
 
     if ( --mTimer < 0 ) {
       do {
@@ -104,6 +105,18 @@ public class MapStones extends Sprite {
     
   } // Sprite.advance()
 
+  // hash of the stones' state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = StateHash.start(0x4D617053L); // "MapS"
+    hash = StateHash.add(hash, mNumQuests);
+    hash = StateHash.add(hash, mStone);
+    hash = StateHash.add(hash, mTimer);
+    return hash;
+    
+  } // Sprite.stateHash()
+  
   // make the stones flash
   @Override
   public void draw(EgaCanvas canvas) {
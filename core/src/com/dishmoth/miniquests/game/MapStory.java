@@ -56,7 +56,7 @@ public class MapStory extends Story {
   private boolean mEscPressed;
   
   // load resources
-  static public void initialize() {
+  static synchronized public void initialize() {
     
     if ( kQuestImages != null ) return;
     
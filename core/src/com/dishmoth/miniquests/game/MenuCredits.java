@@ -27,7 +27,7 @@ public class MenuCredits extends MenuPanel {
   private int mTimer;
 
   // prepare resources
-  static void initialize() {
+  static synchronized void initialize() {
     
     MenuPanel.initialize();
     
@@ -26,7 +26,7 @@ public class MenuQuest extends MenuPanel {
   private boolean mReady;
   
   // prepare resources
-  static void initialize() {
+  static synchronized void initialize() {
     
     MenuPanel.initialize();
 
@@ -23,7 +23,7 @@ public class MenuResize extends MenuPanel {
   private MapArrow mArrows[];
   
   // prepare resources
-  static void initialize() {
+  static synchronized void initialize() {
     
     MenuPanel.initialize();
     
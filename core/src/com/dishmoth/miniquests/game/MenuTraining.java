@@ -27,7 +27,7 @@ public class MenuTraining extends MenuPanel {
   private boolean mReady;
   
   // prepare resources
-  static void initialize() {
+  static synchronized void initialize() {
     
     MenuPanel.initialize();
     
@@ -100,6 +100,26 @@ public class Particle {
     
   } // hits()
   
+  // hash of the particle's state (see StateHash)
+  public long stateHash() {
+    
+    long hash = StateHash.start(0x5061726CL); // "Parl"
+    hash = StateHash.add(hash, mXPos);
+    hash = StateHash.add(hash, mYPos);
+    hash = StateHash.add(hash, mZPos);
+    hash = StateHash.add(hash, mXVel);
+    hash = StateHash.add(hash, mYVel);
+    hash = StateHash.add(hash, mZVel);
+    hash = StateHash.add(hash, mXAccel);
+    hash = StateHash.add(hash, mYAccel);
+    hash = StateHash.add(hash, mZAccel);
+    hash = StateHash.add(hash, mColour);
+    hash = StateHash.add(hash, mAge);
+    hash = StateHash.add(hash, mLifeTime);
+    return hash;
+    
+  } // stateHash()
+  
   // draw the particle
   public void draw(EgaCanvas canvas, Camera camera) {
     
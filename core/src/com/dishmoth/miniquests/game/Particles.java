@@ -32,7 +32,7 @@ public class Particles extends Sprite3D {
   } // constructor
 
   // add a particle to the set
-  public void add(Particle p) { mParticles.add(p); }
+  public void add(Particle p) { mParticles.add(p); stateChanged(); }
   
   // check for Sprites we want to keep track of
   @Override
@@ -67,6 +67,8 @@ public class Particles extends Sprite3D {
                       LinkedList<Sprite>     killTheseSprites,
                       LinkedList<StoryEvent> newStoryEvents) {
 
+    if ( mParticles.size() > 0 || mCollisionCountDown > 0 ) stateChanged();
+    
     for ( Iterator<Particle> it = mParticles.iterator() ; it.hasNext() ; ) {
       Particle p = it.next();
       p.advance();
@@ -89,6 +91,18 @@ public class Particles extends Sprite3D {
       
   } // deadParticle()
   
+  // hash of the particles' state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = StateHash.start(0x50617274L); // "Part"
+    hash = StateHash.add(hash, mCollisionCountDown);
+    hash = StateHash.add(hash, mParticles.size());
+    for ( Particle p : mParticles ) hash = StateHash.add(hash, p.stateHash());
+    return hash;
+    
+  } // Sprite.stateHash()
+  
   // display the particles
   @Override
   public void draw(EgaCanvas canvas) {
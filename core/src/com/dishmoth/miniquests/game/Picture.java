@@ -61,8 +61,20 @@ public class Picture extends Sprite {
   // access the position
   public int getXPos() { return mXPos; }
   public int getYPos() { return mYPos; }
-  public void setXPos(int xPos) { mXPos = xPos; }
-  public void setYPos(int yPos) { mYPos = yPos; }
+  public void setXPos(int xPos) { mXPos = xPos; stateChanged(); }
+  public void setYPos(int yPos) { mYPos = yPos; stateChanged(); }
+  
+  // hash of the picture's position (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = StateHash.start(0x50696374L); // "Pict"
+    hash = StateHash.add(hash, mXPos);
+    hash = StateHash.add(hash, mYPos);
+    hash = StateHash.add(hash, mDepth);
+    return hash;
+    
+  } // Sprite.stateHash()
   
   // nothing to do here
   @Override
@@ -37,6 +37,9 @@ public class Player extends Sprite3D {
 
   // how far the player falls before dying
   private static final int kFatalFallDistance = 20;
+
+  // returned by stepHeight() if the player can't step in a direction
+  public static final int NO_STEP = Integer.MIN_VALUE;
   
   // colour when killed
   private static final byte kSplatterColour = 9;
@@ -141,6 +144,7 @@ public class Player extends Sprite3D {
     mStepXPos += dx;
     mStepYPos += dy;
     mStepZPos += dz;
+    stateChanged();
     
   } // shiftPos()
   
@@ -162,6 +166,7 @@ public class Player extends Sprite3D {
       mYPos += dy;
       mStepXPos += dx;
       mStepYPos += dy;
+      stateChanged();
     }
     
   } // shiftPos()
@@ -177,22 +182,33 @@ public class Player extends Sprite3D {
     
     assert( distance > 0 );
     mFatalFallDistance = distance;
+    stateChanged();
     
   } // setFatalFallDistance()
   
+  // how far the player can fall without dying
+  public int fatalFallDistance() { return mFatalFallDistance; }
+  
+  // the obstacles that the player is navigating (for analysis tools)
+  public LinkedList<Obstacle> obstacles() { return mObstacles; }
+  
   // register fatal collision
   public void destroy(int direc) {
     
     assert( direc >= -1 && direc < 4 );
     mKilled = true;
+    stateChanged();
 
   } // destroy()
   
   // give the player some instructions
-  public void addBrain(Brain.Module newBrain) { mBrain.add(newBrain); }
+  public void addBrain(Brain.Module newBrain) { 
+    mBrain.add(newBrain); 
+    stateChanged(); 
+  }
   
   // cancel the player's last instructions
-  public void removeBrain() { mBrain.remove(); }
+  public void removeBrain() { mBrain.remove(); stateChanged(); }
   
   // check for Sprites we want to keep track of
   @Override
@@ -253,6 +269,7 @@ public class Player extends Sprite3D {
                        : -1;
     
     mPlaySteppingSound = false;
+    stateChanged();
     
     if ( mActionTimer > 0 ) {
 
@@ -313,15 +330,12 @@ public class Player extends Sprite3D {
                 yDest = mYPos + ((keyDirec==Env.UP)    ? +1 : 0)
                               + ((keyDirec==Env.DOWN)  ? -1 : 0);
 
-      for ( int k = 0 ; k < 5 ; k++ ) {
-        final int zDest = mZPos + ((k<=2) ? k : (2-k));
-        if ( standingPosition(xDest, yDest, zDest) ) {
-          mStepXPos = xDest;
-          mStepYPos = yDest;
-          mStepZPos = zDest;
-          mStepping = true;
-          break;
-        }
+      final int zDest = stepHeight(mObstacles, mXPos, mYPos, mZPos, keyDirec);
+      if ( zDest != NO_STEP ) {
+        mStepXPos = xDest;
+        mStepYPos = yDest;
+        mStepZPos = zDest;
+        mStepping = true;
       }
       
       if ( mStepping ) {
@@ -383,17 +397,40 @@ public class Player extends Sprite3D {
   // check isPlatform() on all obstacles
   private boolean isPlatform(int x, int y, int z) {
     
-    for ( Obstacle ob : mObstacles ) {
+    return isPlatform(mObstacles, x, y, z);
+    
+  } // isPlatform()
+  
+  // check isEmpty() on all obstacles
+  private boolean isEmpty(int x, int y, int z) {
+    
+    return isEmpty(mObstacles, x, y, z);
+    
+  } // isEmpty()
+  
+  // whether it's possible for the player to be at the specified position
+  private boolean standingPosition(int x, int y, int z) {
+    
+    return standingPosition(mObstacles, x, y, z);
+    
+  } // standingPosition()
+  
+  // check isPlatform() on a list of obstacles
+  public static boolean isPlatform(Iterable<Obstacle> obstacles,
+                                   int x, int y, int z) {
+    
+    for ( Obstacle ob : obstacles ) {
       if ( ob.isPlatform(x, y, z) ) return true;
     }
     return false;
     
   } // isPlatform()
   
-  // check isEmpty() on all obstacles
-  private boolean isEmpty(int x, int y, int z) {
+  // check isEmpty() on a list of obstacles
+  public static boolean isEmpty(Iterable<Obstacle> obstacles,
+                                int x, int y, int z) {
     
-    for ( Obstacle ob : mObstacles ) {
+    for ( Obstacle ob : obstacles ) {
       if ( !ob.isEmpty(x, y, z) ) return false;
     }
     return true;
@@ -401,18 +438,38 @@ public class Player extends Sprite3D {
   } // isEmpty()
   
   // whether it's possible for the player to be at the specified position
-  private boolean standingPosition(int x, int y, int z) {
+  // amongst a list of obstacles (platform below, clear space above)
+  public static boolean standingPosition(Iterable<Obstacle> obstacles,
+                                         int x, int y, int z) {
     
-    if ( !isPlatform(x, y, z) ) return false;
+    if ( !isPlatform(obstacles, x, y, z) ) return false;
     
     for ( int k = 1 ; k <= kPlayerHeight ; k++ ) {
-      if ( !isEmpty(x, y, z+k) ) return false;
+      if ( !isEmpty(obstacles, x, y, z+k) ) return false;
     }
 
     return true;
     
   } // standingPosition()
   
+  // the height that the player reaches by stepping from a position in a
+  // direction (or NO_STEP if the way is blocked)
+  // (level steps are preferred, then up to two up, then up to two down)
+  public static int stepHeight(Iterable<Obstacle> obstacles,
+                               int x, int y, int z, int direc) {
+    
+    assert( direc >= 0 && direc < 4 );
+    
+    final int xDest = x + Env.STEP_X[direc],
+              yDest = y + Env.STEP_Y[direc];
+    for ( int k = 0 ; k < 5 ; k++ ) {
+      final int zDest = z + ((k<=2) ? k : (2-k));
+      if ( standingPosition(obstacles, xDest, yDest, zDest) ) return zDest;
+    }
+    return NO_STEP;
+    
+  } // stepHeight()
+  
   // check for any changes to a previously valid 'standing position'
   // 0 => no change, +1 => platform moved up, +2 => too far up  
   // -1 => platform moved down, -2 => too far down
@@ -568,6 +625,34 @@ public class Player extends Sprite3D {
     
   } // Sprite.aftermath()
   
+  // hash of the player's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = StateHash.start(0x506C6179L); // "Play"
+    hash = StateHash.add(hash, mXPos);
+    hash = StateHash.add(hash, mYPos);
+    hash = StateHash.add(hash, mZPos);
+    hash = StateHash.add(hash, mDirec);
+    hash = StateHash.add(hash, mActionTimer);
+    hash = StateHash.add(hash, mStepping);
+    hash = StateHash.add(hash, mStepXPos);
+    hash = StateHash.add(hash, mStepYPos);
+    hash = StateHash.add(hash, mStepZPos);
+    hash = StateHash.add(hash, mFalling);
+    hash = StateHash.add(hash, mFallDistance);
+    hash = StateHash.add(hash, mFatalFallDistance);
+    hash = StateHash.add(hash, mFiring);
+    hash = StateHash.add(hash, mReloadDelay);
+    hash = StateHash.add(hash, mFireAway);
+    hash = StateHash.add(hash, mKilled);
+    hash = StateHash.add(hash, mLiquidSubmersion);
+    hash = StateHash.add(hash, mPlaySteppingSound);
+    hash = StateHash.add(hash, mBrain.stateHash());
+    return hash;
+    
+  } // Sprite.stateHash()
+  
   // display the player
   @Override
   public void draw(EgaCanvas canvas) {
@@ -30,6 +30,10 @@ public class QuestStats {
   private int mSavedDeaths,
               mSavedTime;
   
+  // running totals (so that progress can be checked cheaply every frame)
+  private int  mNumDeaths;
+  private long mRoomsVisited;
+  
   // constructor
   public QuestStats(int questNum) {
   
@@ -39,6 +43,9 @@ public class QuestStats {
     mSavedDeaths = 0;
     mSavedTime = 0;
     
+    mNumDeaths = 0;
+    mRoomsVisited = 0;
+    
   } // constructor
   
   // record a change of room
@@ -46,6 +53,7 @@ public class QuestStats {
     
     assert( roomNum >= 0 );
     mStats.add(new RoomStats(roomNum));
+    if ( roomNum < 64 ) mRoomsVisited |= (1L << roomNum);
     
   } // newRoom()
 
@@ -62,6 +70,7 @@ public class QuestStats {
     
     assert( mStats.size() > 0 );
     mStats.getLast().deaths += 1;
+    mNumDeaths += 1;
     
   } // countDeath()
 
@@ -90,6 +99,12 @@ public class QuestStats {
     
   } // totalDeaths()
   
+  // number of deaths since the stats were created (not counting restored)
+  public int numDeaths() { return mNumDeaths; }
+  
+  // number of different rooms entered since the stats were created
+  public int numRoomsVisited() { return Long.bitCount(mRoomsVisited); }
+  
   // record the parts of the stats that contribute to the quest score
   public void save(BitBuffer buffer) {
     
@@ -131,6 +131,12 @@ public class QuestStory extends Story {
   // keep track of whether the escape key is held down
   private boolean mEscPressed;
 
+  // hashes of the rooms' states (see stateHash())
+  private long mRoomHashes[];
+  
+  // hash of the story's state (see stateHash())
+  private long mStateHash;
+
   // constructor (for a specific quest)
   public QuestStory(int questNum) {
 
@@ -140,6 +146,8 @@ public class QuestStory extends Story {
 
     mCurrentRoom = null;
     mPlayer = null;
+    mRoomHashes = null;
+    mStateHash = 0;
 
     Env.saveState().setQuestStats( new QuestStats(mQuestNum) );
 
@@ -152,6 +160,8 @@ public class QuestStory extends Story {
     mRoomList = null;
     mCurrentRoom = null;
     mPlayer = null;
+    mRoomHashes = null;
+    mStateHash = 0;
     
     Env.saveState().setQuestStats(null);
 
@@ -257,6 +267,31 @@ public class QuestStory extends Story {
   // which quest we're playing
   public int questNumber() { return mQuestNum; }
   
+  // the room the player is in (or null if the quest hasn't begun)
+  public Room currentRoom() { return mCurrentRoom; }
+  
+  // the player (or null if the player has just died)
+  public Player player() { return mPlayer; }
+  
+  // names of all the rooms in the quest, first room first (for testing tools)
+  public String[] roomNames() {
+    
+    String names[] = new String[mRoomList.length];
+    for ( int k = 0 ; k < names.length ; k++ ) names[k] = mRoomList[k].name();
+    return names;
+    
+  } // roomNames()
+  
+  // begin the quest somewhere other than the first room (for testing tools;
+  // call before the first advance, other rooms keep their starting states)
+  public void setStartPoint(String roomName, int entryPoint) {
+    
+    assert( mRoomList != null && entryPoint >= 0 );
+    mCurrentRoom = findRoom(roomName);
+    mLastEntryPoint = entryPoint;
+    
+  } // setStartPoint()
+  
   // process events and advance 
   @Override
   public Story advance(LinkedList<StoryEvent> storyEvents,
@@ -277,6 +312,7 @@ public class QuestStory extends Story {
     }
     
     // update the current room
+    final Room oldRoom = mCurrentRoom;
     if ( !firstAdvanceOfGame ) {
       mCurrentRoom.advance(storyEvents, spriteManager);
     }
@@ -412,10 +448,41 @@ public class QuestStory extends Story {
       mEscPressed = false;
     }    
     
+    // bring the hash up to date
+    updateStateHash( firstAdvanceOfGame || mCurrentRoom != oldRoom );
+    
     return newStory;
     
   } // Story.advance()
 
+  // hash of the quest's state (see StateHash)
+  @Override
+  public long stateHash() { return mStateHash; }
+  
+  // recalculate the hashes for the current room and for any other rooms 
+  // whose state may have changed (see Room.findRoom()), or for all rooms
+  private void updateStateHash(boolean allRooms) {
+
+    if ( mRoomHashes == null || mRoomHashes.length != mRoomList.length ) {
+      mRoomHashes = new long[mRoomList.length];
+      allRooms = true;
+    }
+    
+    long hash = StateHash.start(mQuestNum);
+    hash = StateHash.add(hash, currentRoomIndex());
+    hash = StateHash.add(hash, mLastEntryPoint);
+    hash = StateHash.add(hash, mPlayerDeathTimer);
+    for ( int index = 0 ; index < mRoomList.length ; index++ ) {
+      final Room room = mRoomList[index];
+      if ( room.checkStateChanged() || allRooms || room == mCurrentRoom ) {
+        mRoomHashes[index] = room.stateHash();
+      }
+      hash = StateHash.add(hash, mRoomHashes[index]);
+    }
+    mStateHash = hash;
+    
+  } // updateStateHash()
+  
   // retrieve a room based on its uniquename
   private Room findRoom(String roomName) {
 
@@ -0,0 +1,108 @@
+/*
+ *  RandomStream.java
+ *  Copyright (c) 2017 Simon Hern
+ *  Contact: dishmoth@yahoo.co.uk, dishmoth.com, github.com/dishmoth
+ */
+
+package com.dishmoth.miniquests.game;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// seedable random number generator that can be split into substreams
+// (SplitMix64; a substream depends only on the seed and a key, not on
+// how many numbers have been drawn, so games replay exactly from a seed)
+public class RandomStream {
+
+  // constants for the SplitMix64 algorithm
+  private static final long kGamma = 0x9E3779B97F4A7C15L,
+                            kMixA  = 0xBF58476D1CE4E5B9L,
+                            kMixB  = 0x94D049BB133111EBL;
+
+  // counter to distinguish unseeded streams created at the same time
+  // (games may be created on several threads at once)
+  private static final AtomicLong kSeedCounter = new AtomicLong();
+
+  // the seed that the stream started from
+  private final long mSeed;
+
+  // current state of the generator
+  private long mState;
+
+  // constructor
+  public RandomStream(long seed) {
+
+    mSeed = seed;
+    mState = seed;
+
+  } // constructor
+
+  // an arbitrary seed (for when the game doesn't need to be reproducible)
+  public static long freshSeed() {
+
+    final long count = kSeedCounter.incrementAndGet();
+    return mix( System.currentTimeMillis() + count*kGamma );
+
+  } // freshSeed()
+
+  // the seed that the stream started from
+  public long seed() { return mSeed; }
+
+  // the current state of the generator (for saving and restoring)
+  public long state() { return mState; }
+  public void setState(long state) { mState = state; }
+
+  // create an independent stream identified by a key
+  // (the result is the same however much this stream has been used)
+  public RandomStream split(long key) {
+
+    return new RandomStream( mix(mSeed ^ mix(key + kGamma)) );
+
+  } // split()
+
+  // scramble the bits of a value
+  private static long mix(long z) {
+
+    z = (z ^ (z >>> 30)) * kMixA;
+    z = (z ^ (z >>> 27)) * kMixB;
+    return ( z ^ (z >>> 31) );
+
+  } // mix()
+
+  // the next 64 random bits
+  public long nextLong() {
+
+    mState += kGamma;
+    return mix(mState);
+
+  } // nextLong()
+
+  // random integer in the range [0,n-1]
+  public int nextInt(int n) {
+
+    assert( n > 0 );
+    return (int)( ((nextLong() >>> 32) * n) >>> 32 );
+
+  } // nextInt()
+
+  // random float in the range [0,1)
+  public float nextFloat() {
+
+    return ( (nextLong() >>> 40) * (1.0f/(1 << 24)) );
+
+  } // nextFloat()
+
+  // random double in the range [0,1)
+  public double nextDouble() {
+
+    return ( (nextLong() >>> 11) * (1.0/(1L << 53)) );
+
+  } // nextDouble()
+
+  // random true or false
+  public boolean nextBoolean() {
+
+    return ( nextLong() < 0 );
+
+  } // nextBoolean()
+
+} // class RandomStream
@@ -65,6 +65,15 @@ abstract public class Room {
   // references to the other rooms in the game
   protected Room mRoomList[];
   
+  // the door for each of the room's exits, and the exit itself (indexed as
+  // the room's array of exits, with nulls for exits that have no door yet,
+  // see setDoor())
+  private Door mDoors[];
+  private Exit mDoorExits[];
+  
+  // true if the room's state may have changed since it was last hashed
+  private boolean mStateChanged;
+  
   // constructor
   public Room(String name) {
 
@@ -74,6 +83,9 @@ abstract public class Room {
     mCamera = null;
     mCameraLevel = -1;
     mRoomList = null;
+    mDoors = null;
+    mDoorExits = null;
+    mStateChanged = true;
     
   } // constructor
 
@@ -84,6 +96,34 @@ abstract public class Room {
   // (returns false if the version is not supported, or something goes wrong)
   public boolean restore(int version, BitBuffer buffer) { return true; } 
 
+  // hash of the room's state (see StateHash)
+  // (rooms with state of their own add it to this; references to sprites
+  // only count as being set or not, since the sprite manager hashes the
+  // sprites themselves)
+  public long stateHash() {
+    
+    long hash = StateHash.start(0x526F6F6DL); // "Room"
+    hash = StateHash.add(hash, mName);
+    hash = StateHash.add(hash, mCameraLevel);
+    hash = StateHash.add(hash, mPlayer != null);
+    hash = StateHash.add(hash, mCamera != null);
+    hash = StateHash.addPresence(hash, mDoors);
+    return hash;
+    
+  } // stateHash()
+
+  // note that the room's state may have changed (so must be hashed again)
+  public void stateChanged() { mStateChanged = true; }
+  
+  // whether the room's state may have changed since the last call
+  public boolean checkStateChanged() {
+    
+    final boolean changed = mStateChanged;
+    mStateChanged = false;
+    return changed;
+    
+  } // checkStateChanged()
+
   // unique identifier for the room
   public String name() { return mName; }
   
@@ -109,31 +149,9 @@ abstract public class Room {
     
     assert( mPlayer == null );
     
-    int x = exit.mZoneX*kSize,
-        y = exit.mZoneY*kSize,
-        z = exit.mDoorZPos;
-    
-    switch ( exit.mWallSide ) {
-      case Env.RIGHT: {
-        x += kSize;
-        y += exit.mDoorXYPos;
-      } break;
-      case Env.UP: {
-        x += exit.mDoorXYPos;
-        y += kSize;
-      } break;
-      case Env.LEFT: {
-        x -= 1;
-        y += exit.mDoorXYPos;
-      } break;
-      case Env.DOWN: {
-        x += exit.mDoorXYPos;
-        y -= 1;
-      } break;
-      default: {
-        assert(false);
-      } break;
-    }
+    final int x = exit.doorwayXPos(),
+              y = exit.doorwayYPos(),
+              z = exit.mDoorZPos;
 
     final int direc = (exit.mWallSide + 2) % 4;
     mPlayer = new Player(x, y, z, direc);
@@ -173,13 +191,56 @@ abstract public class Room {
   public Room findRoom(String name) {
     
     for ( Room room : mRoomList ) {
-      if ( room.mName.equals(name) ) return room;
+      if ( room.mName.equals(name) ) {
+        room.stateChanged();
+        return room;
+      }
     }
     assert( false );
     return null;
     
   } // findRoom()
   
+  // number of entries in the room's table of doors (see door())
+  public int numDoors() { return ( (mDoors != null) ? mDoors.length : 0 ); }
+  
+  // the door for an exit (given the exit's index in the room's array of
+  // exits; null if the room's walls haven't been made)
+  public Door door(int index) {
+    
+    return ( (index < numDoors()) ? mDoors[index] : null );
+    
+  } // door()
+  
+  // the exit that a door belongs to (index as for door())
+  public Exit doorExit(int index) {
+    
+    return ( (index < numDoors()) ? mDoorExits[index] : null );
+    
+  } // doorExit()
+  
+  // record the door for an exit (index as for door())
+  // (the doors belong to the room rather than to the Exit objects, which 
+  // are shared by every game)
+  protected void setDoor(int index, Exit exit, Door door) {
+    
+    assert( index >= 0 );
+    if ( index >= numDoors() ) {
+      Door doors[] = new Door[index+1];
+      Exit exits[] = new Exit[index+1];
+      if ( mDoors != null ) {
+        System.arraycopy(mDoors, 0, doors, 0, mDoors.length);
+        System.arraycopy(mDoorExits, 0, exits, 0, mDoorExits.length);
+      }
+      mDoors = doors;
+      mDoorExits = exits;
+    }
+    mDoors[index] = door;
+    mDoorExits[index] = exit;
+    stateChanged();
+    
+  } // setDoor()
+  
   // helper function:
   // create four basic walls with doors
   protected void addBasicWalls(Exit exits[], SpriteManager spriteManager) {
@@ -190,12 +251,13 @@ abstract public class Room {
     walls[Env.LEFT]  = new WallLeft(0, 0, 0);
     walls[Env.DOWN]  = new WallDown(0, 0, 0);
 
-    for ( Exit exit : exits ) {
+    for ( int index = 0 ; index < exits.length ; index++ ) {
+      final Exit exit = exits[index];
       final Wall wall = walls[ exit.mWallSide ];
-      exit.mDoor = wall.addDoor(exit.mDoorXYPos, exit.mDoorZPos, 
-                                exit.mFloorColour, exit.mFloorDrop);
+      setDoor(index, exit, wall.addDoor(exit.mDoorXYPos, exit.mDoorZPos, 
+                                        exit.mFloorColour, exit.mFloorDrop));
       if ( exit.mDestination.length() == 0 ) {
-        exit.mDoor.setClosed(true);
+        door(index).setClosed(true);
       }
     }
     
@@ -219,14 +281,16 @@ abstract public class Room {
     if ( wallLeft )  walls[Env.LEFT]  = new WallLeft(x, y, 0);
     if ( wallDown  ) walls[Env.DOWN]  = new WallDown(x, y, 0);
 
-    for ( Exit exit : exits ) {
+    for ( int index = 0 ; index < exits.length ; index++ ) {
+      final Exit exit = exits[index];
       if ( exit.mZoneX == zoneX && exit.mZoneY == zoneY ) {
         final Wall wall = walls[ exit.mWallSide ];
         assert ( wall != null );
-        exit.mDoor = wall.addDoor(exit.mDoorXYPos, exit.mDoorZPos, 
-                                  exit.mFloorColour, exit.mFloorDrop);
+        setDoor(index, exit, 
+                wall.addDoor(exit.mDoorXYPos, exit.mDoorZPos, 
+                             exit.mFloorColour, exit.mFloorDrop));
         if ( exit.mDestination.length() == 0 ) {
-          exit.mDoor.setClosed(true);
+          door(index).setClosed(true);
         }
       }
     }
@@ -250,30 +314,9 @@ abstract public class Room {
       
       if ( exit.mWallSide != mPlayer.getDirec() ) continue;
       
-      int doorX = exit.mZoneX*kSize,
-          doorY = exit.mZoneY*kSize,
-          doorZ = exit.mDoorZPos;
-      switch ( exit.mWallSide ) {
-        case Env.RIGHT: {
-          doorX += kSize;
-          doorY += exit.mDoorXYPos;
-        } break;
-        case Env.UP: {
-          doorX += exit.mDoorXYPos;
-          doorY += kSize;
-        } break;
-        case Env.LEFT: {
-          doorX -= 1;
-          doorY += exit.mDoorXYPos;
-        } break;
-        case Env.DOWN: {
-          doorX += exit.mDoorXYPos;
-          doorY -= 1;
-        } break;
-        default: {
-          assert(false);
-        } break;
-      }
+      final int doorX = exit.doorwayXPos(),
+                doorY = exit.doorwayYPos(),
+                doorZ = exit.mDoorZPos;
       
       if ( mPlayer.getXPos() == doorX && 
            mPlayer.getYPos() == doorY && 
@@ -83,7 +83,10 @@ public class ScrewTower extends BlockArray {
     if ( deadSprite instanceof Critter ||
          deadSprite instanceof Player ) {
       mSpritesToWatch.remove(deadSprite);
-      if ( mDriver == deadSprite ) mDriver = null;
+      if ( mDriver == deadSprite ) {
+        mDriver = null;
+        stateChanged();
+      }
     }
     
     super.observeDeparture(deadSprite);
@@ -97,6 +100,7 @@ public class ScrewTower extends BlockArray {
     mHeight += delta;
     assert( mHeight >= 0 && mHeight <= mMaxHeight );
     shiftPos(0, 0, delta);
+    stateChanged();
     
   } // shiftHeight()
   
@@ -179,6 +183,8 @@ public class ScrewTower extends BlockArray {
                       LinkedList<Sprite> killTheseSprites,
                       LinkedList<StoryEvent> newStoryEvents) {
     
+    stateChanged();
+    
     // raise the tower
     if ( mDriver == null ) {
       findDriver();
@@ -207,4 +213,19 @@ public class ScrewTower extends BlockArray {
     
   } // Sprite.advance()
 
+  // hash of the tower's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.add(hash, mHeight);
+    hash = StateHash.add(hash, mDriver != null);
+    hash = StateHash.add(hash, mDriverX);
+    hash = StateHash.add(hash, mDriverY);
+    hash = StateHash.add(hash, mDriverSteps);
+    hash = StateHash.add(hash, mDropTimer);
+    return hash;
+    
+  } // Sprite.stateHash()
+
 } // class ScrewTower
@@ -91,7 +91,7 @@ abstract public class Snake extends Sprite3D implements Obstacle {
   protected Player mPlayer;
   
   // prepare the images
-  static public void initialize() {
+  static synchronized public void initialize() {
 
     if ( kSnakeImages != null ) return;
     
@@ -150,6 +150,7 @@ abstract public class Snake extends Sprite3D implements Obstacle {
     
     assert( stepTime > 0 );
     mStepTime1 = mStepTime2 = stepTime;
+    stateChanged();
     
   } // setSpeed(step)
   
@@ -159,6 +160,7 @@ abstract public class Snake extends Sprite3D implements Obstacle {
     assert( stepTime1 > 0 && stepTime2 > 0 );
     mStepTime1 = stepTime1;
     mStepTime2 = stepTime2;
+    stateChanged();
     
   } // setSpeed(step1,step2)
   
@@ -167,6 +169,7 @@ abstract public class Snake extends Sprite3D implements Obstacle {
     
     assert( scheme >= 0 && scheme < kColourSchemes.length );
     mColour = scheme;
+    stateChanged();
     
   } // setColour()
   
@@ -187,6 +190,7 @@ abstract public class Snake extends Sprite3D implements Obstacle {
     } else if ( newSprite instanceof Player ) {
       assert( mPlayer == null );
       mPlayer = (Player)newSprite;
+      stateChanged();
     }
     
   } // Sprite.observeArrival()
@@ -200,6 +204,7 @@ abstract public class Snake extends Sprite3D implements Obstacle {
     } else if ( deadSprite instanceof Player ) {
       assert( mPlayer == deadSprite );
       mPlayer = null;
+      stateChanged();
     }
 
     super.observeDeparture(deadSprite);
@@ -217,13 +222,17 @@ abstract public class Snake extends Sprite3D implements Obstacle {
     assert( colour >= 0 && colour < kColourSchemes.length );    
     mFlashColour = colour;
     mFlashTimer = kFlashTime;
+    stateChanged();
     
   } // flash()
   
   // change the snake's target length
-  public void grow(int len) { mFullLength += len; }
-  public void shrink(int len) { mFullLength = Math.max(0, mFullLength-len); }
-  public void setLength(int len) { mFullLength = len; }
+  public void grow(int len) { mFullLength += len; stateChanged(); }
+  public void shrink(int len) { 
+    mFullLength = Math.max(0, mFullLength-len); 
+    stateChanged(); 
+  }
+  public void setLength(int len) { mFullLength = len; stateChanged(); }
   public int length() { return mFullLength; }
   
   // whether the grid allows movement in a particular direction
@@ -318,6 +327,8 @@ abstract public class Snake extends Sprite3D implements Obstacle {
                       LinkedList<Sprite> killTheseSprites,
                       LinkedList<StoryEvent> newStoryEvents) {
 
+    stateChanged();
+    
     if ( playerHasDied() && !mHibernating ) {
       mFullLength = 2;
       mDieWhenStuck = false;
@@ -461,6 +472,34 @@ abstract public class Snake extends Sprite3D implements Obstacle {
   // register a hit on the snake's head
   public void shotInHead() {}
   
+  // hash of the snake's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = StateHash.start(0x536E616BL); // "Snak"
+    hash = StateHash.add(hash, mBody.size());
+    for ( int segment : mBody ) hash = StateHash.add(hash, segment);
+    hash = StateHash.add(hash, mXPos);
+    hash = StateHash.add(hash, mYPos);
+    hash = StateHash.add(hash, mZPos);
+    hash = StateHash.add(hash, mDirec);
+    hash = StateHash.add(hash, mStepTime1);
+    hash = StateHash.add(hash, mStepTime2);
+    hash = StateHash.add(hash, mActionTimer);
+    hash = StateHash.add(hash, mStepping);
+    hash = StateHash.add(hash, mStuck);
+    hash = StateHash.add(hash, mDieWhenStuck);
+    hash = StateHash.add(hash, mFullLength);
+    hash = StateHash.add(hash, mDying);
+    hash = StateHash.add(hash, mHibernating);
+    hash = StateHash.add(hash, mColour);
+    hash = StateHash.add(hash, mFlashColour);
+    hash = StateHash.add(hash, mFlashTimer);
+    hash = StateHash.add(hash, mPlayer != null);
+    return hash;
+    
+  } // Sprite.stateHash()
+  
   // display the snake
   @Override
   public void draw(EgaCanvas canvas) {
@@ -182,6 +182,8 @@ public class SnakeBoss2 extends Snake {
                       LinkedList<Sprite> killTheseSprites,
                       LinkedList<StoryEvent> newStoryEvents) {
 
+    stateChanged();
+    
     if ( mDead ) {
       if ( mDying ) destroyDeadBody();
       else          checkHead();
@@ -287,6 +289,7 @@ public class SnakeBoss2 extends Snake {
     assert( mDead );
     mHitXPos = x;
     mHitYPos = y;
+    stateChanged();
 
   } // zapDeadBody()
 
@@ -297,6 +300,7 @@ public class SnakeBoss2 extends Snake {
     if ( mDead || !mDying ) {
       mHitXPos = x;
       mHitYPos = y;
+      stateChanged();
       Env.sounds().play(mDead ? Sounds.SNAKE_HIT_0 : Sounds.SNAKE_HIT_1);
     }
 
@@ -387,6 +391,18 @@ public class SnakeBoss2 extends Snake {
     
   } // Sprite.aftermath()
   
+  // hash of the snake's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.add(hash, mDead);
+    hash = StateHash.add(hash, mHitXPos);
+    hash = StateHash.add(hash, mHitYPos);
+    return hash;
+    
+  } // Sprite.stateHash()
+  
   // special case to display the dead (headless) snake
   @Override
   public void draw(EgaCanvas canvas) {
@@ -153,6 +153,8 @@ public class SnakeBoss3 extends Snake {
                       LinkedList<Sprite> killTheseSprites,
                       LinkedList<StoryEvent> newStoryEvents) {
   
+    stateChanged();
+    
     // the snake stops moving while its body shrinks
     if ( mFrozen ) {
       if ( mBody.size() > 0 ) {
@@ -194,6 +196,7 @@ public class SnakeBoss3 extends Snake {
         mFlashTimer = mActionTimer;
         mFlashColour = 0;
         mStepping = false;
+        stateChanged();
         Env.sounds().play(Sounds.SNAKE_DEATH);
       }
     } else {
@@ -201,11 +204,23 @@ public class SnakeBoss3 extends Snake {
         flash(4);
         if ( !mFrozen ) Env.sounds().play(Sounds.SNAKE_HIT_2);
         mFrozen = true;
+        stateChanged();
       }
     }
     
   } // Snake.shotInHead()
 
+  // hash of the snake's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.add(hash, mFrozen);
+    hash = StateHash.add(hash, mTransformed);
+    return hash;
+    
+  } // Sprite.stateHash()
+
   // change the snake into its final form
   public void transform() {
 
@@ -213,6 +228,7 @@ public class SnakeBoss3 extends Snake {
     mTransformed = true;
     mFrozen = true;
     setColour(4);
+    stateChanged();
     Env.sounds().play(Sounds.SNAKE_TRANSFORM);
     
   } // transform()
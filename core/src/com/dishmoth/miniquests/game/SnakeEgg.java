@@ -102,6 +102,7 @@ public class SnakeEgg extends Sprite3D implements Obstacle {
     if ( newSprite instanceof Player ) {
       assert( mPlayer == null );
       mPlayer = (Player)newSprite;
+      stateChanged();
     }
     
   } // Sprite.observeArrival()
@@ -113,6 +114,7 @@ public class SnakeEgg extends Sprite3D implements Obstacle {
     if ( deadSprite instanceof Player ) {
       assert( mPlayer == deadSprite );
       mPlayer = null;
+      stateChanged();
     }
 
     super.observeDeparture(deadSprite);
@@ -138,6 +140,7 @@ public class SnakeEgg extends Sprite3D implements Obstacle {
                       LinkedList<StoryEvent> newStoryEvents) {
 
     if ( mType == 0 ) return;
+    stateChanged();
     
     if ( mFlashTimer > 0 ) mFlashTimer -= 1;
     
@@ -182,6 +185,24 @@ public class SnakeEgg extends Sprite3D implements Obstacle {
     
   } // Sprite3D.advance()
 
+  // hash of the egg's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = StateHash.start(0x53456767L); // "SEgg"
+    hash = StateHash.add(hash, mXPos);
+    hash = StateHash.add(hash, mYPos);
+    hash = StateHash.add(hash, mZPos);
+    hash = StateHash.add(hash, mType);
+    hash = StateHash.add(hash, mHatching);
+    hash = StateHash.add(hash, mNumFlashes);
+    hash = StateHash.add(hash, mTimer);
+    hash = StateHash.add(hash, mFlashTimer);
+    hash = StateHash.add(hash, mPlayer != null);
+    return hash;
+    
+  } // Sprite.stateHash()
+  
   // display the egg
   @Override
   public void draw(EgaCanvas canvas) {
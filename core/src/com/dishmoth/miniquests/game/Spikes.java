@@ -81,12 +81,13 @@ public class Spikes extends Sprite3D {
     if ( mState == 0 ) {
       mState = 1;
       mTimer = kDelay;
+      stateChanged();
     }
     
   } // trigger()
   
   // control the sound effect
-  public void setSilent(boolean silent) { mSilent = silent; }
+  public void setSilent(boolean silent) { mSilent = silent; stateChanged(); }
   
   // check for Sprites we want to keep track of
   @Override
@@ -121,6 +122,7 @@ public class Spikes extends Sprite3D {
                       LinkedList<StoryEvent> newStoryEvents) {
 
     if ( mState != 0 ) {
+      stateChanged();
       if ( --mTimer <= 0 ) {
         mTimer = kDelay;
         mState += 1;
@@ -136,6 +138,26 @@ public class Spikes extends Sprite3D {
     
   } // Sprite.advance()
 
+  // hash of the spikes' state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = StateHash.start(0x5370696BL); // "Spik"
+    hash = StateHash.add(hash, mXPos);
+    hash = StateHash.add(hash, mYPos);
+    hash = StateHash.add(hash, mZPos);
+    hash = StateHash.add(hash, mXSize);
+    hash = StateHash.add(hash, mYSize);
+    hash = StateHash.add(hash, mShift);
+    hash = StateHash.add(hash, mBaseColour);
+    hash = StateHash.add(hash, mSpikeColour);
+    hash = StateHash.add(hash, mSilent);
+    hash = StateHash.add(hash, mState);
+    hash = StateHash.add(hash, mTimer);
+    return hash;
+    
+  } // Sprite.stateHash()
+  
   // check for collisions
   @Override
   public void interact() { 
@@ -169,17 +169,18 @@ public class Spinner extends Sprite3D {
     mTargets = targets;
     mTargetsIndex = 0;
     mTargetsRepeat = repeat;
+    stateChanged();
     
   } // setTargets()
 
   // whether the object should trigger sound effects as it moves
-  public void setSilent(boolean val) { mSilent = val; }
+  public void setSilent(boolean val) { mSilent = val; stateChanged(); }
   
   // whether the object is drawn
-  public void setVisible(boolean val) { mVisible = val; }
+  public void setVisible(boolean val) { mVisible = val; stateChanged(); }
   
   // briefly flash the image
-  public void flash() { mFlashTimer = kFlashDelay; }
+  public void flash() { mFlashTimer = kFlashDelay; stateChanged(); }
   
   // check for Sprites we want to keep track of
   @Override
@@ -240,12 +241,41 @@ public class Spinner extends Sprite3D {
     
   } // nextTargetDelay()
   
+  // hash of the spinner's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = StateHash.start(0x5370696EL); // "Spin"
+    hash = StateHash.add(hash, mXPos);
+    hash = StateHash.add(hash, mYPos);
+    hash = StateHash.add(hash, mZPos);
+    hash = StateHash.add(hash, mPixelRight);
+    hash = StateHash.add(hash, mXTarget);
+    hash = StateHash.add(hash, mYTarget);
+    hash = StateHash.add(hash, mTimer);
+    hash = StateHash.add(hash, mAnimationTimer);
+    hash = StateHash.add(hash, mAnimationFrame);
+    hash = StateHash.add(hash, mFlashTimer);
+    hash = StateHash.add(hash, mTargets != null);
+    if ( mTargets != null ) {
+      for ( int target[] : mTargets ) hash = StateHash.add(hash, target);
+    }
+    hash = StateHash.add(hash, mTargetsIndex);
+    hash = StateHash.add(hash, mTargetsRepeat);
+    hash = StateHash.add(hash, mSilent);
+    hash = StateHash.add(hash, mVisible);
+    return hash;
+    
+  } // Sprite.stateHash()
+  
   // move and animate
   @Override
   public void advance(LinkedList<Sprite> addTheseSprites,
                       LinkedList<Sprite> killTheseSprites,
                       LinkedList<StoryEvent> newStoryEvents) {
 
+    stateChanged();
+    
     if ( moving() ) {
 
       // head towards the current target
@@ -89,7 +89,7 @@ public class Spook extends Sprite3D {
   private boolean mValidDirections[] = new boolean[4];
   
   // prepare the images
-  static public void initialize() {
+  static synchronized public void initialize() {
 
     if ( kSpookImages != null ) return;
     
@@ -154,6 +154,7 @@ public class Spook extends Sprite3D {
     mZPos += dz;
     mStepXPos += dx;
     mStepYPos += dy;
+    stateChanged();
     
   } // shiftPos()
   
@@ -165,6 +166,7 @@ public class Spook extends Sprite3D {
     
     assert( scheme >= 0 && scheme < kColourSchemes.length );
     mColour = scheme;
+    stateChanged();
     
   } // setColour()
   
@@ -177,6 +179,7 @@ public class Spook extends Sprite3D {
     if      ( mState == 1 ) mState = 0;
     else if ( mState == 2 ) mState = 5;
     else if ( mState == 3 ) mState = 4; 
+    stateChanged();
     
   } // vanish()
 
@@ -185,17 +188,21 @@ public class Spook extends Sprite3D {
     
     assert( steps > 0 );
     mStepsUntilVanish = steps;
+    stateChanged();
     
   } // vanishAfterSteps()
 
   // by default the spook leaves the game permanently when it vanishes
-  public void destroyOnVanish(boolean v) { mDestroyOnVanish = v; }
+  public void destroyOnVanish(boolean v) { 
+    mDestroyOnVanish = v; 
+    stateChanged(); 
+  }
   
   // make the spook appear
-  public void appear() { if ( mState == 0 ) mState = 1; }
+  public void appear() { if ( mState == 0 ) mState = 1; stateChanged(); }
   
   // access the spook's track
-  public void setTrack(Track track) { mTrack = track; }
+  public void setTrack(Track track) { mTrack = track; stateChanged(); }
   public Track getTrack() { return mTrack; }
   
   // register fatal collision
@@ -204,6 +211,7 @@ public class Spook extends Sprite3D {
     assert( direc >= -1 && direc < 4 );
     mDestroyed = true;
     mDestroyDirec = direc;
+    stateChanged();
 
   } // destroy()
   
@@ -240,6 +248,8 @@ public class Spook extends Sprite3D {
                       LinkedList<Sprite> killTheseSprites,
                       LinkedList<StoryEvent> newStoryEvents) {
 
+    stateChanged();
+    
     if ( mActionTimer > 0 ) {
 
       // action is in progress
@@ -376,6 +386,33 @@ public class Spook extends Sprite3D {
     
   } // Sprite.aftermath()
   
+  // hash of the spook's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = StateHash.start(0x53706F6FL); // "Spoo"
+    hash = StateHash.add(hash, mXPos);
+    hash = StateHash.add(hash, mYPos);
+    hash = StateHash.add(hash, mZPos);
+    hash = StateHash.add(hash, mDirec);
+    hash = StateHash.add(hash, mPrevDirec);
+    hash = StateHash.add(hash, mDirecFrom);
+    hash = StateHash.add(hash, mActionTimer);
+    hash = StateHash.add(hash, mTurning);
+    hash = StateHash.add(hash, mStepping);
+    hash = StateHash.add(hash, mStepXPos);
+    hash = StateHash.add(hash, mStepYPos);
+    hash = StateHash.add(hash, mState);
+    hash = StateHash.add(hash, mColour);
+    hash = StateHash.add(hash, mDestroyed);
+    hash = StateHash.add(hash, mDestroyDirec);
+    hash = StateHash.add(hash, mStepsUntilVanish);
+    hash = StateHash.add(hash, mDestroyOnVanish);
+    hash = StateHash.add(hash, (mTrack == null) ? 0 : mTrack.stateHash());
+    return hash;
+    
+  } // Sprite.stateHash()
+  
   // display the spook
   @Override
   public void draw(EgaCanvas canvas) {
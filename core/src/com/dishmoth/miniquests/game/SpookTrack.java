@@ -85,4 +85,16 @@ public class SpookTrack implements Track {
     
   } // canMove()
   
+  // hash of the track's way-points and progress (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = StateHash.start(0x53547261L); // "STra"
+    for ( int point[] : mPoints ) hash = StateHash.add(hash, point);
+    hash = StateHash.add(hash, mIndex);
+    hash = StateHash.add(hash, mReversed);
+    return hash;
+    
+  } // Track.stateHash()
+  
 } // class SpookTrack
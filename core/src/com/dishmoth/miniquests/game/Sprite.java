@@ -7,6 +7,7 @@
 package com.dishmoth.miniquests.game;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 // a Sprite is an independent game entity
 // usually each Sprite has an associated image on the game screen
@@ -34,12 +35,35 @@ abstract public class Sprite {
   public boolean mAdvanceDisabled,
                  mDrawDisabled;
   
+  // the Sprite's own random numbers (set by the SpriteManager)
+  RandomStream mRandom;
+  
+  // the Sprite's state hash when the SpriteManager last looked at it
+  long mLastStateHash;
+  
+  // the SpriteManager that the Sprite belongs to (or null), and whether it
+  // has been told that the Sprite's state has changed (see stateChanged())
+  SpriteManager mManager;
+  boolean       mStateChanged;
+  
+  // number identifying the Sprite's current image (see imageVersion())
+  private long mImageVersion;
+  
+  // the most recent image version handed out (shared by all games, so 
+  // that a number is never reused even if a game's state is restored)
+  private static final AtomicLong kLastImageVersion = new AtomicLong(0);
+  
   // constructor
   public Sprite() {
     
     mSpritesToWatch  = new LinkedList<Sprite>();
     mAdvanceDisabled = false;
     mDrawDisabled    = false;
+    mRandom          = null;
+    mLastStateHash   = 0;
+    mManager         = null;
+    mStateChanged    = false;
+    mImageVersion    = newImageVersion(0);
     
   } // constructor
 
@@ -90,4 +114,57 @@ abstract public class Sprite {
   // display the Sprite's image on the screen
   abstract public void draw(EgaCanvas canvas);
   
+  // whether the Sprite's image stays the same from one frame to the next
+  // (unless imageChanged() is called, or the camera moves for 3D Sprites)
+  // static Sprites at the start of the SpriteManager's list are drawn once 
+  // and then kept by the canvas, see SpriteManager.draw()
+  public boolean isStatic() { return false; }
+  
+  // number that changes whenever a static Sprite's image changes
+  public long imageVersion() { return mImageVersion; }
+  
+  // note that the Sprite's image is no longer the same
+  protected void imageChanged() { 
+    
+    mImageVersion = newImageVersion(mImageVersion); 
+    
+  } // imageChanged()
+  
+  // describe what the image of a static Sprite depends on, for the canvas 
+  // to check against the images it has kept (see EgaCanvas.useBackground())
+  public void describeImage(EgaCanvas canvas) {
+    
+    canvas.addToBackground(this, mImageVersion);
+    
+  } // describeImage()
+  
+  // a new image version (bigger than any handed out before, or than the
+  // previous version, which may come from a game saved by another run)
+  // (lock-free, so that concurrent games don't queue up for it)
+  static long newImageVersion(long previous) {
+    
+    while ( true ) {
+      final long last = kLastImageVersion.get();
+      final long version = Math.max(last, previous) + 1;
+      if ( kLastImageVersion.compareAndSet(last, version) ) return version;
+    }
+    
+  } // newImageVersion()
+  
+  // hash of the Sprite's state (see StateHash; it should cover every field
+  // that can change once the Sprite is in the game, and Sprites whose state
+  // never changes keep the default of zero)
+  public long stateHash() { return 0; }
+  
+  // note that something covered by stateHash() has changed, so that the
+  // SpriteManager works the hash out again (only Sprites that call this
+  // are hashed again, so it must follow every change after construction)
+  protected void stateChanged() {
+    
+    if ( mStateChanged ) return;
+    mStateChanged = true;
+    if ( mManager != null ) mManager.noteStateChanged(this);
+    
+  } // stateChanged()
+  
 } // class Sprite
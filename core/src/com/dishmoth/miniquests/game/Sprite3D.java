@@ -36,4 +36,13 @@ abstract public class Sprite3D extends Sprite {
   
   } // Sprite.observeDeparture()  
 
+  // the image of a 3D sprite also depends on the camera position
+  @Override
+  public void describeImage(EgaCanvas canvas) {
+    
+    super.describeImage(canvas);
+    if ( mCamera != null ) mCamera.describeImage(canvas);
+    
+  } // Sprite.describeImage()
+  
 } // class Sprite3D
@@ -21,21 +21,73 @@ public class SpriteManager {
                              mKillTheseSprites = new LinkedList<Sprite>();
   private LinkedList<StoryEvent> mNewStoryEvents = new LinkedList<StoryEvent>();
   
-  // constructor
+  // the game context that the sprites belong to
+  private GameContext mContext;
+
+  // sum of the state hashes of the Sprites (see stateHash())
+  private long mStateHash;
+  
+  // Sprites whose state has changed since the sum was brought up to date
+  private ArrayList<Sprite> mChangedSprites;
+  
+  // constructor (uses the current context)
   public SpriteManager() {
     
+    this(Env.context());
+    
+  } // constructor
+
+  // constructor
+  public SpriteManager(GameContext context) {
+    
     mSpriteList = new LinkedList<Sprite>();
+    mContext = context;
+    mStateHash = 0;
+    mChangedSprites = new ArrayList<Sprite>();
     
   } // constructor
 
+  // the game context that the sprites belong to
+  public GameContext context() { return mContext; }
+
   // allow access to the Sprite list (the list itself should not be modified)
   public LinkedList<Sprite> list() { return mSpriteList; }
 
+  // hash of the state of all of the Sprites (see Sprite.stateHash())
+  // (kept up to date as Sprites come and go, and as they change)
+  public long stateHash() { 
+    
+    updateStateHash(); 
+    return mStateHash; 
+    
+  } // stateHash()
+
+  // hash of how far the Sprites' random numbers have got
+  // (see GameManager.randomHash())
+  public long randomHash() {
+    
+    long hash = 0;
+    for ( Sprite s : mSpriteList ) {
+      if ( s.mRandom != null ) hash += StateHash.start(s.mRandom.state());
+    }
+    return hash;
+    
+  } // randomHash()
+
   // add a new Sprite to the list we are managing
   // order within the list is maintained
   // Sprites already in the list are alerted to the presence of the new Sprite
   public void addSprite(Sprite newSprite) {
     
+    if ( newSprite.mRandom == null ) {
+      newSprite.mRandom = mContext.newSpriteRandom();
+    }
+
+    newSprite.mManager = this;
+    newSprite.mStateChanged = false;
+    newSprite.mLastStateHash = newSprite.stateHash();
+    mStateHash += newSprite.mLastStateHash;
+    
     if ( mSpriteList.isEmpty() ) {
       mSpriteList.add(newSprite);
       return;
@@ -62,7 +114,10 @@ public class SpriteManager {
   // inform the remaining Sprites of this
   public void removeSprite(Sprite deadSprite) {
     
-    mSpriteList.remove(deadSprite);
+    if ( mSpriteList.remove(deadSprite) ) {
+      mStateHash -= deadSprite.mLastStateHash;
+      deadSprite.mManager = null;
+    }
     for ( Sprite s : mSpriteList ) {
       s.observeDeparture(deadSprite);
       deadSprite.observeDeparture(s);
@@ -80,15 +135,21 @@ public class SpriteManager {
   // all existing Sprites are removed from the game
   public void removeAllSprites() {
     
+    for ( Sprite s : mSpriteList ) s.mManager = null;
     mSpriteList.clear();
+    mStateHash = 0;
+    mChangedSprites.clear();
     
   } // removeAll()
 
   // copy the sprites from another SpriteManager object
   public void copySprites(SpriteManager source) {
 
+    source.updateStateHash();
     mSpriteList.clear();
     mSpriteList.addAll(source.mSpriteList);
+    mStateHash = source.mStateHash;
+    for ( Sprite s : mSpriteList ) s.mManager = this;
     
   } // copySprites()
   
@@ -118,14 +179,18 @@ public class SpriteManager {
   // update all of the Sprites in our list
   // there are three stage to this: advance, interact, aftermath
   // if a Sprite's screen layer value has changed then the list is reordered
+  // (each Sprite draws on its own random numbers while it is updated)
   public void advance(LinkedList<StoryEvent> addedStoryEvents) {
 
+    final RandomStream oldRandom = mContext.random();
+    
     // stage 1: advance all sprites
     mAddTheseSprites.clear();
     mKillTheseSprites.clear();
     mNewStoryEvents.clear();
     for ( Sprite s : mSpriteList ) {
       if ( s.mAdvanceDisabled ) continue;
+      mContext.useRandom(s.mRandom);
       s.advance(mAddTheseSprites, mKillTheseSprites, mNewStoryEvents);
     }
     addSprites(mAddTheseSprites);
@@ -135,6 +200,7 @@ public class SpriteManager {
     // stage 2: allow sprites to interact with each other
     for ( Sprite s : mSpriteList ) {
       if ( s.mAdvanceDisabled ) continue;
+      mContext.useRandom(s.mRandom);
       s.interact();
     }
 
@@ -144,18 +210,70 @@ public class SpriteManager {
     mNewStoryEvents.clear();
     for ( Sprite s : mSpriteList ) {
       if ( s.mAdvanceDisabled ) continue;
+      mContext.useRandom(s.mRandom);
       s.aftermath(mAddTheseSprites, mKillTheseSprites, mNewStoryEvents);
     }
     addSprites(mAddTheseSprites);
     removeSprites(mKillTheseSprites);    
     addedStoryEvents.addAll(mNewStoryEvents);
 
+    mContext.useRandom(oldRandom);
+    
+    // bring the state hash up to date
+    updateStateHash();
+    
   } // advance()
   
+  // a Sprite's state has changed (see Sprite.stateChanged())
+  void noteStateChanged(Sprite sprite) { mChangedSprites.add(sprite); }
+  
+  // replace the hashes of the Sprites whose state has changed
+  // (only the Sprites that changed are hashed again)
+  public void updateStateHash() {
+    
+    for ( int index = 0 ; index < mChangedSprites.size() ; index++ ) {
+      Sprite s = mChangedSprites.get(index);
+      if ( !s.mStateChanged ) continue;
+      s.mStateChanged = false;
+      if ( s.mManager != this ) continue;
+      final long hash = s.stateHash();
+      mStateHash += hash - s.mLastStateHash;
+      s.mLastStateHash = hash;
+    }
+    mChangedSprites.clear();
+    
+  } // updateStateHash()
+  
   // display the Sprites
+  // (if the canvas is clear, the static Sprites at the start of the list are
+  // only drawn when their images change; the rest of the time the canvas
+  // copies in the background it kept from the last time they were drawn)
   public void draw(EgaCanvas canvas) {
     
-    for ( Sprite s : mSpriteList ) {
+    Iterator<Sprite> it = mSpriteList.iterator();
+    
+    if ( canvas.isClear() ) {
+      int numStatic = 0;
+      canvas.startBackground();
+      for ( Sprite s : mSpriteList ) {
+        if ( !s.isStatic() ) break;
+        if ( s.mDrawDisabled ) canvas.addToBackground(s, -1);
+        else                   s.describeImage(canvas);
+        numStatic++;
+      }
+      if ( numStatic > 0 ) {
+        final boolean kept = canvas.useBackground();
+        for ( int k = 0 ; k < numStatic ; k++ ) {
+          Sprite s = it.next();
+          if ( kept || s.mDrawDisabled ) continue;
+          s.draw(canvas);
+        }
+        if ( !kept ) canvas.keepBackground();
+      }
+    }
+    
+    while ( it.hasNext() ) {
+      Sprite s = it.next();
       if ( s.mDrawDisabled ) continue;
       s.draw(canvas);
     }
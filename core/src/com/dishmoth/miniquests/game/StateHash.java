@@ -0,0 +1,127 @@
+/*
+ *  StateHash.java
+ *  Copyright (c) 2017 Simon Hern
+ *  Contact: dishmoth@yahoo.co.uk, dishmoth.com, github.com/dishmoth
+ */
+
+package com.dishmoth.miniquests.game;
+
+// builds 64-bit hashes of parts of the game state, one value at a time
+// (each sprite and room hashes its own state, and the game's hash is the
+// sum of the parts; when a part changes, only its own hash is recalculated,
+// see SpriteManager.stateHash() and GameManager.stateHash())
+public class StateHash {
+
+  // constants for scrambling bits (as for SplitMix64)
+  private static final long kGamma = 0x9E3779B97F4A7C15L,
+                            kMixA  = 0xBF58476D1CE4E5B9L,
+                            kMixB  = 0x94D049BB133111EBL;
+
+  // begin a new hash (the seed distinguishes one kind of object from another)
+  static public long start(long seed) { return mix(seed + kGamma); }
+
+  // combine a value into a hash
+  static public long add(long hash, long value) {
+
+    return mix( (hash ^ value) + kGamma );
+
+  } // add()
+
+  // combine a flag into a hash
+  static public long add(long hash, boolean value) {
+
+    return add(hash, (value ? 1 : 0));
+
+  } // add()
+
+  // combine a floating-point value into a hash (exactly, bit for bit)
+  static public long add(long hash, float value) {
+
+    return add(hash, Float.floatToIntBits(value));
+
+  } // add()
+
+  // combine a string into a hash (or null)
+  static public long add(long hash, String value) {
+
+    return add(hash, (value == null) ? 0 : 1 + (long)value.hashCode());
+
+  } // add()
+
+  // combine an array of values into a hash (or null)
+  static public long add(long hash, int values[]) {
+
+    if ( values == null ) return add(hash, -1);
+    hash = add(hash, values.length);
+    for ( int value : values ) hash = add(hash, value);
+    return hash;
+
+  } // add()
+
+  // combine an array of flags into a hash (or null)
+  static public long add(long hash, boolean values[]) {
+
+    if ( values == null ) return add(hash, -1);
+    hash = add(hash, values.length);
+    for ( boolean value : values ) hash = add(hash, value);
+    return hash;
+
+  } // add()
+
+  // combine an array of exits into a hash (or null)
+  static public long add(long hash, Exit values[]) {
+
+    if ( values == null ) return add(hash, -1);
+    hash = add(hash, values.length);
+    for ( Exit value : values ) hash = add(hash, value.stateHash());
+    return hash;
+
+  } // add()
+
+  // combine which elements of an array of references are null into a hash
+  // (for references to sprites and the like, whose own state is hashed 
+  // elsewhere; nested arrays are followed)
+  static public long addPresence(long hash, Object values[]) {
+
+    if ( values == null ) return add(hash, -1);
+    hash = add(hash, values.length);
+    for ( Object value : values ) {
+      if ( value instanceof Object[] ) {
+        hash = addPresence(hash, (Object[])value);
+      } else {
+        hash = add(hash, value != null);
+      }
+    }
+    return hash;
+
+  } // addPresence()
+
+  // combine an array of strings into a hash (or null)
+  static public long add(long hash, String values[]) {
+
+    if ( values == null ) return add(hash, -1);
+    hash = add(hash, values.length);
+    for ( String value : values ) hash = add(hash, value);
+    return hash;
+
+  } // add()
+
+  // combine an array of bytes into a hash
+  static public long add(long hash, byte values[]) {
+
+    hash = add(hash, values.length);
+    for ( byte value : values ) hash = add(hash, value);
+    return hash;
+
+  } // add()
+
+  // scramble the bits of a value
+  static public long mix(long z) {
+
+    z = (z ^ (z >>> 30)) * kMixA;
+    z = (z ^ (z >>> 27)) * kMixB;
+    return ( z ^ (z >>> 31) );
+
+  } // mix()
+
+} // class StateHash
@@ -52,6 +52,7 @@ public class Statue extends Sprite3D implements Obstacle {
     
     assert( colour >= 0 && colour < kImages.length );
     mColour = colour;
+    stateChanged();
     
   } // setColour()
   
@@ -69,6 +70,7 @@ public class Statue extends Sprite3D implements Obstacle {
     mXPos += dx;
     mYPos += dy;
     mZPos += dz;
+    stateChanged();
     
   } // shiftPos()
   
@@ -95,11 +97,26 @@ public class Statue extends Sprite3D implements Obstacle {
   } // Obstacle.isVoid()
 
   // mark the statue as having been hit
-  public void setHit(boolean on) { mHit = on; }
+  public void setHit(boolean on) { mHit = on; stateChanged(); }
   
   // whether the statue has been hit
   public boolean isHit() { return mHit; } 
   
+  // hash of the statue's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = StateHash.start(0x53746174L); // "Stat"
+    hash = StateHash.add(hash, mXPos);
+    hash = StateHash.add(hash, mYPos);
+    hash = StateHash.add(hash, mZPos);
+    hash = StateHash.add(hash, mDirec);
+    hash = StateHash.add(hash, mColour);
+    hash = StateHash.add(hash, mHit);
+    return hash;
+    
+  } // Sprite.stateHash()
+  
   // nothing to do here
   @Override
   public void advance(LinkedList<Sprite> addTheseSprites,
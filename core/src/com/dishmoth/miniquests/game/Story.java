@@ -25,5 +25,9 @@ abstract public class Story {
   // returns a new Story to take over from this one (or null for no change)
   abstract public Story advance(LinkedList<StoryEvent> storyEvents,
                                 SpriteManager          spriteManager);
+  
+  // hash of the story's state, including its rooms (see StateHash)
+  // (zero if the story has no state that matters)
+  public long stateHash() { return 0; }
     
 } // class Story
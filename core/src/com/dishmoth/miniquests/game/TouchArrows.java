@@ -61,7 +61,7 @@ public class TouchArrows extends Sprite {
   private int mOffset;
   
   // prepare images
-  public static void initialize() {
+  public static synchronized void initialize() {
     
     if ( kMoveImages != null ) return;
     
@@ -110,9 +110,22 @@ public class TouchArrows extends Sprite {
 
     if ( ++mTimer > kPeriod ) mTimer = 0;
     mOffset = (mTimer < kPeriod/2) ? 0 : 1;
+    stateChanged();
     
   } // Sprite.advance()
 
+  // hash of the arrows' animation (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = StateHash.start(0x546F7563L); // "Touc"
+    hash = StateHash.add(hash, mType);
+    hash = StateHash.add(hash, mTimer);
+    hash = StateHash.add(hash, mOffset);
+    return hash;
+    
+  } // Sprite.stateHash()
+  
   // display the arrows
   @Override
   public void draw(EgaCanvas canvas) {
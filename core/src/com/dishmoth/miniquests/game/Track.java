@@ -12,4 +12,7 @@ public interface Track {
   // whether the monster can move in the specified direction
   public boolean canMove(int xPos, int yPos, int zPos, int direc);
   
+  // hash of the track's state (see StateHash)
+  public long stateHash();
+  
 } // class Track
@@ -79,7 +79,7 @@ public class Tree extends Sprite3D implements Obstacle {
   final private int mColour;
   
   // prepare image
-  public static void initialize(int type, int colour) {
+  public static synchronized void initialize(int type, int colour) {
     
     if ( kImages == null ) {
       kImages = new EgaImage[kPixels.length][kColourSchemes.length];
@@ -147,6 +147,10 @@ public class Tree extends Sprite3D implements Obstacle {
 
   } // Sprite.advance()
 
+  // the tree never changes
+  @Override
+  public boolean isStatic() { return true; }
+  
   // display the object
   @Override
   public void draw(EgaCanvas canvas) {
@@ -16,7 +16,7 @@ public class TreesRight extends Wall {
   private static EgaImage kImages[] = null;
   
   // which image to show
-  private int mImageIndex;
+  final private int mImageIndex;
   
   // constructor
   public TreesRight(int x, int y, int z, int imageIndex) {
@@ -31,7 +31,7 @@ public class TreesRight extends Wall {
   } // constructor
 
   // load all of the tree images
-  static private void prepareImages() {
+  static synchronized private void prepareImages() {
     
     if ( kImages != null ) return;
     kImages = new EgaImage[kImageNames.length];
@@ -166,6 +166,7 @@ public class Triffid extends Sprite3D implements Obstacle {
     if ( mState == TriffidState.kNormal ) mState = TriffidState.kGrowing;
     assert( mState == TriffidState.kGrowing );
     mSleepy = true;
+    stateChanged();
     
   } // setSleepMode()
   
@@ -175,6 +176,7 @@ public class Triffid extends Sprite3D implements Obstacle {
     assert( mState == TriffidState.kGrowing );
     mGrowth = TriffidImage.growthStages()-1;
     if ( !mSleepy ) mState = TriffidState.kNormal;
+    stateChanged();
     
   } // setFullyGrown()
 
@@ -183,6 +185,7 @@ public class Triffid extends Sprite3D implements Obstacle {
     
     assert( direc >= 0 && direc < 4 );
     mDirec = direc;
+    stateChanged();
     
   } // setDirec()
   
@@ -191,14 +194,19 @@ public class Triffid extends Sprite3D implements Obstacle {
     
     mRotateDelay = delay;
     mRotateTimer = Math.abs(mRotateDelay);
+    stateChanged();
     
   } // setRotateRate()
   
   // set the triffid to fire back when shot
-  public void setRetaliates(boolean v) { mRetaliates = v; }
+  public void setRetaliates(boolean v) { mRetaliates = v; stateChanged(); }
 
   // set how far the triffid looks for targets
-  public void setFireRange(int d) { assert(d >= 0); mFireRange = d; }
+  public void setFireRange(int d) { 
+    assert(d >= 0); 
+    mFireRange = d; 
+    stateChanged(); 
+  }
   
   // check for Sprites we want to keep track of
   @Override
@@ -258,6 +266,7 @@ public class Triffid extends Sprite3D implements Obstacle {
     
     mHitTimer = kHitDelay;
     mFlareTimer = 0;
+    stateChanged();
     
     if ( mState == TriffidState.kSleeping ) {
       if ( direc != -1 ) mDirec = (direc+3)%4;
@@ -288,6 +297,7 @@ public class Triffid extends Sprite3D implements Obstacle {
     mState = TriffidState.kDying;
     mGrowth = Math.min(mGrowth, TriffidImage.growthStages()-1);
     mGrowthTimer = kDeathDelay;
+    stateChanged();
       
   } // kill()
   
@@ -297,6 +307,8 @@ public class Triffid extends Sprite3D implements Obstacle {
                       LinkedList<Sprite>     killTheseSprites,
                       LinkedList<StoryEvent> newStoryEvents) {
 
+    stateChanged();
+    
     switch ( mState ) {
       
       case kGrowing: {
@@ -413,6 +425,32 @@ public class Triffid extends Sprite3D implements Obstacle {
     
   } // Sprite.aftermath()
   
+  // hash of the triffid's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = StateHash.start(0x54726966L); // "Trif"
+    hash = StateHash.add(hash, mXPos);
+    hash = StateHash.add(hash, mYPos);
+    hash = StateHash.add(hash, mZPos);
+    hash = StateHash.add(hash, mDirec);
+    hash = StateHash.add(hash, mRotateDelay);
+    hash = StateHash.add(hash, mRotateTimer);
+    hash = StateHash.add(hash, mHitTimer);
+    hash = StateHash.add(hash, mGrowthTimer);
+    hash = StateHash.add(hash, mGrowth);
+    hash = StateHash.add(hash, mReloadTimer);
+    hash = StateHash.add(hash, mFlareTimer);
+    hash = StateHash.add(hash, mFireAway);
+    hash = StateHash.add(hash, mState.ordinal());
+    hash = StateHash.add(hash, mSleepy);
+    hash = StateHash.add(hash, mFireRange);
+    hash = StateHash.add(hash, mRetaliates);
+    hash = StateHash.add(hash, mReturnFire);
+    return hash;
+    
+  } // Sprite.stateHash()
+  
   // display the creature
   @Override
   public void draw(EgaCanvas canvas) {
@@ -360,7 +360,7 @@ public class TriffidBoss extends Sprite3D implements Obstacle {
   private boolean mDeathNotice;
   
   // prepare resources
-  static public void initialize() {
+  static synchronized public void initialize() {
     
     if ( kBasicImages != null ) return;
     
@@ -486,6 +486,7 @@ public class TriffidBoss extends Sprite3D implements Obstacle {
   public void stun(int direc, boolean lethal) {
 
     if ( mState == TriffidState.kDying ) return;
+    stateChanged();
 
     if ( lethal ) {
       mState = TriffidState.kDying;
@@ -514,6 +515,8 @@ public class TriffidBoss extends Sprite3D implements Obstacle {
                       LinkedList<Sprite>     killTheseSprites,
                       LinkedList<StoryEvent> newStoryEvents) {
 
+    stateChanged();
+    
     switch ( mState ) {
       
       case kGrowing: {
@@ -694,6 +697,31 @@ public class TriffidBoss extends Sprite3D implements Obstacle {
     
   } // Sprite.aftermath()
   
+  // hash of the triffid's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = StateHash.start(0x54426F73L); // "TBos"
+    hash = StateHash.add(hash, mXPos);
+    hash = StateHash.add(hash, mYPos);
+    hash = StateHash.add(hash, mZPos);
+    hash = StateHash.add(hash, mDirec);
+    hash = StateHash.add(hash, mRotateDirec);
+    hash = StateHash.add(hash, mRotateTimer);
+    hash = StateHash.add(hash, mGrowth);
+    hash = StateHash.add(hash, mRetaliateDirec);
+    hash = StateHash.add(hash, mTargetDirec);
+    hash = StateHash.add(hash, mHurtTimer);
+    hash = StateHash.add(hash, mAttackTimer);
+    hash = StateHash.add(hash, mBlastDirec);
+    hash = StateHash.add(hash, mBlastTimer);
+    hash = StateHash.add(hash, mTimer);
+    hash = StateHash.add(hash, mState.ordinal());
+    hash = StateHash.add(hash, mDeathNotice);
+    return hash;
+    
+  } // Sprite.stateHash()
+  
   // display the creature
   @Override
   public void draw(EgaCanvas canvas) {
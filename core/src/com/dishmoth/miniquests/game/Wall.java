@@ -24,6 +24,10 @@ abstract public class Wall extends Sprite3D implements Obstacle {
   // (just as a convenience, not needed for all wall types)
   protected int mDoorZPos[][] = null;
   
+  // which doors were closed (one bit each) when the wall was last checked
+  // (rooms open and close the doors, see advance())
+  private long mDoorsClosed = 0;
+  
   // constructor
   public Wall(int x, int y, int z) {
 
@@ -43,6 +47,19 @@ abstract public class Wall extends Sprite3D implements Obstacle {
   abstract public Door addDoor(int xyPos, int zPos, 
                                byte floorColour[], int floorDrop);
 
+  // add a new door to the list (called by the addDoor() implementations)
+  protected void attachDoor(Door door) {
+    
+    assert( mDoors.size() < 64 );
+    mDoors.add(door);
+    mDoorZPos = null;
+    stateChanged();
+    
+  } // attachDoor()
+  
+  // whether a door is in this wall
+  public boolean hasDoor(Door door) { return mDoors.contains(door); }
+  
   // remove a door
   public void removeDoor(Door deadDoor) {
     
@@ -51,6 +68,7 @@ abstract public class Wall extends Sprite3D implements Obstacle {
       if ( d == deadDoor ) {
         it.remove();
         mDoorZPos = null;
+        stateChanged();
         return;
       }
     }
@@ -91,11 +109,57 @@ abstract public class Wall extends Sprite3D implements Obstacle {
   // whether there is space at the specified position
   abstract public boolean isEmpty(int x, int y, int z);
 
-  // nothing to do here
+  // the wall only changes when its doors do
+  @Override
+  public boolean isStatic() { return true; }
+  
+  // the image of the wall depends on its doors
+  @Override
+  public void describeImage(EgaCanvas canvas) {
+    
+    super.describeImage(canvas);
+    for ( Door door : mDoors ) {
+      canvas.addToBackground(door, door.imageVersion());
+    }
+    
+  } // Sprite.describeImage()
+  
+  // notice any doors that have been opened or closed
   @Override
   public void advance(LinkedList<Sprite> addTheseSprites,
                       LinkedList<Sprite> killTheseSprites,
                       LinkedList<StoryEvent> newStoryEvents) {
+    
+    long closed = 0,
+         bit = 1;
+    for ( Door door : mDoors ) {
+      if ( door.closed() ) closed |= bit;
+      bit <<= 1;
+    }
+    if ( closed != mDoorsClosed ) {
+      mDoorsClosed = closed;
+      stateChanged();
+    }
+    
   } // Sprite.advance()
 
+  // hash of the wall's state (which doors are closed, see StateHash)
+  @Override
+  public long stateHash() {
+    
+    if ( mDoors.isEmpty() ) return 0;
+    long hash = StateHash.start(0x57616C6CL); // "Wall"
+    hash = StateHash.add(hash, mXPos);
+    hash = StateHash.add(hash, mYPos);
+    hash = StateHash.add(hash, mZPos);
+    hash = StateHash.add(hash, mDoors.size());
+    for ( Door door : mDoors ) {
+      hash = StateHash.add(hash, door.xyPos());
+      hash = StateHash.add(hash, door.zPos());
+      hash = StateHash.add(hash, door.closed());
+    }
+    return hash;
+    
+  } // Sprite.stateHash()
+
 } // class Wall
@@ -25,8 +25,7 @@ public class WallDown extends Wall {
     assert( floorColour != null && floorColour.length == 2 );
 
     Door door = new Door(xPos, zPos, Env.DOWN, floorColour, floorDrop);
-    mDoors.add(door);
-    mDoorZPos = null;
+    attachDoor(door);
     
     return door;
     
@@ -25,8 +25,7 @@ public class WallLeft extends Wall {
     assert( floorColour != null && floorColour.length == 2 );
     
     Door door = new Door(yPos, zPos, Env.LEFT, floorColour, floorDrop);
-    mDoors.add(door);
-    mDoorZPos = null;
+    attachDoor(door);
     
     return door;
     
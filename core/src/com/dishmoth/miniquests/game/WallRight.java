@@ -28,8 +28,7 @@ public class WallRight extends Wall {
     assert( floorColour != null && floorColour.length == 2 );
     
     Door door = new Door(yPos, zPos, Env.RIGHT, floorColour, floorDrop);
-    mDoors.add(door);
-    mDoorZPos = null;
+    attachDoor(door);
 
     return door;
     
@@ -124,6 +124,7 @@ public class WallSwitch extends Sprite3D {
     
     assert( mCyclic || mState < mColours.length-1 );
     mAdvanceState = true; 
+    stateChanged();
     
   } // hit()
 
@@ -132,6 +133,7 @@ public class WallSwitch extends Sprite3D {
     
     assert( state >= 0 && state < mColours.length );
     mState = state;
+    stateChanged();
     
   } // setState()
   
@@ -181,11 +183,26 @@ public class WallSwitch extends Sprite3D {
       mState += 1;
       if ( mCyclic ) mState = (mState % mColours.length);
       assert( mState < mColours.length );
+      stateChanged();
       newStoryEvents.add( new EventStateChange(this, mState) );
     }
     
   } // Sprite.aftermath()
   
+  // hash of the switch's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = StateHash.start(0x57537769L); // "WSwi"
+    hash = StateHash.add(hash, mXPos);
+    hash = StateHash.add(hash, mYPos);
+    hash = StateHash.add(hash, mZPos);
+    hash = StateHash.add(hash, mState);
+    hash = StateHash.add(hash, mAdvanceState);
+    return hash;
+    
+  } // Sprite.stateHash()
+  
   // display the object
   @Override
   public void draw(EgaCanvas canvas) {
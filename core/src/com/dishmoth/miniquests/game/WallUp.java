@@ -28,8 +28,7 @@ public class WallUp extends Wall {
     assert( floorColour != null && floorColour.length == 2 );
     
     Door door = new Door(xPos, zPos, Env.UP, floorColour, floorDrop);
-    mDoors.add(door);
-    mDoorZPos = null;
+    attachDoor(door);
     
     return door;
     
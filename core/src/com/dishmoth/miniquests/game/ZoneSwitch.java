@@ -81,10 +81,22 @@ public class ZoneSwitch extends Sprite3D {
   public boolean isOn() { return mIsOn; }
   
   // freeze the state of the switch
-  public void freezeState(boolean on) { mIsOn = on; mStateFrozen = true; }
+  public void freezeState(boolean on) { 
+    
+    mIsOn = on; 
+    mStateFrozen = true; 
+    stateChanged();
+    
+  } // freezeState()
 
   // unfreeze the state of the switch
-  public void unfreezeState() { mIsOn = false; mStateFrozen = false; }
+  public void unfreezeState() { 
+    
+    mIsOn = false; 
+    mStateFrozen = false; 
+    stateChanged();
+    
+  } // unfreezeState()
 
   // check for Sprites we want to keep track of
   @Override
@@ -164,11 +176,30 @@ public class ZoneSwitch extends Sprite3D {
       assert( !mStateFrozen );
       mToggleState = false;
       mIsOn = !mIsOn;
+      stateChanged();
       newStoryEvents.add( new EventStateChange(this) );
     }
     
   } // Sprite.aftermath()
   
+  // hash of the switch's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = StateHash.start(0x5A537769L); // "ZSwi"
+    hash = StateHash.add(hash, mXMin);
+    hash = StateHash.add(hash, mXMax);
+    hash = StateHash.add(hash, mYMin);
+    hash = StateHash.add(hash, mYMax);
+    hash = StateHash.add(hash, mZMin);
+    hash = StateHash.add(hash, mZMax);
+    hash = StateHash.add(hash, mIsOn);
+    hash = StateHash.add(hash, mToggleState);
+    hash = StateHash.add(hash, mStateFrozen);
+    return hash;
+    
+  } // Sprite.stateHash()
+  
   // display the object (nothing to see)
   @Override
   public void draw(EgaCanvas canvas) {
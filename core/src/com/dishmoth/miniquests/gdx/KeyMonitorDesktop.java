@@ -8,10 +8,14 @@ package com.dishmoth.miniquests.gdx;
 
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Input;
+import com.dishmoth.miniquests.game.Env;
 
 // keep track of what 'keys' are currently pressed
 public class KeyMonitorDesktop extends KeyMonitorGdx {
 
+  // largest key code (see Input.Keys)
+  private static final int kMaxKeyCode = 255;
+
   // constructor
   public KeyMonitorDesktop() {
 
@@ -119,12 +123,20 @@ public class KeyMonitorDesktop extends KeyMonitorGdx {
   } // KeyMonitor.escape()
 
   // check whether any key is currently pressed
+  // (in debug mode the fast-forward key doesn't count, see MiniQuestsGame,
+  // but any other key held along with it still does)
   @Override
   public boolean any() {
     
-    return ( (mControllers != null && mControllers.any()) || 
-             Gdx.input.isKeyPressed(Input.Keys.ANY_KEY) ||
-             fire() );
+    if ( (mControllers != null && mControllers.any()) || fire() ) return true;
+    if ( !Gdx.input.isKeyPressed(Input.Keys.ANY_KEY) ) return false;
+    if ( !Env.debugMode() || !Gdx.input.isKeyPressed(Input.Keys.F) ) {
+      return true;
+    }
+    for ( int key = 0 ; key <= kMaxKeyCode ; key++ ) {
+      if ( key != Input.Keys.F && Gdx.input.isKeyPressed(key) ) return true;
+    }
+    return false;
     
   } // KeyMonitor.any()
   
@@ -18,6 +18,7 @@ import com.dishmoth.miniquests.game.Player;
 import com.dishmoth.miniquests.game.Room;
 import com.dishmoth.miniquests.game.Sounds;
 import com.dishmoth.miniquests.game.SpriteManager;
+import com.dishmoth.miniquests.game.StateHash;
 import com.dishmoth.miniquests.game.StoryEvent;
 import com.dishmoth.miniquests.game.QuestStory;
 import com.dishmoth.miniquests.game.WallSwitch;
@@ -151,6 +152,19 @@ public class RoomA02 extends Room {
     
   } // Room.restore() 
   
+  // hash of the room's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.add(hash, mLavaCounter);
+    hash = StateHash.add(hash, mLavaZPos);
+    hash = StateHash.add(hash, mLava != null);
+    hash = StateHash.add(hash, mSwitchDone);
+    return hash;
+    
+  } // Room.stateHash()
+  
   // create the player at the specified entry point to the room
   // (this function should also set the camera position) 
   @Override
@@ -169,7 +183,7 @@ public class RoomA02 extends Room {
     spriteManager.addSprite( new BlockArray(kBlocks, kBlockColours, 0,0,-4) );
 
     addBasicWalls(kExits, spriteManager);
-    if ( !mSwitchDone ) kExits[1].mDoor.setClosed(true);
+    if ( !mSwitchDone ) door(1).setClosed(true);
     
     WallSwitch ws = new WallSwitch(Env.RIGHT, 6, -2, 
                                    new String[]{"Iu","7u"}, false);
@@ -210,7 +224,7 @@ public class RoomA02 extends Room {
       
       if ( event instanceof WallSwitch.EventStateChange ) {
         assert( !mSwitchDone );
-        kExits[1].mDoor.setClosed(false);
+        door(1).setClosed(false);
         mSwitchDone = true;
         saveGameEvent = true;
         Env.sounds().play(Sounds.SUCCESS, 3);
@@ -25,6 +25,7 @@ import com.dishmoth.miniquests.game.Shrapnel;
 import com.dishmoth.miniquests.game.Sounds;
 import com.dishmoth.miniquests.game.Sprite;
 import com.dishmoth.miniquests.game.SpriteManager;
+import com.dishmoth.miniquests.game.StateHash;
 import com.dishmoth.miniquests.game.StoryEvent;
 import com.dishmoth.miniquests.game.QuestStory;
 import com.dishmoth.miniquests.game.WallSwitch;
@@ -147,14 +148,20 @@ public class RoomA03 extends Room {
   // time during which all sprites are frozen
   private int mCutSceneTimer;
   
+  // prepare resources
+  static synchronized public void initialize() {
+    
+    if ( kMuralImage != null ) return;
+    kMuralImage = Env.resources().loadEgaImage("MuralX03.png");
+    
+  } // initialize()
+  
   // constructor
   public RoomA03() {
     
     super(NAME);
 
-    if ( kMuralImage == null ) {
-      kMuralImage = Env.resources().loadEgaImage("MuralX03.png");
-    }
+    initialize();
     
     mSwitchesDone = false;
     mFirstStairsDone = false;
@@ -191,6 +198,30 @@ public class RoomA03 extends Room {
     
   } // Room.restore() 
   
+  // hash of the room's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.add(hash, mSwitchesDone);
+    hash = StateHash.addPresence(hash, mSwitches);
+    hash = StateHash.add(hash, mButton10 != null);
+    hash = StateHash.add(hash, mButton11 != null);
+    hash = StateHash.add(hash, mFirstStairsDone);
+    hash = StateHash.add(hash, mSecondStairsDone);
+    hash = StateHash.add(hash, mThirdStairsDone);
+    hash = StateHash.addPresence(hash, mStairBlocks10);
+    hash = StateHash.addPresence(hash, mStairBlocks01);
+    hash = StateHash.addPresence(hash, mStairBlocks11);
+    hash = StateHash.add(hash, mFinalSwitchDone);
+    hash = StateHash.add(hash, mFinalSwitch != null);
+    hash = StateHash.add(hash, mFinalSwitchTimer);
+    hash = StateHash.add(hash, mStairTimer);
+    hash = StateHash.add(hash, mCutSceneTimer);
+    return hash;
+    
+  } // Room.stateHash()
+  
   // create the player at the specified entry point to the room
   // (this function should also set the camera position) 
   @Override
@@ -336,7 +367,7 @@ public class RoomA03 extends Room {
                          new FloorSwitch(15,15, 0, "#a", "#2") };
       for ( FloorSwitch s : mSwitches ) spriteManager.addSprite(s);
 
-      kExits[1].mDoor.setClosed(true);
+      door(1).setClosed(true);
     }
 
     // final switch
@@ -346,7 +377,7 @@ public class RoomA03 extends Room {
     if ( mFinalSwitchDone ) {
       mFinalSwitch.freezeState(true);
     } else {
-      kExits[5].mDoor.setClosed(true);
+      door(5).setClosed(true);
     }
         
     mStairTimer = 0;
@@ -428,7 +459,7 @@ public class RoomA03 extends Room {
         mSwitches = null;
         scroll = scrollToZone(0, 0);
         if ( scroll == null ) {
-          kExits[1].mDoor.setClosed(false);
+          door(1).setClosed(false);
           Env.sounds().play(Sounds.SUCCESS, 0);
         } else {
           storyEvents.add(scroll);
@@ -509,7 +540,7 @@ public class RoomA03 extends Room {
     }
     if ( mFinalSwitchDone && mFinalSwitchTimer > 0 ) {
       if ( --mFinalSwitchTimer == 0 ) {
-        kExits[5].mDoor.setClosed(false);
+        door(5).setClosed(false);
         int delay = ( mPlayer.getDirec() == Env.RIGHT || 
                       mPlayer.getDirec() == Env.UP ) ? 0 : 5;
         Env.sounds().play(Sounds.SUCCESS, delay);
@@ -563,7 +594,7 @@ public class RoomA03 extends Room {
     // first cut scene (door opens)
     else if ( mSwitchesDone ) {
       if ( mCutSceneTimer == kTimeOpenDoor ) {
-        kExits[1].mDoor.setClosed(false);
+        door(1).setClosed(false);
         Env.sounds().play(Sounds.SUCCESS, 0);
       }
     }
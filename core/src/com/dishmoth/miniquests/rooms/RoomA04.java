@@ -21,6 +21,7 @@ import com.dishmoth.miniquests.game.Room;
 import com.dishmoth.miniquests.game.Sounds;
 import com.dishmoth.miniquests.game.Splatter;
 import com.dishmoth.miniquests.game.SpriteManager;
+import com.dishmoth.miniquests.game.StateHash;
 import com.dishmoth.miniquests.game.StoryEvent;
 
 // the room "A04"
@@ -166,6 +167,18 @@ public class RoomA04 extends Room {
     
   } // Room.restore() 
   
+  // hash of the room's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.addPresence(hash, mCritters);
+    hash = StateHash.add(hash, mCritterTimer);
+    hash = StateHash.add(hash, mDoorOpen);
+    return hash;
+    
+  } // Room.stateHash()
+  
   // create the player at the specified entry point to the room
   // (this function should also set the camera position) 
   @Override
@@ -197,7 +210,7 @@ public class RoomA04 extends Room {
         spriteManager.addSprite(mCritters[k]);
       }
     } else {
-      kExits[1].mDoor.setClosed(true);
+      door(1).setClosed(true);
       spriteManager.addSprite( new FloorSwitch(0,0,0, "#z", "#w") );
     }
 
@@ -235,7 +248,7 @@ public class RoomA04 extends Room {
           s.freezeState(true);
           assert( !mDoorOpen );
           mDoorOpen = true;
-          kExits[1].mDoor.setClosed(false);
+          door(1).setClosed(false);
           mCritterTimer = kCritterDelay;
           Env.sounds().play(Sounds.SWITCH_ON);
         }
@@ -19,6 +19,7 @@ import com.dishmoth.miniquests.game.Player;
 import com.dishmoth.miniquests.game.Room;
 import com.dishmoth.miniquests.game.Sounds;
 import com.dishmoth.miniquests.game.SpriteManager;
+import com.dishmoth.miniquests.game.StateHash;
 import com.dishmoth.miniquests.game.StoryEvent;
 import com.dishmoth.miniquests.game.QuestStory;
 
@@ -125,6 +126,22 @@ public class RoomA05 extends Room {
     
   } // Room.restore() 
   
+  // hash of the room's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.add(hash, mAllBlocks != null);
+    hash = StateHash.add(hash, mTrueBlocks != null);
+    hash = StateHash.add(hash, mDeathBlocks != null);
+    hash = StateHash.add(hash, mSwitchVisible != null);
+    hash = StateHash.add(hash, mSwitchComplete != null);
+    hash = StateHash.add(hash, mDeathTimer);
+    hash = StateHash.add(hash, mCompleted);
+    return hash;
+    
+  } // Room.stateHash()
+  
   // create the player at the specified entry point to the room
   // (this function should also set the camera position) 
   @Override
@@ -21,6 +21,7 @@ import com.dishmoth.miniquests.game.Player;
 import com.dishmoth.miniquests.game.Room;
 import com.dishmoth.miniquests.game.Sounds;
 import com.dishmoth.miniquests.game.SpriteManager;
+import com.dishmoth.miniquests.game.StateHash;
 import com.dishmoth.miniquests.game.StoryEvent;
 import com.dishmoth.miniquests.game.QuestStory;
 import com.dishmoth.miniquests.game.WallSwitch;
@@ -172,6 +173,25 @@ public class RoomA06 extends Room {
     
   } // Room.restore() 
   
+  // hash of the room's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.add(hash, mSwitch1 != null);
+    hash = StateHash.add(hash, mSwitch2 != null);
+    hash = StateHash.add(hash, mSwitchesDone);
+    hash = StateHash.add(hash, mButton1 != null);
+    hash = StateHash.add(hash, mButton2 != null);
+    hash = StateHash.add(hash, mButtonsDone);
+    hash = StateHash.add(hash, mExtraBlocks != null);
+    hash = StateHash.add(hash, mExtraBlocksIndex);
+    hash = StateHash.add(hash, mExtraBlocksTimer);
+    hash = StateHash.add(hash, mNoSoundTimer);
+    return hash;
+    
+  } // Room.stateHash()
+  
   // create the player at the specified entry point to the room
   // (this function should also set the camera position) 
   @Override
@@ -190,7 +210,7 @@ public class RoomA06 extends Room {
     spriteManager.addSprite( new BlockArray(kBlocks, kBlockColours, 0, 0, 0) );
     
     addBasicWalls(kExits, spriteManager);
-    if ( !mButtonsDone ) kExits[1].mDoor.setClosed(true);
+    if ( !mButtonsDone ) door(1).setClosed(true);
 
     int x1 = 1,
         x2 = 8;
@@ -276,7 +296,7 @@ public class RoomA06 extends Room {
     if ( mSwitchesDone && !mButtonsDone && 
          mButton1.getState() > 0 && mButton2.getState() > 0 ) {
       mButtonsDone = true;
-      kExits[1].mDoor.setClosed(false);
+      door(1).setClosed(false);
       storyEvents.add(new QuestStory.EventSaveGame());
       Env.sounds().play(Sounds.SUCCESS, 3);
     }
@@ -16,6 +16,7 @@ import com.dishmoth.miniquests.game.Player;
 import com.dishmoth.miniquests.game.Room;
 import com.dishmoth.miniquests.game.Sounds;
 import com.dishmoth.miniquests.game.SpriteManager;
+import com.dishmoth.miniquests.game.StateHash;
 import com.dishmoth.miniquests.game.StoryEvent;
 
 // the room "A07"
@@ -156,6 +157,18 @@ public class RoomA07 extends Room {
     
   } // Room.createSprites()
   
+  // hash of the room's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.addPresence(hash, mBlockChunks);
+    hash = StateHash.add(hash, mStage);
+    hash = StateHash.add(hash, mTimer);
+    return hash;
+    
+  } // Room.stateHash()
+  
   // whether a block chunk is active in the current stage
   private boolean chunkIsUp(int chunkIndex, int stage) {
     
@@ -20,6 +20,7 @@ import com.dishmoth.miniquests.game.Sounds;
 import com.dishmoth.miniquests.game.Splatter;
 import com.dishmoth.miniquests.game.Sprite;
 import com.dishmoth.miniquests.game.SpriteManager;
+import com.dishmoth.miniquests.game.StateHash;
 import com.dishmoth.miniquests.game.StoryEvent;
 
 // the room "A08"
@@ -136,6 +137,16 @@ public class RoomA08 extends Room {
     
   } // Room.createSprites()
   
+  // hash of the room's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.add(hash, mTimer);
+    return hash;
+    
+  } // Room.stateHash()
+  
   // room is no longer current, delete any unnecessary references 
   @Override
   public void discardResources() {
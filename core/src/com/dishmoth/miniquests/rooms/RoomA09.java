@@ -18,6 +18,7 @@ import com.dishmoth.miniquests.game.Player;
 import com.dishmoth.miniquests.game.Room;
 import com.dishmoth.miniquests.game.Sounds;
 import com.dishmoth.miniquests.game.SpriteManager;
+import com.dishmoth.miniquests.game.StateHash;
 import com.dishmoth.miniquests.game.StoryEvent;
 import com.dishmoth.miniquests.game.QuestStory;
 import com.dishmoth.miniquests.game.WallSwitch;
@@ -156,6 +157,22 @@ public class RoomA09 extends Room {
     
   } // Room.restore() 
   
+  // hash of the room's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.add(hash, mLavaDone);
+    hash = StateHash.add(hash, mLavaLevel);
+    hash = StateHash.add(hash, mLava != null);
+    hash = StateHash.add(hash, mFirstSwitch != null);
+    hash = StateHash.addPresence(hash, mSecondSwitches);
+    hash = StateHash.add(hash, mSwitchTimer);
+    hash = StateHash.add(hash, mExtraBlock != null);
+    return hash;
+    
+  } // Room.stateHash()
+  
   // create the player at the specified entry point to the room
   // (this function should also set the camera position) 
   @Override
@@ -174,7 +191,7 @@ public class RoomA09 extends Room {
     spriteManager.addSprite( new BlockArray(kBlocks, kBlockColours, 0,0,-8) );
     
     addBasicWalls(kExits, spriteManager);
-    if ( !mLavaDone ) kExits[1].mDoor.setClosed(true);
+    if ( !mLavaDone ) door(1).setClosed(true);
 
     mLavaLevel = ( mLavaDone ? kLavaLevelLow : kLavaLevelHigh );
     mLava = new Liquid(0,0,Math.round(mLavaLevel), 1);
@@ -327,7 +344,7 @@ public class RoomA09 extends Room {
       if ( done ) {
         mLavaDone = true;
         Env.sounds().play(Sounds.SUCCESS, 3);
-        kExits[1].mDoor.setClosed(false);
+        door(1).setClosed(false);
         storyEvents.add(new QuestStory.EventSaveGame());
       }
     }
@@ -26,6 +26,7 @@ import com.dishmoth.miniquests.game.Sounds;
 import com.dishmoth.miniquests.game.Splatter;
 import com.dishmoth.miniquests.game.Sprite;
 import com.dishmoth.miniquests.game.SpriteManager;
+import com.dishmoth.miniquests.game.StateHash;
 import com.dishmoth.miniquests.game.StoryEvent;
 import com.dishmoth.miniquests.game.QuestStory;
 import com.dishmoth.miniquests.game.WallSwitch;
@@ -206,6 +207,27 @@ public class RoomA10 extends Room {
     
   } // Room.restore() 
   
+  // hash of the room's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.add(hash, mNumSwitchesDone);
+    hash = StateHash.add(hash, mWallSwitchesDone);
+    hash = StateHash.add(hash, mDragonKilled);
+    hash = StateHash.add(hash, mMode);
+    hash = StateHash.add(hash, mTimer);
+    hash = StateHash.add(hash, mRightBridge != null);
+    hash = StateHash.add(hash, mLeftBridge != null);
+    hash = StateHash.add(hash, mFloatingSwitch != null);
+    hash = StateHash.addPresence(hash, mWallSwitches);
+    hash = StateHash.add(hash, mFinalPath != null);
+    hash = StateHash.add(hash, mFinalSwitch != null);
+    hash = StateHash.add(hash, mBossDragonDirec);
+    return hash;
+    
+  } // Room.stateHash()
+  
   // create the player at the specified entry point to the room
   // (this function should also set the camera position) 
   @Override
@@ -216,18 +238,18 @@ public class RoomA10 extends Room {
     // special behaviour
     if ( mMode == 2 ) {
       if ( entryPoint == 0 ) {
-        kExits[5].mDoor.setClosed(true);
+        door(5).setClosed(true);
       } else {
         assert( entryPoint == 2 || entryPoint == 5 );
-        kExits[5].mDoor.setClosed(false);
+        door(5).setClosed(false);
         mMode = 3;
         mTimer = 0;
       }
     } else if ( mMode == 5 ) {
       if ( entryPoint == 1 || entryPoint == 3 ) {
         assert( mWallSwitchesDone );
-        kExits[1].mDoor.setClosed(false);
-        kExits[3].mDoor.setClosed(false);
+        door(1).setClosed(false);
+        door(3).setClosed(false);
         mMode = 6;
         mTimer = 0;
       } else {
@@ -274,7 +296,7 @@ public class RoomA10 extends Room {
                  true, false, true, true, 
                  kExits, spriteManager);
 
-    if ( mNumSwitchesDone < 3 ) kExits[1].mDoor.setClosed(true);
+    if ( mNumSwitchesDone < 3 ) door(1).setClosed(true);
     
     mRightBridge = new BlockArray(kBridgeBlocks, kBlockColours,
                                   zoneX*Room.kSize+9, zoneY*Room.kSize+1, 0);
@@ -331,7 +353,7 @@ public class RoomA10 extends Room {
       spriteManager.addSprite(ws);
     }
     
-    if ( !mWallSwitchesDone ) kExits[3].mDoor.setClosed(true);
+    if ( !mWallSwitchesDone ) door(3).setClosed(true);
     
     // zone (0,1)
     
@@ -343,7 +365,7 @@ public class RoomA10 extends Room {
                  false, true, false, false, 
                  kExits, spriteManager);
 
-    if ( !mDragonKilled ) kExits[4].mDoor.setClosed(true);
+    if ( !mDragonKilled ) door(4).setClosed(true);
     
     // zone (1,1)
     
@@ -355,7 +377,7 @@ public class RoomA10 extends Room {
                  true, true, false, true, 
                  kExits, spriteManager);
 
-    if ( mNumSwitchesDone <= 1 ) kExits[5].mDoor.setClosed(true);
+    if ( mNumSwitchesDone <= 1 ) door(5).setClosed(true);
     
     // switches
     
@@ -450,7 +472,7 @@ public class RoomA10 extends Room {
         Env.sounds().play(Sounds.SWITCH_ON);
         if ( sw == mFloatingSwitch ) {
           assert( mMode == 2 );
-          kExits[5].mDoor.setClosed(false);
+          door(5).setClosed(false);
         } else if ( sw == mFinalSwitch ) {
           assert( mMode == 8 );
           sw.freezeState(true);
@@ -465,7 +487,7 @@ public class RoomA10 extends Room {
       if ( event instanceof WallSwitch.EventStateChange ) {
         assert( mMode == 5 );
         assert( !mWallSwitchesDone );
-        assert( kExits[3].mDoor.closed() );
+        assert( door(3).closed() );
         boolean done = true;
         for ( WallSwitch ws : mWallSwitches ) {
           if ( ws.getState() == 0 ) done = false;
@@ -473,7 +495,7 @@ public class RoomA10 extends Room {
         if ( done ) {
           mWallSwitchesDone = true;
           saveGameEvent = true;
-          kExits[3].mDoor.setClosed(false);
+          door(3).setClosed(false);
           Env.sounds().play(Sounds.SUCCESS, 3);
         }
         it.remove();
@@ -502,8 +524,8 @@ public class RoomA10 extends Room {
         mFinalPath.setEndRate(+12);
       } else {
         mFinalPath.setEndRate(0);
-        if ( kExits[4].mDoor.closed() ) {
-          kExits[4].mDoor.setClosed(false);
+        if ( door(4).closed() ) {
+          door(4).setClosed(false);
           Env.sounds().play(Sounds.SUCCESS);
         }
       }
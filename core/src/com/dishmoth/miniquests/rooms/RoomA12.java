@@ -18,6 +18,7 @@ import com.dishmoth.miniquests.game.Player;
 import com.dishmoth.miniquests.game.Room;
 import com.dishmoth.miniquests.game.Sounds;
 import com.dishmoth.miniquests.game.SpriteManager;
+import com.dishmoth.miniquests.game.StateHash;
 import com.dishmoth.miniquests.game.StoryEvent;
 import com.dishmoth.miniquests.game.QuestStory;
 
@@ -126,6 +127,19 @@ public class RoomA12 extends Room {
     
   } // Room.restore() 
   
+  // hash of the room's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.add(hash, mDone);
+    hash = StateHash.addPresence(hash, mFlames);
+    hash = StateHash.add(hash, mXPos);
+    hash = StateHash.add(hash, mYPos);
+    return hash;
+    
+  } // Room.stateHash()
+  
   // create the player at the specified entry point to the room
   // (this function should also set the camera position) 
   @Override
@@ -145,7 +159,7 @@ public class RoomA12 extends Room {
     
     addBasicWalls(kExits, spriteManager);
 
-    if ( !mDone ) kExits[1].mDoor.setClosed(true);
+    if ( !mDone ) door(1).setClosed(true);
     
     mFlames = new Flame[]{ new Flame(7, 9, 4),
                            new Flame(1, 9, 4),
@@ -208,7 +222,7 @@ public class RoomA12 extends Room {
             storyEvents.add(new QuestStory.EventSaveGame());
             Env.sounds().play(Sounds.SUCCESS);
           }
-          kExits[1].mDoor.setClosed( !allFlamesOn() ); 
+          door(1).setClosed( !allFlamesOn() ); 
         }
       }
     }
@@ -18,6 +18,7 @@ import com.dishmoth.miniquests.game.Player;
 import com.dishmoth.miniquests.game.Room;
 import com.dishmoth.miniquests.game.Sounds;
 import com.dishmoth.miniquests.game.SpriteManager;
+import com.dishmoth.miniquests.game.StateHash;
 import com.dishmoth.miniquests.game.StoryEvent;
 import com.dishmoth.miniquests.game.QuestStory;
 
@@ -146,6 +147,17 @@ public class RoomA13 extends Room {
     
   } // Room.createSprites()
   
+  // hash of the room's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.add(hash, mChest != null);
+    hash = StateHash.add(hash, mEndTimer);
+    return hash;
+    
+  } // Room.stateHash()
+  
   // room is no longer current, delete any unnecessary references 
   @Override
   public void discardResources() {
@@ -23,6 +23,7 @@ import com.dishmoth.miniquests.game.Player;
 import com.dishmoth.miniquests.game.Room;
 import com.dishmoth.miniquests.game.Sounds;
 import com.dishmoth.miniquests.game.SpriteManager;
+import com.dishmoth.miniquests.game.StateHash;
 import com.dishmoth.miniquests.game.StoryEvent;
 import com.dishmoth.miniquests.game.Tree;
 import com.dishmoth.miniquests.game.TreesRight;
@@ -196,6 +197,21 @@ public class RoomB01 extends Room {
     
   } // Room.restore() 
   
+  // hash of the room's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.add(hash, mSwitchDone);
+    hash = StateHash.add(hash, mEntranceGate != null);
+    hash = StateHash.add(hash, mEntranceGateTimer);
+    hash = StateHash.add(hash, mHiddenDoor != null);
+    hash = StateHash.add(hash, mHiddenDoorWall != null);
+    hash = StateHash.add(hash, mHiddenDoorTimer);
+    return hash;
+    
+  } // Room.stateHash()
+  
   // create the player at the specified entry point to the room
   // (this function should also set the camera position) 
   @Override
@@ -441,7 +457,7 @@ public class RoomB01 extends Room {
     RoomB02 roomInside = (RoomB02)findRoom(RoomB02.NAME);
     assert( roomInside != null );
     if ( !roomInside.doorsUnlocked() ) {
-      kExits[0].mDoor.setClosed(true);
+      door(0).setClosed(true);
     }
 
   } // Room.createSprites()
@@ -16,6 +16,7 @@ import com.dishmoth.miniquests.game.Player;
 import com.dishmoth.miniquests.game.Room;
 import com.dishmoth.miniquests.game.Sounds;
 import com.dishmoth.miniquests.game.SpriteManager;
+import com.dishmoth.miniquests.game.StateHash;
 import com.dishmoth.miniquests.game.StoryEvent;
 import com.dishmoth.miniquests.game.QuestStory;
 import com.dishmoth.miniquests.game.Triffid;
@@ -187,6 +188,20 @@ public class RoomB02 extends Room {
     
   } // Room.restore() 
   
+  // hash of the room's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.addPresence(hash, mTriffids);
+    hash = StateHash.add(hash, mNumTriffidsDone);
+    hash = StateHash.add(hash, mNewTriffidTimer);
+    hash = StateHash.add(hash, mFloorBlocks != null);
+    hash = StateHash.add(hash, mFloorLineTimer);
+    return hash;
+    
+  } // Room.stateHash()
+  
   // whether the room has been completed yet
   // (note: this function may be called by RoomB01)
   public boolean doorsUnlocked() { return (mNumTriffidsDone == 3); }
@@ -230,8 +245,8 @@ public class RoomB02 extends Room {
     }
 
     if ( mNumTriffidsDone < mTriffids.length ) {
-      kExits[1].mDoor.setClosed(true);
-      kExits[2].mDoor.setClosed(true);
+      door(1).setClosed(true);
+      door(2).setClosed(true);
     }
     
     mNewTriffidTimer = 0;
@@ -317,8 +332,8 @@ public class RoomB02 extends Room {
     if ( mNumTriffidsDone == mTriffids.length ) {
       if ( mNewTriffidTimer > 0 ) {
         if ( --mNewTriffidTimer == 0 ) {
-          kExits[1].mDoor.setClosed(false);
-          kExits[2].mDoor.setClosed(false);
+          door(1).setClosed(false);
+          door(2).setClosed(false);
           Env.sounds().play(Sounds.SUCCESS);
           storyEvents.add(new QuestStory.EventSaveGame());
         }
@@ -17,6 +17,7 @@ import com.dishmoth.miniquests.game.Player;
 import com.dishmoth.miniquests.game.Room;
 import com.dishmoth.miniquests.game.Sounds;
 import com.dishmoth.miniquests.game.SpriteManager;
+import com.dishmoth.miniquests.game.StateHash;
 import com.dishmoth.miniquests.game.StoryEvent;
 import com.dishmoth.miniquests.game.QuestStory;
 import com.dishmoth.miniquests.game.Triffid;
@@ -169,6 +170,20 @@ public class RoomB03 extends Room {
     
   } // Room.restore() 
   
+  // hash of the room's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.add(hash, mPopupTriffidState);
+    hash = StateHash.add(hash, mPopupTriffid != null);
+    hash = StateHash.addPresence(hash, mBarrierTriffids);
+    hash = StateHash.add(hash, mBarrierTriffidState);
+    hash = StateHash.add(hash, mLastEntryPoint);
+    return hash;
+    
+  } // Room.stateHash()
+  
   // create the player at the specified entry point to the room
   // (this function should also set the camera position) 
   @Override
@@ -15,6 +15,7 @@ import com.dishmoth.miniquests.game.Player;
 import com.dishmoth.miniquests.game.Room;
 import com.dishmoth.miniquests.game.Sounds;
 import com.dishmoth.miniquests.game.SpriteManager;
+import com.dishmoth.miniquests.game.StateHash;
 import com.dishmoth.miniquests.game.StoryEvent;
 
 // the room "B06"
@@ -126,6 +127,23 @@ public class RoomB06 extends Room {
     mTimer = kPauseTime;
     
   } // Room.createSprites()
+  
+  // hash of the room's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.add(hash, mFloorBlocks != null);
+    if ( mSquarePos != null ) {
+      for ( int row[] : mSquarePos ) hash = StateHash.add(hash, row);
+    }
+    hash = StateHash.add(hash, mTimer);
+    hash = StateHash.add(hash, (mMoveMode == null) ? -1 
+                                                   : mMoveMode.ordinal());
+    hash = StateHash.add(hash, mMoveIndex);
+    return hash;
+    
+  } // Room.stateHash()
 
   // construct blocks for the current floor state
   private void buildFloor(SpriteManager spriteManager) {
@@ -15,6 +15,7 @@ import com.dishmoth.miniquests.game.Exit;
 import com.dishmoth.miniquests.game.Player;
 import com.dishmoth.miniquests.game.Room;
 import com.dishmoth.miniquests.game.SpriteManager;
+import com.dishmoth.miniquests.game.StateHash;
 import com.dishmoth.miniquests.game.StoryEvent;
 
 // the room "B08"
@@ -113,6 +114,16 @@ public class RoomB08 extends Room {
     
   } // Room.createSprites()
   
+  // hash of the room's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.add(hash, mBridgeBlocksRight != null);
+    return hash;
+    
+  } // Room.stateHash()
+  
   // room is no longer current, delete any unnecessary references 
   @Override
   public void discardResources() {
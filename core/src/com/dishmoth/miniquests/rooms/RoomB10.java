@@ -22,6 +22,7 @@ import com.dishmoth.miniquests.game.Player;
 import com.dishmoth.miniquests.game.Room;
 import com.dishmoth.miniquests.game.Sounds;
 import com.dishmoth.miniquests.game.SpriteManager;
+import com.dishmoth.miniquests.game.StateHash;
 import com.dishmoth.miniquests.game.StoryEvent;
 import com.dishmoth.miniquests.game.QuestStory;
 import com.dishmoth.miniquests.game.WallSwitch;
@@ -155,6 +156,27 @@ public class RoomB10 extends Room {
     
   } // Room.restore() 
   
+  // hash of the room's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.addPresence(hash, mSwitches);
+    hash = StateHash.add(hash, mUpperActivated);
+    hash = StateHash.add(hash, mLowerActivated);
+    hash = StateHash.add(hash, mUpperTimer);
+    hash = StateHash.add(hash, mLowerTimer);
+    hash = StateHash.add(hash, mUpperShift);
+    hash = StateHash.add(hash, mLowerShift);
+    hash = StateHash.add(hash, mUpperBlocks != null);
+    hash = StateHash.add(hash, mLowerBlocks != null);
+    hash = StateHash.add(hash, mSwitchStates);
+    hash = StateHash.add(hash, mCritterDead);
+    hash = StateHash.add(hash, mCritter != null);
+    return hash;
+    
+  } // Room.stateHash()
+  
   // whether the upper blocks have been moved yet
   // (note: this function may be called by RoomB08)
   public boolean upperBlocksActived() { return mUpperActivated; }
@@ -19,6 +19,7 @@ import com.dishmoth.miniquests.game.Player;
 import com.dishmoth.miniquests.game.Room;
 import com.dishmoth.miniquests.game.Sounds;
 import com.dishmoth.miniquests.game.SpriteManager;
+import com.dishmoth.miniquests.game.StateHash;
 import com.dishmoth.miniquests.game.StoryEvent;
 import com.dishmoth.miniquests.game.QuestStory;
 import com.dishmoth.miniquests.game.Triffid;
@@ -137,6 +138,20 @@ public class RoomB11 extends Room {
     
   } // Room.restore() 
   
+  // hash of the room's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.add(hash, mSwitch != null);
+    hash = StateHash.add(hash, mBridgeState);
+    hash = StateHash.add(hash, mBridgeTimer);
+    hash = StateHash.add(hash, mBridgeShift);
+    hash = StateHash.add(hash, mBridgeBlocks != null);
+    return hash;
+    
+  } // Room.stateHash()
+  
   // how far the blocks should have been moved
   // (note: this function may be called by RoomB07 and RoomB08)
   public int bridgeExtent() { 
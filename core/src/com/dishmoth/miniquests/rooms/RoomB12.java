@@ -15,8 +15,10 @@ import com.dishmoth.miniquests.game.Exit;
 import com.dishmoth.miniquests.game.Fence;
 import com.dishmoth.miniquests.game.Picture;
 import com.dishmoth.miniquests.game.Player;
+import com.dishmoth.miniquests.game.RandomStream;
 import com.dishmoth.miniquests.game.Room;
 import com.dishmoth.miniquests.game.SpriteManager;
+import com.dishmoth.miniquests.game.StateHash;
 import com.dishmoth.miniquests.game.StoryEvent;
 import com.dishmoth.miniquests.game.Wall;
 import com.dishmoth.miniquests.game.WallDown;
@@ -92,8 +94,14 @@ public class RoomB12 extends Room {
   private static EgaImage kBackdropImage;
   private static int      kBackdropWater[];
   
+  // seed for the initial water pattern (the same for every game)
+  private static final long kBackdropSeed = 12;
+  
+  // this room's copy of the background (the water animates)
+  private EgaImage mBackdropImage;
+  
   // prepare resources
-  static public void initialize() {
+  static synchronized public void initialize() {
     
     if ( kBackdropImage != null ) return;
     kBackdropImage = Env.resources().loadEgaImage("TowerTop.png");
@@ -112,9 +120,10 @@ public class RoomB12 extends Room {
       }
     }
 
+    RandomStream random = new RandomStream(kBackdropSeed);
     for ( int k = 0 ; k < kBackdropWater.length ; k++ ) {
       int pix = kBackdropWater[k];
-      pixels[pix] = (Env.randomDouble() < kWaterFraction1) 
+      pixels[pix] = (random.nextDouble() < kWaterFraction1) 
                     ? kWaterColour1 : kWaterColour2;
     }
   
@@ -126,6 +135,7 @@ public class RoomB12 extends Room {
     super(NAME);
 
     initialize();
+    mBackdropImage = kBackdropImage.clone();
 
   } // constructor
 
@@ -152,11 +162,13 @@ public class RoomB12 extends Room {
     walls[Env.UP]    = new WallUp(-upShift, 0, 0);
     walls[Env.LEFT]  = new WallLeft(0, 0, 0);
     walls[Env.DOWN]  = new WallDown(0, 0, 0);
-    for ( Exit exit : kExits ) {
+    for ( int index = 0 ; index < kExits.length ; index++ ) {
+      final Exit exit = kExits[index];
       final Wall wall = walls[ exit.mWallSide ];
       int shift = (wall == walls[Env.UP]) ? upShift : 0;
-      exit.mDoor = wall.addDoor(exit.mDoorXYPos+shift, exit.mDoorZPos, 
-                                exit.mFloorColour, exit.mFloorDrop);
+      setDoor(index, exit, 
+              wall.addDoor(exit.mDoorXYPos+shift, exit.mDoorZPos, 
+                           exit.mFloorColour, exit.mFloorDrop));
     }
     for ( Wall w : walls ) {
       if ( w != null ) spriteManager.addSprite(w);
@@ -166,10 +178,24 @@ public class RoomB12 extends Room {
     spriteManager.addSprite(new Fence(5,3,0,  5, Env.RIGHT, 1));
     spriteManager.addSprite(new Fence(5,3,0,  7, Env.UP, 1));
 
-    spriteManager.addSprite(new Picture(kBackdropImage, 17, 0, 100));
+    spriteManager.addSprite(new Picture(mBackdropImage, 17, 0, 100));
     
   } // Room.createSprites()
   
+  // hash of the room's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.add(hash, mBackdropImage != null);
+    if ( mBackdropImage != null ) {
+      final byte pixels[] = mBackdropImage.pixels();
+      for ( int k : kBackdropWater ) hash = StateHash.add(hash, pixels[k]);
+    }
+    return hash;
+    
+  } // Room.stateHash()
+  
   // room is no longer current, delete any unnecessary references 
   @Override
   public void discardResources() {
@@ -190,7 +216,7 @@ public class RoomB12 extends Room {
     }
 
     // animate the water
-    byte pixels[] = kBackdropImage.pixels();
+    byte pixels[] = mBackdropImage.pixels();
     for ( int n = 0 ; n < kWaterChangeRate ; n++ ) {
       int pixelNum = kBackdropWater[ Env.randomInt(kBackdropWater.length) ];
       pixels[pixelNum] = (Env.randomDouble() < kWaterFraction1) 
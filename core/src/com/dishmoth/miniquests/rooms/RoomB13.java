@@ -21,6 +21,7 @@ import com.dishmoth.miniquests.game.Room;
 import com.dishmoth.miniquests.game.Sounds;
 import com.dishmoth.miniquests.game.Splatter;
 import com.dishmoth.miniquests.game.SpriteManager;
+import com.dishmoth.miniquests.game.StateHash;
 import com.dishmoth.miniquests.game.StoryEvent;
 import com.dishmoth.miniquests.game.QuestStory;
 import com.dishmoth.miniquests.game.Triffid;
@@ -211,6 +212,25 @@ public class RoomB13 extends Room {
     
   } // Room.restore() 
   
+  // hash of the room's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.add(hash, mBossDone);
+    hash = StateHash.add(hash, mChestAppeared);
+    hash = StateHash.add(hash, mSentryTriffid1 != null);
+    hash = StateHash.add(hash, mSentryTriffid2 != null);
+    hash = StateHash.add(hash, mHelperTriffid != null);
+    hash = StateHash.add(hash, mBoss != null);
+    hash = StateHash.add(hash, mBossAppearTimer);
+    hash = StateHash.add(hash, mHelperTriffidTimer);
+    hash = StateHash.add(hash, mChest != null);
+    hash = StateHash.add(hash, mEndTimer);
+    return hash;
+    
+  } // Room.stateHash()
+  
   // create the player at the specified entry point to the room
   // (this function should also set the camera position) 
   @Override
@@ -16,6 +16,7 @@ import com.dishmoth.miniquests.game.Player;
 import com.dishmoth.miniquests.game.Room;
 import com.dishmoth.miniquests.game.Sounds;
 import com.dishmoth.miniquests.game.SpriteManager;
+import com.dishmoth.miniquests.game.StateHash;
 import com.dishmoth.miniquests.game.StoryEvent;
 
 // the room "C01"
@@ -184,6 +185,17 @@ public class RoomC01 extends Room {
 
   } // Room.createSprites()
   
+  // hash of the room's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.add(hash, mLift != null);
+    hash = StateHash.add(hash, mLiftTimer);
+    return hash;
+    
+  } // Room.stateHash()
+  
   // update the room (events may be added or processed)
   @Override
   public void advance(LinkedList<StoryEvent> storyEvents,
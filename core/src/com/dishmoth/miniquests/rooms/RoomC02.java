@@ -16,6 +16,7 @@ import com.dishmoth.miniquests.game.Player;
 import com.dishmoth.miniquests.game.Room;
 import com.dishmoth.miniquests.game.Sounds;
 import com.dishmoth.miniquests.game.SpriteManager;
+import com.dishmoth.miniquests.game.StateHash;
 import com.dishmoth.miniquests.game.StoryEvent;
 import com.dishmoth.miniquests.game.WallSwitch;
 
@@ -257,6 +258,21 @@ public class RoomC02 extends Room {
     
   } // Room.createSprites()
   
+  // hash of the room's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.add(hash, mLift1 != null);
+    hash = StateHash.add(hash, mLift2 != null);
+    hash = StateHash.add(hash, mLiftDirec);
+    hash = StateHash.add(hash, mLiftTimer);
+    hash = StateHash.add(hash, mSwitchHigh != null);
+    hash = StateHash.add(hash, mSwitchLow != null);
+    return hash;
+    
+  } // Room.stateHash()
+  
   // update the room (events may be added or processed)
   @Override
   public void advance(LinkedList<StoryEvent> storyEvents,
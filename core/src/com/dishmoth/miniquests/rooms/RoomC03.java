@@ -18,6 +18,7 @@ import com.dishmoth.miniquests.game.Room;
 import com.dishmoth.miniquests.game.Sounds;
 import com.dishmoth.miniquests.game.Splatter;
 import com.dishmoth.miniquests.game.SpriteManager;
+import com.dishmoth.miniquests.game.StateHash;
 import com.dishmoth.miniquests.game.StoryEvent;
 
 // the room "C03"
@@ -123,6 +124,17 @@ public class RoomC03 extends Room {
     
   } // Room.createSprites()
   
+  // hash of the room's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.addPresence(hash, mCritters);
+    hash = StateHash.add(hash, mRespawnTimers);
+    return hash;
+    
+  } // Room.stateHash()
+  
   // room is no longer current, delete any unnecessary references 
   @Override
   public void discardResources() {
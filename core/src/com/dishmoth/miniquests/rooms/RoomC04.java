@@ -19,6 +19,7 @@ import com.dishmoth.miniquests.game.Player;
 import com.dishmoth.miniquests.game.Room;
 import com.dishmoth.miniquests.game.Sounds;
 import com.dishmoth.miniquests.game.SpriteManager;
+import com.dishmoth.miniquests.game.StateHash;
 import com.dishmoth.miniquests.game.StoryEvent;
 import com.dishmoth.miniquests.game.QuestStory;
 import com.dishmoth.miniquests.game.WallSwitch;
@@ -156,6 +157,29 @@ public class RoomC04 extends Room {
     
   } // Room.restore() 
   
+  // hash of the room's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.add(hash, mBlocks != null);
+    hash = StateHash.add(hash, mBlockColours);
+    hash = StateHash.add(hash, mPath1 != null);
+    hash = StateHash.add(hash, mPath2 != null);
+    hash = StateHash.add(hash, mPathDone1);
+    hash = StateHash.add(hash, mPathDone2);
+    hash = StateHash.add(hash, mSwitch != null);
+    hash = StateHash.add(hash, mCutSceneTimer);
+    hash = StateHash.add(hash, mLift != null);
+    hash = StateHash.add(hash, mLiftTimer);
+    hash = StateHash.add(hash, mLiftAtTop);
+    hash = StateHash.add(hash, mLiftChangeXPos);
+    hash = StateHash.add(hash, mLiftChangeYPos);
+    hash = StateHash.add(hash, mLiftChangeDirec);
+    return hash;
+    
+  } // Room.stateHash()
+  
   // record of where the player was on the lift when the room changed 
   // (note: these function may be called by RoomC11)
   public int liftChangeXPos()  { return mLiftChangeXPos; }
@@ -19,6 +19,7 @@ import com.dishmoth.miniquests.game.Player;
 import com.dishmoth.miniquests.game.Room;
 import com.dishmoth.miniquests.game.Sounds;
 import com.dishmoth.miniquests.game.SpriteManager;
+import com.dishmoth.miniquests.game.StateHash;
 import com.dishmoth.miniquests.game.StoryEvent;
 import com.dishmoth.miniquests.game.QuestStory;
 
@@ -131,6 +132,21 @@ public class RoomC07 extends Room {
     
   } // Room.restore() 
   
+  // hash of the room's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.add(hash, mFirstPath != null);
+    hash = StateHash.add(hash, mSecondPath != null);
+    hash = StateHash.add(hash, mFirstDoorOpen);
+    hash = StateHash.add(hash, mSecondDoorOpen);
+    hash = StateHash.add(hash, mThirdDoorOpen);
+    hash = StateHash.add(hash, mTimer);
+    return hash;
+    
+  } // Room.stateHash()
+  
   // whether the path is complete
   // (note: this function may be called by RoomC09)
   public boolean firstPathComplete() { return mSecondDoorOpen; }
@@ -163,8 +179,8 @@ public class RoomC07 extends Room {
     spriteManager.addSprite(new BlockArray(kBlocks, kBlockColours, 0,0,-2));
 
     if ( !mFirstDoorOpen ) {
-      kExits[1].mDoor.setClosed(true);
-      kExits[2].mDoor.setClosed(true);
+      door(1).setClosed(true);
+      door(2).setClosed(true);
       Critter critters[] = { new Critter(5, 7, 0, Env.RIGHT, 
                                          new CritterTrack(kGlowPath1, 0,7)),
                              new Critter(2, 2, 0, Env.LEFT, 
@@ -197,11 +213,11 @@ public class RoomC07 extends Room {
       }
       spriteManager.addSprite(mSecondPath);
     } else {
-      kExits[3].mDoor.setClosed(true);      
+      door(3).setClosed(true);      
     }
 
     if ( !mThirdDoorOpen ) {
-      kExits[4].mDoor.setClosed(true);
+      door(4).setClosed(true);
     }
     
     mTimer = 0;
@@ -228,8 +244,8 @@ public class RoomC07 extends Room {
           mTimer = kFirstDoorDelay;
         } else if ( --mTimer == 0 ) {
           mFirstDoorOpen = true;
-          kExits[1].mDoor.setClosed(false);
-          kExits[2].mDoor.setClosed(false);
+          door(1).setClosed(false);
+          door(2).setClosed(false);
           Env.sounds().play(Sounds.SUCCESS);
           storyEvents.add(new QuestStory.EventSaveGame());
         }
@@ -239,14 +255,14 @@ public class RoomC07 extends Room {
     // check the first path
     if ( mFirstPath != null && !mSecondDoorOpen && mFirstPath.complete() ) {
       mSecondDoorOpen = true;
-      //kExits[2].mDoor.setClosed(false);
+      //door(2).setClosed(false);
       //Env.sounds().play(Sounds.SUCCESS);
     }
     
     // check the second path
     if ( mSecondPath != null && !mThirdDoorOpen && mSecondPath.complete() ) {
       mThirdDoorOpen = true;
-      kExits[4].mDoor.setClosed(false);
+      door(4).setClosed(false);
       Env.sounds().play(Sounds.SUCCESS);
       storyEvents.add(new QuestStory.EventSaveGame());
     }
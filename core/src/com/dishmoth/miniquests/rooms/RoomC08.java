@@ -24,6 +24,7 @@ import com.dishmoth.miniquests.game.Sounds;
 import com.dishmoth.miniquests.game.Splatter;
 import com.dishmoth.miniquests.game.Sprite;
 import com.dishmoth.miniquests.game.SpriteManager;
+import com.dishmoth.miniquests.game.StateHash;
 import com.dishmoth.miniquests.game.StoryEvent;
 import com.dishmoth.miniquests.game.QuestStory;
 
@@ -189,6 +190,27 @@ public class RoomC08 extends Room {
     
   } // Room.restore() 
   
+  // hash of the room's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.add(hash, mSwitchDone);
+    hash = StateHash.add(hash, mFlameDone);
+    hash = StateHash.add(hash, mPathDone);
+    hash = StateHash.add(hash, mEnemyTimer);
+    hash = StateHash.add(hash, mEnemyColour);
+    hash = StateHash.add(hash, mFlame != null);
+    hash = StateHash.add(hash, mFlameColour);
+    hash = StateHash.add(hash, mFlameRestartTimer);
+    hash = StateHash.addPresence(hash, mFlameBlocks);
+    hash = StateHash.add(hash, mFlameBlocksTimer);
+    hash = StateHash.add(hash, mPath != null);
+    hash = StateHash.add(hash, mProgress);
+    return hash;
+    
+  } // Room.stateHash()
+  
   // whether the path is complete
   // (note: this function may be called by RoomC07 and RoomC09)
   public boolean pathComplete() { return mPathDone; }
@@ -251,7 +273,7 @@ public class RoomC08 extends Room {
       mPath = new GlowPath(kGlowPath, -1,0,4, kPathColour);
       mPath.setComplete();
       spriteManager.addSprite(mPath);
-      kExits[1].mDoor.setClosed(true);
+      door(1).setClosed(true);
     } else {
       mPath = null;
     }
@@ -362,7 +384,7 @@ public class RoomC08 extends Room {
     if ( mFlameDone && !mPathDone && mPath == null && 
          mFlameRestartTimer == 0 && mPlayer != null && 
          mPlayer.getXPos() == 8 && mPlayer.getYPos() == 4 ) {
-      kExits[1].mDoor.setClosed(true);
+      door(1).setClosed(true);
       Env.sounds().play(Sounds.GATE);
       mPath = new GlowPath(kGlowPath, -1,0,4, kPathColour);
       spriteManager.addSprite(mPath);
@@ -20,6 +20,7 @@ import com.dishmoth.miniquests.game.Room;
 import com.dishmoth.miniquests.game.Sounds;
 import com.dishmoth.miniquests.game.Spinner;
 import com.dishmoth.miniquests.game.SpriteManager;
+import com.dishmoth.miniquests.game.StateHash;
 import com.dishmoth.miniquests.game.StoryEvent;
 import com.dishmoth.miniquests.game.QuestStory;
 
@@ -130,6 +131,19 @@ public class RoomC09 extends Room {
     
   } // Room.restore() 
   
+  // hash of the room's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.add(hash, mPathDone);
+    hash = StateHash.add(hash, mPath != null);
+    hash = StateHash.addPresence(hash, mSpinners);
+    hash = StateHash.add(hash, mSpinnerTimer);
+    return hash;
+    
+  } // Room.stateHash()
+  
   // create the player at the specified entry point to the room
   // (this function should also set the camera position) 
   @Override
@@ -161,7 +175,7 @@ public class RoomC09 extends Room {
     RoomC08 roomRight = (RoomC08)findRoom(RoomC08.NAME);
     assert( roomRight != null );
     boolean doorLocked = roomRight.pathComplete();
-    if ( doorLocked ) kExits[2].mDoor.setClosed(true);
+    if ( doorLocked ) door(2).setClosed(true);
     
     RoomC07 roomDown = (RoomC07)findRoom(RoomC07.NAME);
     assert( roomDown != null );
@@ -175,7 +189,7 @@ public class RoomC09 extends Room {
     }
   
     if ( !mPathDone ) {
-      kExits[1].mDoor.setClosed(true);
+      door(1).setClosed(true);
     }
     
     mSpinners = new Spinner[]{ new Spinner(5, 0, 0, false),
@@ -218,7 +232,7 @@ public class RoomC09 extends Room {
     // check the path
     if ( !mPathDone && mPath != null && mPath.complete() ) {
       mPathDone = true;
-      kExits[1].mDoor.setClosed(false);
+      door(1).setClosed(false);
       Env.sounds().play(Sounds.SUCCESS);
       storyEvents.add(new QuestStory.EventSaveGame());
     }
@@ -19,6 +19,7 @@ import com.dishmoth.miniquests.game.Player;
 import com.dishmoth.miniquests.game.Room;
 import com.dishmoth.miniquests.game.Sounds;
 import com.dishmoth.miniquests.game.SpriteManager;
+import com.dishmoth.miniquests.game.StateHash;
 import com.dishmoth.miniquests.game.StoryEvent;
 import com.dishmoth.miniquests.game.QuestStory;
 
@@ -108,6 +109,17 @@ public class RoomC10 extends Room {
     
   } // Room.restore() 
   
+  // hash of the room's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.add(hash, mPathDone);
+    hash = StateHash.add(hash, mPath != null);
+    return hash;
+    
+  } // Room.stateHash()
+  
   // create the player at the specified entry point to the room
   // (this function should also set the camera position) 
   @Override
@@ -139,7 +151,7 @@ public class RoomC10 extends Room {
     if ( mPathDone ) {
       mPath.setComplete();
     } else {
-      kExits[1].mDoor.setClosed(true);
+      door(1).setClosed(true);
     }
     spriteManager.addSprite(mPath);
     
@@ -164,7 +176,7 @@ public class RoomC10 extends Room {
     // check the path
     if ( !mPathDone && mPath.complete() ) {
       mPathDone = true;
-      kExits[1].mDoor.setClosed(false);
+      door(1).setClosed(false);
       Env.sounds().play(Sounds.SUCCESS);
       storyEvents.add(new QuestStory.EventSaveGame());
     }
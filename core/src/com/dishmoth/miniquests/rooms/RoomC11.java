@@ -22,6 +22,7 @@ import com.dishmoth.miniquests.game.Room;
 import com.dishmoth.miniquests.game.Sounds;
 import com.dishmoth.miniquests.game.Sprite;
 import com.dishmoth.miniquests.game.SpriteManager;
+import com.dishmoth.miniquests.game.StateHash;
 import com.dishmoth.miniquests.game.StoryEvent;
 import com.dishmoth.miniquests.game.QuestStory;
 
@@ -192,6 +193,24 @@ public class RoomC11 extends Room {
     
   } // Room.restore() 
   
+  // hash of the room's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.addPresence(hash, mBlocks);
+    hash = StateHash.add(hash, mNumBlocksVisible);
+    hash = StateHash.add(hash, mPathDone);
+    hash = StateHash.add(hash, mPath != null);
+    hash = StateHash.add(hash, mNumSwitchesDone);
+    hash = StateHash.add(hash, mSwitch != null);
+    hash = StateHash.add(hash, mSwitchTimer);
+    hash = StateHash.add(hash, mTickTimer);
+    hash = StateHash.add(hash, mTickDelay);
+    return hash;
+    
+  } // Room.stateHash()
+  
   // whether the path is complete
   // (note: this function may be called by RoomC07)
   public boolean pathComplete() { return mPathDone; }
@@ -239,7 +258,7 @@ public class RoomC11 extends Room {
     if ( mPathDone ) {
       mPath.setComplete();
     } else {
-      kExits[1].mDoor.setClosed(true);
+      door(1).setClosed(true);
     }
     spriteManager.addSprite(mPath);
 
@@ -381,7 +400,7 @@ public class RoomC11 extends Room {
       mSwitchTimer = 0;
       mTickTimer = mTickDelay = 0;
       vanishBlocks(false);
-      kExits[1].mDoor.setClosed(false);
+      door(1).setClosed(false);
       Env.sounds().play(Sounds.SUCCESS);
       storyEvents.add(new QuestStory.EventSaveGame());
     }
@@ -18,6 +18,7 @@ import com.dishmoth.miniquests.game.Room;
 import com.dishmoth.miniquests.game.Sounds;
 import com.dishmoth.miniquests.game.Spinner;
 import com.dishmoth.miniquests.game.SpriteManager;
+import com.dishmoth.miniquests.game.StateHash;
 import com.dishmoth.miniquests.game.StoryEvent;
 
 // the room "C12"
@@ -126,6 +127,19 @@ public class RoomC12 extends Room {
     
   } // Room.restore() 
   
+  // hash of the room's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.addPresence(hash, mSpinners);
+    hash = StateHash.add(hash, mSpinnersVisible);
+    hash = StateHash.add(hash, mPathDone);
+    hash = StateHash.add(hash, mPath != null);
+    return hash;
+    
+  } // Room.stateHash()
+  
   // whether the path is complete
   // (note: this function may be called by RoomC13)
   public boolean pathComplete() { return mPathDone; }
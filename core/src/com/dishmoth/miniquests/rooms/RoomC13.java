@@ -18,6 +18,7 @@ import com.dishmoth.miniquests.game.Player;
 import com.dishmoth.miniquests.game.Room;
 import com.dishmoth.miniquests.game.Sounds;
 import com.dishmoth.miniquests.game.SpriteManager;
+import com.dishmoth.miniquests.game.StateHash;
 import com.dishmoth.miniquests.game.StoryEvent;
 import com.dishmoth.miniquests.game.QuestStory;
 import com.dishmoth.miniquests.game.WallSwitch;
@@ -189,6 +190,24 @@ public class RoomC13 extends Room {
     
   } // Room.restore() 
   
+  // hash of the room's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.add(hash, mPathDone);
+    hash = StateHash.add(hash, mLift != null);
+    hash = StateHash.add(hash, mLiftState);
+    hash = StateHash.add(hash, mLiftDirec);
+    hash = StateHash.add(hash, mLiftTimer);
+    hash = StateHash.add(hash, mSwitchLow != null);
+    hash = StateHash.add(hash, mSwitchHigh != null);
+    hash = StateHash.add(hash, mPath1 != null);
+    hash = StateHash.add(hash, mPath2 != null);
+    return hash;
+    
+  } // Room.stateHash()
+  
   // whether the double path is complete
   // (note: this function may be called by RoomC04)
   public boolean pathComplete() { return (mPathDone==2); }
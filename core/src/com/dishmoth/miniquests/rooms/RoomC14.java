@@ -21,6 +21,7 @@ import com.dishmoth.miniquests.game.Room;
 import com.dishmoth.miniquests.game.Sounds;
 import com.dishmoth.miniquests.game.Sprite;
 import com.dishmoth.miniquests.game.SpriteManager;
+import com.dishmoth.miniquests.game.StateHash;
 import com.dishmoth.miniquests.game.StoryEvent;
 import com.dishmoth.miniquests.game.WallSwitch;
 
@@ -183,6 +184,23 @@ public class RoomC14 extends Room {
     
   } // Room.restore() 
   
+  // hash of the room's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.add(hash, mLift != null);
+    hash = StateHash.add(hash, mLiftTimer);
+    hash = StateHash.add(hash, mLiftAtTop);
+    hash = StateHash.add(hash, mSwitch != null);
+    hash = StateHash.addPresence(hash, mCritters);
+    hash = StateHash.add(hash, mUnlockTimer);
+    hash = StateHash.add(hash, mPlayerDeathTimer);
+    hash = StateHash.add(hash, mComplete);
+    return hash;
+    
+  } // Room.stateHash()
+  
   // remove the player sprite from the room
   // (special behaviour: the player may be null already, since the respawn
   // in this case can also require a change of room)
@@ -230,7 +248,7 @@ public class RoomC14 extends Room {
     spriteManager.addSprite( new BlockArray(kDoorBlocks, 
                                             kBlockColours, 8,4,10) );
 
-    if ( !mComplete ) kExits[0].mDoor.setClosed(true);
+    if ( !mComplete ) door(0).setClosed(true);
 
     mLift = new BlockArray(kLiftBlocks, kBlockColours, 1,1,kLiftZMin);
     spriteManager.addSprite(mLift);
@@ -375,7 +393,7 @@ public class RoomC14 extends Room {
     // unlock the door
     if ( mUnlockTimer > 0 ) {
       if ( --mUnlockTimer == 0 ) {
-        kExits[0].mDoor.setClosed(false);
+        door(0).setClosed(false);
         mSwitch.setState(0);
         Env.sounds().play( Sounds.SUCCESS );
         mComplete = true;
@@ -21,6 +21,7 @@ import com.dishmoth.miniquests.game.Player;
 import com.dishmoth.miniquests.game.Room;
 import com.dishmoth.miniquests.game.Sounds;
 import com.dishmoth.miniquests.game.SpriteManager;
+import com.dishmoth.miniquests.game.StateHash;
 import com.dishmoth.miniquests.game.StoryEvent;
 import com.dishmoth.miniquests.game.QuestStory;
 import com.dishmoth.miniquests.game.WallSwitch;
@@ -141,6 +142,24 @@ public class RoomC15 extends Room {
     
   } // Room.restore() 
   
+  // hash of the room's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.addPresence(hash, mSwitches);
+    hash = StateHash.add(hash, mSwitchTimer);
+    hash = StateHash.add(hash, mSwitchOrder);
+    hash = StateHash.add(hash, mSwitchesHit);
+    hash = StateHash.add(hash, mSwitchesDone);
+    hash = StateHash.add(hash, mGate != null);
+    hash = StateHash.add(hash, mBossDone);
+    hash = StateHash.add(hash, mPath != null);
+    hash = StateHash.add(hash, mPathDone);
+    return hash;
+    
+  } // Room.stateHash()
+  
   // whether the path is complete
   // (note: this function may be called by RoomC16)
   public boolean pathComplete() { return mPathDone; }
@@ -15,6 +15,7 @@ import com.dishmoth.miniquests.game.Exit;
 import com.dishmoth.miniquests.game.Player;
 import com.dishmoth.miniquests.game.Room;
 import com.dishmoth.miniquests.game.SpriteManager;
+import com.dishmoth.miniquests.game.StateHash;
 import com.dishmoth.miniquests.game.StoryEvent;
 import com.dishmoth.miniquests.game.Tree;
 import com.dishmoth.miniquests.game.TreesRight;
@@ -125,9 +126,10 @@ public class RoomD01 extends Room {
     spriteManager.addSprite(new TreesUp(0, 0, 0, 2));
 
     Wall wall = new WallDown(0, 0, 0);
-    for ( Exit exit : mExits ) {
-      exit.mDoor = wall.addDoor(exit.mDoorXYPos, exit.mDoorZPos, 
-                                exit.mFloorColour, exit.mFloorDrop);
+    for ( int index = 0 ; index < mExits.length ; index++ ) {
+      final Exit exit = mExits[index];
+      setDoor(index, exit, wall.addDoor(exit.mDoorXYPos, exit.mDoorZPos, 
+                                        exit.mFloorColour, exit.mFloorDrop));
     }
     spriteManager.addSprite(wall);
 
@@ -150,6 +152,16 @@ public class RoomD01 extends Room {
 
   } // Room.createSprites()
   
+  // hash of the room's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.add(hash, mExits);
+    return hash;
+    
+  } // Room.stateHash()
+  
   // room is no longer current, delete any unnecessary references 
   @Override
   public void discardResources() {
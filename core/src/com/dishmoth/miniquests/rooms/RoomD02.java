@@ -24,6 +24,7 @@ import com.dishmoth.miniquests.game.Sounds;
 import com.dishmoth.miniquests.game.Splatter;
 import com.dishmoth.miniquests.game.Sprite;
 import com.dishmoth.miniquests.game.SpriteManager;
+import com.dishmoth.miniquests.game.StateHash;
 import com.dishmoth.miniquests.game.StoryEvent;
 import com.dishmoth.miniquests.game.Tree;
 import com.dishmoth.miniquests.game.Wall;
@@ -252,6 +253,33 @@ public class RoomD02 extends Room {
     
   } // Room.restore() 
   
+  // hash of the room's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.add(hash, mExits);
+    hash = StateHash.add(hash, mMainBlocks != null);
+    hash = StateHash.add(hash, mRoomDone);
+    hash = StateHash.add(hash, mTwist);
+    hash = StateHash.add(hash, mTwistTimer);
+    hash = StateHash.add(hash, mTwistDirec);
+    hash = StateHash.add(hash, mLastXPos);
+    hash = StateHash.add(hash, mLastYPos);
+    hash = StateHash.add(hash, mLastEntryPoint);
+    hash = StateHash.add(hash, mDoorColour != null);
+    hash = StateHash.add(hash, mFountain != null);
+    hash = StateHash.add(hash, mWater != null);
+    hash = StateHash.add(hash, mFountainTimer);
+    hash = StateHash.add(hash, mInFountainXPos);
+    hash = StateHash.add(hash, mInFountainYPos);
+    hash = StateHash.add(hash, mInFountainDirec);
+    hash = StateHash.add(hash, mCutSceneTimer);
+    hash = StateHash.add(hash, mTriggerSaveEvent);
+    return hash;
+    
+  } // Room.stateHash()
+  
   // access to the room twist (0 to 3, anticlockwise)
   // (note: this function may be called by various other room)
   public int twist() { return mTwist; }
@@ -344,11 +372,8 @@ public class RoomD02 extends Room {
     if ( oldExits != null ) {
       for ( int k = 0 ; k < mainExits.length ; k++ ) {
         if ( mExits[k] != oldExits[k] ) {
-          mExits[k].mDoor = oldExits[k].mDoor;
-          oldExits[k].mDoor = null;
-  
           boolean closed = ( mExits[k].mDestination.length() == 0 );
-          mExits[k].mDoor.setClosed(closed);
+          door(k).setClosed(closed);
         }
       }
     }
@@ -714,7 +739,7 @@ public class RoomD02 extends Room {
   // colour the first doorway to match the adjoining room
   private void makeDoorColour(SpriteManager spriteManager) {
 
-    mExits[0].mDoor.setClosed(false);
+    door(0).setClosed(false);
     
     if ( mDoorColour != null ) spriteManager.removeSprite(mDoorColour);
     
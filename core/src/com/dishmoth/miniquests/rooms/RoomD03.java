@@ -17,6 +17,7 @@ import com.dishmoth.miniquests.game.Room;
 import com.dishmoth.miniquests.game.Sounds;
 import com.dishmoth.miniquests.game.Spikes;
 import com.dishmoth.miniquests.game.SpriteManager;
+import com.dishmoth.miniquests.game.StateHash;
 import com.dishmoth.miniquests.game.Statue;
 import com.dishmoth.miniquests.game.StoryEvent;
 import com.dishmoth.miniquests.game.QuestStory;
@@ -128,6 +129,21 @@ public class RoomD03 extends Room {
     
   } // Room.restore() 
   
+  // hash of the room's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.add(hash, mExits);
+    hash = StateHash.add(hash, mSpikesDone);
+    hash = StateHash.addPresence(hash, mStatues);
+    hash = StateHash.add(hash, mStatueTimers);
+    hash = StateHash.addPresence(hash, mSpikes);
+    hash = StateHash.add(hash, mSpikeTimer);
+    return hash;
+    
+  } // Room.stateHash()
+  
   // create the player at the specified entry point to the room
   // (this function should also set the camera position) 
   @Override
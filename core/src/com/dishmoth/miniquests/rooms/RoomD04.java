@@ -17,6 +17,7 @@ import com.dishmoth.miniquests.game.Player;
 import com.dishmoth.miniquests.game.Room;
 import com.dishmoth.miniquests.game.Sounds;
 import com.dishmoth.miniquests.game.SpriteManager;
+import com.dishmoth.miniquests.game.StateHash;
 import com.dishmoth.miniquests.game.Statue;
 import com.dishmoth.miniquests.game.StoryEvent;
 import com.dishmoth.miniquests.game.WallSwitch;
@@ -263,6 +264,26 @@ public class RoomD04 extends Room {
     
   } // Room.restore() 
   
+  // hash of the room's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.add(hash, mExits);
+    hash = StateHash.add(hash, mSwitchesDone);
+    hash = StateHash.add(hash, mRoomDone);
+    hash = StateHash.addPresence(hash, mSwitches);
+    hash = StateHash.addPresence(hash, mPaths);
+    hash = StateHash.add(hash, mPathTimers);
+    hash = StateHash.addPresence(hash, mStatues);
+    hash = StateHash.add(hash, mStatueTimers);
+    hash = StateHash.addPresence(hash, mStairs);
+    hash = StateHash.add(hash, mStairTimer);
+    hash = StateHash.add(hash, mHitTimers);
+    return hash;
+    
+  } // Room.stateHash()
+  
   // create the player at the specified entry point to the room
   // (this function should also set the camera position) 
   @Override
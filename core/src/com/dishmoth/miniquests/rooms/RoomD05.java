@@ -20,6 +20,7 @@ import com.dishmoth.miniquests.game.Spikes;
 import com.dishmoth.miniquests.game.Splatter;
 import com.dishmoth.miniquests.game.Sprite;
 import com.dishmoth.miniquests.game.SpriteManager;
+import com.dishmoth.miniquests.game.StateHash;
 import com.dishmoth.miniquests.game.Statue;
 import com.dishmoth.miniquests.game.StoryEvent;
 
@@ -201,6 +202,26 @@ public class RoomD05 extends Room {
     
   } // Room.createSprites()
   
+  // hash of the room's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.add(hash, mExits);
+    hash = StateHash.add(hash, mTimer);
+    hash = StateHash.add(hash, mFloorXPos);
+    hash = StateHash.add(hash, mFloorYPos);
+    hash = StateHash.add(hash, mFloorDirec);
+    hash = StateHash.add(hash, mFloorStartXPos);
+    hash = StateHash.add(hash, mFloorStartYPos);
+    hash = StateHash.add(hash, mFloorStartDirec);
+    hash = StateHash.add(hash, mFloorBlocks != null);
+    hash = StateHash.addPresence(hash, mStatues);
+    hash = StateHash.add(hash, mStatueTimers);
+    return hash;
+    
+  } // Room.stateHash()
+  
   // room is no longer current, delete any unnecessary references 
   @Override
   public void discardResources() {
@@ -20,6 +20,7 @@ import com.dishmoth.miniquests.game.Sounds;
 import com.dishmoth.miniquests.game.Spikes;
 import com.dishmoth.miniquests.game.Spook;
 import com.dishmoth.miniquests.game.SpriteManager;
+import com.dishmoth.miniquests.game.StateHash;
 import com.dishmoth.miniquests.game.StoryEvent;
 import com.dishmoth.miniquests.game.WallSwitch;
 
@@ -165,6 +166,23 @@ public class RoomD07 extends Room {
     
   } // Room.restore() 
   
+  // hash of the room's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.add(hash, mExits);
+    hash = StateHash.add(hash, mBridgeDone);
+    hash = StateHash.add(hash, mBridgeBlocks != null);
+    hash = StateHash.add(hash, mBridgeLength);
+    hash = StateHash.add(hash, mBridgeShrinkTimer);
+    hash = StateHash.add(hash, mSpook1Timer);
+    hash = StateHash.add(hash, mSpook2Timer);
+    hash = StateHash.add(hash, mSpook3Timer);
+    return hash;
+    
+  } // Room.stateHash()
+  
   // create the player at the specified entry point to the room
   // (this function should also set the camera position) 
   @Override
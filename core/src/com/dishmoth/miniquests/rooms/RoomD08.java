@@ -19,6 +19,7 @@ import com.dishmoth.miniquests.game.Room;
 import com.dishmoth.miniquests.game.Sounds;
 import com.dishmoth.miniquests.game.Spikes;
 import com.dishmoth.miniquests.game.SpriteManager;
+import com.dishmoth.miniquests.game.StateHash;
 import com.dishmoth.miniquests.game.StoryEvent;
 import com.dishmoth.miniquests.game.WallSwitch;
 
@@ -133,6 +134,21 @@ public class RoomD08 extends Room {
     
   } // Room.restore() 
   
+  // hash of the room's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.add(hash, mRoomDone);
+    hash = StateHash.addPresence(hash, mSwitches);
+    hash = StateHash.add(hash, mSwitchIndex);
+    hash = StateHash.add(hash, mResetTimer);
+    hash = StateHash.add(hash, mCurrentColour);
+    hash = StateHash.addPresence(hash, mSpikes);
+    return hash;
+    
+  } // Room.stateHash()
+  
   // create the player at the specified entry point to the room
   // (this function should also set the camera position) 
   @Override
@@ -21,6 +21,7 @@ import com.dishmoth.miniquests.game.Sounds;
 import com.dishmoth.miniquests.game.Spikes;
 import com.dishmoth.miniquests.game.Spook;
 import com.dishmoth.miniquests.game.SpriteManager;
+import com.dishmoth.miniquests.game.StateHash;
 import com.dishmoth.miniquests.game.Statue;
 import com.dishmoth.miniquests.game.StoryEvent;
 
@@ -151,6 +152,27 @@ public class RoomD12 extends Room {
     
   } // Room.restore() 
   
+  // hash of the room's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.add(hash, mExits);
+    hash = StateHash.add(hash, mRoomDone);
+    hash = StateHash.add(hash, mSpookTimer);
+    hash = StateHash.add(hash, mSpookKilled);
+    hash = StateHash.add(hash, mKillTimer);
+    hash = StateHash.add(hash, mScore);
+    hash = StateHash.add(hash, mScoreTimer);
+    hash = StateHash.add(hash, mEndTimer);
+    hash = StateHash.add(hash, mSpikeTimer);
+    hash = StateHash.add(hash, mStatueBlocks != null);
+    hash = StateHash.addPresence(hash, mStatues);
+    hash = StateHash.add(hash, mSpikes != null);
+    return hash;
+    
+  } // Room.stateHash()
+  
   // create the player at the specified entry point to the room
   // (this function should also set the camera position) 
   @Override
@@ -19,6 +19,7 @@ import com.dishmoth.miniquests.game.Room;
 import com.dishmoth.miniquests.game.Sounds;
 import com.dishmoth.miniquests.game.Spook;
 import com.dishmoth.miniquests.game.SpriteManager;
+import com.dishmoth.miniquests.game.StateHash;
 import com.dishmoth.miniquests.game.StoryEvent;
 
 // the room "D14"
@@ -144,6 +145,21 @@ public class RoomD14 extends Room {
     
   } // Room.restore() 
   
+  // hash of the room's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.add(hash, mSpookTimer);
+    hash = StateHash.add(hash, mSpookNum);
+    hash = StateHash.addPresence(hash, mBridgeBlocks);
+    hash = StateHash.add(hash, mBridgeLength);
+    hash = StateHash.add(hash, mBridgeTimer);
+    hash = StateHash.add(hash, mRoomDone);
+    return hash;
+    
+  } // Room.stateHash()
+  
   // create the player at the specified entry point to the room
   // (this function should also set the camera position) 
   @Override
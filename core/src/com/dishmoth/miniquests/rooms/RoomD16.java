@@ -17,6 +17,7 @@ import com.dishmoth.miniquests.game.Room;
 import com.dishmoth.miniquests.game.Sounds;
 import com.dishmoth.miniquests.game.Splatter;
 import com.dishmoth.miniquests.game.SpriteManager;
+import com.dishmoth.miniquests.game.StateHash;
 import com.dishmoth.miniquests.game.StoryEvent;
 import com.dishmoth.miniquests.game.Wall;
 import com.dishmoth.miniquests.game.WallLeft;
@@ -127,6 +128,19 @@ public class RoomD16 extends Room {
     
   } // Room.restore() 
   
+  // hash of the room's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.add(hash, mCompleted);
+    hash = StateHash.add(hash, mExits);
+    hash = StateHash.add(hash, mBarrier != null);
+    hash = StateHash.add(hash, mTimer);
+    return hash;
+    
+  } // Room.stateHash()
+  
   // access to the room's status
   // (note: this function may be called by room D02)
   public boolean completed() { return mCompleted; }
@@ -17,6 +17,7 @@ import com.dishmoth.miniquests.game.Player;
 import com.dishmoth.miniquests.game.Room;
 import com.dishmoth.miniquests.game.Sounds;
 import com.dishmoth.miniquests.game.SpriteManager;
+import com.dishmoth.miniquests.game.StateHash;
 import com.dishmoth.miniquests.game.Statue;
 import com.dishmoth.miniquests.game.StoryEvent;
 
@@ -172,6 +173,22 @@ public class RoomD17 extends Room {
     
   } // Room.restore() 
   
+  // hash of the room's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.add(hash, mRoomDone);
+    hash = StateHash.addPresence(hash, mStatues);
+    hash = StateHash.add(hash, mStatueTimers);
+    hash = StateHash.addPresence(hash, mBridgeBlocks);
+    hash = StateHash.add(hash, mBridgeLength);
+    hash = StateHash.add(hash, mWater != null);
+    hash = StateHash.add(hash, mWaterTimer);
+    return hash;
+    
+  } // Room.stateHash()
+  
   // whether this room is complete yet
   // (note: this function may be called by room D02)
   public boolean done() { return mRoomDone; }
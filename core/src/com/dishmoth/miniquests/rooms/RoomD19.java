@@ -21,6 +21,7 @@ import com.dishmoth.miniquests.game.Spook;
 import com.dishmoth.miniquests.game.SpookTrack;
 import com.dishmoth.miniquests.game.Sprite;
 import com.dishmoth.miniquests.game.SpriteManager;
+import com.dishmoth.miniquests.game.StateHash;
 import com.dishmoth.miniquests.game.StoryEvent;
 
 // the room "D19"
@@ -189,6 +190,23 @@ public class RoomD19 extends Room {
     
   } // Room.restore() 
   
+  // hash of the room's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.add(hash, mRoomDone);
+    hash = StateHash.add(hash, mWaterZapTimer);
+    hash = StateHash.add(hash, mPlayerDeathTimer);
+    hash = StateHash.add(hash, mSpookCount);
+    hash = StateHash.add(hash, mDeadSpookCount);
+    hash = StateHash.add(hash, mSpookTimer);
+    hash = StateHash.add(hash, mFinishTimer);
+    hash = StateHash.add(hash, mWater != null);
+    return hash;
+    
+  } // Room.stateHash()
+  
   // whether the room has been completed
   // (note: this function may be called by room D02)
   public boolean done() { return mRoomDone; }
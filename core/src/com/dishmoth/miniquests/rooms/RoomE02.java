@@ -27,6 +27,7 @@ import com.dishmoth.miniquests.game.SnakeBoss3;
 import com.dishmoth.miniquests.game.SnakeEgg;
 import com.dishmoth.miniquests.game.Sounds;
 import com.dishmoth.miniquests.game.SpriteManager;
+import com.dishmoth.miniquests.game.StateHash;
 import com.dishmoth.miniquests.game.StoryEvent;
 import com.dishmoth.miniquests.game.WallSwitch;
 import com.dishmoth.miniquests.game.ZoneSwitch;
@@ -394,6 +395,42 @@ public class RoomE02 extends Room {
     
   } // Room.restore() 
   
+  // hash of the room's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.add(hash, mStairs00a != null);
+    hash = StateHash.add(hash, mStairs00b != null);
+    hash = StateHash.add(hash, mStairSwitch00a != null);
+    hash = StateHash.add(hash, mStairSwitch00b != null);
+    hash = StateHash.add(hash, mStairs00Done);
+    hash = StateHash.add(hash, mStairs02a != null);
+    hash = StateHash.add(hash, mStairs02b != null);
+    hash = StateHash.add(hash, mStairs02c != null);
+    hash = StateHash.add(hash, mStairSwitch02a != null);
+    hash = StateHash.add(hash, mStairSwitch02b != null);
+    hash = StateHash.add(hash, mSwitch02a != null);
+    hash = StateHash.add(hash, mSwitch02b != null);
+    hash = StateHash.add(hash, mSwitch02aDone);
+    hash = StateHash.add(hash, mSwitch02bDone);
+    hash = StateHash.add(hash, mStairs02Done);
+    hash = StateHash.add(hash, mSnakeBridgeSwitch != null);
+    hash = StateHash.add(hash, mSnakeBridge != null);
+    hash = StateHash.add(hash, mSnakeBridgeBlock != null);
+    hash = StateHash.add(hash, mSwitches10Done);
+    hash = StateHash.add(hash, mSwitch10 != null);
+    hash = StateHash.addPresence(hash, mBridges10);
+    hash = StateHash.add(hash, mSnakeDone);
+    hash = StateHash.add(hash, mSnakeSwitchesDone);
+    hash = StateHash.addPresence(hash, mSnakeSwitches);
+    hash = StateHash.add(hash, mChest != null);
+    hash = StateHash.add(hash, mChestStairs != null);
+    hash = StateHash.add(hash, mEndTimer);
+    return hash;
+    
+  } // Room.stateHash()
+  
   // create the player at the specified entry point to the room
   // (this function should also set the camera position) 
   @Override
@@ -511,7 +548,7 @@ public class RoomE02 extends Room {
     if ( mSwitch02aDone ) {
       mSwitch02a.setState(1);
     } else {
-      kExits[1].mDoor.setClosed(true);
+      door(1).setClosed(true);
     }
     
     mSwitch02b = new WallSwitch(0, 2, Env.UP, 7, 8, 
@@ -689,7 +726,7 @@ public class RoomE02 extends Room {
         WallSwitch ws = ((WallSwitch.EventStateChange)event).mSwitch;
         if ( ws == mSwitch02a ) {
           assert( !mSwitch02aDone );
-          kExits[1].mDoor.setClosed(false);      
+          door(1).setClosed(false);      
           Env.sounds().play(Sounds.SUCCESS, 3);
           mSwitch02aDone = true;
         } else if ( ws == mSwitch02b ) {
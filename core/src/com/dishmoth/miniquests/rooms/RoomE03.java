@@ -27,6 +27,7 @@ import com.dishmoth.miniquests.game.Snake;
 import com.dishmoth.miniquests.game.SnakeEgg;
 import com.dishmoth.miniquests.game.Sounds;
 import com.dishmoth.miniquests.game.SpriteManager;
+import com.dishmoth.miniquests.game.StateHash;
 import com.dishmoth.miniquests.game.StoryEvent;
 import com.dishmoth.miniquests.game.WallSwitch;
 import com.dishmoth.miniquests.game.ZoneSwitch;
@@ -249,6 +250,36 @@ public class RoomE03 extends Room {
     
   } // Room.restore() 
   
+  // hash of the room's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.add(hash, mStairs10Done);
+    hash = StateHash.add(hash, mPath10 != null);
+    hash = StateHash.add(hash, mStairs10a != null);
+    hash = StateHash.add(hash, mStairs10b != null);
+    hash = StateHash.add(hash, mSwitch10 != null);
+    hash = StateHash.add(hash, mSnakeDone);
+    hash = StateHash.add(hash, mStairs12 != null);
+    hash = StateHash.add(hash, mStairSwitch12 != null);
+    hash = StateHash.addPresence(hash, mSwitches12);
+    hash = StateHash.add(hash, mRaftDone);
+    hash = StateHash.add(hash, mStairs20Done);
+    hash = StateHash.add(hash, mStairs20 != null);
+    hash = StateHash.add(hash, mStairSwitch20 != null);
+    hash = StateHash.add(hash, mGate21a != null);
+    hash = StateHash.add(hash, mGate21b != null);
+    hash = StateHash.add(hash, mGateSwitch21 != null);
+    hash = StateHash.add(hash, mGatesDone);
+    hash = StateHash.add(hash, mRaftSwitch22 != null);
+    hash = StateHash.add(hash, mRaft != null);
+    hash = StateHash.add(hash, mRaftTimer);
+    hash = StateHash.add(hash, mRaftForward);
+    return hash;
+    
+  } // Room.stateHash()
+  
   // create the player at the specified entry point to the room
   // (this function should also set the camera position) 
   @Override
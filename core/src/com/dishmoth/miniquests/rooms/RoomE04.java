@@ -25,6 +25,7 @@ import com.dishmoth.miniquests.game.Snake;
 import com.dishmoth.miniquests.game.SnakeEgg;
 import com.dishmoth.miniquests.game.Sounds;
 import com.dishmoth.miniquests.game.SpriteManager;
+import com.dishmoth.miniquests.game.StateHash;
 import com.dishmoth.miniquests.game.StoryEvent;
 import com.dishmoth.miniquests.game.WallSwitch;
 import com.dishmoth.miniquests.game.ZoneSwitch;
@@ -295,6 +296,31 @@ public class RoomE04 extends Room {
     
   } // Room.restore() 
   
+  // hash of the room's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.add(hash, mState01);
+    hash = StateHash.addPresence(hash, mBlocks01);
+    hash = StateHash.add(hash, mBarriers01 != null);
+    hash = StateHash.addPresence(hash, mSwitches01);
+    hash = StateHash.add(hash, mTimer01);
+    hash = StateHash.add(hash, mStairs02State);
+    hash = StateHash.add(hash, mDoor02Done);
+    hash = StateHash.add(hash, mStairs02 != null);
+    hash = StateHash.add(hash, mSwitch02a != null);
+    hash = StateHash.add(hash, mSwitch02b != null);
+    hash = StateHash.add(hash, mSwitch02c != null);
+    hash = StateHash.add(hash, mDoorSwitch02 != null);
+    hash = StateHash.add(hash, mStairs12Done);
+    hash = StateHash.add(hash, mSnakeDone);
+    hash = StateHash.add(hash, mStairs12 != null);
+    hash = StateHash.add(hash, mStairSwitch12 != null);
+    return hash;
+    
+  } // Room.stateHash()
+  
   // create the player at the specified entry point to the room
   // (this function should also set the camera position) 
   @Override
@@ -406,7 +432,7 @@ public class RoomE04 extends Room {
     if ( mDoor02Done ) {
       mDoorSwitch02.setState(1);
     } else {
-      kExits[2].mDoor.setClosed(true);
+      door(2).setClosed(true);
     }
     
     // zone (1,2)
@@ -459,7 +485,7 @@ public class RoomE04 extends Room {
     RoomE13 otherRoom = (RoomE13)findRoom(RoomE13.NAME);
     assert( otherRoom != null );
     if ( !otherRoom.completed() ) {
-      kExits[7].mDoor.setClosed(true);
+      door(7).setClosed(true);
     }
     
   } // Room.createSprites()
@@ -569,7 +595,7 @@ public class RoomE04 extends Room {
       if ( event instanceof WallSwitch.EventStateChange ) {
         assert( !mDoor02Done );
         mDoor02Done = true;
-        kExits[2].mDoor.setClosed(false);
+        door(2).setClosed(false);
         Env.sounds().play(Sounds.SUCCESS, 3);
         it.remove();
       }
@@ -20,6 +20,7 @@ import com.dishmoth.miniquests.game.Player;
 import com.dishmoth.miniquests.game.Room;
 import com.dishmoth.miniquests.game.Sprite;
 import com.dishmoth.miniquests.game.SpriteManager;
+import com.dishmoth.miniquests.game.StateHash;
 import com.dishmoth.miniquests.game.StoryEvent;
 
 // the room "E05"
@@ -241,6 +242,22 @@ public class RoomE05 extends Room {
     
   } // Room.createSprites()
   
+  // hash of the room's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.add(hash, mTimer);
+    hash = StateHash.add(hash, mCritterType.size());
+    for ( int value : mCritterType ) hash = StateHash.add(hash, value);
+    hash = StateHash.add(hash, mNextCritterType);
+    hash = StateHash.add(hash, mCritterRoute.size());
+    for ( int value : mCritterRoute ) hash = StateHash.add(hash, value);
+    hash = StateHash.add(hash, mNextCritterRoute);
+    return hash;
+    
+  } // Room.stateHash()
+  
   // room is no longer current, delete any unnecessary references 
   @Override
   public void discardResources() {
@@ -23,6 +23,7 @@ import com.dishmoth.miniquests.game.Room;
 import com.dishmoth.miniquests.game.Sounds;
 import com.dishmoth.miniquests.game.Sprite;
 import com.dishmoth.miniquests.game.SpriteManager;
+import com.dishmoth.miniquests.game.StateHash;
 import com.dishmoth.miniquests.game.StoryEvent;
 import com.dishmoth.miniquests.game.WallSwitch;
 
@@ -114,6 +115,32 @@ public class RoomE06 extends Room {
     
   } // Room.restore() 
   
+  // hash of the room's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.add(hash, mPuzzleImage != null);
+    if ( mPuzzle != null ) {
+      for ( int row[] : mPuzzle ) hash = StateHash.add(hash, row);
+    }
+    hash = StateHash.add(hash, mCursorPos);
+    hash = StateHash.add(hash, mCursorActive);
+    hash = StateHash.add(hash, mCursorTimer);
+    hash = StateHash.add(hash, mBullets != null);
+    if ( mBullets != null ) hash = StateHash.add(hash, mBullets.size());
+    hash = StateHash.add(hash, mBulletsPrev != null);
+    if ( mBulletsPrev != null ) {
+      hash = StateHash.add(hash, mBulletsPrev.size());
+    }
+    hash = StateHash.add(hash, mDone);
+    hash = StateHash.add(hash, mFloor != null);
+    hash = StateHash.add(hash, mGate != null);
+    hash = StateHash.addPresence(hash, mSwitches);
+    return hash;
+    
+  } // Room.stateHash()
+  
   // create the player at the specified entry point to the room
   // (this function should also set the camera position) 
   @Override
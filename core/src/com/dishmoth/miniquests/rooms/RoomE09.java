@@ -17,6 +17,7 @@ import com.dishmoth.miniquests.game.Player;
 import com.dishmoth.miniquests.game.Room;
 import com.dishmoth.miniquests.game.Sounds;
 import com.dishmoth.miniquests.game.SpriteManager;
+import com.dishmoth.miniquests.game.StateHash;
 import com.dishmoth.miniquests.game.StoryEvent;
 
 // the room "E09"
@@ -184,6 +185,18 @@ public class RoomE09 extends Room {
     
   } // Room.createSprites()
   
+  // hash of the room's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.addPresence(hash, mStairsLR);
+    hash = StateHash.addPresence(hash, mStairsUD);
+    hash = StateHash.add(hash, mState);
+    return hash;
+    
+  } // Room.stateHash()
+  
   // set the stair heights according to the current state
   private void updateStairs() {
 
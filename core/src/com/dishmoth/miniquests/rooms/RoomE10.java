@@ -19,6 +19,7 @@ import com.dishmoth.miniquests.game.Player;
 import com.dishmoth.miniquests.game.Room;
 import com.dishmoth.miniquests.game.Sounds;
 import com.dishmoth.miniquests.game.SpriteManager;
+import com.dishmoth.miniquests.game.StateHash;
 import com.dishmoth.miniquests.game.StoryEvent;
 import com.dishmoth.miniquests.game.ZoneSwitch;
 
@@ -159,6 +160,18 @@ public class RoomE10 extends Room {
     spriteManager.addSprite(flames);
     
   } // Room.createSprites()
+  
+  // hash of the room's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.add(hash, mStairs != null);
+    hash = StateHash.add(hash, mSwitchStart != null);
+    hash = StateHash.add(hash, mSwitchEnd != null);
+    return hash;
+    
+  } // Room.stateHash()
 
   // update the room (events may be added or processed)
   @Override
@@ -14,6 +14,7 @@ import com.dishmoth.miniquests.game.Exit;
 import com.dishmoth.miniquests.game.Player;
 import com.dishmoth.miniquests.game.Room;
 import com.dishmoth.miniquests.game.SpriteManager;
+import com.dishmoth.miniquests.game.StateHash;
 import com.dishmoth.miniquests.game.StoryEvent;
 
 // the room "E11"
@@ -114,6 +115,18 @@ public class RoomE11 extends Room {
 
   } // Room.createSprites()
   
+  // hash of the room's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.add(hash, mInMaze);
+    hash = StateHash.add(hash, mMazeXPos);
+    hash = StateHash.add(hash, mMazeYPos);
+    return hash;
+    
+  } // Room.stateHash()
+  
   // update the room (events may be added or processed)
   @Override
   public void advance(LinkedList<StoryEvent> storyEvents,
@@ -22,6 +22,7 @@ import com.dishmoth.miniquests.game.Room;
 import com.dishmoth.miniquests.game.SnakeEgg;
 import com.dishmoth.miniquests.game.Sounds;
 import com.dishmoth.miniquests.game.SpriteManager;
+import com.dishmoth.miniquests.game.StateHash;
 import com.dishmoth.miniquests.game.StoryEvent;
 
 // the room "E13"
@@ -128,6 +129,16 @@ public class RoomE13 extends Room {
     
   } // Room.restore() 
   
+  // hash of the room's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.add(hash, mDone);
+    return hash;
+    
+  } // Room.stateHash()
+  
   // access to the room's status
   // (note: this function may be called by room E04)
   public boolean completed() { return mDone; }
@@ -159,7 +170,7 @@ public class RoomE13 extends Room {
     spriteManager.addSprite( new BlockArray(kBlocksB, kBlockColours, 0,0,14) );
     
     if ( !mDone ) {
-      kExits[1].mDoor.setClosed(true);
+      door(1).setClosed(true);
       spriteManager.addSprite(new FloorSwitch(0, 9, 14, "lL", "XL"));
     }
     
@@ -207,7 +218,7 @@ public class RoomE13 extends Room {
         mDone = true;
         FloorSwitch s = ((FloorSwitch.EventStateChange)event).mSwitch;
         spriteManager.removeSprite(s);
-        kExits[1].mDoor.setClosed(false);
+        door(1).setClosed(false);
         Env.sounds().play(Sounds.SWITCH_ON);
         it.remove();
       }
@@ -18,6 +18,7 @@ import com.dishmoth.miniquests.game.Player;
 import com.dishmoth.miniquests.game.Room;
 import com.dishmoth.miniquests.game.Sounds;
 import com.dishmoth.miniquests.game.SpriteManager;
+import com.dishmoth.miniquests.game.StateHash;
 import com.dishmoth.miniquests.game.StoryEvent;
 
 // training room "Z01"
@@ -143,7 +144,7 @@ public class RoomZ01 extends Room {
 
     addBasicWalls(kExits, spriteManager);
 
-    kExits[0].mDoor.setClosed(true);
+    door(0).setClosed(true);
     mDoorTimer = kDoorDelay;
     
     mFlickerImage = new Mural(Env.UP, 1, 8, 
@@ -158,6 +159,18 @@ public class RoomZ01 extends Room {
     
   } // Room.createSprites()
   
+  // hash of the room's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.add(hash, mDoorTimer);
+    hash = StateHash.add(hash, mFlickerTimer);
+    hash = StateHash.add(hash, mFlickerImage != null);
+    return hash;
+    
+  } // Room.stateHash()
+  
   // room is no longer current, delete any unnecessary references 
   @Override
   public void discardResources() {
@@ -182,7 +195,7 @@ public class RoomZ01 extends Room {
     // unlock the door
     if ( mDoorTimer > 0 ) {
       if ( --mDoorTimer == 0 ) {
-        kExits[0].mDoor.setClosed(false);
+        door(0).setClosed(false);
         Env.sounds().play(Sounds.GATE);
       }
     }
@@ -18,6 +18,7 @@ import com.dishmoth.miniquests.game.Player;
 import com.dishmoth.miniquests.game.Room;
 import com.dishmoth.miniquests.game.Sounds;
 import com.dishmoth.miniquests.game.SpriteManager;
+import com.dishmoth.miniquests.game.StateHash;
 import com.dishmoth.miniquests.game.StoryEvent;
 import com.dishmoth.miniquests.game.WallSwitch;
 
@@ -191,7 +192,7 @@ public class RoomZ02 extends Room {
     spriteManager.addSprite( new BlockArray(kBlocks, kBlockColours, 0,0,-4) );
 
     addBasicWalls(kExits, spriteManager);
-    kExits[1].mDoor.setClosed(true);
+    door(1).setClosed(true);
   
     mStairBlocks = new BlockArray(kStairBlocks, kBlockColours, 6,0,-4);
     spriteManager.addSprite(mStairBlocks);
@@ -214,6 +215,24 @@ public class RoomZ02 extends Room {
     
   } // Room.createSprites()
   
+  // hash of the room's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.add(hash, mNumSwitchesDone);
+    hash = StateHash.add(hash, mStairBlocks != null);
+    hash = StateHash.add(hash, mStairsTimer);
+    hash = StateHash.add(hash, mStairsDone);
+    hash = StateHash.add(hash, mFloorSwitchA != null);
+    hash = StateHash.add(hash, mFloorSwitchB != null);
+    hash = StateHash.add(hash, mWallSwitch != null);
+    hash = StateHash.add(hash, mEntranceTimer);
+    hash = StateHash.add(hash, mFlickerTimer);
+    return hash;
+    
+  } // Room.stateHash()
+  
   // room is no longer current, delete any unnecessary references 
   @Override
   public void discardResources() {
@@ -256,7 +275,7 @@ public class RoomZ02 extends Room {
         assert( mNumSwitchesDone == 1 );
         mWallSwitch.setState(2);
         mNumSwitchesDone = 2;
-        kExits[1].mDoor.setClosed(false);
+        door(1).setClosed(false);
         Env.sounds().play(Sounds.SUCCESS, 7);
         it.remove();
       }
@@ -311,7 +330,7 @@ public class RoomZ02 extends Room {
     // shut the entrance door
     if ( mEntranceTimer > 0 ) {
       if ( --mEntranceTimer == 0 ) {
-        kExits[0].mDoor.setClosed(true);
+        door(0).setClosed(true);
         Env.sounds().play(Sounds.GATE);
       }
     }
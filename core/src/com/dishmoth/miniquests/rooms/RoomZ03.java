@@ -18,6 +18,7 @@ import com.dishmoth.miniquests.game.Player;
 import com.dishmoth.miniquests.game.Room;
 import com.dishmoth.miniquests.game.Sounds;
 import com.dishmoth.miniquests.game.SpriteManager;
+import com.dishmoth.miniquests.game.StateHash;
 import com.dishmoth.miniquests.game.StoryEvent;
 
 // training room "Z03"
@@ -151,7 +152,7 @@ public class RoomZ03 extends Room {
     spriteManager.addSprite( new BlockArray(kBlocks, kBlockColours, 0,0,-4) );
 
     addBasicWalls(kExits, spriteManager);
-    kExits[1].mDoor.setClosed(true);
+    door(1).setClosed(true);
 
     spriteManager.addSprite( new BlockArray(kExitBlocks, kBlockColours, 
                                             5,10,4) );
@@ -170,6 +171,16 @@ public class RoomZ03 extends Room {
     
   } // Room.createSprites()
   
+  // hash of the room's state (see StateHash)
+  @Override
+  public long stateHash() {
+    
+    long hash = super.stateHash();
+    hash = StateHash.add(hash, mEntranceTimer);
+    return hash;
+    
+  } // Room.stateHash()
+  
   // room is no longer current, delete any unnecessary references 
   @Override
   public void discardResources() {
@@ -190,23 +201,23 @@ public class RoomZ03 extends Room {
     }
 
     // open the final door
-    if ( kExits[1].mDoor.closed() && mPlayer.getYPos() < 10 &&
+    if ( door(1).closed() && mPlayer.getYPos() < 10 &&
          spriteManager.findSpriteOfType(Critter.class) == null ) {
-      kExits[1].mDoor.setClosed(false);
+      door(1).setClosed(false);
       Env.sounds().play(Sounds.SUCCESS, 3);
     }
     
     // shut the entrance door
     if ( mEntranceTimer > 0 ) {
       if ( --mEntranceTimer == 0 ) {
-        kExits[0].mDoor.setClosed(true);
+        door(0).setClosed(true);
         Env.sounds().play(Sounds.GATE);
       }
     }
 
     // shut the exit door
-    if ( mPlayer.getYPos() > 11 && !kExits[1].mDoor.closed() ) {
-        kExits[1].mDoor.setClosed(true);
+    if ( mPlayer.getYPos() > 11 && !door(1).closed() ) {
+        door(1).setClosed(true);
         Env.sounds().play(Sounds.GATE);
     }
     
@@ -0,0 +1,118 @@
+/*
+ *  PaletteBenchmark.java
+ *  Copyright (c) 2017 Simon Hern
+ *  Contact: dishmoth@yahoo.co.uk, dishmoth.com, github.com/dishmoth
+ */
+
+package com.dishmoth.miniquests.desktop;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Pixmap.Format;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.utils.GdxNativesLoader;
+import com.dishmoth.miniquests.game.EgaCanvas;
+import com.dishmoth.miniquests.game.EgaTools;
+import com.dishmoth.miniquests.game.Env;
+
+// times the conversion of a whole game screen into the RGB888 pixmap that
+// MiniQuestsGame uploads as a texture, the old way (setColor() and
+// drawPixel() for each pixel) and the new way (EgaTools.writeRgb888()
+// straight into the pixmap's bytes)
+// (no window or GL context is needed, just the native pixmap code)
+public class PaletteBenchmark {
+
+  // main method
+  // arguments: [number of frames]
+  public static void main(String args[]) {
+
+    final int numFrames = ( args.length > 0 ) ? Integer.parseInt(args[0])
+                                              : 20000;
+
+    GdxNativesLoader.load();
+
+    EgaCanvas screen = new EgaCanvas(Env.screenWidth(), Env.screenHeight());
+    Random random = new Random(0);
+    byte pixels[] = screen.pixels();
+    for ( int k = 0 ; k < pixels.length ; k++ ) {
+      pixels[k] = (byte)random.nextInt(EgaTools.NUM_EGA_COLOURS);
+    }
+
+    Pixmap oldPixmap = newPixmap(),
+           newPixmap = newPixmap();
+    for ( int pass = 0 ; pass < 2 ; pass++ ) {
+      final boolean report = ( pass == 1 ); // (first pass is a warm-up)
+      final double oldMicros = timeOldWay(screen, oldPixmap, numFrames),
+                   newMicros = timeNewWay(screen, newPixmap, numFrames);
+      if ( report ) {
+        System.out.println("setColor/drawPixel: "
+                           + String.format("%.2f", oldMicros)
+                           + " microsec per frame");
+        System.out.println("writeRgb888:        "
+                           + String.format("%.2f", newMicros)
+                           + " microsec per frame ("
+                           + String.format("%.1f", oldMicros/newMicros)
+                           + "x faster)");
+      }
+    }
+
+    final boolean same = oldPixmap.getPixels().equals(newPixmap.getPixels());
+    System.out.println("Pixmaps " + ( same ? "match" : "DIFFER" ));
+    oldPixmap.dispose();
+    newPixmap.dispose();
+
+  } // main()
+
+  // a pixmap like the one the game uses
+  private static Pixmap newPixmap() {
+
+    return new Pixmap(MathUtils.nextPowerOfTwo(Env.screenWidth()),
+                      MathUtils.nextPowerOfTwo(Env.screenHeight()),
+                      Format.RGB888);
+
+  } // newPixmap()
+
+  // convert the screen repeatedly, one pixel at a time (as the game used
+  // to), returning the average time per frame in microseconds
+  private static double timeOldWay(EgaCanvas screen, Pixmap pixmap,
+                                   int numFrames) {
+
+    final long startNanos = System.nanoTime();
+    byte pixels[] = screen.pixels();
+    for ( int frame = 0 ; frame < numFrames ; frame++ ) {
+      int pixIndex = 0;
+      for ( int iy = 0 ; iy < screen.height() ; iy++ ) {
+        for ( int ix = 0 ; ix < screen.width() ; ix++ ) {
+          int col = EgaTools.EGA_PALETTE[ pixels[pixIndex++] ];
+          int r = (col >> 16) & 0xFF,
+              g = (col >>  8) & 0xFF,
+              b = (col      ) & 0xFF;
+          pixmap.setColor(r/255.0f, g/255.0f, b/255.0f, 1.0f);
+          pixmap.drawPixel(ix, iy);
+        }
+      }
+    }
+    return (System.nanoTime() - startNanos)*1.0e-3/numFrames;
+
+  } // timeOldWay()
+
+  // convert the screen repeatedly, in bulk (as the game does now),
+  // returning the average time per frame in microseconds
+  private static double timeNewWay(EgaCanvas screen, Pixmap pixmap,
+                                   int numFrames) {
+
+    final long startNanos = System.nanoTime();
+    ByteBuffer bytes = pixmap.getPixels();
+    final int rowBytes = 3*pixmap.getWidth();
+    byte row[] = new byte[3*screen.width()];
+    for ( int frame = 0 ; frame < numFrames ; frame++ ) {
+      EgaTools.writeRgb888(screen, 0, screen.width()-1, 0, screen.height()-1,
+                           bytes, rowBytes, row);
+    }
+    return (System.nanoTime() - startNanos)*1.0e-3/numFrames;
+
+  } // timeNewWay()
+
+} // class PaletteBenchmark